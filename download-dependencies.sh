@@ -2,6 +2,7 @@
 
 # Script to download SQLite JDBC driver
 # This creates a lib directory and downloads the SQLite JDBC driver
+# With --jmh it also downloads JMH into lib/jmh for 'make jmh'
 
 echo "Setting up dependencies for the Auction System..."
 
@@ -29,6 +30,28 @@ else
     echo "✓ SQLite JDBC driver already exists at lib/${SQLITE_JAR}"
 fi
 
+# JMH and its runtime dependencies, only needed for the benchmarks in jmh/
+if [ "$1" = "--jmh" ]; then
+    JMH_VERSION="1.37"
+    mkdir -p lib/jmh
+    for ARTIFACT in \
+        "org/openjdk/jmh/jmh-core/${JMH_VERSION}/jmh-core-${JMH_VERSION}.jar" \
+        "org/openjdk/jmh/jmh-generator-annprocess/${JMH_VERSION}/jmh-generator-annprocess-${JMH_VERSION}.jar" \
+        "net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar" \
+        "org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar"; do
+        JAR=$(basename "${ARTIFACT}")
+        if [ ! -f "lib/jmh/${JAR}" ]; then
+            echo "Downloading ${JAR}..."
+            if ! curl -fL -o "lib/jmh/${JAR}" "https://repo1.maven.org/maven2/${ARTIFACT}"; then
+                rm -f "lib/jmh/${JAR}"
+                echo "✗ Failed to download ${JAR}"
+                exit 1
+            fi
+        fi
+    done
+    echo "✓ JMH ${JMH_VERSION} available in lib/jmh"
+fi
+
 echo ""
 echo "Dependencies setup complete!"
 echo "You can now compile the project using: ./compile.sh"
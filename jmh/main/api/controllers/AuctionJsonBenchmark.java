@@ -0,0 +1,64 @@
+package main.api.controllers;
+
+import java.util.concurrent.TimeUnit;
+import main.model.Auction;
+import main.model.Bid;
+import main.util.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * AuctionController.auctionToJson for one auction and for a 50-auction list
+ * page, written into the thread's JsonWriter as the controller does.
+ * In the controller's package because auctionToJson is package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuctionJsonBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private Auction[] auctions;
+
+    @Setup
+    public void setUp() {
+        auctions = new Auction[PAGE_SIZE];
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            auctions[i] = new Auction("auction-1700000000000-" + i, "Vintage Camera " + i,
+                "Works, \"mint\" lens, original box", "seller" + (i % 7), 89.99, 120, "electronics");
+            auctions[i].placeBid(new Bid(auctions[i].getAuctionId(), "bidder" + i, 100.0 + i * 2.5));
+        }
+    }
+
+    @Benchmark
+    public int singleAuction() {
+        try (JsonWriter json = JsonWriter.acquire()) {
+            AuctionController.auctionToJson(json, auctions[0]);
+            return json.size();
+        }
+    }
+
+    @Benchmark
+    public int auctionPage() {
+        try (JsonWriter json = JsonWriter.acquire()) {
+            json.beginArray();
+            for (Auction auction : auctions) {
+                AuctionController.auctionToJson(json, auction);
+            }
+            json.endArray();
+            return json.size();
+        }
+    }
+}
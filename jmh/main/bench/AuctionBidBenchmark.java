@@ -0,0 +1,73 @@
+package main.bench;
+
+import java.util.concurrent.TimeUnit;
+import main.model.Auction;
+import main.model.Bid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Auction.placeBid on one shared auction.
+ * Every bidder outbids the leader it last saw by one, as in a closing-second
+ * storm, so with several threads bids lose the compare-and-set race and are
+ * retried or rejected. The rejected case bids below the leader and measures
+ * the read-only path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuctionBidBenchmark {
+
+    private Auction auction;
+
+    @State(Scope.Thread)
+    public static class Bidder {
+        String userId;
+
+        @Setup
+        public void setUp() {
+            userId = "bidder-" + Thread.currentThread().getId();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        // A day long, so the auction cannot expire during a run
+        auction = new Auction("auction-bench", "Vintage Camera", "Benchmark item", "seller1", 1.0, 24 * 60, "bench");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean outbidUncontended(Bidder bidder) {
+        return outbid(bidder);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean outbidContended(Bidder bidder) {
+        return outbid(bidder);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean rejectedContended(Bidder bidder) {
+        return auction.placeBid(new Bid(auction.getAuctionId(), bidder.userId, 0.5));
+    }
+
+    private boolean outbid(Bidder bidder) {
+        return auction.placeBid(new Bid(auction.getAuctionId(), bidder.userId, auction.getCurrentHighestBid() + 1));
+    }
+}
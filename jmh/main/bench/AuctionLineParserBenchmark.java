@@ -0,0 +1,90 @@
+package main.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import main.server.AuctionLineParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The parsing done by AuctionClientHandler.read: AuctionLineParser over a
+ * read buffer holding one BID line, and holding 64 pipelined lines (BID on
+ * eight auctions with the odd WATCH), as a busy client's socket read does.
+ * Results are per buffer parsed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuctionLineParserBenchmark {
+
+    private static final int PIPELINED_LINES = 64;
+
+    private final AuctionLineParser parser = new AuctionLineParser();
+    private ByteBuffer singleBid;
+    private ByteBuffer pipelined;
+
+    private double amounts;
+    private int lines;
+
+    private final AuctionLineParser.LineListener listener = new AuctionLineParser.LineListener() {
+        @Override
+        public void onBid(String auctionId, double amount) {
+            amounts += amount;
+        }
+
+        @Override
+        public void onLine(AuctionLineParser.Command command, String line) {
+            lines += line.length();
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        singleBid = buffer("BID:auction-1700000000000-42:125.50\n");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < PIPELINED_LINES; i++) {
+            if (i % 16 == 15) {
+                text.append("WATCH:auction-1700000000000-").append(i % 8).append('\n');
+            } else {
+                text.append("BID:auction-1700000000000-").append(i % 8).append(':').append(100 + i).append(".25\n");
+            }
+        }
+        pipelined = buffer(text.toString());
+    }
+
+    private static ByteBuffer buffer(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        // Sized like the handler's read buffer, with the data at the front
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(8192, bytes.length));
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+
+    @Benchmark
+    public double singleBid() {
+        return parse(singleBid);
+    }
+
+    @Benchmark
+    public double pipelinedLines() {
+        return parse(pipelined);
+    }
+
+    private double parse(ByteBuffer buffer) {
+        buffer.position(0);
+        parser.parse(buffer, listener);
+        return amounts + lines;
+    }
+}
@@ -0,0 +1,61 @@
+package main.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import main.model.Auction;
+import main.model.Bid;
+import main.util.ConfigManager;
+import main.util.DatabaseManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DatabaseManager.saveBidWithTransaction: one outbidding bid per call,
+ * committed with the auction update in one transaction, against a
+ * temporary SQLite file (never data/auction_system.db).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BidTransactionBenchmark {
+
+    private File dbFile;
+    private DatabaseManager db;
+    private Auction auction;
+
+    @Setup
+    public void setUp() throws IOException {
+        dbFile = File.createTempFile("auction-jmh-", ".db");
+        ConfigManager.getInstance().setProperty("db.path", dbFile.getAbsolutePath());
+        db = DatabaseManager.getInstance();
+        // A day long, so the auction cannot expire during a run
+        auction = db.createAuction("Vintage Camera", "Benchmark item", "seller1", 1.0, 24 * 60, "bench");
+    }
+
+    @TearDown
+    public void tearDown() {
+        db.close();
+        for (String suffix : new String[] {"", "-wal", "-shm", "-journal"}) {
+            new File(dbFile.getPath() + suffix).delete();
+        }
+    }
+
+    @Benchmark
+    public boolean saveBidWithTransaction() {
+        Bid bid = new Bid(auction.getAuctionId(), "bidder42", auction.getCurrentHighestBid() + 1);
+        return db.saveBidWithTransaction(bid, auction);
+    }
+}
@@ -0,0 +1,48 @@
+package main.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import main.util.JsonReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * REST request body parsing with JsonReader.parseObject, which replaced the
+ * per-controller parseSimpleJson variants, for a bid body and a pretty-printed
+ * create-auction body with escapes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestParsingBenchmark {
+
+    private final byte[] bidBody =
+        "{\"auctionId\":\"auction-1700000000000-42\",\"userId\":\"bidder42\",\"amount\":125.50}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] createBody =
+        ("{\n  \"itemName\": \"Vintage Camera, boxed\",\n  \"itemDescription\": \"Works, \\\"mint\\\" lens\",\n"
+            + "  \"sellerId\": \"seller7\",\n  \"basePrice\": 89.99,\n  \"duration\": 120,\n"
+            + "  \"category\": \"electronics\"\n}").getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public Map<String, String> bidBody() {
+        return JsonReader.parseObject(bidBody);
+    }
+
+    @Benchmark
+    public Map<String, String> createAuctionBody() {
+        return JsonReader.parseObject(createBody);
+    }
+}
@@ -0,0 +1,85 @@
+package main.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import main.util.WebSocketUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * WebSocketUtil.encodeTextFrame and decodeTextFrame.
+ * Server frames are encoded unmasked from a String and from UTF-8 bytes (the
+ * broadcast path); client frames are decoded masked, as browsers send them.
+ * The sizes are a bid update (short length), an auction list page (16-bit
+ * length) and a large list (64-bit length).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebSocketFrameBenchmark {
+
+    @Param({"100", "4000", "70000"})
+    public int size;
+
+    private String message;
+    private byte[] messageBytes;
+    private byte[] maskedFrame;
+
+    @Setup
+    public void setUp() {
+        String update = "{\"type\":\"BID_UPDATE\",\"auctionId\":\"auction-1700000000000-42\","
+            + "\"bidder\":\"bidder42\",\"amount\":125.50,\"ts\":1700000000000},";
+        StringBuilder text = new StringBuilder(size);
+        while (text.length() < size) {
+            text.append(update);
+        }
+        text.setLength(size);
+        message = text.toString();
+        messageBytes = message.getBytes(StandardCharsets.UTF_8);
+        maskedFrame = mask(WebSocketUtil.encodeTextFrame(message));
+    }
+
+    /**
+     * The same frame with the mask bit set and its payload masked
+     */
+    private static byte[] mask(byte[] frame) {
+        int lengthCode = frame[1] & 0x7F;
+        int header = lengthCode == 126 ? 4 : lengthCode == 127 ? 10 : 2;
+        byte[] key = {0x37, (byte) 0xfa, 0x21, 0x3d};
+        byte[] masked = new byte[frame.length + 4];
+        System.arraycopy(frame, 0, masked, 0, header);
+        masked[1] |= (byte) 0x80;
+        System.arraycopy(key, 0, masked, header, 4);
+        for (int i = header; i < frame.length; i++) {
+            masked[i + 4] = (byte) (frame[i] ^ key[(i - header) & 3]);
+        }
+        return masked;
+    }
+
+    @Benchmark
+    public byte[] encodeString() {
+        return WebSocketUtil.encodeTextFrame(message);
+    }
+
+    @Benchmark
+    public byte[] encodeUtf8() {
+        return WebSocketUtil.encodeTextFrame(messageBytes, 0, messageBytes.length);
+    }
+
+    @Benchmark
+    public String decodeMasked() {
+        return WebSocketUtil.decodeTextFrame(maskedFrame);
+    }
+}
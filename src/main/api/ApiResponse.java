@@ -4,6 +4,9 @@ import com.sun.net.httpserver.HttpExchange;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import main.util.JsonReader;
+import main.util.JsonWriter;
 
 /**
  * Utility class for handling API responses
@@ -14,86 +17,123 @@ public class ApiResponse {
      * Send JSON response with CORS headers
      */
     public static void sendJson(HttpExchange exchange, int statusCode, String jsonResponse) throws IOException {
+        byte[] responseBytes = jsonResponse.getBytes(StandardCharsets.UTF_8);
+        send(exchange, statusCode, responseBytes, responseBytes.length);
+    }
+    
+    /**
+     * Send the writer's bytes as they are, without decoding or re-encoding
+     */
+    public static void sendJson(HttpExchange exchange, int statusCode, JsonWriter json) throws IOException {
+        send(exchange, statusCode, json.buffer(), json.size());
+    }
+    
+    /**
+     * Read the request body as a flat JSON object (see JsonReader.parseObject).
+     * Malformed JSON is answered with a 400 here, and null is returned.
+     */
+    public static Map<String, String> readJsonObject(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        try {
+            return JsonReader.parseObject(body);
+        } catch (JsonReader.MalformedJsonException e) {
+            sendError(exchange, 400, "Invalid JSON: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private static void send(HttpExchange exchange, int statusCode, byte[] body, int length) throws IOException {
         // Add CORS headers
         exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
         exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
         exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type, Authorization");
         exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
         
-        byte[] responseBytes = jsonResponse.getBytes(StandardCharsets.UTF_8);
-        exchange.sendResponseHeaders(statusCode, responseBytes.length);
+        exchange.sendResponseHeaders(statusCode, length);
         
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(responseBytes);
+            os.write(body, 0, length);
         }
     }
     
+    /**
+     * Start a {"success":true,"data":...} envelope; write the data value
+     * next, then finish with sendData
+     */
+    public static JsonWriter beginData(JsonWriter json) {
+        return json.beginObject().name("success").value(true).name("data");
+    }
+    
+    /**
+     * Close the envelope opened by beginData and send it
+     */
+    public static void sendData(HttpExchange exchange, int statusCode, JsonWriter json) throws IOException {
+        json.endObject();
+        sendJson(exchange, statusCode, json);
+    }
+    
     /**
      * Send success response
      */
     public static void sendSuccess(HttpExchange exchange, Object data) throws IOException {
-        String json = String.format("{\"success\":true,\"data\":%s}", toJson(data));
-        sendJson(exchange, 200, json);
+        sendEnvelope(exchange, 200, data);
     }
     
     /**
      * Send success response with raw JSON data (already formatted)
      */
     public static void sendSuccessRaw(HttpExchange exchange, String jsonData) throws IOException {
-        String json = String.format("{\"success\":true,\"data\":%s}", jsonData);
-        sendJson(exchange, 200, json);
+        sendEnvelopeRaw(exchange, 200, jsonData);
     }
     
     /**
      * Send error response
      */
     public static void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
-        String json = String.format("{\"success\":false,\"error\":\"%s\"}", escapeJson(message));
-        sendJson(exchange, statusCode, json);
+        try (JsonWriter json = JsonWriter.acquire()) {
+            json.beginObject().name("success").value(false).name("error").valueOrEmpty(message).endObject();
+            sendJson(exchange, statusCode, json);
+        }
     }
     
     /**
      * Send created response (201)
      */
     public static void sendCreated(HttpExchange exchange, Object data) throws IOException {
-        String json = String.format("{\"success\":true,\"data\":%s}", toJson(data));
-        sendJson(exchange, 201, json);
+        sendEnvelope(exchange, 201, data);
     }
     
     /**
      * Send created response with raw JSON data (already formatted)
      */
     public static void sendCreatedRaw(HttpExchange exchange, String jsonData) throws IOException {
-        String json = String.format("{\"success\":true,\"data\":%s}", jsonData);
-        sendJson(exchange, 201, json);
+        sendEnvelopeRaw(exchange, 201, jsonData);
     }
     
-    /**
-     * Simple JSON conversion for common types
-     */
-    private static String toJson(Object obj) {
-        if (obj == null) {
-            return "null";
-        }
-        if (obj instanceof String) {
-            return "\"" + escapeJson((String) obj) + "\"";
+    private static void sendEnvelopeRaw(HttpExchange exchange, int statusCode, String jsonData) throws IOException {
+        try (JsonWriter json = JsonWriter.acquire()) {
+            beginData(json).rawValue(jsonData);
+            sendData(exchange, statusCode, json);
         }
-        if (obj instanceof Number || obj instanceof Boolean) {
-            return obj.toString();
-        }
-        // For complex objects, assume they have toString() or are already JSON
-        return obj.toString();
     }
     
     /**
-     * Escape JSON special characters
+     * Simple JSON conversion for common types
      */
-    private static String escapeJson(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                  .replace("\"", "\\\"")
-                  .replace("\n", "\\n")
-                  .replace("\r", "\\r")
-                  .replace("\t", "\\t");
+    private static void sendEnvelope(HttpExchange exchange, int statusCode, Object data) throws IOException {
+        try (JsonWriter json = JsonWriter.acquire()) {
+            beginData(json);
+            if (data == null) {
+                json.nullValue();
+            } else if (data instanceof String) {
+                json.value((String) data);
+            } else if (data instanceof Number || data instanceof Boolean) {
+                json.rawValue(data.toString());
+            } else {
+                // For complex objects, assume they have toString() or are already JSON
+                json.rawValue(data.toString());
+            }
+            sendData(exchange, statusCode, json);
+        }
     }
 }
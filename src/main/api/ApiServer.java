@@ -1,26 +1,45 @@
 package main.api;
 
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import main.api.controllers.AuctionController;
 import main.api.controllers.AuthController;
 import main.api.controllers.BidController;
 import main.api.controllers.ChatController;
 import main.api.controllers.NotificationController;
 import main.util.AuctionTimerManager;
+import main.util.ConfigManager;
+import main.util.JsonWriter;
+import main.util.Logger;
+import main.util.Metrics;
 
 /**
  * REST API Server for Auction System
- * Provides HTTP endpoints for React frontend integration
+ * Provides HTTP endpoints for React frontend integration. Requests run on a
+ * fixed pool of api.thread.pool.size threads, or with api.executor=virtual
+ * on a thread of their own, with DatabaseThrottle limiting how many of them
+ * reach the database at once.
  */
 public class ApiServer {
+    private static final Logger LOG = Logger.get("ApiServer");
+
     private static final int API_PORT = 8081;
     private static final int BACKLOG = 0;
-    private static final int THREAD_POOL_SIZE = 10;
+    // Platform threads standing in for virtual ones only need small stacks
+    private static final long REQUEST_STACK_SIZE = 256 * 1024;
     
+    private final int port;
     private HttpServer server;
+    private ExecutorService executor;
     private AuctionController auctionController;
     private BidController bidController;
     private AuthController authController;
@@ -28,8 +47,14 @@ public class ApiServer {
     private NotificationController notificationController;
     
     public ApiServer() throws IOException {
+        this(API_PORT);
+    }
+    
+    public ApiServer(int port) throws IOException {
+        this.port = port;
+        
         // Initialize HTTP server
-        server = HttpServer.create(new InetSocketAddress(API_PORT), BACKLOG);
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
         
         // Initialize controllers
         auctionController = new AuctionController();
@@ -41,10 +66,65 @@ public class ApiServer {
         // Set up routes
         setupRoutes();
         
-        // Configure thread pool
-        server.setExecutor(Executors.newFixedThreadPool(THREAD_POOL_SIZE));
+        // Configure request threads
+        executor = createExecutor(ConfigManager.getInstance());
+        server.setExecutor(executor);
+        
+        LOG.info("REST API Server initialized on port {}", port);
+    }
+    
+    /**
+     * The request executor for api.executor: "fixed" (the default) or
+     * "virtual", one thread per request. Virtual threads need Java 21; on
+     * older runtimes each request gets a platform thread instead. Either way
+     * the per-request mode turns on the database permit limit, sized by
+     * api.db.permits (0 means one permit per pooled connection).
+     */
+    private static ExecutorService createExecutor(ConfigManager config) {
+        String mode = config.getString("api.executor");
+        if (!"virtual".equalsIgnoreCase(mode)) {
+            if (!"fixed".equalsIgnoreCase(mode)) {
+                LOG.warn("Unknown api.executor '{}', using the fixed pool", mode);
+            }
+            DatabaseThrottle.configure(0, 0);
+            int threads = config.getInt("api.thread.pool.size");
+            LOG.info("API requests run on a fixed pool of {} threads", threads);
+            return Executors.newFixedThreadPool(threads);
+        }
+        
+        int permits = config.getInt("api.db.permits");
+        if (permits <= 0) {
+            // The readers plus the single writer
+            permits = Math.max(1, config.getInt("db.pool.readers")) + 1;
+        }
+        DatabaseThrottle.configure(permits, config.getInt("api.db.permit.timeout.ms"));
         
-        System.out.println("[ApiServer] REST API Server initialized on port " + API_PORT);
+        ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+        if (virtualThreads != null) {
+            LOG.info("API requests run on virtual threads, {} at a time in the database", permits);
+            return virtualThreads;
+        }
+        LOG.warn("Virtual threads need Java 21 (running {}); using a platform thread per request",
+            System.getProperty("java.version"));
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(null, r, "ApiRequest-" + threadNumber.getAndIncrement(), REQUEST_STACK_SIZE);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+    
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() when the runtime has it,
+     * otherwise null; looked up reflectively so the code still builds on 17
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
     }
     
     /**
@@ -54,13 +134,15 @@ public class ApiServer {
         // CORS preflight handler
         server.createContext("/api/", new CorsHandler());
         
-        // Authentication endpoints
-        server.createContext("/api/auth/register", authController);
-        server.createContext("/api/auth/login", authController);
-        server.createContext("/api/auth/verify", authController);
-        server.createContext("/api/auth/update-profile", authController);
+        // Authentication endpoints (database-backed, so each runs inside a permit)
+        HttpHandler auth = DatabaseThrottle.wrap(authController);
+        server.createContext("/api/auth/register", auth);
+        server.createContext("/api/auth/login", auth);
+        server.createContext("/api/auth/verify", auth);
+        server.createContext("/api/auth/update-profile", auth);
         
-        // Auction endpoints
+        // Auction endpoints (served from memory; the controller takes a
+        // permit for the writes, including closing an expired auction on lookup)
         server.createContext("/api/auctions/seller", auctionController);
         server.createContext("/api/auctions", auctionController);
         server.createContext("/api/auctions/create", auctionController);
@@ -71,63 +153,84 @@ public class ApiServer {
         server.createContext("/api/bids/place", bidController);
         server.createContext("/api/bids/history", bidController);
         
-        // Chat endpoints
-        server.createContext("/api/chat/messages", exchange -> {
+        // Chat endpoints (database-backed, so each runs inside a permit)
+        server.createContext("/api/chat/messages", DatabaseThrottle.wrap(exchange -> {
             if ("GET".equals(exchange.getRequestMethod())) {
                 chatController.getMessages(exchange);
             } else {
                 ApiResponse.sendError(exchange, 405, "Method not allowed");
             }
-        });
-        server.createContext("/api/chat/buyers", exchange -> {
+        }));
+        server.createContext("/api/chat/buyers", DatabaseThrottle.wrap(exchange -> {
             if ("GET".equals(exchange.getRequestMethod())) {
                 chatController.getBuyers(exchange);
             } else {
                 ApiResponse.sendError(exchange, 405, "Method not allowed");
             }
-        });
-        server.createContext("/api/chat/mark-read", exchange -> {
+        }));
+        server.createContext("/api/chat/mark-read", DatabaseThrottle.wrap(exchange -> {
             if ("POST".equals(exchange.getRequestMethod())) {
                 chatController.markAsRead(exchange);
             } else {
                 ApiResponse.sendError(exchange, 405, "Method not allowed");
             }
-        });
+        }));
         
-        // Notification endpoints
-        server.createContext("/api/notifications", exchange -> {
+        // Notification endpoints (database-backed, so each runs inside a permit)
+        server.createContext("/api/notifications", DatabaseThrottle.wrap(exchange -> {
             if ("GET".equals(exchange.getRequestMethod())) {
                 notificationController.getNotifications(exchange);
             } else {
                 ApiResponse.sendError(exchange, 405, "Method not allowed");
             }
-        });
-        server.createContext("/api/notifications/unread-count", exchange -> {
+        }));
+        server.createContext("/api/notifications/unread-count", DatabaseThrottle.wrap(exchange -> {
             if ("GET".equals(exchange.getRequestMethod())) {
                 notificationController.getUnreadCount(exchange);
             } else {
                 ApiResponse.sendError(exchange, 405, "Method not allowed");
             }
-        });
-        server.createContext("/api/notifications/mark-read", exchange -> {
+        }));
+        server.createContext("/api/notifications/mark-read", DatabaseThrottle.wrap(exchange -> {
             if ("POST".equals(exchange.getRequestMethod())) {
                 notificationController.markAsRead(exchange);
             } else {
                 ApiResponse.sendError(exchange, 405, "Method not allowed");
             }
-        });
-        server.createContext("/api/notifications/mark-all-read", exchange -> {
+        }));
+        server.createContext("/api/notifications/mark-all-read", DatabaseThrottle.wrap(exchange -> {
             if ("POST".equals(exchange.getRequestMethod())) {
                 notificationController.markAllAsRead(exchange);
             } else {
                 ApiResponse.sendError(exchange, 405, "Method not allowed");
             }
-        });
+        }));
         
         // Health check endpoint
         server.createContext("/api/health", exchange -> {
-            String response = "{\"status\":\"ok\",\"timestamp\":" + System.currentTimeMillis() + "}";
-            ApiResponse.sendJson(exchange, 200, response);
+            try (JsonWriter json = JsonWriter.acquire()) {
+                json.beginObject()
+                    .name("status").value("ok")
+                    .name("timestamp").value(System.currentTimeMillis())
+                    .endObject();
+                ApiResponse.sendJson(exchange, 200, json);
+            }
+        });
+        
+        // Metrics in the Prometheus text format
+        server.createContext("/api/metrics", exchange -> {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                ApiResponse.sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+            StringBuilder text = new StringBuilder(8192);
+            Metrics.writePrometheus(text);
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain; version=0.0.4; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
         });
     }
     
@@ -140,8 +243,8 @@ public class ApiServer {
         // Initialize auction timers for active auctions
         AuctionTimerManager.getInstance().initializeActiveAuctionTimers();
         
-        System.out.println("[ApiServer] REST API Server started on http://localhost:" + API_PORT);
-        System.out.println("[ApiServer] API endpoints available at http://localhost:" + API_PORT + "/api/");
+        LOG.info("REST API Server started on http://localhost:{}", port);
+        LOG.info("API endpoints available at http://localhost:{}/api/", port);
     }
     
     /**
@@ -151,7 +254,13 @@ public class ApiServer {
         if (server != null) {
             AuctionTimerManager.getInstance().shutdown();
             server.stop(0);
-            System.out.println("[ApiServer] REST API Server stopped");
+            executor.shutdown();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            LOG.info("REST API Server stopped");
         }
     }
     
@@ -164,14 +273,14 @@ public class ApiServer {
             apiServer.start();
             
             // Keep server running
-            System.out.println("[ApiServer] Press Ctrl+C to stop the server");
+            LOG.info("Press Ctrl+C to stop the server");
             Thread.currentThread().join();
             
         } catch (IOException e) {
-            System.err.println("[ApiServer] Failed to start server: " + e.getMessage());
+            LOG.error("Failed to start server: {}", e.getMessage());
             e.printStackTrace();
         } catch (InterruptedException e) {
-            System.out.println("[ApiServer] Server interrupted");
+            LOG.info("Server interrupted");
         }
     }
 }
@@ -0,0 +1,127 @@
+package main.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import main.util.LatencyHistogram;
+import main.util.Metrics;
+
+/**
+ * Bounds how many API requests use the database at once.
+ * With a thread per request the HTTP executor no longer limits database
+ * concurrency, so requests take a permit around their database work, one
+ * per pooled connection. Permits are granted in arrival order; a request
+ * that gets none within the timeout is answered 503 instead of queueing
+ * on the connection pool. Until configured every request passes straight
+ * through, as with the fixed pool, whose thread count is the limit.
+ */
+public final class DatabaseThrottle {
+    private static final LatencyHistogram PERMIT_WAIT = Metrics.histogram("api_db_permit_wait_seconds",
+            "Time API requests wait for a database permit");
+    private static final Metrics.Counter PERMIT_TIMEOUTS = Metrics.counter("api_db_permit_timeouts_total",
+            "API requests answered 503 for want of a database permit");
+
+    private static volatile Semaphore permits;
+    private static volatile long timeoutMillis;
+
+    static {
+        Metrics.gauge("api_db_permits_available", "Database permits free for API requests",
+                () -> {
+                    Semaphore current = permits;
+                    return current != null ? current.availablePermits() : 0;
+                });
+    }
+
+    private DatabaseThrottle() {
+    }
+
+    /**
+     * A database permit held by one request. It goes back to the semaphore
+     * it was taken from, even if the limit was reconfigured meanwhile.
+     */
+    public static final class Permit {
+        // Handed out while the limit is off
+        private static final Permit NONE = new Permit(null);
+
+        private final Semaphore semaphore;
+
+        private Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        public void release() {
+            if (semaphore != null) {
+                semaphore.release();
+            }
+        }
+    }
+
+    /**
+     * Allow permitCount requests at the database at once, each waiting at
+     * most timeoutMillis for its permit; 0 permits turns the limit off.
+     * Permits already held are released to the limit they came from.
+     */
+    public static void configure(int permitCount, long timeoutMillis) {
+        DatabaseThrottle.timeoutMillis = timeoutMillis;
+        permits = permitCount > 0 ? new Semaphore(permitCount, true) : null;
+    }
+
+    public static boolean isEnabled() {
+        return permits != null;
+    }
+
+    /**
+     * Take a permit before database work. Returns null after answering the
+     * request with 503 when none came free in time; the permit returned
+     * otherwise must be released.
+     */
+    public static Permit acquire(HttpExchange exchange) throws IOException {
+        Semaphore current = permits;
+        if (current == null) {
+            return Permit.NONE;
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = current.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        PERMIT_WAIT.recordSince(start);
+        if (!acquired) {
+            PERMIT_TIMEOUTS.increment();
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            ApiResponse.sendError(exchange, 503, "Server busy, please retry");
+            return null;
+        }
+        return new Permit(current);
+    }
+
+    /**
+     * A handler that runs inside a permit. The request body is read before
+     * the permit is taken, so a slow upload does not hold one.
+     */
+    static HttpHandler wrap(HttpHandler handler) {
+        return exchange -> {
+            if (!isEnabled()) {
+                handler.handle(exchange);
+                return;
+            }
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            exchange.setStreams(new ByteArrayInputStream(body), null);
+            Permit permit = acquire(exchange);
+            if (permit == null) {
+                return;
+            }
+            try {
+                handler.handle(exchange);
+            } finally {
+                permit.release();
+            }
+        };
+    }
+}
@@ -3,27 +3,35 @@ package main.api.controllers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import main.api.ApiResponse;
+import main.api.DatabaseThrottle;
 import main.model.Auction;
+import main.server.AuctionIndex;
+import main.server.AuctionManager;
 import main.util.AuctionTimerManager;
-import main.util.DatabaseManager;
+import main.util.ConfigManager;
+import main.util.JsonWriter;
 
 /**
  * Controller for Auction-related API endpoints
  */
 public class AuctionController implements HttpHandler {
     
-    private final DatabaseManager dbManager;
+    private final AuctionManager auctionManager;
+    private final int defaultPageSize;
+    private final int maxPageSize;
     
     public AuctionController() {
-        this.dbManager = DatabaseManager.getInstance();
+        this.auctionManager = AuctionManager.getInstance();
+        ConfigManager config = ConfigManager.getInstance();
+        this.defaultPageSize = config.getInt("api.auctions.page.size");
+        this.maxPageSize = config.getInt("api.auctions.max.page.size");
     }
     
     @Override
@@ -69,11 +77,10 @@ public class AuctionController implements HttpHandler {
      * Create a new auction using Java NIO
      */
     private void handleCreateAuction(HttpExchange exchange) throws IOException {
-        // Read request body using NIO Channel
-        String requestBody = readRequestBodyNIO(exchange);
-        
-        // Parse JSON manually (simple parsing)
-        Map<String, String> params = parseSimpleJson(requestBody);
+        Map<String, String> params = ApiResponse.readJsonObject(exchange);
+        if (params == null) {
+            return;
+        }
         
         // Validate required fields
         String itemName = params.get("itemName");
@@ -93,21 +100,29 @@ public class AuctionController implements HttpHandler {
             long duration = Long.parseLong(durationStr);
             
             // Create auction
-            Auction auction = dbManager.createAuction(
-                itemName,
-                itemDescription != null ? itemDescription : "",
-                sellerId,
-                basePrice,
-                duration,
-                category
-            );
+            DatabaseThrottle.Permit permit = DatabaseThrottle.acquire(exchange);
+            if (permit == null) {
+                return;
+            }
+            Auction auction;
+            try {
+                auction = auctionManager.createAuction(
+                    itemName,
+                    itemDescription != null ? itemDescription : "",
+                    sellerId,
+                    basePrice,
+                    duration,
+                    category
+                );
+            } finally {
+                permit.release();
+            }
             
             if (auction != null) {
                 // Schedule expiration timer
                 AuctionTimerManager.getInstance().scheduleAuctionExpiration(auction);
                 
-                String json = auctionToJson(auction);
-                ApiResponse.sendCreatedRaw(exchange, json);
+                sendAuction(exchange, 201, auction);
             } else {
                 ApiResponse.sendError(exchange, 500, "Failed to create auction");
             }
@@ -118,44 +133,56 @@ public class AuctionController implements HttpHandler {
     }
     
     /**
-     * Read request body using Java NIO Channel
+     * GET /api/auctions/list or GET /api/auctions
+     * One page of auctions, newest first, served from the in-memory indexes.
+     * Query: limit, after (the previous page's nextCursor), status, category, sellerId
      */
-    private String readRequestBodyNIO(HttpExchange exchange) throws IOException {
-        ReadableByteChannel channel = Channels.newChannel(exchange.getRequestBody());
-        ByteBuffer buffer = ByteBuffer.allocate(8192);
-        StringBuilder requestBody = new StringBuilder();
+    private void handleListAuctions(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        AuctionIndex.Query query = new AuctionIndex.Query()
+            .category(params.get("category"))
+            .sellerId(params.get("sellerId"));
         
         try {
-            while (channel.read(buffer) > 0) {
-                buffer.flip();
-                requestBody.append(StandardCharsets.UTF_8.decode(buffer));
-                buffer.clear();
+            String status = params.get("status");
+            if (status != null) {
+                query.status(Auction.AuctionStatus.valueOf(status.toUpperCase(Locale.ROOT)));
             }
-        } finally {
-            channel.close();
+            String limit = params.get("limit");
+            query.limit(limit == null ? defaultPageSize : Math.min(Integer.parseInt(limit), maxPageSize));
+            query.after(params.get("after"));
+        } catch (IllegalArgumentException e) {
+            ApiResponse.sendError(exchange, 400, "Invalid status, limit or after parameter");
+            return;
         }
         
-        return requestBody.toString();
+        AuctionIndex.Page page = auctionManager.listAuctions(query);
+        try (JsonWriter json = JsonWriter.acquire()) {
+            ApiResponse.beginData(json).beginArray();
+            for (Auction auction : page.getAuctions()) {
+                auctionToJson(json, auction);
+            }
+            json.endArray().name("nextCursor").value(page.getNextCursor());
+            ApiResponse.sendData(exchange, 200, json);
+        }
     }
     
     /**
-     * GET /api/auctions/list or GET /api/auctions
-     * List all auctions
+     * Decode a query string into its parameters; the first occurrence wins
      */
-    private void handleListAuctions(HttpExchange exchange) throws IOException {
-        Collection<Auction> auctions = dbManager.getAllAuctions();
-        
-        // Convert to JSON array
-        StringBuilder jsonArray = new StringBuilder("[");
-        boolean first = true;
-        for (Auction auction : auctions) {
-            if (!first) jsonArray.append(",");
-            jsonArray.append(auctionToJson(auction));
-            first = false;
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
         }
-        jsonArray.append("]");
-        
-        ApiResponse.sendSuccessRaw(exchange, jsonArray.toString());
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                params.putIfAbsent(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
     }
     
     /**
@@ -166,11 +193,20 @@ public class AuctionController implements HttpHandler {
         String path = exchange.getRequestURI().getPath();
         String auctionId = path.substring(path.lastIndexOf('/') + 1);
         
-        Auction auction = dbManager.getAuction(auctionId);
+        // getAuction persists the close of an auction found expired
+        DatabaseThrottle.Permit permit = DatabaseThrottle.acquire(exchange);
+        if (permit == null) {
+            return;
+        }
+        Auction auction;
+        try {
+            auction = auctionManager.getAuction(auctionId);
+        } finally {
+            permit.release();
+        }
         
         if (auction != null) {
-            String json = auctionToJson(auction);
-            ApiResponse.sendSuccessRaw(exchange, json);
+            sendAuction(exchange, 200, auction);
         } else {
             ApiResponse.sendError(exchange, 404, "Auction not found");
         }
@@ -184,16 +220,28 @@ public class AuctionController implements HttpHandler {
         String path = exchange.getRequestURI().getPath();
         String auctionId = path.substring(path.lastIndexOf('/') - 36, path.lastIndexOf('/'));
         
-        // Verify auction exists
-        Auction auction = dbManager.getAuction(auctionId);
-        if (auction == null) {
-            ApiResponse.sendError(exchange, 404, "Auction not found");
+        // One permit for both: getAuction persists the close of an auction
+        // found expired
+        DatabaseThrottle.Permit permit = DatabaseThrottle.acquire(exchange);
+        if (permit == null) {
             return;
         }
-        
-        boolean deleted = dbManager.deleteAuction(auctionId);
+        boolean deleted;
+        try {
+            // Verify auction exists
+            Auction auction = auctionManager.getAuction(auctionId);
+            if (auction == null) {
+                ApiResponse.sendError(exchange, 404, "Auction not found");
+                return;
+            }
+            
+            deleted = auctionManager.deleteAuction(auctionId);
+        } finally {
+            permit.release();
+        }
         
         if (deleted) {
+            AuctionTimerManager.getInstance().cancelTimer(auctionId);
             ApiResponse.sendSuccessRaw(exchange, "{\"message\":\"Auction deleted successfully\"}");
         } else {
             ApiResponse.sendError(exchange, 500, "Failed to delete auction");
@@ -205,84 +253,56 @@ public class AuctionController implements HttpHandler {
      * Get auctions by seller
      */
     private void handleGetSellerAuctions(HttpExchange exchange) throws IOException {
-        String query = exchange.getRequestURI().getQuery();
+        String sellerId = parseQuery(exchange.getRequestURI().getRawQuery()).get("sellerId");
         
-        if (query == null || !query.contains("sellerId=")) {
+        if (sellerId == null) {
             ApiResponse.sendError(exchange, 400, "Missing sellerId parameter");
             return;
         }
         
-        String sellerId = query.split("sellerId=")[1].split("&")[0];
-        Collection<Auction> allAuctions = dbManager.getAllAuctions();
-        
-        // Filter auctions by sellerId
-        StringBuilder jsonArray = new StringBuilder("[");
-        boolean first = true;
-        for (Auction auction : allAuctions) {
-            if (auction.getSellerId().equals(sellerId)) {
-                if (!first) jsonArray.append(",");
-                jsonArray.append(auctionToJson(auction));
-                first = false;
-            }
-        }
-        jsonArray.append("]");
-        
-        ApiResponse.sendSuccessRaw(exchange, jsonArray.toString());
+        Collection<Auction> sellerAuctions = auctionManager.getAuctionsBySeller(sellerId);
+        sendAuctions(exchange, sellerAuctions);
     }
     
-    /**
-     * Convert Auction object to JSON string
-     */
-    private String auctionToJson(Auction auction) {
-        return String.format(
-            "{\"auctionId\":\"%s\",\"itemName\":\"%s\",\"itemDescription\":\"%s\"," +
-            "\"sellerId\":\"%s\",\"basePrice\":%.2f,\"currentHighestBid\":%.2f," +
-            "\"currentHighestBidder\":%s,\"status\":\"%s\",\"category\":\"%s\"," +
-            "\"createdTime\":%d,\"endTime\":%d,\"duration\":%d}",
-            auction.getAuctionId(),
-            escapeJson(auction.getItemName()),
-            escapeJson(auction.getItemDescription()),
-            auction.getSellerId(),
-            auction.getBasePrice(),
-            auction.getCurrentHighestBid(),
-            auction.getCurrentHighestBidder() != null ? "\"" + auction.getCurrentHighestBidder() + "\"" : "null",
-            auction.getStatus(),
-            auction.getCategory(),
-            auction.getCreatedTime(),
-            auction.getEndTime(),
-            auction.getDuration()
-        );
+    private void sendAuction(HttpExchange exchange, int statusCode, Auction auction) throws IOException {
+        try (JsonWriter json = JsonWriter.acquire()) {
+            auctionToJson(ApiResponse.beginData(json), auction);
+            ApiResponse.sendData(exchange, statusCode, json);
+        }
     }
     
     /**
-     * Simple JSON parser for basic key-value pairs
+     * Send auctions as a JSON array, encoded straight into the response buffer
      */
-    private Map<String, String> parseSimpleJson(String json) {
-        Map<String, String> result = new HashMap<>();
-        json = json.trim().replaceAll("^\\{|\\}$", "");
-        
-        String[] pairs = json.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-        for (String pair : pairs) {
-            String[] kv = pair.split(":", 2);
-            if (kv.length == 2) {
-                String key = kv[0].trim().replaceAll("^\"|\"$", "");
-                String value = kv[1].trim().replaceAll("^\"|\"$", "");
-                result.put(key, value);
+    private void sendAuctions(HttpExchange exchange, Collection<Auction> auctions) throws IOException {
+        try (JsonWriter json = JsonWriter.acquire()) {
+            ApiResponse.beginData(json).beginArray();
+            for (Auction auction : auctions) {
+                auctionToJson(json, auction);
             }
+            json.endArray();
+            ApiResponse.sendData(exchange, 200, json);
         }
-        
-        return result;
     }
     
     /**
-     * Escape JSON special characters
+     * Write Auction object as JSON (package-private for the JMH benchmarks)
      */
-    private String escapeJson(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                  .replace("\"", "\\\"")
-                  .replace("\n", "\\n")
-                  .replace("\r", "\\r")
-                  .replace("\t", "\\t");
+    static void auctionToJson(JsonWriter json, Auction auction) {
+        Auction.Leader leader = auction.getLeader();
+        json.beginObject()
+            .name("auctionId").value(auction.getAuctionId())
+            .name("itemName").valueOrEmpty(auction.getItemName())
+            .name("itemDescription").valueOrEmpty(auction.getItemDescription())
+            .name("sellerId").value(auction.getSellerId())
+            .name("basePrice").money(auction.getBasePrice())
+            .name("currentHighestBid").money(leader.getAmount())
+            .name("currentHighestBidder").value(leader.getBidder())
+            .name("status").value(auction.getStatus().toString())
+            .name("category").value(auction.getCategory())
+            .name("createdTime").value(auction.getCreatedTime())
+            .name("endTime").value(auction.getEndTime())
+            .name("duration").value(auction.getDuration())
+            .endObject();
     }
 }
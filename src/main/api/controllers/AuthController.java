@@ -5,21 +5,20 @@ import com.sun.net.httpserver.HttpHandler;
 import main.api.ApiResponse;
 import main.model.User;
 import main.util.DatabaseManager;
+import main.util.JsonWriter;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import main.util.Logger;
 
 /**
  * Authentication Controller
  * Handles user registration, login, and token verification
  */
 public class AuthController implements HttpHandler {
+    private static final Logger LOG = Logger.get("AuthController");
+
     private final DatabaseManager dbManager;
 
     public AuthController() {
@@ -31,7 +30,7 @@ public class AuthController implements HttpHandler {
         String method = exchange.getRequestMethod();
         String path = exchange.getRequestURI().getPath();
 
-        System.out.println("[AuthController] " + method + " " + path);
+        LOG.debug("{} {}", method, path);
 
         try {
             if ("OPTIONS".equals(method)) {
@@ -51,7 +50,7 @@ public class AuthController implements HttpHandler {
                 ApiResponse.sendError(exchange, 404, "Endpoint not found");
             }
         } catch (Exception e) {
-            System.err.println("[AuthController] Error: " + e.getMessage());
+            LOG.error("Error: {}", e.getMessage());
             e.printStackTrace();
             ApiResponse.sendError(exchange, 500, "Internal server error: " + e.getMessage());
         }
@@ -67,12 +66,10 @@ public class AuthController implements HttpHandler {
         }
 
         try {
-            String requestBody = new BufferedReader(
-                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))
-                .lines()
-                .collect(Collectors.joining("\n"));
-
-            Map<String, String> json = parseJson(requestBody);
+            Map<String, String> json = ApiResponse.readJsonObject(exchange);
+            if (json == null) {
+                return;
+            }
             String username = json.getOrDefault("username", "").trim();
             String password = json.getOrDefault("password", "").trim();
             String email = json.getOrDefault("email", "").trim();
@@ -105,18 +102,14 @@ public class AuthController implements HttpHandler {
             boolean success = dbManager.registerUser(username, password, email, role, token);
 
             if (success) {
-                String response = String.format(
-                    "{\"success\":true,\"message\":\"User registered successfully\",\"token\":\"%s\",\"user\":{\"username\":\"%s\",\"email\":\"%s\",\"role\":\"%s\"}}",
-                    token, escapeJson(username), escapeJson(email), role
-                );
-                ApiResponse.sendJson(exchange, 201, response);
-                System.out.println("[AuthController] User registered: " + username);
+                sendUser(exchange, 201, "User registered successfully", token, username, email, role);
+                LOG.info("User registered: {}", username);
             } else {
                 ApiResponse.sendError(exchange, 500, "Failed to register user");
             }
 
         } catch (Exception e) {
-            System.err.println("[AuthController] Registration error: " + e.getMessage());
+            LOG.error("Registration error: {}", e.getMessage());
             ApiResponse.sendError(exchange, 500, "Registration failed: " + e.getMessage());
         }
     }
@@ -131,12 +124,10 @@ public class AuthController implements HttpHandler {
         }
 
         try {
-            String requestBody = new BufferedReader(
-                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))
-                .lines()
-                .collect(Collectors.joining("\n"));
-
-            Map<String, String> json = parseJson(requestBody);
+            Map<String, String> json = ApiResponse.readJsonObject(exchange);
+            if (json == null) {
+                return;
+            }
             String username = json.getOrDefault("username", "").trim();
             String password = json.getOrDefault("password", "").trim();
 
@@ -154,18 +145,15 @@ public class AuthController implements HttpHandler {
                 String token = generateToken();
                 dbManager.updateUserToken(username, token);
 
-                String response = String.format(
-                    "{\"success\":true,\"message\":\"Login successful\",\"token\":\"%s\",\"user\":{\"username\":\"%s\",\"email\":\"%s\",\"role\":\"%s\"}}",
-                    token, escapeJson(user.getUsername()), escapeJson(user.getEmail()), user.getRole()
-                );
-                ApiResponse.sendJson(exchange, 200, response);
-                System.out.println("[AuthController] User logged in: " + username);
+                sendUser(exchange, 200, "Login successful", token,
+                    user.getUsername(), user.getEmail(), user.getRole());
+                LOG.info("User logged in: {}", username);
             } else {
                 ApiResponse.sendError(exchange, 401, "Invalid username or password");
             }
 
         } catch (Exception e) {
-            System.err.println("[AuthController] Login error: " + e.getMessage());
+            LOG.error("Login error: {}", e.getMessage());
             ApiResponse.sendError(exchange, 500, "Login failed: " + e.getMessage());
         }
     }
@@ -188,12 +176,10 @@ public class AuthController implements HttpHandler {
                 }
             } else if ("POST".equals(method)) {
                 // Extract token from request body
-                String requestBody = new BufferedReader(
-                    new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))
-                    .lines()
-                    .collect(Collectors.joining("\n"));
-
-                Map<String, String> json = parseJson(requestBody);
+                Map<String, String> json = ApiResponse.readJsonObject(exchange);
+                if (json == null) {
+                    return;
+                }
                 token = json.getOrDefault("token", "").trim();
             } else {
                 ApiResponse.sendError(exchange, 405, "Method not allowed");
@@ -208,18 +194,19 @@ public class AuthController implements HttpHandler {
             User user = dbManager.getUserByToken(token);
 
             if (user != null) {
-                String response = String.format(
-                    "{\"valid\":true,\"user\":{\"username\":\"%s\",\"email\":\"%s\",\"role\":\"%s\"}}",
-                    escapeJson(user.getUsername()), escapeJson(user.getEmail()), user.getRole()
-                );
-                ApiResponse.sendJson(exchange, 200, response);
+                try (JsonWriter json = JsonWriter.acquire()) {
+                    json.beginObject().name("valid").value(true).name("user");
+                    userToJson(json, user.getUsername(), user.getEmail(), user.getRole());
+                    json.endObject();
+                    ApiResponse.sendJson(exchange, 200, json);
+                }
             } else {
                 String response = "{\"valid\":false}";
                 ApiResponse.sendJson(exchange, 200, response);
             }
 
         } catch (Exception e) {
-            System.err.println("[AuthController] Token verification error: " + e.getMessage());
+            LOG.error("Token verification error: {}", e.getMessage());
             ApiResponse.sendError(exchange, 500, "Verification failed: " + e.getMessage());
         }
     }
@@ -253,12 +240,10 @@ public class AuthController implements HttpHandler {
                 return;
             }
 
-            String requestBody = new BufferedReader(
-                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))
-                .lines()
-                .collect(Collectors.joining("\n"));
-
-            Map<String, String> json = parseJson(requestBody);
+            Map<String, String> json = ApiResponse.readJsonObject(exchange);
+            if (json == null) {
+                return;
+            }
             String newEmail = json.getOrDefault("email", "").trim();
             String currentPassword = json.getOrDefault("currentPassword", "").trim();
             String newPassword = json.getOrDefault("newPassword", "").trim();
@@ -303,61 +288,49 @@ public class AuthController implements HttpHandler {
             }
 
             if (emailUpdated) {
-                String response = String.format(
-                    "{\"success\":true,\"message\":\"Profile updated successfully\",\"user\":{\"username\":\"%s\",\"email\":\"%s\",\"role\":\"%s\"}}",
-                    escapeJson(user.getUsername()), escapeJson(newEmail.isEmpty() ? user.getEmail() : newEmail), user.getRole()
-                );
-                ApiResponse.sendJson(exchange, 200, response);
-                System.out.println("[AuthController] Profile updated for user: " + user.getUsername());
+                sendUser(exchange, 200, "Profile updated successfully", null, user.getUsername(),
+                    newEmail.isEmpty() ? user.getEmail() : newEmail, user.getRole());
+                LOG.info("Profile updated for user: {}", user.getUsername());
             } else {
                 ApiResponse.sendError(exchange, 500, "Failed to update profile");
             }
 
         } catch (Exception e) {
-            System.err.println("[AuthController] Profile update error: " + e.getMessage());
+            LOG.error("Profile update error: {}", e.getMessage());
             ApiResponse.sendError(exchange, 500, "Profile update failed: " + e.getMessage());
         }
     }
 
     /**
-     * Generate a unique authentication token
-     */
-    private String generateToken() {
-        return UUID.randomUUID().toString() + "-" + System.currentTimeMillis();
-    }
-    
-    /**
-     * Simple JSON parser for basic key-value pairs
+     * Send {"success":true,"message":...,"token":...,"user":{...}};
+     * the token is left out when null
      */
-    private Map<String, String> parseJson(String json) {
-        Map<String, String> map = new HashMap<>();
-        if (json == null || json.isEmpty()) return map;
-        
-        json = json.trim();
-        if (json.startsWith("{")) json = json.substring(1);
-        if (json.endsWith("}")) json = json.substring(0, json.length() - 1);
-        
-        String[] pairs = json.split(",");
-        for (String pair : pairs) {
-            String[] kv = pair.split(":", 2);
-            if (kv.length == 2) {
-                String key = kv[0].trim().replace("\"", "");
-                String value = kv[1].trim().replace("\"", "");
-                map.put(key, value);
+    private void sendUser(HttpExchange exchange, int statusCode, String message, String token,
+                          String username, String email, String role) throws IOException {
+        try (JsonWriter json = JsonWriter.acquire()) {
+            json.beginObject().name("success").value(true).name("message").value(message);
+            if (token != null) {
+                json.name("token").value(token);
             }
+            json.name("user");
+            userToJson(json, username, email, role);
+            json.endObject();
+            ApiResponse.sendJson(exchange, statusCode, json);
         }
-        return map;
+    }
+    
+    private void userToJson(JsonWriter json, String username, String email, String role) {
+        json.beginObject()
+            .name("username").valueOrEmpty(username)
+            .name("email").valueOrEmpty(email)
+            .name("role").value(role)
+            .endObject();
     }
     
     /**
-     * Escape special characters for JSON
+     * Generate a unique authentication token
      */
-    private String escapeJson(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                  .replace("\"", "\\\"")
-                  .replace("\n", "\\n")
-                  .replace("\r", "\\r")
-                  .replace("\t", "\\t");
+    private String generateToken() {
+        return UUID.randomUUID().toString() + "-" + System.currentTimeMillis();
+    }
     }
-}
@@ -2,32 +2,43 @@ package main.api.controllers;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Collectors;
 import main.api.ApiResponse;
+import main.api.DatabaseThrottle;
 import main.model.Auction;
 import main.model.Bid;
+import main.server.AuctionManager;
+import main.util.ConfigManager;
 import main.util.DatabaseManager;
+import main.util.JsonWriter;
+import main.util.LatencyHistogram;
+import main.util.Logger;
+import main.util.Metrics;
+import main.util.StripedLock;
 
 /**
  * Controller for Bid-related API endpoints
- * Uses thread synchronization to prevent race conditions
+ * Uses thread synchronization to prevent race conditions. Bids are serialized
+ * per auction, so a busy auction does not hold up bids on unrelated ones.
  */
 public class BidController implements HttpHandler {
+    private static final Logger LOG = Logger.get("BidController");
+    private static final LatencyHistogram LOCK_WAIT = Metrics.histogram("api_bid_lock_wait_seconds",
+            "Time REST bids wait for their auction's lock");
     
     private final DatabaseManager dbManager;
-    private final ReentrantLock bidLock;
+    private final AuctionManager auctionManager;
+    private final StripedLock bidLocks;
     
     public BidController() {
         this.dbManager = DatabaseManager.getInstance();
-        this.bidLock = new ReentrantLock(true); // Fair lock to prevent starvation
+        this.auctionManager = AuctionManager.getInstance();
+        // Fair locks to prevent starvation, one stripe per group of auctions
+        this.bidLocks = new StripedLock(ConfigManager.getInstance().getInt("bid.lock.stripes"), true);
     }
     
     @Override
@@ -65,14 +76,10 @@ public class BidController implements HttpHandler {
      * Place a new bid on an auction with thread synchronization
      */
     private void handlePlaceBid(HttpExchange exchange) throws IOException {
-        // Read request body
-        String requestBody = new BufferedReader(
-            new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))
-            .lines()
-            .collect(Collectors.joining("\n"));
-        
-        // Parse JSON manually
-        Map<String, String> params = parseSimpleJson(requestBody);
+        Map<String, String> params = ApiResponse.readJsonObject(exchange);
+        if (params == null) {
+            return;
+        }
         
         String auctionId = params.get("auctionId");
         String userId = params.get("userId");
@@ -85,57 +92,92 @@ public class BidController implements HttpHandler {
         
         try {
             double amount = Double.parseDouble(amountStr);
+            Auction auction;
+            Bid bid;
+            CompletableFuture<Bid.Result> commit;
             
-            // Acquire lock to prevent race conditions when multiple bids arrive simultaneously
+            // Acquire this auction's lock to prevent race conditions when multiple
+            // bids on it arrive simultaneously
+            ReentrantLock bidLock = bidLocks.get(auctionId);
+            long waitStart = System.nanoTime();
             bidLock.lock();
+            LOCK_WAIT.recordSince(waitStart);
             try {
-                // Get auction to verify it exists and is active
-                Auction auction = dbManager.getAuction(auctionId);
-                
-                if (auction == null) {
-                    ApiResponse.sendError(exchange, 404, "Auction not found");
-                    return;
-                }
-                
-                if (auction.getStatus() != Auction.AuctionStatus.ACTIVE) {
-                    ApiResponse.sendError(exchange, 400, "Auction is not active");
-                    return;
-                }
-                
-                if (auction.hasExpired()) {
-                    ApiResponse.sendError(exchange, 400, "Auction has expired");
-                    return;
-                }
-                
-                // Re-check current highest bid inside lock to prevent race condition
-                if (amount <= auction.getCurrentHighestBid()) {
-                    ApiResponse.sendError(exchange, 400, 
-                        String.format("Bid amount must be greater than current highest bid (%.2f)", 
-                        auction.getCurrentHighestBid()));
+                // The database permit is taken under the lock, so bids queued
+                // behind a busy auction do not hold permits while they wait.
+                // getAuction writes too, when it closes an expired auction.
+                DatabaseThrottle.Permit permit = DatabaseThrottle.acquire(exchange);
+                if (permit == null) {
                     return;
                 }
-                
-                // Create bid
-                Bid bid = new Bid(auctionId, userId, amount);
-                
-                // Perform database transaction: save bid and update auction atomically
-                boolean success = processBidTransaction(bid, auction);
-                
-                if (success) {
-                    // Broadcast bid update to all connected WebSocket clients
-                    WebSocketBidController.broadcastBid(auctionId, bid, auction);
+                try {
+                    // Get auction to verify it exists and is active
+                    auction = auctionManager.getAuction(auctionId);
                     
-                    String json = bidToJson(bid);
-                    ApiResponse.sendCreatedRaw(exchange, json);
-                } else {
-                    ApiResponse.sendError(exchange, 500, "Failed to place bid - transaction rolled back");
+                    if (auction == null) {
+                        ApiResponse.sendError(exchange, 404, "Auction not found");
+                        return;
+                    }
+                    
+                    if (auction.getStatus() != Auction.AuctionStatus.ACTIVE) {
+                        ApiResponse.sendError(exchange, 400, "Auction is not active");
+                        return;
+                    }
+                    
+                    if (auction.hasExpired()) {
+                        ApiResponse.sendError(exchange, 400, "Auction has expired");
+                        return;
+                    }
+                    
+                    // Re-check current highest bid inside lock to prevent race condition
+                    if (amount <= auction.getCurrentHighestBid()) {
+                        ApiResponse.sendError(exchange, 400, 
+                            String.format("Bid amount must be greater than current highest bid (%.2f)", 
+                            auction.getCurrentHighestBid()));
+                        return;
+                    }
+                    
+                    // Create bid
+                    bid = new Bid(auctionId, userId, amount);
+                    
+                    // Save bid and update auction atomically. In group-commit mode this
+                    // only queues the bid, so the lock is not held across the fsync.
+                    commit = processBidTransaction(bid, auction);
+                } finally {
+                    permit.release();
                 }
-                
             } finally {
                 // Always release lock, even if exception occurs
                 bidLock.unlock();
             }
             
+            // Respond only once the bid is durable
+            switch (commit.join()) {
+                case ACCEPTED:
+                    LOG.debug("Transaction successful for bid on auction {}", auctionId);
+                    
+                    // Broadcast bid update to all connected WebSocket clients
+                    WebSocketBidController.broadcastBid(auctionId, bid, auction);
+                    
+                    try (JsonWriter json = JsonWriter.acquire()) {
+                        bidToJson(ApiResponse.beginData(json), bid);
+                        ApiResponse.sendData(exchange, 201, json);
+                    }
+                    break;
+                case TOO_LOW:
+                    // Outbid by a TCP bid, which does not take this lock
+                    ApiResponse.sendError(exchange, 400, 
+                        String.format("Bid amount must be greater than current highest bid (%.2f)", 
+                        auction.getCurrentHighestBid()));
+                    break;
+                case NOT_ACTIVE:
+                    ApiResponse.sendError(exchange, 400, "Auction is not active");
+                    break;
+                default:
+                    LOG.error("Transaction failed - changes rolled back");
+                    ApiResponse.sendError(exchange, 500, "Failed to place bid - transaction rolled back");
+            }
+            
         } catch (NumberFormatException e) {
             ApiResponse.sendError(exchange, 400, "Invalid number format for amount");
         }
@@ -143,27 +185,18 @@ public class BidController implements HttpHandler {
     
     /**
      * Process bid transaction atomically
-     * Ensures bid is saved and auction is updated in a single database transaction
+     * Ensures bid is saved and auction is updated in a single database transaction.
+     * The returned future completes when that transaction has committed.
      */
-    private boolean processBidTransaction(Bid bid, Auction auction) {
+    private CompletableFuture<Bid.Result> processBidTransaction(Bid bid, Auction auction) {
         try {
-            // Use transactional method to ensure atomicity
             // Both bid save and auction update happen in single transaction
-            boolean success = dbManager.saveBidWithTransaction(bid, auction);
-            
-            if (!success) {
-                System.err.println("[BidController] Transaction failed - changes rolled back");
-                return false;
-            }
-            
-            System.out.println("[BidController] Transaction successful for bid on auction " + 
-                             auction.getAuctionId());
-            return true;
+            return auctionManager.placeBid(auction, bid);
             
         } catch (Exception e) {
-            System.err.println("[BidController] Transaction error: " + e.getMessage());
+            LOG.error("Transaction error: {}", e.getMessage());
             e.printStackTrace();
-            return false;
+            return CompletableFuture.completedFuture(Bid.Result.FAILED);
         }
     }
     
@@ -181,51 +214,37 @@ public class BidController implements HttpHandler {
         
         String auctionId = query.split("auctionId=")[1].split("&")[0];
         
-        List<Bid> bids = dbManager.getBidsByAuction(auctionId);
+        DatabaseThrottle.Permit permit = DatabaseThrottle.acquire(exchange);
+        if (permit == null) {
+            return;
+        }
+        List<Bid> bids;
+        try {
+            bids = dbManager.getBidsByAuction(auctionId);
+        } finally {
+            permit.release();
+        }
         
         // Convert to JSON array
-        StringBuilder jsonArray = new StringBuilder("[");
-        boolean first = true;
-        for (Bid bid : bids) {
-            if (!first) jsonArray.append(",");
-            jsonArray.append(bidToJson(bid));
-            first = false;
+        try (JsonWriter json = JsonWriter.acquire()) {
+            ApiResponse.beginData(json).beginArray();
+            for (Bid bid : bids) {
+                bidToJson(json, bid);
+            }
+            json.endArray();
+            ApiResponse.sendData(exchange, 200, json);
         }
-        jsonArray.append("]");
-        
-        ApiResponse.sendSuccessRaw(exchange, jsonArray.toString());
-    }
-    
-    /**
-     * Convert Bid object to JSON string
-     */
-    private String bidToJson(Bid bid) {
-        return String.format(
-            "{\"auctionId\":\"%s\",\"userId\":\"%s\",\"amount\":%.2f,\"timestamp\":%d}",
-            bid.getAuctionId(),
-            bid.getUserId(),
-            bid.getAmount(),
-            bid.getTimestamp()
-        );
     }
     
     /**
-     * Simple JSON parser for basic key-value pairs
+     * Write Bid object as JSON
      */
-    private Map<String, String> parseSimpleJson(String json) {
-        Map<String, String> result = new HashMap<>();
-        json = json.trim().replaceAll("^\\{|\\}$", "");
-        
-        String[] pairs = json.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-        for (String pair : pairs) {
-            String[] kv = pair.split(":", 2);
-            if (kv.length == 2) {
-                String key = kv[0].trim().replaceAll("^\"|\"$", "");
-                String value = kv[1].trim().replaceAll("^\"|\"$", "");
-                result.put(key, value);
-            }
-        }
-        
-        return result;
+    private void bidToJson(JsonWriter json, Bid bid) {
+        json.beginObject()
+            .name("auctionId").value(bid.getAuctionId())
+            .name("userId").value(bid.getUserId())
+            .name("amount").money(bid.getAmount())
+            .name("timestamp").value(bid.getTimestamp())
+            .endObject();
     }
 }
@@ -4,6 +4,7 @@ import com.sun.net.httpserver.HttpExchange;
 import main.api.ApiResponse;
 import main.model.ChatMessage;
 import main.util.DatabaseManager;
+import main.util.JsonWriter;
 
 import java.io.IOException;
 import java.util.List;
@@ -34,24 +35,23 @@ public class ChatController {
 
         List<ChatMessage> messages = dbManager.getChatMessagesByAuction(auctionId);
         
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < messages.size(); i++) {
-            ChatMessage msg = messages.get(i);
-            if (i > 0) json.append(",");
-            json.append("{");
-            json.append("\"messageId\":").append(msg.getMessageId()).append(",");
-            json.append("\"auctionId\":\"").append(escapeJson(msg.getAuctionId())).append("\",");
-            json.append("\"username\":\"").append(escapeJson(msg.getSenderUsername())).append("\",");
-            json.append("\"senderUsername\":\"").append(escapeJson(msg.getSenderUsername())).append("\",");
-            json.append("\"recipientUsername\":\"").append(escapeJson(msg.getRecipientUsername())).append("\",");
-            json.append("\"content\":\"").append(escapeJson(msg.getContent())).append("\",");
-            json.append("\"timestamp\":").append(msg.getTimestamp()).append(",");
-            json.append("\"isRead\":").append(msg.isRead());
-            json.append("}");
+        try (JsonWriter json = JsonWriter.acquire()) {
+            ApiResponse.beginData(json).beginArray();
+            for (ChatMessage msg : messages) {
+                json.beginObject()
+                    .name("messageId").value(msg.getMessageId())
+                    .name("auctionId").valueOrEmpty(msg.getAuctionId())
+                    .name("username").valueOrEmpty(msg.getSenderUsername())
+                    .name("senderUsername").valueOrEmpty(msg.getSenderUsername())
+                    .name("recipientUsername").valueOrEmpty(msg.getRecipientUsername())
+                    .name("content").valueOrEmpty(msg.getContent())
+                    .name("timestamp").value(msg.getTimestamp())
+                    .name("isRead").value(msg.isRead())
+                    .endObject();
+            }
+            json.endArray();
+            ApiResponse.sendData(exchange, 200, json);
         }
-        json.append("]");
-
-        ApiResponse.sendSuccessRaw(exchange, json.toString());
     }
 
     /**
@@ -69,21 +69,18 @@ public class ChatController {
 
         Map<String, List<String>> auctionBuyers = dbManager.getBuyersBySeller(sellerId);
         
-        StringBuilder json = new StringBuilder("{");
-        int count = 0;
-        for (Map.Entry<String, List<String>> entry : auctionBuyers.entrySet()) {
-            if (count++ > 0) json.append(",");
-            json.append("\"").append(escapeJson(entry.getKey())).append("\":[");
-            List<String> buyers = entry.getValue();
-            for (int i = 0; i < buyers.size(); i++) {
-                if (i > 0) json.append(",");
-                json.append("\"").append(escapeJson(buyers.get(i))).append("\"");
+        try (JsonWriter json = JsonWriter.acquire()) {
+            ApiResponse.beginData(json).beginObject();
+            for (Map.Entry<String, List<String>> entry : auctionBuyers.entrySet()) {
+                json.name(entry.getKey() == null ? "" : entry.getKey()).beginArray();
+                for (String buyer : entry.getValue()) {
+                    json.valueOrEmpty(buyer);
+                }
+                json.endArray();
             }
-            json.append("]");
+            json.endObject();
+            ApiResponse.sendData(exchange, 200, json);
         }
-        json.append("}");
-
-        ApiResponse.sendSuccessRaw(exchange, json.toString());
     }
 
     /**
@@ -92,11 +89,12 @@ public class ChatController {
      * Body: { "auctionId": "xxx", "username": "xxx" }
      */
     public void markAsRead(HttpExchange exchange) throws IOException {
-        String requestBody = new String(exchange.getRequestBody().readAllBytes());
-        
-        // Simple JSON parsing
-        String auctionId = extractJsonValue(requestBody, "auctionId");
-        String username = extractJsonValue(requestBody, "username");
+        Map<String, String> body = ApiResponse.readJsonObject(exchange);
+        if (body == null) {
+            return;
+        }
+        String auctionId = body.get("auctionId");
+        String username = body.get("username");
 
         if (auctionId == null || auctionId.isEmpty() || username == null || username.isEmpty()) {
             ApiResponse.sendError(exchange, 400, "Missing auctionId or username");
@@ -127,29 +125,4 @@ public class ChatController {
         }
         return null;
     }
-    
-    /**
-     * Simple JSON value extraction
-     */
-    private String extractJsonValue(String json, String key) {
-        String pattern = "\"" + key + "\"\\s*:\\s*\"([^\"]+)\"";
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-        java.util.regex.Matcher m = p.matcher(json);
-        if (m.find()) {
-            return m.group(1);
-        }
-        return null;
-    }
-    
-    /**
-     * Escape special characters for JSON
-     */
-    private String escapeJson(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                 .replace("\"", "\\\"")
-                 .replace("\n", "\\n")
-                 .replace("\r", "\\r")
-                 .replace("\t", "\\t");
     }
-}
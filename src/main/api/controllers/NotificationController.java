@@ -4,9 +4,11 @@ import com.sun.net.httpserver.HttpExchange;
 import main.api.ApiResponse;
 import main.model.Notification;
 import main.util.DatabaseManager;
+import main.util.JsonWriter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST API Controller for Notifications
@@ -33,25 +35,23 @@ public class NotificationController {
 
         List<Notification> notifications = dbManager.getNotifications(username);
         
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < notifications.size(); i++) {
-            Notification notif = notifications.get(i);
-            if (i > 0) json.append(",");
-            json.append("{");
-            json.append("\"notificationId\":").append(notif.getNotificationId()).append(",");
-            json.append("\"username\":\"").append(escapeJson(notif.getUsername())).append("\",");
-            json.append("\"type\":\"").append(escapeJson(notif.getType())).append("\",");
-            json.append("\"title\":\"").append(escapeJson(notif.getTitle())).append("\",");
-            json.append("\"message\":\"").append(escapeJson(notif.getMessage())).append("\",");
-            json.append("\"auctionId\":").append(notif.getAuctionId() != null ? 
-                "\"" + escapeJson(notif.getAuctionId()) + "\"" : "null").append(",");
-            json.append("\"timestamp\":").append(notif.getTimestamp()).append(",");
-            json.append("\"isRead\":").append(notif.isRead());
-            json.append("}");
+        try (JsonWriter json = JsonWriter.acquire()) {
+            ApiResponse.beginData(json).beginArray();
+            for (Notification notif : notifications) {
+                json.beginObject()
+                    .name("notificationId").value(notif.getNotificationId())
+                    .name("username").valueOrEmpty(notif.getUsername())
+                    .name("type").valueOrEmpty(notif.getType())
+                    .name("title").valueOrEmpty(notif.getTitle())
+                    .name("message").valueOrEmpty(notif.getMessage())
+                    .name("auctionId").value(notif.getAuctionId())
+                    .name("timestamp").value(notif.getTimestamp())
+                    .name("isRead").value(notif.isRead())
+                    .endObject();
+            }
+            json.endArray();
+            ApiResponse.sendData(exchange, 200, json);
         }
-        json.append("]");
-
-        ApiResponse.sendSuccessRaw(exchange, json.toString());
     }
 
     /**
@@ -79,9 +79,11 @@ public class NotificationController {
      * Body: { "notificationId": 123 }
      */
     public void markAsRead(HttpExchange exchange) throws IOException {
-        String requestBody = new String(exchange.getRequestBody().readAllBytes());
-        
-        String notificationIdStr = extractJsonValue(requestBody, "notificationId");
+        Map<String, String> body = ApiResponse.readJsonObject(exchange);
+        if (body == null) {
+            return;
+        }
+        String notificationIdStr = body.get("notificationId");
 
         if (notificationIdStr == null || notificationIdStr.isEmpty()) {
             ApiResponse.sendError(exchange, 400, "Missing notificationId");
@@ -108,9 +110,11 @@ public class NotificationController {
      * Body: { "username": "xxx" }
      */
     public void markAllAsRead(HttpExchange exchange) throws IOException {
-        String requestBody = new String(exchange.getRequestBody().readAllBytes());
-        
-        String username = extractJsonValue(requestBody, "username");
+        Map<String, String> body = ApiResponse.readJsonObject(exchange);
+        if (body == null) {
+            return;
+        }
+        String username = body.get("username");
 
         if (username == null || username.isEmpty()) {
             ApiResponse.sendError(exchange, 400, "Missing username");
@@ -141,29 +145,4 @@ public class NotificationController {
         }
         return null;
     }
-
-    /**
-     * Extract value from simple JSON string
-     */
-    private String extractJsonValue(String json, String key) {
-        String pattern = "\"" + key + "\"\\s*:\\s*\"?([^,\"\\}]+)\"?";
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-        java.util.regex.Matcher m = p.matcher(json);
-        if (m.find()) {
-            return m.group(1);
-        }
-        return null;
-    }
-
-    /**
-     * Escape JSON special characters
-     */
-    private String escapeJson(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                  .replace("\"", "\\\"")
-                  .replace("\n", "\\n")
-                  .replace("\r", "\\r")
-                  .replace("\t", "\\t");
-    }
 }
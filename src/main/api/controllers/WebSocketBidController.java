@@ -5,11 +5,15 @@ import com.sun.net.httpserver.HttpHandler;
 import main.api.ApiResponse;
 import main.model.Auction;
 import main.model.Bid;
+import main.util.JsonWriter;
+import main.util.LatencyHistogram;
+import main.util.Logger;
+import main.util.Metrics;
+import main.util.WebSocketFrame;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.Socket;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -19,9 +23,19 @@ import java.util.concurrent.CopyOnWriteArraySet;
  * Handles WebSocket connections and broadcasts bid updates to connected clients
  */
 public class WebSocketBidController implements HttpHandler {
+    private static final Logger LOG = Logger.get("WebSocketBidController");
+    private static final LatencyHistogram FANOUT = Metrics.histogram("broadcast_fanout_seconds",
+            "Time to queue one broadcast for every recipient, by channel", "channel", "websocket");
+    private static final Metrics.Counter RECIPIENTS = Metrics.counter("broadcast_recipients_total",
+            "Messages queued by broadcasts, by channel", "channel", "websocket");
     
     private static final Map<String, Set<WebSocketConnection>> auctionSubscribers = new ConcurrentHashMap<>();
     
+    static {
+        Metrics.gauge("websocket_bid_subscribers", "Auction subscriptions held by WebSocket clients",
+                WebSocketBidController::subscriptionCount);
+    }
+    
     public WebSocketBidController() {
         // No dependencies needed - this is a static broadcaster
     }
@@ -55,56 +69,77 @@ public class WebSocketBidController implements HttpHandler {
     public static void broadcastBid(String auctionId, Bid bid, Auction auction) {
         Set<WebSocketConnection> subscribers = auctionSubscribers.get(auctionId);
         if (subscribers != null && !subscribers.isEmpty()) {
-            String bidUpdate = String.format(
-                "{\"type\":\"BID_UPDATE\",\"auctionId\":\"%s\",\"bid\":{\"userId\":\"%s\",\"amount\":%.2f,\"timestamp\":%d},\"currentHighestBid\":%.2f,\"currentHighestBidder\":\"%s\"}",
-                auctionId,
-                escapeJson(bid.getUserId()),
-                bid.getAmount(),
-                bid.getTimestamp(),
-                auction.getCurrentHighestBid(),
-                escapeJson(auction.getCurrentHighestBidder())
-            );
+            Auction.Leader leader = auction.getLeader();
+            WebSocketFrame frame;
+            try (JsonWriter json = JsonWriter.acquire()) {
+                json.beginObject()
+                    .name("type").value("BID_UPDATE")
+                    .name("auctionId").value(auctionId)
+                    .name("bid").beginObject()
+                        .name("userId").valueOrEmpty(bid.getUserId())
+                        .name("amount").money(bid.getAmount())
+                        .name("timestamp").value(bid.getTimestamp())
+                        .endObject()
+                    .name("currentHighestBid").money(leader.getAmount())
+                    .name("currentHighestBidder").valueOrEmpty(leader.getBidder())
+                    .endObject();
+                frame = WebSocketFrame.text(json.buffer(), 0, json.size());
+            }
             
-            System.out.println("[WebSocketBidController] Broadcasting to " + subscribers.size() + " subscribers for auction " + auctionId);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Broadcasting to {} subscribers for auction {}", subscribers.size(), auctionId);
+            }
             
+            long start = System.nanoTime();
+            int sent = 0;
             for (WebSocketConnection conn : subscribers) {
                 try {
-                    conn.send(bidUpdate);
+                    conn.send(frame);
+                    sent++;
                 } catch (Exception e) {
-                    System.err.println("[WebSocketBidController] Failed to send to subscriber: " + e.getMessage());
+                    LOG.error("Failed to send to subscriber: {}", e.getMessage());
                     subscribers.remove(conn);
                 }
             }
+            FANOUT.recordSince(start);
+            RECIPIENTS.add(sent);
         }
     }
     
     /**
      * Broadcast auction expiration notification
      */
-    public static void broadcastAuctionExpiration(String auctionId, String notificationJson) {
+    public static void broadcastAuctionExpiration(String auctionId, JsonWriter notification) {
         Set<WebSocketConnection> subscribers = auctionSubscribers.get(auctionId);
         if (subscribers != null && !subscribers.isEmpty()) {
-            System.out.println("[WebSocketBidController] Broadcasting expiration to " + 
-                             subscribers.size() + " subscribers for auction " + auctionId);
+            LOG.info("Broadcasting expiration to {} subscribers for auction {}", subscribers.size(), auctionId);
             
+            WebSocketFrame frame = WebSocketFrame.text(notification.buffer(), 0, notification.size());
             for (WebSocketConnection conn : subscribers) {
                 try {
-                    conn.send(notificationJson);
+                    conn.send(frame);
                 } catch (Exception e) {
-                    System.err.println("[WebSocketBidController] Failed to send expiration notification: " + 
-                                     e.getMessage());
+                    LOG.error("Failed to send expiration notification: {}", e.getMessage());
                     subscribers.remove(conn);
                 }
             }
         }
     }
     
+    private static long subscriptionCount() {
+        long count = 0;
+        for (Set<WebSocketConnection> subscribers : auctionSubscribers.values()) {
+            count += subscribers.size();
+        }
+        return count;
+    }
+    
     /**
      * Subscribe a client to auction updates
      */
     public static void subscribe(String auctionId, WebSocketConnection connection) {
         auctionSubscribers.computeIfAbsent(auctionId, k -> new CopyOnWriteArraySet<>()).add(connection);
-        System.out.println("[WebSocketBidController] Client subscribed to auction: " + auctionId);
+        LOG.debug("Client subscribed to auction: {}", auctionId);
     }
     
     /**
@@ -118,19 +153,7 @@ public class WebSocketBidController implements HttpHandler {
                 auctionSubscribers.remove(auctionId);
             }
         }
-        System.out.println("[WebSocketBidController] Client unsubscribed from auction: " + auctionId);
-    }
-    
-    /**
-     * Escape JSON special characters
-     */
-    private static String escapeJson(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                  .replace("\"", "\\\"")
-                  .replace("\n", "\\n")
-                  .replace("\r", "\\r")
-                  .replace("\t", "\\t");
+        LOG.debug("Client unsubscribed from auction: {}", auctionId);
     }
     
     /**
@@ -146,39 +169,24 @@ public class WebSocketBidController implements HttpHandler {
         }
         
         public void send(String message) throws IOException {
-            // Send WebSocket frame
-            out.write(encodeWebSocketFrame(message));
-            out.flush();
+            send(WebSocketFrame.text(message));
         }
         
-        private byte[] encodeWebSocketFrame(String message) {
-            // Simple text frame encoding
-            byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
-            int length = messageBytes.length;
-            byte[] frame;
-            
-            if (length < 126) {
-                frame = new byte[2 + length];
-                frame[0] = (byte) 0x81; // FIN + text frame
-                frame[1] = (byte) length;
-                System.arraycopy(messageBytes, 0, frame, 2, length);
-            } else {
-                frame = new byte[4 + length];
-                frame[0] = (byte) 0x81;
-                frame[1] = 126;
-                frame[2] = (byte) ((length >> 8) & 0xFF);
-                frame[3] = (byte) (length & 0xFF);
-                System.arraycopy(messageBytes, 0, frame, 4, length);
+        /**
+         * Send a frame that may be shared with other subscribers
+         */
+        public void send(WebSocketFrame frame) throws IOException {
+            synchronized (out) {
+                frame.writeTo(out);
+                out.flush();
             }
-            
-            return frame;
         }
         
         public void close() {
             try {
                 socket.close();
             } catch (IOException e) {
-                System.err.println("Error closing WebSocket connection: " + e.getMessage());
+                LOG.error("Error closing WebSocket connection: {}", e.getMessage());
             }
         }
     }
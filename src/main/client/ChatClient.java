@@ -1,10 +1,12 @@
 package main.client;
 
+import main.util.WebSocketFrameDecoder;
 import main.util.WebSocketUtil;
 
 import java.io.*;
 import java.net.Socket;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Scanner;
@@ -94,6 +96,26 @@ public class ChatClient {
     private void startMessageListener() {
         messageListener = new Thread(() -> {
             byte[] buffer = new byte[8192];
+            WebSocketFrameDecoder decoder = new WebSocketFrameDecoder(Integer.MAX_VALUE,
+                new WebSocketFrameDecoder.FrameListener() {
+                    @Override
+                    public void onText(String message) {
+                        if (!message.trim().isEmpty()) {
+                            System.out.println(message);
+                        }
+                    }
+                    
+                    @Override
+                    public void onPing(byte[] payload) {
+                        send(WebSocketUtil.createPongFrame(payload));
+                    }
+                    
+                    @Override
+                    public void onClose() {
+                        System.out.println("Server closed the connection.");
+                        disconnect();
+                    }
+                });
             
             while (isConnected.get() && !socket.isClosed()) {
                 try {
@@ -102,10 +124,8 @@ public class ChatClient {
                         break; // Server disconnected
                     }
                     
-                    byte[] frameData = new byte[bytesRead];
-                    System.arraycopy(buffer, 0, frameData, 0, bytesRead);
-                    
-                    handleWebSocketFrame(frameData);
+                    // Frames may be split across reads or share one
+                    decoder.decode(ByteBuffer.wrap(buffer, 0, bytesRead));
                     
                 } catch (IOException e) {
                     if (isConnected.get()) {
@@ -123,19 +143,6 @@ public class ChatClient {
         messageListener.start();
     }
     
-    private void handleWebSocketFrame(byte[] frameData) {
-        if (WebSocketUtil.isCloseFrame(frameData)) {
-            System.out.println("Server closed the connection.");
-            disconnect();
-            return;
-        }
-        
-        String message = WebSocketUtil.decodeTextFrame(frameData);
-        if (message != null && !message.trim().isEmpty()) {
-            System.out.println(message);
-        }
-    }
-    
     /**
      * Send a message to the server
      */
@@ -145,8 +152,11 @@ public class ChatClient {
             return;
         }
         
+        send(WebSocketUtil.encodeTextFrame(message));
+    }
+    
+    private synchronized void send(byte[] frame) {
         try {
-            byte[] frame = WebSocketUtil.encodeTextFrame(message);
             outputStream.write(frame);
             outputStream.flush();
         } catch (IOException e) {
@@ -2,7 +2,10 @@ package main.model;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Auction implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -13,16 +16,22 @@ public class Auction implements Serializable {
     private String itemDescription;
     private String sellerId;
     private double basePrice;
-    private double currentHighestBid;
-    private String currentHighestBidder;
+
+    // Current leading bid, replaced as a whole so readers never see a
+    // price from one bid paired with the bidder of another
+    private final AtomicReference<Leader> leader;
+    // Leaders of bids taken back while a later bid led, mapped to the
+    // leader each replaced, so that later bid unwinds past them if its
+    // write fails too
+    private final Map<Leader, Leader> withdrawn = new ConcurrentHashMap<>();
 
     // --- Timing Properties ---
     private long createdTime;
-    private long endTime;
-    private long duration; // in milliseconds
+    private volatile long endTime;
+    private volatile long duration; // in milliseconds
 
     // --- Status Properties ---
-    private AuctionStatus status;
+    private volatile AuctionStatus status;
     private String category;
 
     // --- Non-serializable fields ---
@@ -32,6 +41,44 @@ public class Auction implements Serializable {
         ACTIVE, CLOSED, CANCELLED
     }
 
+    /**
+     * Immutable snapshot of the leading bid.
+     * The sequence counts accepted bids, so a later leader always has a
+     * higher sequence than the one it replaced; revertBid puts back the
+     * earlier leader itself.
+     */
+    public static final class Leader implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final double amount;
+        private final String bidder;
+        private final long timestamp;
+        private final long sequence;
+
+        public Leader(double amount, String bidder, long timestamp, long sequence) {
+            this.amount = amount;
+            this.bidder = bidder;
+            this.timestamp = timestamp;
+            this.sequence = sequence;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public String getBidder() {
+            return bidder;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+    }
+
     /**
      * Constructor for creating a new auction
      */
@@ -42,9 +89,8 @@ public class Auction implements Serializable {
         this.itemDescription = itemDescription;
         this.sellerId = sellerId;
         this.basePrice = basePrice;
-        this.currentHighestBid = basePrice;
-        this.currentHighestBidder = null;
         this.createdTime = System.currentTimeMillis();
+        this.leader = new AtomicReference<>(new Leader(basePrice, null, createdTime, 0));
         this.duration = durationMinutes * 60 * 1000; // convert minutes to milliseconds
         this.endTime = this.createdTime + this.duration;
         this.status = AuctionStatus.ACTIVE;
@@ -63,9 +109,8 @@ public class Auction implements Serializable {
         this.itemDescription = itemDescription;
         this.sellerId = sellerId;
         this.basePrice = basePrice;
-        this.currentHighestBid = basePrice;
-        this.currentHighestBidder = null;
         this.createdTime = createdTime; // Use stored timestamp
+        this.leader = new AtomicReference<>(new Leader(basePrice, null, createdTime, 0));
         this.endTime = endTime; // Use stored timestamp
         this.duration = duration;
         this.status = AuctionStatus.ACTIVE;
@@ -101,12 +146,20 @@ public class Auction implements Serializable {
         return basePrice;
     }
 
+    /**
+     * Consistent snapshot of the leading bid. Prefer this over the separate
+     * getters when both the amount and the bidder are needed.
+     */
+    public Leader getLeader() {
+        return leader.get();
+    }
+
     public double getCurrentHighestBid() {
-        return currentHighestBid;
+        return leader.get().getAmount();
     }
 
     public String getCurrentHighestBidder() {
-        return currentHighestBidder;
+        return leader.get().getBidder();
     }
 
     public long getCreatedTime() {
@@ -152,33 +205,115 @@ public class Auction implements Serializable {
         this.status = status;
     }
 
+    /**
+     * Push the end time back, e.g. for anti-sniping.
+     * The caller reschedules the expiry timer. Auctions in the shared store
+     * go through AuctionManager.extendEndTime so its end-time index stays sorted.
+     */
+    public synchronized void extendEndTime(long extraMillis) {
+        this.endTime += extraMillis;
+        this.duration += extraMillis;
+    }
+
+    /**
+     * Restore the leading bid, e.g. when loading from the database
+     */
+    public void setCurrentLeader(double bid, String bidder) {
+        leader.updateAndGet(current ->
+                new Leader(bid, bidder, current.getTimestamp(), current.getSequence() + 1));
+    }
+
     public void setCurrentHighestBid(double bid) {
-        this.currentHighestBid = bid;
+        leader.updateAndGet(current ->
+                new Leader(bid, current.getBidder(), current.getTimestamp(), current.getSequence() + 1));
     }
 
     public void setCurrentHighestBidder(String bidder) {
-        this.currentHighestBidder = bidder;
+        leader.updateAndGet(current ->
+                new Leader(current.getAmount(), bidder, current.getTimestamp(), current.getSequence() + 1));
     }
 
     // --- Bid Logic ---
-    public synchronized boolean placeBid(Bid bid) {
+    /**
+     * Accept the bid if it beats the current leader.
+     * Lock-free: a bid that loses the race re-checks against the new leader.
+     */
+    public boolean placeBid(Bid bid) {
+        return tryPlaceBid(bid) != null;
+    }
+
+    /**
+     * placeBid for a bid that still has to be written: returns what it
+     * changed, for revertBid should the write fail, or null when the bid
+     * was not accepted
+     */
+    public Placement tryPlaceBid(Bid bid) {
         // Check if auction is still active
         if (status != AuctionStatus.ACTIVE) {
-            return false;
+            return null;
         }
 
         // Check if auction has expired
         if (hasExpired()) {
             this.status = AuctionStatus.CLOSED;
-            return false;
+            return null;
+        }
+
+        Leader current;
+        Leader next;
+        do {
+            current = leader.get();
+            if (bid.getAmount() <= current.getAmount()) {
+                return null; // Bid was not high enough
+            }
+            next = new Leader(bid.getAmount(), bid.getUserId(), bid.getTimestamp(), current.getSequence() + 1);
+        } while (!leader.compareAndSet(current, next));
+        return new Placement(current, next); // Bid was successful
+    }
+
+    /**
+     * Take back a bid whose write failed: restore the leader it replaced,
+     * continuing past earlier bids that were taken back while it led.
+     * If a later bid has already taken over, the bid is only recorded as
+     * withdrawn. Returns true if the leader changed.
+     */
+    public boolean revertBid(Placement placement) {
+        // Recorded first, so a later bid failing concurrently still sees it
+        withdrawn.put(placement.placed, placement.replaced);
+        Leader current = placement.placed;
+        boolean reverted = false;
+        Leader earlier;
+        while (leader.get() == current && (earlier = withdrawn.remove(current)) != null) {
+            if (!leader.compareAndSet(current, earlier)) {
+                withdrawn.put(current, earlier);
+                break;
+            }
+            current = earlier;
+            reverted = true;
+        }
+        return reverted;
+    }
+
+    /**
+     * A bid accepted by tryPlaceBid: the leader it installed and the one
+     * it replaced
+     */
+    public static final class Placement {
+        private final Leader replaced;
+        private final Leader placed;
+
+        private Placement(Leader replaced, Leader placed) {
+            this.replaced = replaced;
+            this.placed = placed;
+        }
+
+        public Leader getReplaced() {
+            return replaced;
         }
 
-        if (bid.getAmount() > this.currentHighestBid) {
-            this.currentHighestBid = bid.getAmount();
-            this.currentHighestBidder = bid.getUserId();
-            return true; // Bid was successful
+        public Leader getPlaced() {
+            return placed;
         }
-        return false; // Bid was not high enough
     }
 
     // --- Watcher Logic ---
@@ -216,9 +351,10 @@ public class Auction implements Serializable {
      * Convert auction details to string format
      */
     public String toDetailString() {
+        Leader current = leader.get();
         return String.format("AUCTION_DETAILS:%s:%s:%s:%.2f:%.2f:%s:%d:%s:%s",
-                auctionId, itemName, itemDescription, basePrice, currentHighestBid,
-                currentHighestBidder != null ? currentHighestBidder : "none",
+                auctionId, itemName, itemDescription, basePrice, current.getAmount(),
+                current.getBidder() != null ? current.getBidder() : "none",
                 getTimeRemaining() / 1000, category, status);
     }
 
@@ -229,7 +365,7 @@ public class Auction implements Serializable {
                 ", item='" + itemName + '\'' +
                 ", seller='" + sellerId + '\'' +
                 ", basePrice=" + basePrice +
-                ", currentBid=" + currentHighestBid +
+                ", currentBid=" + getCurrentHighestBid() +
                 ", status=" + status +
                 ", timeRemaining=" + getTimeRemaining() / 1000 + "s" +
                 '}';
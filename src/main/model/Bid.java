@@ -1,6 +1,16 @@
 package main.model;
 
 public class Bid {
+    /**
+     * Outcome of placing a bid and writing it to the database
+     */
+    public enum Result {
+        ACCEPTED,    // Leads the auction and is durable
+        TOO_LOW,     // Not above the current highest bid
+        NOT_ACTIVE,  // The auction is closed or has expired
+        FAILED       // The transaction did not commit; the bid was taken back
+    }
+
     private final String auctionId;
     private final String userId;
     private final double amount;
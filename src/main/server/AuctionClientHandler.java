@@ -1,26 +1,97 @@
 package main.server;
 
 import java.io.IOException;
+import java.net.ProtocolException;
 import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import main.util.ConfigManager;
+import main.util.Logger;
+import main.util.OutboundQueue;
 
 public class AuctionClientHandler {
+    private static final Logger LOG = Logger.get("AuctionClientHandler");
 
     private final SocketChannel channel;
     private final AuctionServer server;
-    private final ByteBuffer readBuffer = ByteBuffer.allocate(1024);
+    private final AuctionReactor reactor;
+    // Longest line accepted, e.g. a CREATE_AUCTION with a long description
+    private static final int MAX_LINE_BYTES = 65536;
+
+    private ByteBuffer readBuffer = ByteBuffer.allocate(1024);
+
+    // Messages not yet accepted by the socket, bounded per client
+    private final OutboundQueue outbound;
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    // Selector thread only
+    private ByteBuffer pendingWrite;
+    private SelectionKey selectionKey;
 
     // We'll use a simple line-based protocol (messages end with \n)
-    private final StringBuilder messageBuffer = new StringBuilder();
+    private final AuctionLineParser parser = new AuctionLineParser();
+    private final AuctionLineParser.LineListener lineListener = new AuctionLineParser.LineListener() {
+        @Override
+        public void onBid(String auctionId, double amount) {
+            lastCommand = server.submitBid(lastCommand, AuctionClientHandler.this, auctionId, amount);
+        }
+
+        @Override
+        public void onLine(AuctionLineParser.Command command, String line) {
+            if (line.equals(BinaryBidProtocol.NEGOTIATE)) {
+                binaryInput = true;
+                lastCommand = server.submitProtocolSwitch(lastCommand, AuctionClientHandler.this);
+            } else {
+                processMessage(command, line);
+            }
+        }
+    };
 
-    public AuctionClientHandler(SocketChannel channel, AuctionServer server) {
+    // Binary framing (see BinaryBidProtocol): input switches on the reactor
+    // thread as soon as the PROTOCOL line is read, output once the commands
+    // sent before it have been answered
+    private boolean binaryInput = false;
+    private volatile boolean binaryOutput = false;
+    private final BinaryBidProtocol.FrameListener frameListener = new BinaryBidProtocol.FrameListener() {
+        @Override
+        public void onResolve(String auctionId) {
+            lastCommand = server.submitResolve(lastCommand, AuctionClientHandler.this, auctionId);
+        }
+
+        @Override
+        public void onBid(int auctionRef, long cents) {
+            lastCommand = server.submitBinaryBid(lastCommand, AuctionClientHandler.this, auctionRef, cents);
+        }
+
+        @Override
+        public void onWatch(int auctionRef) {
+            lastCommand = server.submitWatch(lastCommand, AuctionClientHandler.this, auctionRef);
+        }
+    };
+
+    // Last command queued for this client; commands run one after another
+    private CompletableFuture<Void> lastCommand = CompletableFuture.completedFuture(null);
+
+    public AuctionClientHandler(SocketChannel channel, AuctionServer server, AuctionReactor reactor) {
         this.channel = channel;
         this.server = server;
+        this.reactor = reactor;
+        ConfigManager config = ConfigManager.getInstance();
+        this.outbound = new OutboundQueue(config.getInt("outbound.queue.max.bytes"),
+                OutboundQueue.OverflowPolicy.fromConfig(config.getString("auction.outbound.overflow.policy"),
+                        OutboundQueue.OverflowPolicy.COALESCE));
+    }
+
+    void attach(SelectionKey key) {
+        this.selectionKey = key;
     }
 
     /**
      * Reads data from the client's channel.
-     * This is called by AuctionServer when the selector says this channel is "readable".
+     * This is called by the AuctionReactor when the selector says this channel is "readable".
      */
     public void read() {
         try {
@@ -28,51 +99,72 @@ public class AuctionClientHandler {
 
             if (bytesRead == -1) {
                 // Client disconnected
-                server.clientDisconnected(this);
-                channel.close();
+                close();
                 return;
             }
 
             if (bytesRead > 0) {
                 // Flip the buffer to read data out
                 readBuffer.flip();
-
-                // Decode bytes to characters
-                while (readBuffer.hasRemaining()) {
-                    char c = (char) readBuffer.get();
-                    if (c == '\n') {
-                        // End of a message
-                        processMessage(messageBuffer.toString());
-                        messageBuffer.setLength(0); // Clear buffer for next message
-                    } else if (c != '\r') {
-                        // Append char (ignore carriage return)
-                        messageBuffer.append(c);
-                    }
-                }
+                decodeInput();
 
                 // Compact the buffer to save any partial message
                 readBuffer.compact();
+                if (!readBuffer.hasRemaining()) {
+                    growReadBuffer();
+                }
             }
+        } catch (ProtocolException e) {
+            LOG.warn("Protocol error from {}: {}", getRemoteAddress(), e.getMessage());
+            close();
         } catch (IOException e) {
             // IO Error, treat as disconnect
-            try {
-                server.clientDisconnected(this);
-                channel.close();
-            } catch (IOException ioException) {
-                // Ignore
+            close();
+        }
+    }
+
+    /**
+     * Consume complete lines or frames. The line parser stops after a
+     * PROTOCOL line, so the loop carries on in the new framing.
+     */
+    private void decodeInput() throws ProtocolException {
+        int before;
+        do {
+            before = readBuffer.position();
+            if (binaryInput) {
+                BinaryBidProtocol.decode(readBuffer, frameListener);
+            } else {
+                parser.parse(readBuffer, lineListener);
             }
+        } while (readBuffer.hasRemaining() && readBuffer.position() != before);
+    }
+
+    /**
+     * A partial line filled the buffer: make room, up to MAX_LINE_BYTES
+     */
+    private void growReadBuffer() {
+        if (readBuffer.capacity() >= MAX_LINE_BYTES) {
+            LOG.warn("Line too long from {}, disconnecting", getRemoteAddress());
+            close();
+            return;
         }
+        readBuffer.flip();
+        readBuffer = ByteBuffer.allocate(readBuffer.capacity() * 2).put(readBuffer);
     }
 
     /**
      * Processes a complete message received from the client.
+     * Well-formed bids skip this and go straight to submitBid.
      */
-    private void processMessage(String message) {
-        System.out.println("Message from " + getRemoteAddress() + ": " + message);
+    private void processMessage(AuctionLineParser.Command command, String message) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Message from {}: {}", getRemoteAddress(), message);
+        }
 
         // Pass the message to the main server for routing
         // The server will decide what to do (e.g., call Bidding System)
-        server.processClientMessage(this, message);
+        // on its worker pool, after this client's previous command
+        lastCommand = server.submitClientMessage(lastCommand, this, command, message);
     }
 
     /**
@@ -80,22 +172,149 @@ public class AuctionClientHandler {
      * This is called by your BidBroadcaster.
      */
     public void write(String message) {
+        write(message, null);
+    }
+
+    /**
+     * Writes a message that a later one with the same key may replace
+     * while both are still queued, e.g. bid updates for one auction.
+     */
+    public void write(String message, String coalesceKey) {
+        boolean accepted;
+        // The framing is chosen under the queue's lock so nothing queued
+        // after the switch to binary can still be a text line
+        synchronized (outbound) {
+            accepted = outbound.offer(binaryOutput ? BinaryBidProtocol.text(message) : encodeLine(message),
+                    coalesceKey);
+        }
+        queued(accepted);
+    }
+
+    /**
+     * Queue a broadcast encoded once for text and once for binary clients.
+     * Both buffers are shared, so this client gets its own duplicate.
+     */
+    void writeShared(ByteBuffer textLine, ByteBuffer binaryFrame, String coalesceKey) {
+        boolean accepted;
+        synchronized (outbound) {
+            accepted = outbound.offer((binaryOutput ? binaryFrame : textLine).duplicate(), coalesceKey);
+        }
+        queued(accepted);
+    }
+
+    /**
+     * A text protocol line as bytes
+     */
+    static ByteBuffer encodeLine(String message) {
+        // Ensure message ends with a newline for our protocol
+        if (!message.endsWith("\n")) {
+            message += "\n";
+        }
+        return ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Queue a binary frame for a client that is known to be in binary mode,
+     * i.e. a reply to one of its own binary commands
+     */
+    void writeEncoded(ByteBuffer frame, String coalesceKey) {
+        queued(outbound.offer(frame, coalesceKey));
+    }
+
+    private void queued(boolean accepted) {
+        if (!accepted) {
+            disconnectSlowClient();
+            return;
+        }
+        // Only one flush request per batch of writes
+        if (flushRequested.compareAndSet(false, true)) {
+            reactor.requestFlush(this);
+        }
+    }
+
+    /**
+     * Write queued messages until the socket would block. Called on the
+     * reactor thread, also when OP_WRITE fires. Write interest is only
+     * registered while output is left over.
+     */
+    void flush() {
+        flushRequested.set(false);
+        if (!channel.isOpen()) {
+            return;
+        }
         try {
-            // Ensure message ends with a newline for our protocol
-            if (!message.endsWith("\n")) {
-                message += "\n";
+            if (pendingWrite == null) {
+                pendingWrite = outbound.poll();
             }
-
-            ByteBuffer writeBuffer = ByteBuffer.wrap(message.getBytes());
-            while (writeBuffer.hasRemaining()) {
-                channel.write(writeBuffer);
+            while (pendingWrite != null) {
+                channel.write(pendingWrite);
+                if (pendingWrite.hasRemaining()) {
+                    // Socket buffer full; resume when the client reads
+                    setWriteInterest(true);
+                    return;
+                }
+                pendingWrite = outbound.poll();
             }
+            setWriteInterest(false);
+        } catch (IOException | CancelledKeyException e) {
+            LOG.warn("Failed to write to {}", getRemoteAddress());
+            close();
+        }
+    }
+
+    private void setWriteInterest(boolean enabled) {
+        int ops = selectionKey.interestOps();
+        int wanted = enabled ? ops | SelectionKey.OP_WRITE : ops & ~SelectionKey.OP_WRITE;
+        if (wanted != ops) {
+            selectionKey.interestOps(wanted);
+        }
+    }
+
+    /**
+     * The client stopped reading and its queue is full (DISCONNECT policy)
+     */
+    private void disconnectSlowClient() {
+        LOG.warn("Disconnecting slow client {}: {}", getRemoteAddress(), outbound.describe());
+        close();
+    }
+
+    void close() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        server.clientDisconnected(this);
+        try {
+            channel.close();
         } catch (IOException e) {
-            System.err.println("Failed to write to " + getRemoteAddress());
-            // Client might be gone, this will be caught on next read
+            // Ignore
+        }
+        outbound.clear();
+    }
+
+    /**
+     * Whether replies to this client are binary frames
+     */
+    public boolean isBinary() {
+        return binaryOutput;
+    }
+
+    /**
+     * Send the negotiation reply as the last text line, then switch
+     */
+    void switchToBinaryOutput() {
+        synchronized (outbound) {
+            write(BinaryBidProtocol.NEGOTIATE_OK);
+            binaryOutput = true;
         }
     }
 
+    /**
+     * Backlog of messages not yet written to this client
+     */
+    public OutboundQueue getOutboundQueue() {
+        return outbound;
+    }
+
     public SocketChannel getChannel() {
         return channel;
     }
@@ -0,0 +1,59 @@
+package main.server;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interned auction ids for the binary bid protocol.
+ * Each auction id gets an int reference the first time a client asks for
+ * it; frames then carry the 4-byte reference instead of the id. The
+ * references are shared by all connections, so a bid frame can be encoded
+ * once and sent to every binary watcher. AuctionManager releases an
+ * auction's reference once it closes or is deleted.
+ */
+public class AuctionIdTable {
+    private final ConcurrentHashMap<String, Integer> refs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, String> ids = new ConcurrentHashMap<>();
+    private int nextRef = 0;
+
+    /**
+     * The reference for an auction id, assigning one if needed
+     */
+    public int refFor(String auctionId) {
+        Integer ref = refs.get(auctionId);
+        return ref != null ? ref : assign(auctionId);
+    }
+
+    private synchronized int assign(String auctionId) {
+        Integer ref = refs.get(auctionId);
+        if (ref != null) {
+            return ref;
+        }
+        int assigned = nextRef++;
+        ids.put(assigned, auctionId);
+        refs.put(auctionId, assigned);
+        return assigned;
+    }
+
+    /**
+     * Forget an auction's reference. References are never reused, so a
+     * client still holding this one gets UNKNOWN_AUCTION, not another auction.
+     */
+    public synchronized void release(String auctionId) {
+        Integer ref = refs.remove(auctionId);
+        if (ref != null) {
+            ids.remove(ref);
+        }
+    }
+
+    /**
+     * The auction id for a reference, or null if it was never assigned or
+     * has been released
+     */
+    public String idFor(int ref) {
+        return ids.get(ref);
+    }
+
+    public int size() {
+        return refs.size();
+    }
+}
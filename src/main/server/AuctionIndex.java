@@ -0,0 +1,401 @@
+package main.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import main.model.Auction;
+import main.model.Auction.AuctionStatus;
+
+/**
+ * Ordered in-memory secondary indexes over the auction store.
+ * The listing indexes are sorted newest first by (createdTime, auctionId),
+ * the order the auctions table is read in: one over all auctions and one
+ * per seller, per category and per status. A further index keeps ACTIVE
+ * auctions by end time. Queries read only the entries they return, and a
+ * page is a range scan of the most selective index that applies: it starts
+ * just after the cursor and stops once it has enough entries, so its cost
+ * depends on the page size, not on how many auctions exist.
+ *
+ * Entries are re-checked against the auction when read, since an auction
+ * can close itself (Auction.placeBid) before its status entry moves; a
+ * reader that finds such an entry moves it.
+ */
+public class AuctionIndex {
+
+    /**
+     * Filters and position of one page; null filters match everything
+     */
+    public static class Query {
+        private AuctionStatus status;
+        private String category;
+        private String sellerId;
+        private Key after;
+        private int limit = 50;
+
+        public Query status(AuctionStatus status) {
+            this.status = status;
+            return this;
+        }
+
+        public Query category(String category) {
+            this.category = category;
+            return this;
+        }
+
+        public Query sellerId(String sellerId) {
+            this.sellerId = sellerId;
+            return this;
+        }
+
+        /**
+         * Continue after a cursor returned as Page.getNextCursor().
+         * Throws IllegalArgumentException if the cursor is malformed.
+         */
+        public Query after(String cursor) {
+            this.after = cursor == null ? null : Key.fromCursor(cursor);
+            return this;
+        }
+
+        public Query limit(int limit) {
+            if (limit < 1) {
+                throw new IllegalArgumentException("limit must be positive");
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        private boolean matches(Auction auction) {
+            return (status == null || auction.getStatus() == status)
+                && (category == null || category.equalsIgnoreCase(auction.getCategory()))
+                && (sellerId == null || sellerId.equals(auction.getSellerId()));
+        }
+    }
+
+    /**
+     * One page of auctions, newest first
+     */
+    public static class Page {
+        private final List<Auction> auctions;
+        private final String nextCursor;
+
+        Page(List<Auction> auctions, String nextCursor) {
+            this.auctions = auctions;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<Auction> getAuctions() {
+            return auctions;
+        }
+
+        /**
+         * Cursor for the following page, or null if this is the last one
+         */
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+
+    /**
+     * Sort key: newer auctions first, ties broken by id
+     */
+    static final class Key implements Comparable<Key> {
+        final long createdTime;
+        final String auctionId;
+
+        Key(long createdTime, String auctionId) {
+            this.createdTime = createdTime;
+            this.auctionId = auctionId;
+        }
+
+        static Key of(Auction auction) {
+            return new Key(auction.getCreatedTime(), auction.getAuctionId());
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byTime = Long.compare(other.createdTime, createdTime);
+            return byTime != 0 ? byTime : other.auctionId.compareTo(auctionId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && compareTo((Key) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(createdTime) * 31 + auctionId.hashCode();
+        }
+
+        String toCursor() {
+            String plain = createdTime + ":" + auctionId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Key fromCursor(String cursor) {
+            try {
+                String plain = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int colon = plain.indexOf(':');
+                return new Key(Long.parseLong(plain.substring(0, colon)), plain.substring(colon + 1));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+    }
+
+    /**
+     * End-time order: soonest ending first, ties broken by id
+     */
+    static final class EndKey implements Comparable<EndKey> {
+        final long endTime;
+        final String auctionId;
+
+        EndKey(long endTime, String auctionId) {
+            this.endTime = endTime;
+            this.auctionId = auctionId;
+        }
+
+        static EndKey of(Auction auction) {
+            return new EndKey(auction.getEndTime(), auction.getAuctionId());
+        }
+
+        @Override
+        public int compareTo(EndKey other) {
+            int byTime = Long.compare(endTime, other.endTime);
+            return byTime != 0 ? byTime : auctionId.compareTo(other.auctionId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof EndKey && compareTo((EndKey) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(endTime) * 31 + auctionId.hashCode();
+        }
+    }
+
+    private final ConcurrentSkipListMap<Key, Auction> all = new ConcurrentSkipListMap<>();
+    private final Map<String, ConcurrentSkipListMap<Key, Auction>> bySeller = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListMap<Key, Auction>> byCategory = new ConcurrentHashMap<>();
+    private final Map<AuctionStatus, ConcurrentSkipListMap<Key, Auction>> byStatus = new EnumMap<>(AuctionStatus.class);
+    // ACTIVE auctions only, including those past their end time until they are closed
+    private final ConcurrentSkipListMap<EndKey, Auction> activeByEndTime = new ConcurrentSkipListMap<>();
+
+    public AuctionIndex() {
+        for (AuctionStatus status : AuctionStatus.values()) {
+            byStatus.put(status, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    /*
+     * Every change to one auction's entries, and the status or end time
+     * change behind it, runs while holding that auction's monitor (the lock
+     * Auction.extendEndTime takes too). Changes to one auction are therefore
+     * applied whole and in order; readers never block, and an entry they
+     * catch mid-move is re-checked against the auction itself.
+     */
+
+    public void add(Auction auction) {
+        Key key = Key.of(auction);
+        synchronized (auction) {
+            all.put(key, auction);
+            addTo(bySeller, sellerKey(auction.getSellerId()), key, auction);
+            addTo(byCategory, categoryKey(auction.getCategory()), key, auction);
+            indexStatus(auction, key);
+        }
+    }
+
+    public void remove(Auction auction) {
+        Key key = Key.of(auction);
+        synchronized (auction) {
+            all.remove(key);
+            removeFrom(bySeller, sellerKey(auction.getSellerId()), key);
+            removeFrom(byCategory, categoryKey(auction.getCategory()), key);
+            for (ConcurrentSkipListMap<Key, Auction> statusIndex : byStatus.values()) {
+                statusIndex.remove(key);
+            }
+            activeByEndTime.remove(EndKey.of(auction));
+        }
+    }
+
+    /**
+     * Change an auction's status and move its entries in one step
+     */
+    public void setStatus(Auction auction, AuctionStatus status) {
+        synchronized (auction) {
+            auction.setStatus(status);
+            statusChanged(auction);
+        }
+    }
+
+    /**
+     * Re-index an auction whose status was changed directly on the model,
+     * as Auction.placeBid does when it finds the auction expired. Does
+     * nothing for an auction that has been removed.
+     */
+    public void statusChanged(Auction auction) {
+        Key key = Key.of(auction);
+        synchronized (auction) {
+            if (all.containsKey(key)) {
+                indexStatus(auction, key);
+            }
+        }
+    }
+
+    /**
+     * Push back an auction's end time and re-sort it in the end-time index
+     */
+    public void extendEndTime(Auction auction, long extraMillis) {
+        synchronized (auction) {
+            boolean indexed = activeByEndTime.remove(EndKey.of(auction)) != null;
+            auction.extendEndTime(extraMillis);
+            if (indexed) {
+                activeByEndTime.put(EndKey.of(auction), auction);
+            }
+        }
+    }
+
+    private void indexStatus(Auction auction, Key key) {
+        AuctionStatus current = auction.getStatus();
+        byStatus.get(current).put(key, auction);
+        for (Map.Entry<AuctionStatus, ConcurrentSkipListMap<Key, Auction>> entry : byStatus.entrySet()) {
+            if (entry.getKey() != current) {
+                entry.getValue().remove(key);
+            }
+        }
+        if (current == AuctionStatus.ACTIVE) {
+            activeByEndTime.put(EndKey.of(auction), auction);
+        } else {
+            activeByEndTime.remove(EndKey.of(auction));
+        }
+    }
+
+    /**
+     * Read one page, newest first
+     */
+    public Page page(Query query) {
+        NavigableMap<Key, Auction> index = narrowest(query);
+        boolean statusIndex = index == byStatus.get(query.status);
+        if (query.after != null) {
+            index = index.tailMap(query.after, false);
+        }
+        List<Auction> auctions = new ArrayList<>(Math.min(query.limit, 256));
+        Key last = null;
+        for (Map.Entry<Key, Auction> entry : index.entrySet()) {
+            Auction auction = entry.getValue();
+            if (!query.matches(auction)) {
+                if (statusIndex && auction.getStatus() != query.status) {
+                    statusChanged(auction);
+                }
+                continue;
+            }
+            if (auctions.size() == query.limit) {
+                return new Page(auctions, last.toCursor());
+            }
+            auctions.add(auction);
+            last = entry.getKey();
+        }
+        return new Page(auctions, null);
+    }
+
+    /**
+     * A seller's auctions, newest first
+     */
+    public List<Auction> bySeller(String sellerId) {
+        ConcurrentSkipListMap<Key, Auction> index = bySeller.get(sellerKey(sellerId));
+        return index == null ? new ArrayList<>() : new ArrayList<>(index.values());
+    }
+
+    /**
+     * A category's auctions, newest first; the category is matched ignoring case
+     */
+    public List<Auction> byCategory(String category) {
+        ConcurrentSkipListMap<Key, Auction> index = byCategory.get(categoryKey(category));
+        return index == null ? new ArrayList<>() : new ArrayList<>(index.values());
+    }
+
+    /**
+     * Auctions with the given status, newest first
+     */
+    public List<Auction> byStatus(AuctionStatus status) {
+        List<Auction> auctions = new ArrayList<>();
+        for (Auction auction : byStatus.get(status).values()) {
+            if (auction.getStatus() == status) {
+                auctions.add(auction);
+            } else {
+                statusChanged(auction);
+            }
+        }
+        return auctions;
+    }
+
+    /**
+     * ACTIVE auctions that end after the given time, soonest ending first
+     */
+    public List<Auction> activeEndingAfter(long time) {
+        List<Auction> auctions = new ArrayList<>();
+        // "" sorts before every id, so this starts at the first end time past 'time'
+        for (Auction auction : activeByEndTime.tailMap(new EndKey(time + 1, ""), true).values()) {
+            if (auction.getStatus() == AuctionStatus.ACTIVE) {
+                auctions.add(auction);
+            } else {
+                statusChanged(auction);
+            }
+        }
+        return auctions;
+    }
+
+    /**
+     * The smallest index covering the query: a seller's auctions are the
+     * fewest, then a category's, then a status's
+     */
+    private NavigableMap<Key, Auction> narrowest(Query query) {
+        if (query.sellerId != null) {
+            return bySeller.getOrDefault(sellerKey(query.sellerId), new ConcurrentSkipListMap<>());
+        }
+        if (query.category != null) {
+            return byCategory.getOrDefault(categoryKey(query.category), new ConcurrentSkipListMap<>());
+        }
+        if (query.status != null) {
+            return byStatus.get(query.status);
+        }
+        return all;
+    }
+
+    private static void addTo(Map<String, ConcurrentSkipListMap<Key, Auction>> indexes, String name,
+                              Key key, Auction auction) {
+        // Inside compute, so a concurrent removeFrom cannot drop the map we add to
+        indexes.compute(name, (k, index) -> {
+            if (index == null) {
+                index = new ConcurrentSkipListMap<>();
+            }
+            index.put(key, auction);
+            return index;
+        });
+    }
+
+    private static void removeFrom(Map<String, ConcurrentSkipListMap<Key, Auction>> indexes, String name, Key key) {
+        indexes.computeIfPresent(name, (k, index) -> {
+            index.remove(key);
+            return index.isEmpty() ? null : index;
+        });
+    }
+
+    private static String sellerKey(String sellerId) {
+        return sellerId == null ? "" : sellerId;
+    }
+
+    // Categories are matched case-insensitively, as getAuctionsByCategory does
+    private static String categoryKey(String category) {
+        return category == null ? "" : category.toLowerCase(Locale.ROOT);
+    }
+}
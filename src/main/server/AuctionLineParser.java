@@ -0,0 +1,262 @@
+package main.server;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Byte-level parser for the auction server's line protocol.
+ * Lines are found with a word-at-a-time newline scan over the read buffer
+ * and dispatched on a command-prefix table indexed by the first byte. BID
+ * lines in the usual form (BID:auctionId:amount, plain decimal amount) are
+ * parsed in place: the amount is converted from its digits and the auction
+ * id comes from a small per-client cache of recent ids, so a client bidding
+ * on the same auctions allocates no Strings or arrays per message.
+ * Every other line is decoded as UTF-8 and handed over whole. Parsing stops
+ * after a PROTOCOL line, since the bytes after it may be in another framing.
+ * One parser belongs to one connection and is not thread-safe.
+ */
+public class AuctionLineParser {
+
+    /**
+     * Commands of the line protocol, keyed by their prefix
+     */
+    public enum Command {
+        BID("BID:"),
+        WATCH("WATCH:"),
+        CREATE_AUCTION("CREATE_AUCTION:"),
+        LIST_AUCTIONS("LIST_AUCTIONS"),
+        GET_AUCTION("GET_AUCTION:"),
+        PROTOCOL("PROTOCOL:");
+
+        private final byte[] prefix;
+
+        Command(String prefix) {
+            this.prefix = prefix.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        /**
+         * The command a decoded line starts with, or null if none
+         */
+        public static Command match(String line) {
+            if (line.isEmpty() || line.charAt(0) >= 128) {
+                return null;
+            }
+            Command[] candidates = BY_FIRST_BYTE[line.charAt(0)];
+            if (candidates == null) {
+                return null;
+            }
+            for (Command command : candidates) {
+                if (line.length() >= command.prefix.length && startsWith(line, command.prefix)) {
+                    return command;
+                }
+            }
+            return null;
+        }
+
+        private static boolean startsWith(String line, byte[] prefix) {
+            for (int i = 0; i < prefix.length; i++) {
+                if (line.charAt(i) != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Receives the parsed lines
+     */
+    public interface LineListener {
+        void onBid(String auctionId, double amount);
+
+        /** Any other line; command is null when no prefix matched */
+        void onLine(Command command, String line);
+    }
+
+    // Commands grouped by the first byte of their prefix
+    private static final Command[][] BY_FIRST_BYTE = new Command[128][];
+
+    static {
+        for (Command command : Command.values()) {
+            int first = command.prefix[0];
+            Command[] existing = BY_FIRST_BYTE[first];
+            Command[] grown = existing == null ? new Command[1] : Arrays.copyOf(existing, existing.length + 1);
+            grown[grown.length - 1] = command;
+            BY_FIRST_BYTE[first] = grown;
+        }
+    }
+
+    private static final VarHandle LONGS =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+    private static final long NEWLINES = ONES * '\n';
+
+    // Exactly representable powers of ten for the decimal fast path
+    private static final double[] POWERS_OF_TEN = new double[23];
+    // Integers up to 2^53 convert to double exactly
+    private static final int MAX_MANTISSA_DIGITS = 15;
+
+    static {
+        double power = 1;
+        for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = power;
+            power *= 10;
+        }
+    }
+
+    private static final int ID_CACHE_SIZE = 256;
+    private final String[] idCache = new String[ID_CACHE_SIZE];
+
+    /**
+     * Index of the first '\n' in data[from, to), or -1.
+     * Checks eight bytes per step using the "has zero byte" bit trick.
+     */
+    static int indexOfNewline(byte[] data, int from, int to) {
+        int i = from;
+        for (; i + 8 <= to; i += 8) {
+            long word = (long) LONGS.get(data, i) ^ NEWLINES;
+            long found = (word - ONES) & ~word & HIGHS;
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (data[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Consume every complete line in the buffer (which must be backed by
+     * an array), up to and including a PROTOCOL line. The position is left
+     * at the start of the first line not consumed.
+     */
+    public void parse(ByteBuffer buffer, LineListener listener) {
+        byte[] data = buffer.array();
+        int base = buffer.arrayOffset();
+        int start = base + buffer.position();
+        int limit = base + buffer.limit();
+
+        int newline;
+        while ((newline = indexOfNewline(data, start, limit)) >= 0) {
+            int end = newline;
+            if (end > start && data[end - 1] == '\r') {
+                end--;
+            }
+            Command command = parseLine(data, start, end, listener);
+            start = newline + 1;
+            if (command == Command.PROTOCOL) {
+                break;
+            }
+        }
+        buffer.position(start - base);
+    }
+
+    private Command parseLine(byte[] data, int start, int end, LineListener listener) {
+        Command command = match(data, start, end);
+        if (command != Command.BID || !parseBid(data, start + Command.BID.prefix.length, end, listener)) {
+            listener.onLine(command, new String(data, start, end - start, StandardCharsets.UTF_8));
+        }
+        return command;
+    }
+
+    private static Command match(byte[] data, int start, int end) {
+        if (start == end || data[start] < 0) {
+            return null;
+        }
+        Command[] candidates = BY_FIRST_BYTE[data[start]];
+        if (candidates == null) {
+            return null;
+        }
+        for (Command command : candidates) {
+            byte[] prefix = command.prefix;
+            if (end - start < prefix.length) {
+                continue;
+            }
+            int i = 1;
+            while (i < prefix.length && data[start + i] == prefix[i]) {
+                i++;
+            }
+            if (i == prefix.length) {
+                return command;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Fast path for "auctionId:amount". Returns false for anything it does
+     * not handle, which then takes the general path and its error replies.
+     */
+    private boolean parseBid(byte[] data, int start, int end, LineListener listener) {
+        int colon = start;
+        while (colon < end && data[colon] != ':') {
+            if (data[colon] < 0) {
+                return false; // Non-ASCII id
+            }
+            colon++;
+        }
+        if (colon == start || colon == end) {
+            return false;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (int i = colon + 1; i < end; i++) {
+            byte b = data[i];
+            if (b >= '0' && b <= '9') {
+                if (++digits > MAX_MANTISSA_DIGITS) {
+                    return false;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return false;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        // One correctly rounded division gives the same result as Double.parseDouble
+        double amount = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+
+        listener.onBid(auctionId(data, start, colon), amount);
+        return true;
+    }
+
+    /**
+     * The id as a String, reusing the cached instance when it was seen before
+     */
+    private String auctionId(byte[] data, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + data[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (ID_CACHE_SIZE - 1);
+        String cached = idCache[slot];
+        if (cached != null && cached.length() == end - start) {
+            int i = 0;
+            while (i < cached.length() && cached.charAt(i) == data[start + i]) {
+                i++;
+            }
+            if (i == cached.length()) {
+                return cached;
+            }
+        }
+        String id = new String(data, start, end - start, StandardCharsets.US_ASCII);
+        idCache[slot] = id;
+        return id;
+    }
+}
@@ -1,33 +1,62 @@
 package main.server;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 import main.model.Auction;
+import main.model.Bid;
+import main.model.Notification;
 import main.util.DatabaseManager;
+import main.util.LatencyHistogram;
+import main.util.Logger;
+import main.util.Metrics;
 
 /**
  * Manages all auctions in the system
- * Enhanced to use SQL Database storage
+ * The in-memory map is the authoritative auction store shared by the REST
+ * API, the timer manager and the TCP server. SQLite is only read once at
+ * startup; every change is written through to it.
  */
 public class AuctionManager {
+    private static final Logger LOG = Logger.get("AuctionManager");
+    private static final LatencyHistogram BID_LATENCY = Metrics.histogram("auction_bid_seconds",
+            "Time from submitting a bid until it is durable or rejected");
+    private static final Metrics.Counter BIDS_ACCEPTED = Metrics.counter("auction_bids_total",
+            "Bids placed, by outcome", "result", "accepted");
+    private static final Metrics.Counter BIDS_REJECTED = Metrics.counter("auction_bids_total",
+            "Bids placed, by outcome", "result", "rejected");
+
+    private static AuctionManager instance;
 
     // A thread-safe map to hold all active auctions in memory
     // Key: auctionId (String), Value: Auction object
     private Map<String, Auction> activeAuctions = new ConcurrentHashMap<>();
 
+    // Secondary indexes over the same auctions (seller, category, status,
+    // end time); every status change goes through them
+    private final AuctionIndex index = new AuctionIndex();
+
     // Database manager for persistence
     private final DatabaseManager dbManager;
 
     // Reference to server for broadcasting
     private AuctionServer server;
 
-    public AuctionManager() {
+    private AuctionManager() {
         this.dbManager = DatabaseManager.getInstance();
         loadAuctionsFromDatabase();
     }
 
+    public static synchronized AuctionManager getInstance() {
+        if (instance == null) {
+            instance = new AuctionManager();
+        }
+        return instance;
+    }
+
     /**
      * Set server reference for broadcasting
      */
@@ -37,21 +66,18 @@ public class AuctionManager {
 
     /**
      * Load all auctions from database on startup
+     * Auctions that expired while the server was down stay ACTIVE here so the
+     * timer manager can close them and send the usual notifications;
+     * getAuction() closes them lazily when no timer manager is running.
      */
     private void loadAuctionsFromDatabase() {
-        System.out.println("[AuctionManager] Loading auctions from database...");
-        Map<String, Auction> loadedAuctions = dbManager.loadAllAuctions();
-
-        // Filter out expired auctions and update their status
-        for (Auction auction : loadedAuctions.values()) {
-            if (auction.hasExpired() && auction.getStatus() == Auction.AuctionStatus.ACTIVE) {
-                auction.setStatus(Auction.AuctionStatus.CLOSED);
-                dbManager.updateAuctionStatus(auction.getAuctionId(), Auction.AuctionStatus.CLOSED);
-            }
-            activeAuctions.put(auction.getAuctionId(), auction);
+        LOG.info("Loading auctions from database...");
+        activeAuctions.putAll(dbManager.loadAllAuctions());
+        for (Auction auction : activeAuctions.values()) {
+            index.add(auction);
         }
 
-        System.out.println("[AuctionManager] Loaded " + activeAuctions.size() + " auctions from database");
+        LOG.info("Loaded {} auctions from database", activeAuctions.size());
     }
 
     /**
@@ -74,9 +100,9 @@ public class AuctionManager {
         if (auction != null) {
             // Add to active auctions in memory
             activeAuctions.put(auction.getAuctionId(), auction);
+            index.add(auction);
 
-            System.out.println("[AuctionManager] New auction created: " + auction.getAuctionId() +
-                    " - " + itemName + " by " + sellerId);
+            LOG.info("New auction created: {} - {} by {}", auction.getAuctionId(), itemName, sellerId);
 
             // Broadcast to all connected clients (if server is set)
             if (server != null) {
@@ -98,9 +124,13 @@ public class AuctionManager {
         dbManager.saveAuction(auction);
         
         // Add to memory
-        activeAuctions.put(auction.getAuctionId(), auction);
+        Auction replaced = activeAuctions.put(auction.getAuctionId(), auction);
+        if (replaced != null) {
+            index.remove(replaced);
+        }
+        index.add(auction);
 
-        System.out.println("[AuctionManager] Auction created: " + auction.getAuctionId());
+        LOG.info("Auction created: {}", auction.getAuctionId());
 
         if (server != null) {
             server.broadcastNewAuction(auction);
@@ -116,20 +146,95 @@ public class AuctionManager {
         // Check if auction has expired
         if (auction != null && auction.hasExpired() &&
                 auction.getStatus() == Auction.AuctionStatus.ACTIVE) {
-            auction.setStatus(Auction.AuctionStatus.CLOSED);
+            index.setStatus(auction, Auction.AuctionStatus.CLOSED);
             dbManager.updateAuctionStatus(auctionId, Auction.AuctionStatus.CLOSED);
+            releaseAuction(auctionId);
         }
 
         return auction;
     }
 
     /**
-     * Get all active auctions
+     * Place a bid on an auction from this store and write it through.
+     * The future completes once the bid is durable, or with the reason it
+     * was rejected or failed.
+     */
+    public CompletableFuture<Bid.Result> placeBid(Auction auction, Bid bid) {
+        long start = System.nanoTime();
+        CompletableFuture<Bid.Result> result = dbManager.submitBid(bid, auction);
+        if (result.isDone() && !result.isCompletedExceptionally()) {
+            // Rejected, or written synchronously: nothing to wait for
+            recordBid(start, result.join() == Bid.Result.ACCEPTED);
+        } else {
+            result.whenComplete((outcome, error) -> recordBid(start, outcome == Bid.Result.ACCEPTED));
+        }
+        return result;
+    }
+
+    private static void recordBid(long start, boolean accepted) {
+        BID_LATENCY.recordSince(start);
+        (accepted ? BIDS_ACCEPTED : BIDS_REJECTED).increment();
+    }
+
+    /**
+     * Delete an auction and its bids
+     */
+    public boolean deleteAuction(String auctionId) {
+        if (!dbManager.deleteAuction(auctionId)) {
+            return false;
+        }
+        Auction removed = activeAuctions.remove(auctionId);
+        if (removed != null) {
+            index.remove(removed);
+        }
+        releaseAuction(auctionId);
+        return true;
+    }
+
+    /**
+     * An auction that closed or was deleted no longer needs a binary
+     * protocol reference; clients still using it get UNKNOWN_AUCTION
+     */
+    private void releaseAuction(String auctionId) {
+        if (server != null) {
+            server.releaseAuction(auctionId);
+        }
+    }
+
+    /**
+     * Look up an auction without the lazy expiry check in getAuction()
+     */
+    public Auction findAuction(String auctionId) {
+        return activeAuctions.get(auctionId);
+    }
+
+    /**
+     * Mark a batch of expired auctions CLOSED and persist the status changes
+     * together with their notifications in one transaction
+     */
+    public boolean closeExpiredAuctions(List<Auction> auctions, List<Notification> notifications) {
+        List<String> auctionIds = new ArrayList<>(auctions.size());
+        for (Auction auction : auctions) {
+            index.setStatus(auction, Auction.AuctionStatus.CLOSED);
+            auctionIds.add(auction.getAuctionId());
+            releaseAuction(auction.getAuctionId());
+        }
+        return dbManager.saveExpiredAuctions(auctionIds, notifications);
+    }
+
+    /**
+     * Get all active auctions that have not yet expired, soonest ending first
      */
     public Collection<Auction> getActiveAuctions() {
-        return activeAuctions.values().stream()
-                .filter(a -> a.getStatus() == Auction.AuctionStatus.ACTIVE && !a.hasExpired())
-                .collect(Collectors.toList());
+        return index.activeEndingAfter(System.currentTimeMillis());
+    }
+
+    /**
+     * Get auctions with a given status, newest first. ACTIVE includes
+     * auctions past their end time that have not been closed yet.
+     */
+    public Collection<Auction> getAuctionsByStatus(Auction.AuctionStatus status) {
+        return index.byStatus(status);
     }
 
     /**
@@ -140,21 +245,33 @@ public class AuctionManager {
     }
 
     /**
-     * Get auctions by category
+     * One page of auctions, newest first, filtered by status, category
+     * and seller as the query asks
+     */
+    public AuctionIndex.Page listAuctions(AuctionIndex.Query query) {
+        return index.page(query);
+    }
+
+    /**
+     * Get auctions by category (ignoring case), newest first
      */
     public Collection<Auction> getAuctionsByCategory(String category) {
-        return activeAuctions.values().stream()
-                .filter(a -> a.getCategory().equalsIgnoreCase(category))
-                .collect(Collectors.toList());
+        return index.byCategory(category);
     }
 
     /**
-     * Get auctions by seller
+     * Get auctions by seller, newest first
      */
     public Collection<Auction> getAuctionsBySeller(String sellerId) {
-        return activeAuctions.values().stream()
-                .filter(a -> a.getSellerId().equals(sellerId))
-                .collect(Collectors.toList());
+        return index.bySeller(sellerId);
+    }
+
+    /**
+     * Push back an auction's end time, e.g. for anti-sniping, keeping the
+     * end-time index in order. The caller reschedules the expiry timer.
+     */
+    public void extendEndTime(Auction auction, long extraMillis) {
+        index.extendEndTime(auction, extraMillis);
     }
 
     /**
@@ -163,9 +280,10 @@ public class AuctionManager {
     public boolean closeAuction(String auctionId) {
         Auction auction = activeAuctions.get(auctionId);
         if (auction != null && auction.getStatus() == Auction.AuctionStatus.ACTIVE) {
-            auction.setStatus(Auction.AuctionStatus.CLOSED);
+            index.setStatus(auction, Auction.AuctionStatus.CLOSED);
             dbManager.updateAuctionStatus(auctionId, Auction.AuctionStatus.CLOSED);
-            System.out.println("[AuctionManager] Auction closed: " + auctionId);
+            releaseAuction(auctionId);
+            LOG.info("Auction closed: {}", auctionId);
             return true;
         }
         return false;
@@ -179,9 +297,10 @@ public class AuctionManager {
 
         // Only seller can cancel their auction
         if (auction != null && auction.getSellerId().equals(requesterId)) {
-            auction.setStatus(Auction.AuctionStatus.CANCELLED);
+            index.setStatus(auction, Auction.AuctionStatus.CANCELLED);
             dbManager.updateAuctionStatus(auctionId, Auction.AuctionStatus.CANCELLED);
-            System.out.println("[AuctionManager] Auction cancelled: " + auctionId);
+            releaseAuction(auctionId);
+            LOG.info("Auction cancelled: {}", auctionId);
             return true;
         }
         return false;
@@ -194,7 +313,7 @@ public class AuctionManager {
         for (Auction auction : activeAuctions.values()) {
             dbManager.saveAuction(auction);
         }
-        System.out.println("[AuctionManager] All auctions saved to database");
+        LOG.info("All auctions saved to database");
     }
 
     /**
@@ -0,0 +1,127 @@
+package main.server;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import main.util.Logger;
+
+/**
+ * I/O selector thread of the AuctionServer.
+ * The acceptor spreads new clients over the reactors; each client's reads and
+ * writes then stay on one reactor thread. Reactors only move bytes and split
+ * lines: commands run on the server's worker pool, so a reactor never waits
+ * on the database.
+ */
+public class AuctionReactor implements Runnable {
+    private static final Logger LOG = Logger.get("AuctionReactor");
+
+    private final Selector selector;
+    private final Thread thread;
+    // Registrations and flushes handed over by other threads
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    public AuctionReactor(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Register an accepted, non-blocking client with this reactor
+     */
+    public void register(SocketChannel channel, AuctionClientHandler handler) {
+        execute(() -> {
+            try {
+                handler.attach(channel.register(selector, SelectionKey.OP_READ, handler));
+                handler.write("Welcome to the Auction Server!");
+            } catch (IOException e) {
+                LOG.error("Failed to register client: {}", e.getMessage());
+                handler.close();
+            }
+        });
+    }
+
+    /**
+     * Have a client's queued output written. On the reactor thread this
+     * happens right away; other threads hand it over and wake the selector.
+     */
+    void requestFlush(AuctionClientHandler handler) {
+        if (Thread.currentThread() == thread) {
+            handler.flush();
+        } else {
+            execute(handler::flush);
+        }
+    }
+
+    private void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                LOG.error("Selector error: {}", e.getMessage());
+                continue;
+            }
+
+            Iterator<SelectionKey> keyIterator = selector.selectedKeys().iterator();
+            while (keyIterator.hasNext()) {
+                SelectionKey key = keyIterator.next();
+                keyIterator.remove();
+                AuctionClientHandler handler = (AuctionClientHandler) key.attachment();
+                try {
+                    if (key.isValid() && key.isReadable()) {
+                        handler.read();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        handler.flush();
+                    }
+                } catch (CancelledKeyException e) {
+                    handler.close();
+                }
+            }
+
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOG.error("Task failed: {}", e.getMessage());
+                }
+            }
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            ((AuctionClientHandler) key.attachment()).close();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOG.error("Error closing selector: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stop the reactor and close its clients
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
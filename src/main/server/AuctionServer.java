@@ -6,88 +6,274 @@ import main.model.Auction;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.channels.*;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.Set;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import main.util.ConfigManager;
+import main.util.Logger;
+import main.util.Metrics;
+import main.util.OutboundQueue;
+
+/**
+ * TCP auction server using a boss/worker reactor model.
+ * The thread that calls start() only accepts connections and hands each one
+ * to an AuctionReactor (one per core by default) for its socket I/O. Commands
+ * run on a separate worker pool, one at a time per client and in the order
+ * they arrived, so the database is never touched from a reactor thread.
+ */
 public class AuctionServer {
+    private static final Logger LOG = Logger.get("AuctionServer");
+    private static final Metrics.Counter ACCEPTED = Metrics.counter("auction_tcp_connections_accepted_total",
+            "Auction TCP connections accepted");
+
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
 
     private final int port;
-    private final Selector selector;
-    private final Map<SocketChannel, main.server.AuctionClientHandler> clients = new HashMap<>();
+    private final Selector acceptSelector;
+    private final ServerSocketChannel serverSocketChannel;
+    private final AuctionReactor[] reactors;
+    private int nextReactor = 0;
+    private final ExecutorService workers;
+    private volatile boolean running = true;
+    // Also read by broadcastNewAuction and slow-client disconnects on other threads
+    private final Map<SocketChannel, main.server.AuctionClientHandler> clients = new ConcurrentHashMap<>();
 
     // --- Managers ---
     private final main.server.AuctionManager auctionManager;
     private final main.server.BidBroadcaster bidBroadcaster;
+    // References for auction ids in the binary protocol
+    private final AuctionIdTable auctionIds = new AuctionIdTable();
 
     public AuctionServer(int port) throws IOException {
         this.port = port;
-        this.selector = Selector.open();
-        ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+        this.acceptSelector = Selector.open();
+        this.serverSocketChannel = ServerSocketChannel.open();
         serverSocketChannel.bind(new InetSocketAddress(port));
         serverSocketChannel.configureBlocking(false);
-        serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+        serverSocketChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+        Metrics.gauge("auction_tcp_connections", "Open auction TCP connections", clients::size);
+
+        ConfigManager config = ConfigManager.getInstance();
+        int reactorCount = config.getInt("auction.reactors");
+        if (reactorCount <= 0) {
+            reactorCount = Runtime.getRuntime().availableProcessors();
+        }
+        this.reactors = new AuctionReactor[reactorCount];
+        for (int i = 0; i < reactorCount; i++) {
+            reactors[i] = new AuctionReactor("AuctionReactor-" + i);
+        }
+
+        AtomicInteger workerNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(config.getInt("auction.worker.threads"), r -> {
+            Thread t = new Thread(r, "AuctionWorker-" + workerNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
 
         // --- Initialize managers ---
-        this.auctionManager = new main.server.AuctionManager();
+        this.auctionManager = main.server.AuctionManager.getInstance();
         this.auctionManager.setServer(this); // Set server reference for broadcasting
-        this.bidBroadcaster = new main.server.BidBroadcaster();
+        this.bidBroadcaster = new main.server.BidBroadcaster(auctionIds);
     }
 
+    /**
+     * Accept connections on the calling thread until stop() is called
+     */
     public void start() {
-        System.out.println("Server is listening on port " + this.port);
+        LOG.info("Server is listening on port {} with {} I/O reactors", this.port, reactors.length);
         try {
-            while (true) {
-                selector.select();
-                Set<SelectionKey> selectedKeys = selector.selectedKeys();
-                Iterator<SelectionKey> keyIterator = selectedKeys.iterator();
-
+            while (running) {
+                acceptSelector.select();
+                Iterator<SelectionKey> keyIterator = acceptSelector.selectedKeys().iterator();
                 while (keyIterator.hasNext()) {
                     SelectionKey key = keyIterator.next();
-                    if (key.isAcceptable()) {
-                        acceptNewClient(key);
-                    } else if (key.isReadable()) {
-                        main.server.AuctionClientHandler handler = (main.server.AuctionClientHandler) key.attachment();
-                        if (handler != null) {
-                            handler.read();
-                        }
-                    }
                     keyIterator.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        acceptNewClient();
+                    }
                 }
             }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void acceptNewClient() throws IOException {
+        SocketChannel clientChannel;
+        while ((clientChannel = serverSocketChannel.accept()) != null) {
+            clientChannel.configureBlocking(false);
+            AuctionReactor reactor = reactors[nextReactor];
+            nextReactor = (nextReactor + 1) % reactors.length;
+
+            main.server.AuctionClientHandler handler =
+                    new main.server.AuctionClientHandler(clientChannel, this, reactor);
+            clients.put(clientChannel, handler);
+            ACCEPTED.increment();
+            reactor.register(clientChannel, handler);
+            LOG.info("New client connected: {}", handler.getRemoteAddress());
+        }
+    }
+
+    /**
+     * Stop accepting, close all clients and wait for running commands
+     */
+    public void stop() {
+        running = false;
+        try {
+            serverSocketChannel.close();
+            acceptSelector.close();
         } catch (IOException e) {
-            e.printStackTrace();
+            LOG.error("Error closing server socket: {}", e.getMessage());
+        }
+        for (AuctionReactor reactor : reactors) {
+            reactor.shutdown();
+        }
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
         }
     }
 
-    private void acceptNewClient(SelectionKey key) throws IOException {
-        ServerSocketChannel ssc = (ServerSocketChannel) key.channel();
-        SocketChannel clientChannel = ssc.accept();
-        clientChannel.configureBlocking(false);
-        main.server.AuctionClientHandler handler = new main.server.AuctionClientHandler(clientChannel, this);
-        clientChannel.register(selector, SelectionKey.OP_READ, handler);
-        clients.put(clientChannel, handler);
-        System.out.println("New client connected: " + handler.getRemoteAddress());
-        handler.write("Welcome to the Auction Server!");
+    /**
+     * Queue a command after the client's previous one. Runs on a worker;
+     * the next command of this client starts once the returned future
+     * (e.g. a bid's commit) has completed.
+     */
+    CompletableFuture<Void> submitClientMessage(CompletableFuture<Void> previous,
+                                                main.server.AuctionClientHandler sender,
+                                                AuctionLineParser.Command command, String message) {
+        return submit(previous, () -> processCommand(sender, command, message));
+    }
+
+    /**
+     * Queue a bid already parsed by the client's AuctionLineParser
+     */
+    CompletableFuture<Void> submitBid(CompletableFuture<Void> previous,
+                                      main.server.AuctionClientHandler sender, String auctionId, double amount) {
+        return submit(previous, () -> placeBid(sender, -1, auctionId, amount));
+    }
+
+    /**
+     * Queue a bid from a binary frame
+     */
+    CompletableFuture<Void> submitBinaryBid(CompletableFuture<Void> previous,
+                                            main.server.AuctionClientHandler sender, int auctionRef, long cents) {
+        return submit(previous, () -> {
+            String auctionId = auctionIds.idFor(auctionRef);
+            if (auctionId == null) {
+                sender.writeEncoded(BinaryBidProtocol.bidRejected(auctionRef,
+                        BinaryBidProtocol.REJECT_UNKNOWN_AUCTION, 0), null);
+                return DONE;
+            }
+            return placeBid(sender, auctionRef, auctionId, BinaryBidProtocol.fromCents(cents));
+        });
+    }
+
+    /**
+     * Queue a binary RESOLVE: answer with the auction's reference
+     */
+    CompletableFuture<Void> submitResolve(CompletableFuture<Void> previous,
+                                          main.server.AuctionClientHandler sender, String auctionId) {
+        return submit(previous, () -> {
+            Auction auction = auctionManager.getAuction(auctionId);
+            if (auction == null) {
+                sender.write("ERROR: Auction not found: " + auctionId);
+            } else if (auction.getStatus() != Auction.AuctionStatus.ACTIVE) {
+                // Closed auctions have released their reference
+                sender.write("ERROR: Auction is not active: " + auctionId);
+            } else {
+                sender.writeEncoded(BinaryBidProtocol.auctionRef(auctionIds.refFor(auctionId), auctionId), null);
+            }
+            return DONE;
+        });
+    }
+
+    /**
+     * Queue a binary WATCH
+     */
+    CompletableFuture<Void> submitWatch(CompletableFuture<Void> previous,
+                                        main.server.AuctionClientHandler sender, int auctionRef) {
+        return submit(previous, () -> {
+            String auctionId = auctionIds.idFor(auctionRef);
+            if (auctionId == null) {
+                sender.write("ERROR: Unknown auction reference " + auctionRef);
+            } else {
+                watch(sender, auctionId);
+            }
+            return DONE;
+        });
+    }
+
+    /**
+     * Switch the client's replies to binary frames once everything it sent
+     * before the PROTOCOL line has been answered in text
+     */
+    CompletableFuture<Void> submitProtocolSwitch(CompletableFuture<Void> previous,
+                                                 main.server.AuctionClientHandler sender) {
+        return submit(previous, () -> {
+            sender.switchToBinaryOutput();
+            return DONE;
+        });
+    }
+
+    private CompletableFuture<Void> submit(CompletableFuture<Void> previous,
+                                           Supplier<CompletableFuture<Void>> command) {
+        return previous.thenComposeAsync(ignored -> {
+            try {
+                return command.get();
+            } catch (RuntimeException e) {
+                LOG.error("Command failed: {}", e.getMessage());
+                return DONE;
+            }
+        }, workers);
     }
 
     /**
      * This is the main "router". It just directs messages to the right handler.
      */
-    public void processClientMessage(main.server.AuctionClientHandler sender, String message) {
-        if (message.startsWith("BID:")) {
-            handleBid(sender, message);
-        } else if (message.startsWith("WATCH:")) {
-            handleWatch(sender, message);
-        } else if (message.startsWith("CREATE_AUCTION:")) {
-            handleCreateAuction(sender, message);
-        } else if (message.startsWith("LIST_AUCTIONS")) {
-            handleListAuctions(sender, message);
-        } else if (message.startsWith("GET_AUCTION:")) {
-            handleGetAuction(sender, message);
+    public CompletableFuture<Void> processClientMessage(main.server.AuctionClientHandler sender, String message) {
+        return processCommand(sender, AuctionLineParser.Command.match(message), message);
+    }
+
+    private CompletableFuture<Void> processCommand(main.server.AuctionClientHandler sender,
+                                                   AuctionLineParser.Command command, String message) {
+        if (command == null) {
+            // ... other commands like "LOGIN:", "CHAT:", etc.
+            return DONE;
+        }
+        switch (command) {
+            case BID:
+                return handleBid(sender, message);
+            case WATCH:
+                handleWatch(sender, message);
+                break;
+            case CREATE_AUCTION:
+                handleCreateAuction(sender, message);
+                break;
+            case LIST_AUCTIONS:
+                handleListAuctions(sender, message);
+                break;
+            case GET_AUCTION:
+                handleGetAuction(sender, message);
+                break;
+            case PROTOCOL:
+                sender.write("ERROR: Unsupported protocol. Use " + BinaryBidProtocol.NEGOTIATE);
+                break;
         }
-        // ... other commands like "LOGIN:", "CHAT:", etc.
+        return DONE;
     }
 
     /**
@@ -95,34 +281,55 @@ public class AuctionServer {
      */
     private void handleWatch(main.server.AuctionClientHandler sender, String message) {
         try {
-            String auctionId = message.split(":")[1];
-            Auction auction = auctionManager.getAuction(auctionId);
-
-            if (auction != null) {
-                auction.addWatcher(sender);
-                sender.write("OK: You are now watching " + auctionId);
-            } else {
-                sender.write("ERROR: Auction not found.");
-            }
+            watch(sender, message.split(":")[1]);
         } catch (Exception e) {
             sender.write("ERROR: Invalid WATCH format. Use WATCH:auctionId");
         }
     }
 
+    private void watch(main.server.AuctionClientHandler sender, String auctionId) {
+        Auction auction = auctionManager.getAuction(auctionId);
+
+        if (auction != null) {
+            auction.addWatcher(sender);
+            sender.write("OK: You are now watching " + auctionId);
+        } else {
+            sender.write("ERROR: Auction not found.");
+        }
+    }
+
     /**
      * Handles an incoming bid message (Member 3's logic).
+     * Completes once the bid has been committed and answered.
      */
-    private void handleBid(main.server.AuctionClientHandler sender, String message) {
+    private CompletableFuture<Void> handleBid(main.server.AuctionClientHandler sender, String message) {
+        String auctionId;
+        double amount;
         try {
             String[] parts = message.split(":");
-            String auctionId = parts[1];
-            double amount = Double.parseDouble(parts[2]);
+            auctionId = parts[1];
+            amount = Double.parseDouble(parts[2]);
+        } catch (Exception e) {
+            sender.write("ERROR: Invalid BID format. Use BID:auctionId:amount");
+            return DONE;
+        }
+        return placeBid(sender, -1, auctionId, amount);
+    }
+
+    /**
+     * Place a bid and answer it. auctionRef is the reference a binary bid
+     * named the auction by, or -1 for a text bid.
+     */
+    private CompletableFuture<Void> placeBid(main.server.AuctionClientHandler sender, int auctionRef,
+                                             String auctionId, double amount) {
+        try {
             String userId = "tempUser"; // TODO: Get from Member 1's login
 
             Auction auction = auctionManager.getAuction(auctionId);
             if (auction == null) {
-                sender.write("ERROR: Auction not found.");
-                return;
+                rejectBid(sender, auctionRef, auctionId, BinaryBidProtocol.REJECT_UNKNOWN_AUCTION, 0,
+                        "ERROR: Auction not found.");
+                return DONE;
             }
 
             // Check if the user is even watching this auction
@@ -134,18 +341,54 @@ public class AuctionServer {
             Bid bid = new Bid(auctionId, userId, amount);
 
             // --- THIS IS THE KEY INTEGRATION ---
-            // 1. Call Member 3's logic (in Auction.java) to place the bid
-            boolean success = auction.placeBid(bid);
-
-            if (success) {
-                // 2. Call YOUR module (Member 4) to broadcast the valid bid
-                this.bidBroadcaster.handleNewBid(auction, bid, sender);
-            } else {
-                sender.write("ERROR: Bid not high enough. Current bid is " + auction.getCurrentHighestBid());
-            }
+            // 1. Call Member 3's logic (in Auction.java) to place the bid,
+            //    written through to the database like REST bids.
+            //    The reply is sent on a worker once the commit completes,
+            //    leaving the group commit thread free for the next batch.
+            return auctionManager.placeBid(auction, bid).handleAsync((result, error) -> {
+                if (error != null) {
+                    LOG.error("Bid on {} failed: {}", auctionId, error.getMessage());
+                    result = Bid.Result.FAILED;
+                }
+                byte reason = BinaryBidProtocol.rejectReason(result);
+                switch (result) {
+                    case ACCEPTED:
+                        // 2. Call YOUR module (Member 4) to broadcast the valid bid
+                        this.bidBroadcaster.handleNewBid(auction, bid, sender);
+                        break;
+                    case TOO_LOW:
+                        double current = auction.getCurrentHighestBid();
+                        rejectBid(sender, auctionRef, auctionId, reason, current,
+                                "ERROR: Bid not high enough. Current bid is " + current);
+                        break;
+                    case NOT_ACTIVE:
+                        rejectBid(sender, auctionRef, auctionId, reason, auction.getCurrentHighestBid(),
+                                "ERROR: Auction is not active.");
+                        break;
+                    default:
+                        // The failed bid has been taken back off the auction
+                        rejectBid(sender, auctionRef, auctionId, reason, auction.getCurrentHighestBid(),
+                                "ERROR: Could not save bid. Please try again.");
+                }
+                return null;
+            }, workers);
 
         } catch (Exception e) {
             sender.write("ERROR: Invalid BID format. Use BID:auctionId:amount");
+            return DONE;
+        }
+    }
+
+    private void rejectBid(main.server.AuctionClientHandler sender, int auctionRef, String auctionId, byte reason,
+                           double currentHighest, String textReply) {
+        if (sender.isBinary()) {
+            // Answer with the client's own reference: the auction may have
+            // closed and released its reference meanwhile
+            int ref = auctionRef >= 0 ? auctionRef : auctionIds.refFor(auctionId);
+            sender.writeEncoded(BinaryBidProtocol.bidRejected(ref, reason,
+                    BinaryBidProtocol.toCents(currentHighest)), null);
+        } else {
+            sender.write(textReply);
         }
     }
 
@@ -200,8 +443,7 @@ public class AuctionServer {
             sender.write("AUCTION_CREATED:" + newAuction.getAuctionId() + ":" + itemName);
             sender.write(newAuction.toDetailString());
 
-            System.out.println("[Server] Auction created: " + newAuction.getAuctionId() +
-                    " by " + sellerId);
+            LOG.info("Auction created: {} by {}", newAuction.getAuctionId(), sellerId);
 
         } catch (NumberFormatException e) {
             sender.write("ERROR: Invalid number format in CREATE_AUCTION command");
@@ -280,17 +522,45 @@ public class AuctionServer {
     public void broadcastNewAuction(Auction auction) {
         String broadcastMsg = auction.toBroadcastString();
 
-        System.out.println("[Server] Broadcasting new auction: " + auction.getAuctionId());
+        LOG.debug("Broadcasting new auction: {}", auction.getAuctionId());
 
         for (main.server.AuctionClientHandler client : clients.values()) {
             client.write(broadcastMsg);
         }
     }
 
+    /**
+     * Drop a closed or deleted auction's binary reference
+     * Called by AuctionManager
+     */
+    void releaseAuction(String auctionId) {
+        auctionIds.release(auctionId);
+    }
+
     public void clientDisconnected(main.server.AuctionClientHandler handler) {
         clients.remove(handler.getChannel());
         auctionManager.removeWatcherFromAllAuctions(handler);
-        System.out.println("Client disconnected: " + handler.getRemoteAddress());
+        LOG.info("Client disconnected: {}", handler.getRemoteAddress());
+    }
+
+    /**
+     * Summarize the clients' outbound backlogs
+     */
+    public String getBacklogStats() {
+        long queuedBytes = 0;
+        long dropped = 0;
+        long coalesced = 0;
+        int largest = 0;
+        for (main.server.AuctionClientHandler client : clients.values()) {
+            OutboundQueue backlog = client.getOutboundQueue();
+            int bytes = backlog.getQueuedBytes();
+            queuedBytes += bytes;
+            dropped += backlog.getDroppedMessages();
+            coalesced += backlog.getCoalescedMessages();
+            largest = Math.max(largest, bytes);
+        }
+        return String.format("Clients: %d, queued: %d bytes (largest %d), dropped: %d, coalesced: %d",
+                clients.size(), queuedBytes, largest, dropped, coalesced);
     }
 
     /**
@@ -3,11 +3,24 @@ package main.server;
 import main.model.Bid;
 import main.model.Auction;
 
+import java.nio.ByteBuffer;
+import main.util.LatencyHistogram;
+import main.util.Logger;
+import main.util.Metrics;
+
 public class BidBroadcaster {
+    private static final Logger LOG = Logger.get("BidBroadcaster");
+    private static final LatencyHistogram FANOUT = Metrics.histogram("broadcast_fanout_seconds",
+            "Time to queue one broadcast for every recipient, by channel", "channel", "auction_tcp");
+    private static final Metrics.Counter RECIPIENTS = Metrics.counter("broadcast_recipients_total",
+            "Messages queued by broadcasts, by channel", "channel", "auction_tcp");
+
+    // No longer needs a reference to the server, only the
+    // auction references used by binary clients
+    private final AuctionIdTable auctionIds;
 
-    // No longer needs a reference to the server
-    public BidBroadcaster() {
-        // Constructor is now empty
+    public BidBroadcaster(AuctionIdTable auctionIds) {
+        this.auctionIds = auctionIds;
     }
 
     /**
@@ -18,19 +31,37 @@ public class BidBroadcaster {
 
         // 1. Get the formatted message
         String broadcastMessage = bid.toBroadcastString();
-        System.out.println("Broadcasting new bid for " + auction.getAuctionId() + ": " + broadcastMessage);
+        LOG.debug("Broadcasting new bid for {}: {}", auction.getAuctionId(), broadcastMessage);
+
+        // Encoded once for text and once for binary watchers, then shared
+        String coalesceKey = "bid:" + auction.getAuctionId();
+        long cents = BinaryBidProtocol.toCents(bid.getAmount());
+        ByteBuffer textLine = AuctionClientHandler.encodeLine(broadcastMessage);
+        ByteBuffer binaryFrame = BinaryBidProtocol.newBid(auctionIds.refFor(auction.getAuctionId()),
+                cents, bid.getTimestamp());
 
         // 2. Get the specific list of watchers for THIS auction
         //    (This is the key change!)
+        long start = System.nanoTime();
+        int sent = 0;
         for (AuctionClientHandler watcher : auction.getWatchers()) {
 
             // Send to everyone in the "room" (except the sender)
             if (watcher != sender) {
-                watcher.write(broadcastMessage);
+                // A watcher that is behind only needs the latest bid
+                watcher.writeShared(textLine, binaryFrame, coalesceKey);
+                sent++;
             }
         }
+        FANOUT.recordSince(start);
+        RECIPIENTS.add(sent);
 
         // 3. Send a private confirmation back to the bidder
-        sender.write("CONFIRM: Your bid of " + bid.getAmount() + " was accepted.");
+        if (sender.isBinary()) {
+            sender.writeEncoded(BinaryBidProtocol.bidAccepted(auctionIds.refFor(auction.getAuctionId()),
+                    cents, bid.getTimestamp()), null);
+        } else {
+            sender.write("CONFIRM: Your bid of " + bid.getAmount() + " was accepted.");
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+package main.server;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import main.model.Bid;
+
+/**
+ * Length-prefixed binary framing for high-frequency bidding clients.
+ * A connection starts in the text protocol and switches after the client
+ * sends the line "PROTOCOL:BINARY"; the server answers "PROTOCOL:BINARY:OK"
+ * as its last text line. From then on every message in both directions is
+ *
+ *   int32 length | byte type | payload (length - 1 bytes)
+ *
+ * in network byte order. Amounts are long cents, timestamps are epoch
+ * milliseconds and auctions are named by references from AuctionIdTable.
+ *
+ * Client to server:
+ *   RESOLVE  u16 id length, id (UTF-8)     -> AUCTION_REF
+ *   BID      int32 ref, int64 cents         -> BID_ACCEPTED or BID_REJECTED
+ *   WATCH    int32 ref
+ *
+ * Server to client:
+ *   AUCTION_REF   int32 ref, u16 id length, id
+ *   BID_ACCEPTED  int32 ref, int64 cents, int64 timestamp
+ *   BID_REJECTED  int32 ref, byte reason, int64 current highest cents
+ *   NEW_BID       int32 ref, int64 cents, int64 timestamp (to watchers)
+ *   TEXT          UTF-8 line of the text protocol, e.g. NEW_AUCTION
+ *
+ * BID_REJECTED reasons:
+ *   1 TOO_LOW          not above the current highest bid
+ *   2 UNKNOWN_AUCTION  no such auction; current highest is 0
+ *   3 CLOSED           the auction is closed or has expired
+ *   4 FAILED           the bid could not be saved and was taken back
+ */
+public final class BinaryBidProtocol {
+    public static final String NEGOTIATE = "PROTOCOL:BINARY";
+    public static final String NEGOTIATE_OK = "PROTOCOL:BINARY:OK";
+
+    public static final byte RESOLVE = 0x01;
+    public static final byte BID = 0x02;
+    public static final byte WATCH = 0x03;
+
+    public static final byte AUCTION_REF = (byte) 0x81;
+    public static final byte BID_ACCEPTED = (byte) 0x82;
+    public static final byte BID_REJECTED = (byte) 0x83;
+    public static final byte NEW_BID = (byte) 0x84;
+    public static final byte TEXT = (byte) 0x85;
+
+    public static final byte REJECT_TOO_LOW = 1;
+    public static final byte REJECT_UNKNOWN_AUCTION = 2;
+    public static final byte REJECT_CLOSED = 3;
+    public static final byte REJECT_FAILED = 4;
+
+    // Length prefix plus type
+    private static final int HEADER = 5;
+    // Longest client frame: a RESOLVE with a generous id
+    private static final int MAX_CLIENT_FRAME = 1024;
+
+    private BinaryBidProtocol() {
+    }
+
+    /**
+     * The BID_REJECTED reason for a bid that was not accepted
+     */
+    public static byte rejectReason(Bid.Result result) {
+        switch (result) {
+            case TOO_LOW:
+                return REJECT_TOO_LOW;
+            case NOT_ACTIVE:
+                return REJECT_CLOSED;
+            default:
+                return REJECT_FAILED;
+        }
+    }
+
+    /**
+     * Receives decoded client frames
+     */
+    public interface FrameListener {
+        void onResolve(String auctionId);
+
+        void onBid(int auctionRef, long cents);
+
+        void onWatch(int auctionRef);
+    }
+
+    /**
+     * Decode every complete client frame in the buffer. The position is
+     * left at the start of an unfinished frame. Throws on a malformed frame,
+     * after which the connection should be closed.
+     */
+    public static void decode(ByteBuffer buffer, FrameListener listener) throws ProtocolException {
+        while (buffer.remaining() >= HEADER) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length < 1 || length > MAX_CLIENT_FRAME) {
+                throw new ProtocolException("Invalid frame length " + length);
+            }
+            if (buffer.remaining() < 4 + length) {
+                return;
+            }
+            byte type = buffer.get(start + 4);
+            int payload = start + HEADER;
+            int payloadLength = length - 1;
+
+            switch (type) {
+                case RESOLVE: {
+                    int idLength = payloadLength >= 2 ? buffer.getShort(payload) & 0xFFFF : -1;
+                    if (idLength < 1 || idLength != payloadLength - 2) {
+                        throw new ProtocolException("Malformed RESOLVE frame");
+                    }
+                    byte[] id = new byte[idLength];
+                    buffer.get(payload + 2, id);
+                    listener.onResolve(new String(id, StandardCharsets.UTF_8));
+                    break;
+                }
+                case BID:
+                    expectLength(payloadLength, 12, "BID");
+                    listener.onBid(buffer.getInt(payload), buffer.getLong(payload + 4));
+                    break;
+                case WATCH:
+                    expectLength(payloadLength, 4, "WATCH");
+                    listener.onWatch(buffer.getInt(payload));
+                    break;
+                default:
+                    throw new ProtocolException("Unknown frame type " + (type & 0xFF));
+            }
+            buffer.position(start + 4 + length);
+        }
+    }
+
+    private static void expectLength(int actual, int expected, String frame) throws ProtocolException {
+        if (actual != expected) {
+            throw new ProtocolException("Malformed " + frame + " frame");
+        }
+    }
+
+    public static ByteBuffer auctionRef(int ref, String auctionId) {
+        byte[] id = auctionId.getBytes(StandardCharsets.UTF_8);
+        return frame(AUCTION_REF, 6 + id.length).putInt(ref).putShort((short) id.length).put(id).flip();
+    }
+
+    public static ByteBuffer bidAccepted(int ref, long cents, long timestamp) {
+        return frame(BID_ACCEPTED, 20).putInt(ref).putLong(cents).putLong(timestamp).flip();
+    }
+
+    public static ByteBuffer bidRejected(int ref, byte reason, long currentCents) {
+        return frame(BID_REJECTED, 13).putInt(ref).put(reason).putLong(currentCents).flip();
+    }
+
+    public static ByteBuffer newBid(int ref, long cents, long timestamp) {
+        return frame(NEW_BID, 20).putInt(ref).putLong(cents).putLong(timestamp).flip();
+    }
+
+    public static ByteBuffer text(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return frame(TEXT, bytes.length).put(bytes).flip();
+    }
+
+    private static ByteBuffer frame(byte type, int payloadLength) {
+        return ByteBuffer.allocate(HEADER + payloadLength).putInt(1 + payloadLength).put(type);
+    }
+
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public static double fromCents(long cents) {
+        return cents / 100.0;
+    }
+}
@@ -0,0 +1,149 @@
+package main.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import main.util.Logger;
+
+/**
+ * Selector thread serving a share of the chat connections.
+ * A connection stays on the loop it was registered with, and all of its socket
+ * reads and writes happen on that loop's thread. Other threads hand work to the
+ * loop with execute(), which wakes the selector.
+ */
+public class ChatEventLoop implements Runnable {
+    private static final Logger LOG = Logger.get("ChatEventLoop");
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean(false);
+    // Shared by every connection on this loop; reads are handled one at a time
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private volatile boolean running = true;
+
+    public ChatEventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Register an accepted, non-blocking channel with this loop
+     */
+    public void register(SocketChannel channel, ClientHandler handler) {
+        execute(() -> {
+            try {
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ, handler);
+                handler.attach(key);
+            } catch (IOException e) {
+                LOG.error("Failed to register connection: {}", e.getMessage());
+                handler.close();
+            }
+        });
+    }
+
+    /**
+     * Run a task on the loop thread
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (!inEventLoop() && wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    public int getConnectionCount() {
+        return selector.keys().size();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                // Tasks queued by the loop itself do not wake the selector
+                if (tasks.isEmpty()) {
+                    selector.select();
+                } else {
+                    selector.selectNow();
+                }
+                wakeupPending.set(false);
+                processSelectedKeys();
+                runTasks();
+            } catch (IOException e) {
+                LOG.error("Selector error: {}", e.getMessage());
+            }
+        }
+
+        // Let queued close frames go out before the channels are closed
+        runTasks();
+        for (SelectionKey key : selector.keys()) {
+            ((ClientHandler) key.attachment()).close();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOG.error("Error closing selector: {}", e.getMessage());
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOG.error("Task failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+            ClientHandler handler = (ClientHandler) key.attachment();
+            try {
+                if (key.isValid() && key.isReadable()) {
+                    handler.handleRead(readBuffer);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    handler.flush();
+                }
+            } catch (CancelledKeyException e) {
+                handler.close();
+            } catch (RuntimeException e) {
+                LOG.error("Error handling client: {}", e.getMessage());
+                handler.close();
+            }
+        }
+    }
+
+    /**
+     * Stop the loop and close its remaining connections
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
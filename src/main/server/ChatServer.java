@@ -1,22 +1,43 @@
 package main.server;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import main.model.Message;
+import main.util.ConfigManager;
+import main.util.LatencyHistogram;
+import main.util.Logger;
+import main.util.Metrics;
+import main.util.OutboundQueue;
 import main.util.ThreadPoolManager;
+import main.util.WebSocketFrame;
 
 /**
- * Main WebSocket chat server implementation
+ * Main WebSocket chat server implementation.
+ * One acceptor thread hands each connection to one of a small fixed set of
+ * ChatEventLoops, so the thread count does not grow with the number of clients.
  */
 public class ChatServer {
+    private static final Logger LOG = Logger.get("ChatServer");
+    private static final LatencyHistogram FANOUT = Metrics.histogram("broadcast_fanout_seconds",
+            "Time to queue one broadcast for every recipient, by channel", "channel", "chat");
+    private static final Metrics.Counter RECIPIENTS = Metrics.counter("broadcast_recipients_total",
+            "Messages queued by broadcasts, by channel", "channel", "chat");
+    private static final Metrics.Counter ACCEPTED = Metrics.counter("chat_connections_accepted_total",
+            "Chat WebSocket connections accepted");
+
     private static final int DEFAULT_PORT = 8080;
     private static final String SERVER_NAME = "Java WebSocket Chat Server";
+    private static final int ACCEPT_BACKLOG = 1024;
     
-    private ServerSocket serverSocket;
+    private ServerSocketChannel serverChannel;
+    private ChatEventLoop[] eventLoops;
+    private int nextEventLoop = 0;
     private final int port;
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
     private final ConcurrentMap<ClientHandler, Boolean> clientHandlers = new ConcurrentHashMap<>();
@@ -32,6 +53,7 @@ public class ChatServer {
         this.port = port;
         this.threadPoolManager = ThreadPoolManager.getInstance();
         this.userManager = UserManager.getInstance();
+        Metrics.gauge("chat_connections", "Open chat WebSocket connections", clientHandlers::size);
     }
     
     /**
@@ -39,11 +61,13 @@ public class ChatServer {
      */
     public void start() throws IOException {
         if (isRunning.get()) {
-            System.out.println("Server is already running!");
+            LOG.warn("Server is already running!");
             return;
         }
         
-        serverSocket = new ServerSocket(port);
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        startEventLoops();
         isRunning.set(true);
         
         System.out.println("=================================");
@@ -51,6 +75,7 @@ public class ChatServer {
         System.out.println("=================================");
         System.out.println("Server started on port: " + port);
         System.out.println("WebSocket endpoint: ws://localhost:" + port + "/chat");
+        System.out.println("Event loops: " + eventLoops.length);
         System.out.println("Server is ready to accept connections...");
         System.out.println("Press Ctrl+C to stop the server");
         System.out.println("=================================");
@@ -62,30 +87,58 @@ public class ChatServer {
         acceptConnections();
     }
     
+    private void startEventLoops() throws IOException {
+        int count = ConfigManager.getInstance().getInt("server.event.loops");
+        if (count <= 0) {
+            count = Runtime.getRuntime().availableProcessors();
+        }
+        eventLoops = new ChatEventLoop[count];
+        for (int i = 0; i < count; i++) {
+            eventLoops[i] = new ChatEventLoop("ChatEventLoop-" + i);
+        }
+    }
+    
     private void acceptConnections() {
-        while (isRunning.get() && !serverSocket.isClosed()) {
+        while (isRunning.get() && serverChannel.isOpen()) {
+            SocketChannel clientChannel = null;
             try {
-                Socket clientSocket = serverSocket.accept();
+                clientChannel = serverChannel.accept();
+                clientChannel.configureBlocking(false);
+                clientChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
                 
-                System.out.println("New client connection from: " + 
-                    clientSocket.getRemoteSocketAddress());
+                LOG.info("New client connection from: {}", clientChannel.getRemoteAddress());
                 
-                // Create and start client handler in thread pool
-                ClientHandler clientHandler = new ClientHandler(clientSocket, this);
-                clientHandlers.put(clientHandler, true);
+                // Assign connections to the event loops in turn
+                ChatEventLoop eventLoop = eventLoops[nextEventLoop];
+                nextEventLoop = (nextEventLoop + 1) % eventLoops.length;
                 
-                threadPoolManager.submitClientHandler(clientHandler);
+                ClientHandler clientHandler = new ClientHandler(clientChannel, this, eventLoop);
+                clientHandlers.put(clientHandler, true);
+                ACCEPTED.increment();
+                eventLoop.register(clientChannel, clientHandler);
                 
-                System.out.println("Active connections: " + clientHandlers.size());
+                LOG.info("Active connections: {}", clientHandlers.size());
                 
             } catch (IOException e) {
                 if (isRunning.get()) {
-                    System.err.println("Error accepting client connection: " + e.getMessage());
+                    LOG.error("Error accepting client connection: {}", e.getMessage());
+                    closeQuietly(clientChannel);
                 }
             }
         }
     }
     
+    private void closeQuietly(SocketChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already failed; nothing more to do
+        }
+    }
+    
     /**
      * Broadcast a message to all connected clients (except sender if specified)
      */
@@ -96,51 +149,57 @@ public class ChatServer {
         
         String formattedMessage = formatMessageForBroadcast(message);
         
-        // Log the message to server console
-        System.out.println("[BROADCAST] 📢 " + formattedMessage);
-        System.out.println("[BROADCAST] Total active handlers: " + clientHandlers.size());
+        LOG.debug("Broadcasting: {}", formattedMessage);
+        
+        // Encode once; every client queues a view of the same bytes
+        WebSocketFrame frame = WebSocketFrame.text(formattedMessage);
         
         // Send to all connected clients
+        long start = System.nanoTime();
         int sentCount = 0;
         for (ClientHandler handler : clientHandlers.keySet()) {
             if (handler != sender && handler.isConnected()) {
                 try {
-                    handler.sendMessage(formattedMessage);
-                    sentCount++;
-                    System.out.println("[BROADCAST] ✅ Sent to client");
+                    if (handler.sendFrame(frame)) {
+                        sentCount++;
+                    }
                 } catch (Exception e) {
-                    System.err.println("[BROADCAST] ❌ Error broadcasting to client: " + e.getMessage());
+                    LOG.error("Error broadcasting to client: {}", e.getMessage());
                     // Remove failed handler
                     removeClientHandler(handler);
                 }
             }
         }
-        System.out.println("[BROADCAST] 📊 Message sent to " + sentCount + " clients");
+        FANOUT.recordSince(start);
+        RECIPIENTS.add(sentCount);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Message sent to {} of {} clients", sentCount, clientHandlers.size());
+        }
     }
     
     /**
      * Send a message to a specific user
      */
     public boolean sendMessageToUser(String username, Message message) {
-        System.out.println("[ChatServer] 📨 Attempting to send message to user: " + username);
-        System.out.println("[ChatServer] Message content: " + message.getContent());
+        LOG.debug("Attempting to send message to user: {}", username);
+        LOG.debug("Message content: {}", message.getContent());
         
         ClientHandler targetHandler = userManager.getClientHandler(username);
         
         if (targetHandler == null) {
-            System.out.println("[ChatServer] ❌ No handler found for user: " + username);
+            LOG.debug("No handler found for user: {}", username);
             return false;
         }
         
         if (!targetHandler.isConnected()) {
-            System.out.println("[ChatServer] ❌ Handler exists but not connected for user: " + username);
+            LOG.debug("Handler exists but not connected for user: {}", username);
             return false;
         }
         
         String formattedMessage = formatMessageForBroadcast(message);
-        System.out.println("[ChatServer] ✅ Sending formatted message: " + formattedMessage);
+        LOG.debug("Sending formatted message: {}", formattedMessage);
         targetHandler.sendMessage(formattedMessage);
-        System.out.println("[ChatServer] ✅ Message sent successfully to " + username);
+        LOG.debug("Message sent successfully to {}", username);
         return true;
     }
     
@@ -149,7 +208,7 @@ public class ChatServer {
      */
     public void removeClientHandler(ClientHandler clientHandler) {
         clientHandlers.remove(clientHandler);
-        System.out.println("Client handler removed. Active connections: " + clientHandlers.size());
+        LOG.info("Client handler removed. Active connections: {}", clientHandlers.size());
     }
     
     /**
@@ -160,7 +219,7 @@ public class ChatServer {
             return;
         }
         
-        System.out.println("\nShutting down server...");
+        LOG.info("Shutting down server...");
         isRunning.set(false);
         
         // Disconnect all clients
@@ -168,11 +227,16 @@ public class ChatServer {
         
         // Close server socket
         try {
-            if (serverSocket != null && !serverSocket.isClosed()) {
-                serverSocket.close();
+            if (serverChannel != null && serverChannel.isOpen()) {
+                serverChannel.close();
             }
         } catch (IOException e) {
-            System.err.println("Error closing server socket: " + e.getMessage());
+            LOG.error("Error closing server socket: {}", e.getMessage());
+        }
+        
+        // Flush close frames and stop the event loops
+        for (ChatEventLoop eventLoop : eventLoops) {
+            eventLoop.shutdown();
         }
         
         // Clear user manager
@@ -181,21 +245,20 @@ public class ChatServer {
         // Shutdown thread pools
         threadPoolManager.shutdown();
         
-        System.out.println("Server shutdown complete.");
+        LOG.info("Server shutdown complete.");
     }
     
     private void disconnectAllClients() {
-        System.out.println("Disconnecting all clients...");
+        LOG.info("Disconnecting all clients...");
         
-        clientHandlers.keySet().parallelStream().forEach(handler -> {
+        // Close frames are queued here and written by the event loops
+        for (ClientHandler handler : clientHandlers.keySet()) {
             try {
                 handler.disconnect();
             } catch (Exception e) {
-                System.err.println("Error disconnecting client: " + e.getMessage());
+                LOG.error("Error disconnecting client: {}", e.getMessage());
             }
-        });
-        
-        clientHandlers.clear();
+        }
     }
     
     private String formatMessageForBroadcast(Message message) {
@@ -217,7 +280,7 @@ public class ChatServer {
     
     private void setupShutdownHook() {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            System.out.println("\nReceived shutdown signal...");
+            LOG.info("Received shutdown signal...");
             stop();
         }));
     }
@@ -226,19 +289,34 @@ public class ChatServer {
      * Get server statistics
      */
     public String getServerStats() {
+        long queuedBytes = 0;
+        long droppedMessages = 0;
+        int largestBacklog = 0;
+        for (ClientHandler handler : clientHandlers.keySet()) {
+            OutboundQueue backlog = handler.getOutboundQueue();
+            int bytes = backlog.getQueuedBytes();
+            queuedBytes += bytes;
+            droppedMessages += backlog.getDroppedMessages();
+            largestBacklog = Math.max(largestBacklog, bytes);
+        }
+        
         return String.format(
             "Server Statistics:\n" +
             "- Port: %d\n" +
             "- Active connections: %d\n" +
             "- Connected users: %d\n" +
-            "- Active client handlers: %d\n" +
+            "- Event loops: %d\n" +
             "- Active message processors: %d\n" +
+            "- Outbound backlog: %d bytes queued, largest %d bytes, %d messages dropped\n" +
             "- Server running: %s",
             port,
             clientHandlers.size(),
             userManager.getUserCount(),
-            threadPoolManager.getActiveClientHandlers(),
+            eventLoops != null ? eventLoops.length : 0,
             threadPoolManager.getActiveMessageProcessors(),
+            queuedBytes,
+            largestBacklog,
+            droppedMessages,
             isRunning.get()
         );
     }
@@ -280,7 +358,7 @@ public class ChatServer {
         try {
             server.start();
         } catch (IOException e) {
-            System.err.println("Failed to start server: " + e.getMessage());
+            LOG.error("Failed to start server: {}", e.getMessage());
             System.exit(1);
         }
     }
@@ -1,104 +1,178 @@
 package main.server;
 
-import java.io.*;
-import java.net.Socket;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
 import main.model.ChatMessage;
 import main.model.Command;
 import main.model.Message;
 import main.model.User;
 import main.util.DatabaseManager;
+import main.util.Logger;
+import main.util.OutboundQueue;
+import main.util.ConfigManager;
 import main.util.ThreadPoolManager;
+import main.util.WebSocketFrame;
+import main.util.WebSocketFrameDecoder;
 import main.util.WebSocketUtil;
 
 /**
- * Handles individual client connections using WebSocket protocol
+ * Handles individual client connections using WebSocket protocol.
+ * The connection is non-blocking: its ChatEventLoop calls handleRead and
+ * flush, and sendMessage may be called from any thread.
  */
-public class ClientHandler implements Runnable {
-    private final Socket clientSocket;
+public class ClientHandler {
+    private static final Logger LOG = Logger.get("ClientHandler");
+
+    private static final int MAX_HANDSHAKE_BYTES = 8192;
+    private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+    
+    private final SocketChannel channel;
     private final ChatServer server;
+    private final ChatEventLoop eventLoop;
     private final UserManager userManager;
     private final ChatBot chatBot;
+    private final WebSocketFrameDecoder frameDecoder;
     
-    private BufferedReader reader;
-    private OutputStream outputStream;
-    private User user;
-    private boolean isConnected = false;
-    private boolean webSocketHandshakeComplete = false;
+    private final OutboundQueue outbound;
+    // Message the event loop has started writing; loop thread only
+    private ByteBuffer pendingWrite;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean leaving = new AtomicBoolean(false);
+    private ByteArrayOutputStream handshakeBuffer = new ByteArrayOutputStream();
+    private SelectionKey selectionKey;
+    private boolean closeAfterFlush = false;
+    private volatile User user;
+    private volatile boolean isConnected = true;
+    private volatile boolean webSocketHandshakeComplete = false;
     
-    public ClientHandler(Socket clientSocket, ChatServer server) {
-        this.clientSocket = clientSocket;
+    public ClientHandler(SocketChannel channel, ChatServer server, ChatEventLoop eventLoop) {
+        this.channel = channel;
         this.server = server;
+        this.eventLoop = eventLoop;
         this.userManager = UserManager.getInstance();
         this.chatBot = new ChatBot();
+        ConfigManager config = ConfigManager.getInstance();
+        this.outbound = new OutboundQueue(config.getInt("outbound.queue.max.bytes"),
+            OutboundQueue.OverflowPolicy.fromConfig(config.getString("chat.outbound.overflow.policy"),
+                OutboundQueue.OverflowPolicy.DROP_OLDEST));
+        this.frameDecoder = new WebSocketFrameDecoder(
+            config.getInt("websocket.max.frame.size"),
+            new WebSocketFrameDecoder.FrameListener() {
+                @Override
+                public void onText(String message) {
+                    handleTextMessage(message);
+                }
+                
+                @Override
+                public void onPing(byte[] payload) {
+                    // Respond with pong
+                    write(WebSocketUtil.createPongFrame(payload));
+                }
+                
+                @Override
+                public void onClose() {
+                    handleClientDisconnect();
+                }
+            });
     }
     
-    @Override
-    public void run() {
-        try {
-            setupStreams();
-            handleConnection();
-        } catch (Exception e) {
-            System.err.println("Error handling client: " + e.getMessage());
-        } finally {
-            cleanup();
-        }
+    void attach(SelectionKey key) {
+        this.selectionKey = key;
     }
     
-    private void setupStreams() throws IOException {
-        reader = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-        outputStream = clientSocket.getOutputStream();
-        isConnected = true;
+    /**
+     * Read what is available on the channel. Called on the event loop.
+     */
+    void handleRead(ByteBuffer buffer) {
+        int bytesRead;
+        try {
+            buffer.clear();
+            bytesRead = channel.read(buffer);
+        } catch (IOException e) {
+            if (isConnected) {
+                LOG.warn("Error reading from client: {}", e.getMessage());
+            }
+            handleClientDisconnect();
+            return;
+        }
+        
+        if (bytesRead == -1) {
+            // Client disconnected
+            handleClientDisconnect();
+            return;
+        }
+        if (bytesRead == 0) {
+            return;
+        }
+        
+        buffer.flip();
+        if (webSocketHandshakeComplete) {
+            decodeFrames(buffer);
+        } else {
+            byte[] data = new byte[bytesRead];
+            buffer.get(data);
+            handleHandshakeData(data);
+        }
     }
     
-    private void handleConnection() throws IOException {
-        // First, handle WebSocket handshake
-        if (!performWebSocketHandshake()) {
+    /**
+     * Collect the HTTP upgrade request until the blank line that ends it
+     */
+    private void handleHandshakeData(byte[] data) {
+        handshakeBuffer.write(data, 0, data.length);
+        byte[] received = handshakeBuffer.toByteArray();
+        int headerEnd = indexOf(received, HEADER_END);
+        if (headerEnd < 0) {
+            if (received.length > MAX_HANDSHAKE_BYTES) {
+                LOG.warn("Invalid WebSocket handshake - request too large");
+                close();
+            }
+            return;
+        }
+        handshakeBuffer = null;
+        
+        String httpRequest = new String(received, 0, headerEnd + 2, StandardCharsets.UTF_8);
+        if (!performWebSocketHandshake(httpRequest)) {
+            close();
             return;
         }
         
         // Request username
         requestUsername();
         
-        // Start listening for messages
-        byte[] buffer = new byte[8192];
-        while (isConnected && !clientSocket.isClosed()) {
-            try {
-                int bytesRead = clientSocket.getInputStream().read(buffer);
-                if (bytesRead == -1) {
-                    break; // Client disconnected
-                }
-                
-                byte[] frameData = new byte[bytesRead];
-                System.arraycopy(buffer, 0, frameData, 0, bytesRead);
-                
-                handleWebSocketFrame(frameData);
-                
-            } catch (IOException e) {
-                if (isConnected) {
-                    System.err.println("Error reading from client: " + e.getMessage());
+        // A frame may have arrived together with the request
+        int frameStart = headerEnd + HEADER_END.length;
+        if (frameStart < received.length) {
+            decodeFrames(ByteBuffer.wrap(received, frameStart, received.length - frameStart));
+        }
+    }
+    
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
                 }
-                break;
             }
+            return i;
         }
+        return -1;
     }
     
-    private boolean performWebSocketHandshake() throws IOException {
-        StringBuilder requestBuilder = new StringBuilder();
-        String line;
-        
-        // Read HTTP request headers
-        while ((line = reader.readLine()) != null && !line.isEmpty()) {
-            requestBuilder.append(line).append("\r\n");
-        }
-        
-        String httpRequest = requestBuilder.toString();
-        System.out.println("WebSocket handshake request received");
+    private boolean performWebSocketHandshake(String httpRequest) {
+        LOG.debug("WebSocket handshake request received");
         
         // Extract WebSocket key
         String webSocketKey = WebSocketUtil.extractWebSocketKey(httpRequest);
         if (webSocketKey == null) {
-            System.err.println("Invalid WebSocket handshake - missing Sec-WebSocket-Key");
+            LOG.warn("Invalid WebSocket handshake - missing Sec-WebSocket-Key");
             return false;
         }
         
@@ -106,11 +180,10 @@ public class ClientHandler implements Runnable {
         String acceptKey = WebSocketUtil.generateAcceptKey(webSocketKey);
         String response = WebSocketUtil.createHandshakeResponse(acceptKey);
         
-        outputStream.write(response.getBytes(StandardCharsets.UTF_8));
-        outputStream.flush();
+        write(response.getBytes(StandardCharsets.UTF_8));
         
         webSocketHandshakeComplete = true;
-        System.out.println("WebSocket handshake completed successfully");
+        LOG.debug("WebSocket handshake completed successfully");
         return true;
     }
     
@@ -118,26 +191,23 @@ public class ClientHandler implements Runnable {
         sendMessage("Please enter your username:");
     }
     
-    private void handleWebSocketFrame(byte[] frameData) {
-        if (WebSocketUtil.isCloseFrame(frameData)) {
-            handleClientDisconnect();
+    /**
+     * Feed received bytes to the frame decoder; frames may span reads
+     */
+    private void decodeFrames(ByteBuffer data) {
+        if (leaving.get()) {
             return;
         }
-        
-        if (WebSocketUtil.isPingFrame(frameData)) {
-            // Respond with pong
-            byte[] pongFrame = WebSocketUtil.createPongFrame(new byte[0]);
-            try {
-                outputStream.write(pongFrame);
-                outputStream.flush();
-            } catch (IOException e) {
-                System.err.println("Error sending pong: " + e.getMessage());
-            }
-            return;
+        try {
+            frameDecoder.decode(data);
+        } catch (ProtocolException e) {
+            LOG.warn("Invalid WebSocket frame from client: {}", e.getMessage());
+            handleClientDisconnect();
         }
-        
-        String message = WebSocketUtil.decodeTextFrame(frameData);
-        if (message != null && !message.trim().isEmpty()) {
+    }
+    
+    private void handleTextMessage(String message) {
+        if (!leaving.get() && !message.trim().isEmpty()) {
             handleMessage(message.trim());
         }
     }
@@ -181,7 +251,7 @@ public class ClientHandler implements Runnable {
             Message joinMessage = new Message(Message.MessageType.JOIN, username, username + " has joined the chat!");
             server.broadcastMessage(joinMessage, this);
             
-            System.out.println("User registered: " + username);
+            LOG.info("User registered: {}", username);
         } else {
             sendMessage("Failed to register username. Please try again:");
         }
@@ -236,16 +306,16 @@ public class ClientHandler implements Runnable {
     private void handlePrivateMessage(Command command) {
         Message privateMessage = chatBot.processCommand(command, user.getUsername());
         
-        System.out.println("[PrivateMsg] Processing private message from: " + user.getUsername());
-        System.out.println("[PrivateMsg] Target user: " + privateMessage.getTargetUser());
-        System.out.println("[PrivateMsg] Message content: " + privateMessage.getContent());
+        LOG.debug("Processing private message from: {}", user.getUsername());
+        LOG.debug("Target user: {}", privateMessage.getTargetUser());
+        LOG.debug("Message content: {}", privateMessage.getContent());
         
         if (privateMessage.getTargetUser() != null) {
             // Send to target user
             ClientHandler targetHandler = userManager.getClientHandler(privateMessage.getTargetUser());
             
             if (targetHandler != null) {
-                System.out.println("[PrivateMsg] ✅ Target handler found for: " + privateMessage.getTargetUser());
+                LOG.debug("Target handler found for: {}", privateMessage.getTargetUser());
                 
                 // Extract message content without [Private] prefix but keep auction tags
                 String content = privateMessage.getContent();
@@ -253,13 +323,12 @@ public class ClientHandler implements Runnable {
                     content = content.substring(10); // Remove "[Private] " (10 characters)
                 }
                 
-                System.out.println("[PrivateMsg] From: " + user.getUsername() + " To: " + 
-                    privateMessage.getTargetUser() + " Content: " + content);
+                LOG.debug("From: {} To: {} Content: {}", user.getUsername(), privateMessage.getTargetUser(), content);
                 
                 // Extract auction ID if present and save to database
                 String auctionId = extractAuctionId(content);
                 if (auctionId != null) {
-                    System.out.println("[PrivateMsg] Auction ID extracted: " + auctionId);
+                    LOG.debug("Auction ID extracted: {}", auctionId);
                     
                     // Remove [Auction:ID] tag from content for storage
                     String cleanContent = content.replaceFirst("\\[Auction:" + auctionId + "\\]\\s*", "");
@@ -273,30 +342,30 @@ public class ClientHandler implements Runnable {
                     );
                     
                     DatabaseManager.getInstance().saveChatMessage(chatMessage);
-                    System.out.println("[PrivateMsg] ✅ Saved to database: auction=" + auctionId + ", from=" + 
-                        user.getUsername() + ", to=" + privateMessage.getTargetUser());
+                    LOG.debug("Saved to database: auction={}, from={}, to={}",
+                             auctionId, user.getUsername(), privateMessage.getTargetUser());
                 } else {
-                    System.out.println("[PrivateMsg] ⚠️ No auction ID found in message");
+                    LOG.debug("No auction ID found in message");
                 }
                 
                 // Send to recipient
                 String toRecipient = "[Private from " + user.getUsername() + "] " + content;
-                System.out.println("[PrivateMsg] 📤 Sending to recipient: " + toRecipient);
+                LOG.debug("Sending to recipient: {}", toRecipient);
                 targetHandler.sendMessage(toRecipient);
                 
                 // Confirm to sender (echo)
                 String toSender = "[Private to " + privateMessage.getTargetUser() + "] " + content;
-                System.out.println("[PrivateMsg] 📤 Sending echo to sender: " + toSender);
+                LOG.debug("Sending echo to sender: {}", toSender);
                 sendMessage(toSender);
                 
-                System.out.println("[PrivateMsg] ✅ Message delivery complete");
+                LOG.debug("Message delivery complete");
             } else {
-                System.out.println("[PrivateMsg] ❌ Target handler NOT found for: " + privateMessage.getTargetUser());
-                System.out.println("[PrivateMsg] Available users: " + userManager.getAllUsers());
+                LOG.debug("Target handler NOT found for: {}", privateMessage.getTargetUser());
+                LOG.debug("Available users: {}", userManager.getAllUsers());
                 sendMessage("[Error] User '" + privateMessage.getTargetUser() + "' is not online");
             }
         } else {
-            System.out.println("[PrivateMsg] ❌ No target user specified");
+            LOG.debug("No target user specified");
             // Error message from bot
             sendMessage(formatMessageForDisplay(privateMessage));
         }
@@ -319,61 +388,156 @@ public class ClientHandler implements Runnable {
     
     public void sendMessage(String message) {
         if (!isConnected || !webSocketHandshakeComplete) {
-            System.out.println("[ClientHandler] ❌ Cannot send message - not connected or handshake not complete");
+            LOG.debug("Cannot send message - not connected or handshake not complete");
+            return;
+        }
+        
+        LOG.debug("Sending to {}: {}", user != null ? user.getUsername() : "unknown", message);
+        write(WebSocketFrame.text(message).buffer());
+    }
+    
+    /**
+     * Send a frame that is shared with other recipients, e.g. a broadcast
+     */
+    public boolean sendFrame(WebSocketFrame frame) {
+        if (!isConnected || !webSocketHandshakeComplete) {
+            return false;
+        }
+        write(frame.buffer());
+        return true;
+    }
+    
+    private void write(byte[] data) {
+        write(ByteBuffer.wrap(data));
+    }
+    
+    /**
+     * Queue bytes for the client; the event loop writes them out
+     */
+    private void write(ByteBuffer data) {
+        if (!outbound.offer(data, null)) {
+            handleSlowConsumer();
+            return;
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            eventLoop.execute(this::flush);
+        }
+    }
+    
+    /**
+     * Write queued output until the socket buffer is full.
+     * Called on the event loop, also when the channel becomes writable again.
+     */
+    void flush() {
+        flushScheduled.set(false);
+        if (!channel.isOpen()) {
             return;
         }
         
         try {
-            System.out.println("[ClientHandler] 📨 Sending to " + 
-                (user != null ? user.getUsername() : "unknown") + ": " + message);
-            byte[] frame = WebSocketUtil.encodeTextFrame(message);
-            outputStream.write(frame);
-            outputStream.flush();
-            System.out.println("[ClientHandler] ✅ Message sent successfully to " + 
-                (user != null ? user.getUsername() : "unknown"));
+            if (pendingWrite == null) {
+                pendingWrite = outbound.poll();
+            }
+            while (pendingWrite != null) {
+                channel.write(pendingWrite);
+                if (pendingWrite.hasRemaining()) {
+                    // Resume when the client has read some of its data
+                    selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+                pendingWrite = outbound.poll();
+            }
+            if (selectionKey != null && selectionKey.isValid()) {
+                selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_WRITE);
+            }
         } catch (IOException e) {
-            System.err.println("[ClientHandler] ❌ Error sending message to " + 
-                (user != null ? user.getUsername() : "unknown user") + ": " + e.getMessage());
+            LOG.warn("Error sending message to {}: {}",
+                     user != null ? user.getUsername() : "unknown user", e.getMessage());
             handleClientDisconnect();
+            close();
+            return;
+        }
+        
+        if (closeAfterFlush) {
+            close();
         }
     }
     
     private void handleClientDisconnect() {
+        if (leaveChat()) {
+            disconnect();
+        }
+    }
+    
+    /**
+     * The client stopped reading and its outbound queue is full.
+     * A close frame would wait behind the backlog, so just drop the connection.
+     */
+    private void handleSlowConsumer() {
+        LOG.warn("Disconnecting slow client {}: {}",
+                 user != null ? user.getUsername() : "unknown user", outbound.describe());
+        isConnected = false;
+        leaveChat();
+        eventLoop.execute(this::close);
+    }
+    
+    /**
+     * Announce the departure and release the username, once.
+     * Returns false if the client was already leaving.
+     */
+    private boolean leaveChat() {
+        if (!leaving.compareAndSet(false, true)) {
+            return false;
+        }
         if (user != null) {
             Message goodbyeMessage = chatBot.generateGoodbyeMessage(user.getUsername());
             server.broadcastMessage(goodbyeMessage, this);
             userManager.removeUser(user.getUsername());
         }
-        
-        disconnect();
+        return true;
     }
     
+    /**
+     * Send a close frame and close the connection once it is written
+     */
     public void disconnect() {
         isConnected = false;
-        try {
-            if (webSocketHandshakeComplete) {
-                byte[] closeFrame = WebSocketUtil.createCloseFrame();
-                outputStream.write(closeFrame);
-                outputStream.flush();
+        eventLoop.execute(() -> {
+            if (webSocketHandshakeComplete && channel.isOpen()) {
+                outbound.add(ByteBuffer.wrap(WebSocketUtil.createCloseFrame()));
+                closeAfterFlush = true;
+                flush();
+            } else {
+                close();
             }
-        } catch (IOException e) {
-            // Ignore errors during disconnect
-        }
+        });
     }
     
-    private void cleanup() {
+    /**
+     * Close the channel and release the connection
+     */
+    void close() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        isConnected = false;
+        if (selectionKey != null) {
+            selectionKey.cancel();
+        }
         try {
-            if (reader != null) reader.close();
-            if (outputStream != null) outputStream.close();
-            if (clientSocket != null && !clientSocket.isClosed()) {
-                clientSocket.close();
-            }
+            channel.close();
         } catch (IOException e) {
-            System.err.println("Error during cleanup: " + e.getMessage());
+            LOG.error("Error during cleanup: {}", e.getMessage());
         }
+        outbound.clear();
+        pendingWrite = null;
         
+        // Dropped without a close frame or EOF, e.g. on server shutdown
+        if (user != null && userManager.getClientHandler(user.getUsername()) == this) {
+            userManager.removeUser(user.getUsername());
+        }
         server.removeClientHandler(this);
-        System.out.println("Client connection closed and cleaned up");
+        LOG.info("Client connection closed and cleaned up");
     }
     
     private String formatMessageForDisplay(Message message) {
@@ -404,4 +568,11 @@ public class ClientHandler implements Runnable {
     public boolean isConnected() {
         return isConnected;
     }
+    
+    /**
+     * Backlog of messages not yet written to this client
+     */
+    public OutboundQueue getOutboundQueue() {
+        return outbound;
+    }
 }
@@ -1,6 +1,9 @@
 package main.server;
 
+import main.util.Logger;
 public class ServerMain {
+    private static final Logger LOG = Logger.get("ServerMain");
+
 
     public static void main(String[] args) {
         // Define the port to listen on
@@ -9,11 +12,11 @@ public class ServerMain {
         try {
             // Create and start the main auction server
             AuctionServer server = new AuctionServer(port);
-            System.out.println("Attempting to start Auction Server on port " + port);
+            LOG.info("Attempting to start Auction Server on port {}", port);
             server.start();
 
         } catch (Exception e) {
-            System.err.println("Error starting server: " + e.getMessage());
+            LOG.error("Error starting server: {}", e.getMessage());
             e.printStackTrace();
         }
     }
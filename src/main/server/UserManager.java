@@ -6,11 +6,14 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.stream.Collectors;
+import main.util.Logger;
 
 /**
  * Manages user sessions and connections
  */
 public class UserManager {
+    private static final Logger LOG = Logger.get("UserManager");
+
     private static UserManager instance;
     private final ConcurrentMap<String, User> users = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, ClientHandler> userConnections = new ConcurrentHashMap<>();
@@ -34,7 +37,7 @@ public class UserManager {
         
         users.put(user.getUsername(), user);
         userConnections.put(user.getUsername(), clientHandler);
-        System.out.println("User added: " + user.getUsername() + " (Total users: " + users.size() + ")");
+        LOG.info("User added: {} (Total users: {})", user.getUsername(), users.size());
         return true;
     }
     
@@ -46,7 +49,7 @@ public class UserManager {
         userConnections.remove(username);
         if (removedUser != null) {
             removedUser.setActive(false);
-            System.out.println("User removed: " + username + " (Total users: " + users.size() + ")");
+            LOG.info("User removed: {} (Total users: {})", username, users.size());
         }
     }
     
@@ -138,6 +141,6 @@ public class UserManager {
     public void clearAllUsers() {
         users.clear();
         userConnections.clear();
-        System.out.println("All users cleared from UserManager");
+        LOG.info("All users cleared from UserManager");
     }
 }
@@ -0,0 +1,283 @@
+package main.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import main.api.ApiServer;
+import main.model.Auction;
+import main.server.AuctionManager;
+import main.util.ConfigManager;
+import main.util.DatabaseManager;
+import main.util.LatencyHistogram;
+
+/**
+ * ApiServer executor benchmark: the fixed thread pool against a thread
+ * per request (api.executor=virtual)
+ * Starts an ApiServer in this JVM for each mode in turn. While it runs,
+ * slow clients keep POSTing bids whose bodies trickle in over --slow-ms,
+ * each tying up a request thread for that long, as a flaky mobile
+ * connection would. Meanwhile paced users call GET /api/health or place
+ * bids at a fixed rate, and their latency is reported from each request's
+ * scheduled send time (coordinated-omission correction, as in
+ * LoadGenerator). With the fixed pool, as many slow uploads as threads
+ * stall every other request; with a thread per request only the database
+ * permit limit applies.
+ * Runs against a temporary database file, never data/auction_system.db.
+ *
+ * Usage: java -cp "build:lib/*" main.test.ApiExecutorBenchmark [--modes=fixed,virtual] [--slow=20]
+ *        [--slow-ms=2000] [--users=20 (half health checks, half bidders)] [--rate=10 (requests/s per user)]
+ *        [--auctions=8] [--seconds=10] [--warmup=3]
+ */
+public class ApiExecutorBenchmark {
+
+    private static final long STACK_SIZE = 256 * 1024;
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        String[] modes = options.getOrDefault("modes", "fixed,virtual").split(",");
+        int slow = Integer.parseInt(options.getOrDefault("slow", "20"));
+        long slowMillis = Long.parseLong(options.getOrDefault("slow-ms", "2000"));
+        int users = Integer.parseInt(options.getOrDefault("users", "20"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "10"));
+        int auctionCount = Integer.parseInt(options.getOrDefault("auctions", "8"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "3"));
+
+        File dbFile = File.createTempFile("api-bench-", ".db");
+        dbFile.deleteOnExit();
+        ConfigManager config = ConfigManager.getInstance();
+        config.setProperty("db.path", dbFile.getAbsolutePath());
+        // Per-request server logging would dominate the measurement
+        config.setProperty("logging.level", "WARN");
+
+        String[] auctionIds = new String[auctionCount];
+        AtomicLong[] prices = new AtomicLong[auctionCount];
+        for (int i = 0; i < auctionCount; i++) {
+            Auction auction = AuctionManager.getInstance().createAuction("Bench item " + i, "Benchmark item",
+                    "seller", 1.0, 600, "bench");
+            auctionIds[i] = auction.getAuctionId();
+            prices[i] = new AtomicLong(100);
+        }
+
+        System.out.println("\n=== API executor (" + slow + " slow uploads of " + slowMillis + " ms, " + users
+                + " users at " + rate + " req/s each, " + seconds + " s measured after " + warmup
+                + " s warmup, " + Runtime.getRuntime().availableProcessors() + " cores, Java "
+                + System.getProperty("java.version") + ") ===");
+        System.out.printf("%-8s %-7s %8s %8s %7s %9s %9s %9s %9s%n", "mode", "request", "ok", "503",
+                "errors", "p50 ms", "p99 ms", "max ms", "slow done");
+
+        for (String mode : modes) {
+            config.setProperty("api.executor", mode.trim());
+            int port = freePort();
+            ApiServer server = new ApiServer(port);
+            server.start();
+            Run run = new Run(port, auctionIds, prices, warmup, seconds);
+            run.execute(slow, slowMillis, users, rate);
+            run.health.report(mode, "health", run.slowDone.sum());
+            run.bid.report(mode, "bid", run.slowDone.sum());
+            server.stop();
+        }
+
+        DatabaseManager.getInstance().close();
+        System.out.println("Latency is from each request's scheduled send time.");
+        System.exit(0);
+    }
+
+    /**
+     * Counts and latencies of one kind of request within the measured window
+     */
+    private static final class Operation {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder ok = new LongAdder();
+        final LongAdder busy = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        void record(long latencyNanos, int status) {
+            if (status < 0) {
+                errors.increment();
+                return;
+            }
+            // 400 is an outbid bid, which still went through the server
+            (status == 503 ? busy : ok).increment();
+            latency.recordNanos(latencyNanos);
+        }
+
+        void report(String mode, String request, long slowDone) {
+            LatencyHistogram.Snapshot snapshot = latency.snapshot();
+            System.out.printf("%-8s %-7s %8d %8d %7d %9.2f %9.2f %9.2f %9d%n", mode, request, ok.sum(),
+                    busy.sum(), errors.sum(), millis(snapshot.valueAtQuantile(0.5)),
+                    millis(snapshot.valueAtQuantile(0.99)), millis(snapshot.getMaxNanos()), slowDone);
+        }
+    }
+
+    /**
+     * One mode's run against a started server
+     */
+    private static final class Run {
+        final int port;
+        final String[] auctionIds;
+        final AtomicLong[] prices;
+        final long measureFrom;
+        final long measureUntil;
+        final HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(TIMEOUT)
+                .build();
+        final Operation health = new Operation();
+        final Operation bid = new Operation();
+        final LongAdder slowDone = new LongAdder();
+        final AtomicBoolean running = new AtomicBoolean(true);
+
+        Run(int port, String[] auctionIds, AtomicLong[] prices, int warmup, int seconds) {
+            this.port = port;
+            this.auctionIds = auctionIds;
+            this.prices = prices;
+            this.measureFrom = System.nanoTime() + warmup * 1_000_000_000L;
+            this.measureUntil = measureFrom + seconds * 1_000_000_000L;
+        }
+
+        void execute(int slow, long slowMillis, int users, double rate) throws InterruptedException {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < slow; i++) {
+                threads.add(thread(() -> slowUploads(slowMillis), "slow-" + i));
+            }
+            long intervalNanos = (long) (1_000_000_000L / rate);
+            for (int i = 0; i < users; i++) {
+                boolean bidder = i % 2 == 1;
+                String userId = "bench-user-" + i;
+                threads.add(thread(() -> paced(intervalNanos, bidder, userId), "user-" + i));
+            }
+            threads.forEach(Thread::start);
+            long wait;
+            while ((wait = measureUntil - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        /**
+         * Send requests every interval, offset randomly so users do not fire
+         * in lockstep; a late reply makes the next request go out at once
+         */
+        private void paced(long intervalNanos, boolean bidder, String userId) {
+            long intended = System.nanoTime() + ThreadLocalRandom.current().nextLong(intervalNanos);
+            while (intended < measureUntil) {
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                int status = bidder ? placeBid(userId) : send(HttpRequest.newBuilder(uri("/api/health")).GET());
+                if (intended >= measureFrom) {
+                    (bidder ? bid : health).record(System.nanoTime() - intended, status);
+                }
+                intended += intervalNanos;
+            }
+        }
+
+        private int placeBid(String userId) {
+            int lot = ThreadLocalRandom.current().nextInt(auctionIds.length);
+            long cents = prices[lot].addAndGet(100);
+            String body = "{\"auctionId\":\"" + auctionIds[lot] + "\",\"userId\":\"" + userId + "\",\"amount\":"
+                    + (cents / 100) + "." + String.format("%02d", cents % 100) + "}";
+            return send(HttpRequest.newBuilder(uri("/api/bids/place"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)));
+        }
+
+        /**
+         * Returns the status, or -1 when the request failed or timed out
+         */
+        private int send(HttpRequest.Builder request) {
+            try {
+                return client.send(request.timeout(TIMEOUT).build(), HttpResponse.BodyHandlers.discarding())
+                        .statusCode();
+            } catch (IOException e) {
+                return -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+
+        private URI uri(String path) {
+            return URI.create("http://localhost:" + port + path);
+        }
+
+        /**
+         * Keep POSTing a bid whose body arrives a byte at a time over slowMillis.
+         * The bid is below the current price, so it is rejected without a write.
+         */
+        private void slowUploads(long slowMillis) {
+            byte[] body = ("{\"auctionId\":\"" + auctionIds[0] + "\",\"userId\":\"slow\",\"amount\":0.50}")
+                    .getBytes(StandardCharsets.UTF_8);
+            String head = "POST /api/bids/place HTTP/1.1\r\nHost: localhost:" + port
+                    + "\r\nContent-Type: application/json\r\nContent-Length: " + body.length
+                    + "\r\nConnection: close\r\n\r\n";
+            long pauseNanos = slowMillis * 1_000_000L / body.length;
+            while (running.get()) {
+                try (Socket socket = new Socket("localhost", port)) {
+                    socket.setTcpNoDelay(true);
+                    socket.setSoTimeout((int) TIMEOUT.toMillis());
+                    OutputStream out = socket.getOutputStream();
+                    out.write(head.getBytes(StandardCharsets.US_ASCII));
+                    for (byte b : body) {
+                        out.write(b);
+                        out.flush();
+                        LockSupport.parkNanos(pauseNanos);
+                    }
+                    // Read the reply until the server closes the connection
+                    InputStream in = socket.getInputStream();
+                    while (in.read() >= 0) {
+                        // Discard
+                    }
+                    slowDone.increment();
+                } catch (IOException e) {
+                    // Counted as not done; try again
+                }
+            }
+        }
+    }
+
+    private static Thread thread(Runnable task, String name) {
+        Thread thread = new Thread(null, task, name, STACK_SIZE);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -39,7 +39,7 @@ public class AuctionCreationTest {
         System.out.println("TEST 1: Auction Manager Creation");
         System.out.println("----------------------------------");
 
-        AuctionManager manager = new AuctionManager();
+        AuctionManager manager = AuctionManager.getInstance();
 
         // Create multiple auctions
         Auction auction1 = manager.createAuction(
@@ -178,7 +178,7 @@ public class AuctionCreationTest {
         System.out.println("TEST 4: Category Filtering");
         System.out.println("----------------------------------");
 
-        AuctionManager manager = new AuctionManager();
+        AuctionManager manager = AuctionManager.getInstance();
 
         // Create auctions in different categories
         manager.createAuction("Item 1", "Electronics item", "seller1", 100, 60, "electronics");
@@ -246,7 +246,7 @@ public class AuctionCreationTest {
         }
 
         // Test auction closing
-        AuctionManager manager = new AuctionManager();
+        AuctionManager manager = AuctionManager.getInstance();
         Auction normalAuction = manager.createAuction(
                 "Item to close",
                 "Will be closed manually",
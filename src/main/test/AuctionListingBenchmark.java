@@ -0,0 +1,100 @@
+package main.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import main.model.Auction;
+import main.server.AuctionIndex;
+
+/**
+ * Auction listing benchmark
+ * Fills a store with N auctions (10% active, 20 categories, 1000 sellers)
+ * and times one listing request three ways: the previous full scan of the
+ * store with a filter, the first page from AuctionIndex, and a page taken
+ * from deep inside the listing with a cursor. Then times the AuctionManager
+ * seller, category and active queries as full scans and as index reads.
+ *
+ * Usage: java -cp "build:lib/*" main.test.AuctionListingBenchmark [store sizes, comma separated]
+ */
+public class AuctionListingBenchmark {
+
+    private static final int PAGE = 50;
+    private static final int REQUESTS = 200;
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        String sizes = args.length > 0 ? args[0] : "10000,100000,500000";
+        List<String> queryRows = new ArrayList<>();
+
+        System.out.println("\n=== Auction Listing (" + PAGE + " per page, ACTIVE in one category) ===");
+        System.out.printf("%10s %16s %16s %16s%n", "auctions", "full scan us", "first page us", "deep page us");
+
+        for (String size : sizes.split(",")) {
+            int count = Integer.parseInt(size.trim());
+            Map<String, Auction> store = new ConcurrentHashMap<>();
+            AuctionIndex index = new AuctionIndex();
+            for (int i = 0; i < count; i++) {
+                Auction auction = new Auction("auction-" + i, "Item " + i, "", "seller" + (i % 1000), 10,
+                    1_700_000_000_000L + i, 1_700_000_000_000L + i + 60_000, 60_000, "category" + (i % 20));
+                if (i % 10 != 0) {
+                    auction.setStatus(Auction.AuctionStatus.CLOSED);
+                }
+                store.put(auction.getAuctionId(), auction);
+                index.add(auction);
+            }
+            AuctionIndex.Query first = new AuctionIndex.Query()
+                .status(Auction.AuctionStatus.ACTIVE).category("category0").limit(PAGE);
+            String middle = index.page(new AuctionIndex.Query()
+                .status(Auction.AuctionStatus.ACTIVE).category("category0").limit(count / 400 + 1)).getNextCursor();
+
+            // Warm up all three before timing
+            time(() -> scan(store), REQUESTS / 4);
+            time(() -> sink += index.page(first).getAuctions().size(), REQUESTS / 4);
+
+            double scanMicros = time(() -> scan(store), REQUESTS);
+            double firstMicros = time(() -> sink += index.page(first).getAuctions().size(), REQUESTS);
+            double deepMicros = time(() -> sink += index.page(new AuctionIndex.Query()
+                .status(Auction.AuctionStatus.ACTIVE).category("category0").limit(PAGE).after(middle))
+                .getAuctions().size(), REQUESTS);
+            System.out.printf("%10d %16.1f %16.1f %16.1f%n", count, scanMicros, firstMicros, deepMicros);
+
+            long now = 1_700_000_000_000L + count / 2;
+            queryRows.add(String.format("%10d %8.1f / %-8.1f %8.1f / %-8.1f %9.1f / %-8.1f", count,
+                time(() -> sink += filter(store, a -> a.getSellerId().equals("seller7")), REQUESTS),
+                time(() -> sink += index.bySeller("seller7").size(), REQUESTS),
+                time(() -> sink += filter(store, a -> a.getCategory().equalsIgnoreCase("category7")), REQUESTS),
+                time(() -> sink += index.byCategory("category7").size(), REQUESTS),
+                time(() -> sink += filter(store, a -> a.getStatus() == Auction.AuctionStatus.ACTIVE
+                    && a.getEndTime() > now), REQUESTS),
+                time(() -> sink += index.activeEndingAfter(now).size(), REQUESTS)));
+        }
+
+        System.out.println("\n=== AuctionManager Queries (us, full scan / index) ===");
+        System.out.printf("%10s %19s %19s %20s%n", "auctions", "by seller", "by category", "active");
+        queryRows.forEach(System.out::println);
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static void scan(Map<String, Auction> store) {
+        List<Auction> matching = store.values().stream()
+            .filter(a -> a.getStatus() == Auction.AuctionStatus.ACTIVE && a.getCategory().equalsIgnoreCase("category0"))
+            .collect(Collectors.toCollection(ArrayList::new));
+        sink += matching.size();
+    }
+
+    private static int filter(Map<String, Auction> store, Predicate<Auction> predicate) {
+        return store.values().stream().filter(predicate).collect(Collectors.toList()).size();
+    }
+
+    private static double time(Runnable request, int times) {
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            request.run();
+        }
+        return (System.nanoTime() - start) / 1000.0 / times;
+    }
+}
@@ -0,0 +1,249 @@
+package main.test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import main.model.Auction;
+import main.server.AuctionManager;
+import main.server.AuctionServer;
+import main.server.BinaryBidProtocol;
+import main.util.ConfigManager;
+import main.util.DatabaseManager;
+
+/**
+ * Auction server reactor scaling benchmark
+ * Starts an AuctionServer in this JVM with 1, 2, 4 and 8 I/O reactors in
+ * turn. Closed-loop clients each bid on their own auction over TCP and wait
+ * for the CONFIRM line before sending the next bid, so the numbers cover
+ * parsing, the worker hand-off, the database commit and the reply.
+ * Clients speak the text protocol or, with "binary", switch to
+ * BinaryBidProtocol frames after connecting.
+ * The reactor count only helps up to the number of CPU cores available.
+ * Runs against a temporary database file, never data/auction_system.db.
+ *
+ * Usage: java -cp "build:lib/*" main.test.AuctionServerBenchmark [clients] [seconds per run]
+ *        [reactor counts, e.g. 1,2,4,8] [text|binary]
+ */
+public class AuctionServerBenchmark {
+
+    private static final int MAX_SAMPLES = 1 << 20;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int[] reactorCounts = Arrays.stream((args.length > 2 ? args[2] : "1,2,4,8").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        boolean binary = args.length > 3 && args[3].equalsIgnoreCase("binary");
+
+        File dbFile = File.createTempFile("auction-bench-", ".db");
+        dbFile.deleteOnExit();
+        ConfigManager config = ConfigManager.getInstance();
+        config.setProperty("db.path", dbFile.getAbsolutePath());
+
+        PrintStream out = System.out;
+        // Per-bid server logging would dominate the measurement
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        AuctionManager auctionManager = AuctionManager.getInstance();
+        String[] auctionIds = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            Auction auction = auctionManager.createAuction("Bench item " + i, "Benchmark item",
+                    "seller", 1.0, 600, "bench");
+            auctionIds[i] = auction.getAuctionId();
+        }
+
+        out.println("\n=== Auction Server Scaling (" + clients + " " + (binary ? "binary" : "text")
+                + " clients, "
+                + Runtime.getRuntime().availableProcessors() + " cores, group commit "
+                + (DatabaseManager.getInstance().isGroupCommitEnabled() ? "on" : "off") + ") ===");
+        out.printf("%-10s %12s %12s %12s %12s%n", "reactors", "bids/s", "p50 us", "p99 us", "max us");
+
+        double nextAmount = 2.0;
+        // The first pass only warms up the JIT and the database
+        for (int run = -1; run < reactorCounts.length; run++) {
+            int reactors = reactorCounts[Math.max(run, 0)];
+            config.setProperty("auction.reactors", String.valueOf(reactors));
+            int port = freePort();
+            AuctionServer server = new AuctionServer(port);
+            Thread acceptor = new Thread(server::start, "AuctionAcceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            long[] result = run(port, auctionIds, seconds, nextAmount, binary);
+            if (run >= 0) {
+                out.printf("%-10d %12.0f %12.1f %12.1f %12.1f%n", reactors, result[0] / (double) seconds,
+                    result[1] / 1000.0, result[2] / 1000.0, result[3] / 1000.0);
+            }
+            // Later runs must outbid everything placed so far
+            nextAmount += result[4] + 1;
+
+            server.stop();
+        }
+
+        DatabaseManager.getInstance().close();
+        System.setOut(out);
+    }
+
+    /**
+     * Returns {bids, p50 ns, p99 ns, max ns, most bids by one client}
+     */
+    private static long[] run(int port, String[] auctionIds, int seconds, double startAmount,
+                              boolean binary) throws Exception {
+        int clients = auctionIds.length;
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong bids = new AtomicLong();
+        long[][] latencies = new long[clients][];
+        int[] samples = new int[clients];
+        long[] perClient = new long[clients];
+        CountDownLatch connected = new CountDownLatch(clients);
+        CountDownLatch done = new CountDownLatch(clients);
+
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            latencies[c] = new long[MAX_SAMPLES / clients];
+            new Thread(() -> {
+                try (Socket socket = new Socket("localhost", port)) {
+                    socket.setTcpNoDelay(true);
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    DataOutputStream os = new DataOutputStream(socket.getOutputStream());
+                    readLine(in); // Welcome line
+                    int auctionRef = binary ? switchToBinary(in, os, auctionIds[client]) : -1;
+                    connected.countDown();
+                    connected.await();
+
+                    double amount = startAmount;
+                    while (running.get()) {
+                        long start = System.nanoTime();
+                        boolean answered = binary
+                                ? binaryBid(in, os, auctionRef, amount)
+                                : textBid(in, os, auctionIds[client], amount);
+                        long elapsed = System.nanoTime() - start;
+                        if (!answered) {
+                            break;
+                        }
+                        if (samples[client] < latencies[client].length) {
+                            latencies[client][samples[client]++] = elapsed;
+                        }
+                        bids.incrementAndGet();
+                        perClient[client]++;
+                        amount += 1.0;
+                    }
+                } catch (Exception e) {
+                    System.err.println("[AuctionServerBenchmark] Client " + client + " failed: " + e.getMessage());
+                    connected.countDown();
+                } finally {
+                    done.countDown();
+                }
+            }, "BenchClient-" + c).start();
+        }
+
+        connected.await();
+        long startCount = bids.get();
+        Thread.sleep(seconds * 1000L);
+        long count = bids.get() - startCount;
+        running.set(false);
+        done.await();
+
+        int total = 0;
+        for (int s : samples) {
+            total += s;
+        }
+        long[] all = new long[total];
+        int pos = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(latencies[c], 0, all, pos, samples[c]);
+            pos += samples[c];
+        }
+        Arrays.sort(all);
+        long most = Arrays.stream(perClient).max().orElse(0);
+        if (all.length == 0) {
+            return new long[] {count, 0, 0, 0, most};
+        }
+        return new long[] {count, all[all.length / 2], all[(int) (all.length * 0.99)],
+                all[all.length - 1], most};
+    }
+
+    private static boolean textBid(DataInputStream in, OutputStream os, String auctionId, double amount)
+            throws IOException {
+        os.write(("BID:" + auctionId + ":" + amount + "\n").getBytes(StandardCharsets.UTF_8));
+        String line;
+        while ((line = readLine(in)) != null && !line.startsWith("CONFIRM") && !line.startsWith("ERROR")) {
+            // Skip broadcasts
+        }
+        return line != null;
+    }
+
+    private static boolean binaryBid(DataInputStream in, DataOutputStream os, int auctionRef, double amount)
+            throws IOException {
+        os.writeInt(13);
+        os.writeByte(BinaryBidProtocol.BID);
+        os.writeInt(auctionRef);
+        os.writeLong(BinaryBidProtocol.toCents(amount));
+        while (true) {
+            int length = in.readInt();
+            byte type = in.readByte();
+            in.skipBytes(length - 1);
+            if (type == BinaryBidProtocol.BID_ACCEPTED || type == BinaryBidProtocol.BID_REJECTED) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Negotiate binary framing and resolve the auction's reference
+     */
+    private static int switchToBinary(DataInputStream in, DataOutputStream os, String auctionId)
+            throws IOException {
+        byte[] id = auctionId.getBytes(StandardCharsets.UTF_8);
+        os.write((BinaryBidProtocol.NEGOTIATE + "\n").getBytes(StandardCharsets.UTF_8));
+        os.writeInt(3 + id.length);
+        os.writeByte(BinaryBidProtocol.RESOLVE);
+        os.writeShort(id.length);
+        os.write(id);
+
+        String line;
+        while ((line = readLine(in)) != null && !line.equals(BinaryBidProtocol.NEGOTIATE_OK)) {
+            // Skip text before the switch
+        }
+        while (true) {
+            int length = in.readInt();
+            byte type = in.readByte();
+            if (type == BinaryBidProtocol.AUCTION_REF) {
+                int ref = in.readInt();
+                in.skipBytes(length - 5);
+                return ref;
+            }
+            in.skipBytes(length - 1);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                return null;
+            }
+            line.append((char) b);
+        }
+        return line.toString();
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package main.test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import main.model.Auction;
+import main.model.Bid;
+import main.server.AuctionManager;
+import main.util.ConfigManager;
+import main.util.DatabaseManager;
+import main.util.StripedLock;
+
+/**
+ * Bid lock contention benchmark
+ * Half the bidders hammer one hot auction while the other half spread bids
+ * over 1000 cold auctions. Each bid follows the BidController sequence:
+ * take the auction's lock, validate, place and queue the bid, release, then
+ * wait for the commit. Compares one global lock with per-auction stripes.
+ * Runs against a temporary database file, never data/auction_system.db.
+ *
+ * Usage: java -cp "build:lib/*" main.test.BidContentionBenchmark [seconds per run]
+ *        [group commit true|false]
+ */
+public class BidContentionBenchmark {
+
+    private static final int COLD_AUCTIONS = 1000;
+    private static final int HOT_BIDDERS = 16;
+    private static final int COLD_BIDDERS = 16;
+    private static final int[] STRIPE_COUNTS = {1, 256};
+    private static final int MAX_SAMPLES = 1 << 20;
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+        File dbFile = File.createTempFile("auction-bench-", ".db");
+        dbFile.deleteOnExit();
+        ConfigManager config = ConfigManager.getInstance();
+        config.setProperty("db.path", dbFile.getAbsolutePath());
+        config.setProperty("db.group.commit.enabled", args.length > 1 ? args[1] : "true");
+
+        AuctionManager auctionManager = AuctionManager.getInstance();
+        Auction hot = auctionManager.createAuction("Hot item", "Benchmark item", "seller", 1.0, 600, "bench");
+        Auction[] cold = new Auction[COLD_AUCTIONS];
+        for (int i = 0; i < COLD_AUCTIONS; i++) {
+            cold[i] = auctionManager.createAuction("Cold item " + i, "Benchmark item", "seller", 1.0, 600, "bench");
+        }
+
+        System.out.println("\n=== Bid Lock Contention (1 hot auction, " + COLD_AUCTIONS + " cold, "
+                + HOT_BIDDERS + " hot + " + COLD_BIDDERS + " cold bidders, group commit "
+                + (DatabaseManager.getInstance().isGroupCommitEnabled() ? "on" : "off") + ") ===");
+        System.out.printf("%-8s %12s %12s %14s %14s%n",
+                "stripes", "hot bids/s", "cold bids/s", "cold p50 us", "cold p99 us");
+        for (int stripes : STRIPE_COUNTS) {
+            run(auctionManager, new StripedLock(stripes, true), hot, cold, seconds);
+        }
+
+        DatabaseManager.getInstance().close();
+    }
+
+    private static void run(AuctionManager auctionManager, StripedLock locks, Auction hot,
+                            Auction[] cold, int seconds) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong hotBids = new AtomicLong();
+        AtomicLong coldBids = new AtomicLong();
+        long[][] coldLatencies = new long[COLD_BIDDERS][];
+        int[] coldSamples = new int[COLD_BIDDERS];
+        CountDownLatch done = new CountDownLatch(HOT_BIDDERS + COLD_BIDDERS);
+
+        for (int b = 0; b < HOT_BIDDERS; b++) {
+            String bidder = "hot" + b;
+            new Thread(() -> {
+                while (running.get()) {
+                    if (bid(auctionManager, locks, hot.getAuctionId(), bidder)) {
+                        hotBids.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            }, "bench-hot-" + b).start();
+        }
+
+        for (int b = 0; b < COLD_BIDDERS; b++) {
+            final int index = b;
+            String bidder = "cold" + b;
+            coldLatencies[b] = new long[MAX_SAMPLES / COLD_BIDDERS];
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long[] samples = coldLatencies[index];
+                int count = 0;
+                while (running.get()) {
+                    String auctionId = cold[random.nextInt(cold.length)].getAuctionId();
+                    long start = System.nanoTime();
+                    if (bid(auctionManager, locks, auctionId, bidder)) {
+                        coldBids.incrementAndGet();
+                    }
+                    if (count < samples.length) {
+                        samples[count++] = System.nanoTime() - start;
+                    }
+                }
+                coldSamples[index] = count;
+                done.countDown();
+            }, "bench-cold-" + b).start();
+        }
+
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        done.await();
+
+        int total = 0;
+        for (int count : coldSamples) {
+            total += count;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (int b = 0; b < COLD_BIDDERS; b++) {
+            System.arraycopy(coldLatencies[b], 0, all, offset, coldSamples[b]);
+            offset += coldSamples[b];
+        }
+        Arrays.sort(all);
+
+        System.out.printf("%-8d %12.0f %12.0f %14.1f %14.1f%n", locks.getStripeCount(),
+                hotBids.get() / (double) seconds, coldBids.get() / (double) seconds,
+                percentile(all, 0.50) / 1000.0, percentile(all, 0.99) / 1000.0);
+    }
+
+    /**
+     * Same sequence as BidController.handlePlaceBid
+     */
+    private static boolean bid(AuctionManager auctionManager, StripedLock locks,
+                               String auctionId, String bidder) {
+        CompletableFuture<Bid.Result> commit;
+        ReentrantLock lock = locks.get(auctionId);
+        lock.lock();
+        try {
+            Auction auction = auctionManager.getAuction(auctionId);
+            if (auction == null || auction.getStatus() != Auction.AuctionStatus.ACTIVE) {
+                return false;
+            }
+            Bid bid = new Bid(auctionId, bidder, auction.getCurrentHighestBid() + 1);
+            commit = auctionManager.placeBid(auction, bid);
+        } finally {
+            lock.unlock();
+        }
+        return commit.join() == Bid.Result.ACCEPTED;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+}
@@ -0,0 +1,265 @@
+package main.test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import main.server.ChatServer;
+
+/**
+ * Chat server connection load test
+ * Starts a ChatServer in this JVM, then raises the number of idle WebSocket
+ * connections step by step while a fixed group of active clients keeps
+ * sending /time commands. At each step it reports server threads, heap per
+ * connection and the active clients' round-trip latency.
+ * Heap is measured for the whole JVM, so it includes the client sockets too.
+ * Each connection needs two file descriptors here (client and server end);
+ * raise "ulimit -n" before running the larger steps.
+ *
+ * Usage: java -cp "build:lib/*" main.test.ChatLoadTest [connection steps, e.g. 1000,10000,50000]
+ *        [active clients] [seconds per step]
+ */
+public class ChatLoadTest {
+
+    private static final String HANDSHAKE =
+        "GET /chat HTTP/1.1\r\n" +
+        "Host: localhost\r\n" +
+        "Upgrade: websocket\r\n" +
+        "Connection: Upgrade\r\n" +
+        "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+        "Sec-WebSocket-Version: 13\r\n" +
+        "\r\n";
+    private static final String TIME_RESPONSE = "Current server time";
+    private static final int MAX_SAMPLES = 1 << 20;
+
+    public static void main(String[] args) throws Exception {
+        int[] steps = Arrays.stream((args.length > 0 ? args[0] : "1000,10000,50000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int activeCount = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        int port = freePort();
+        PrintStream out = System.out;
+        // Per-connection server logging would dominate the measurement
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        long baseHeap = usedHeap();
+        int baseThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        ChatServer server = new ChatServer(port);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start();
+            } catch (IOException e) {
+                System.err.println("[ChatLoadTest] Server failed: " + e.getMessage());
+            }
+        }, "chat-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+        while (!server.isRunning()) {
+            Thread.sleep(10);
+        }
+
+        List<ActiveClient> active = new ArrayList<>();
+        for (int i = 0; i < activeCount; i++) {
+            active.add(new ActiveClient(port, "load" + i));
+        }
+
+        out.println("\n=== Chat Server Load (" + activeCount + " active clients sending /time) ===");
+        out.printf("%-12s %10s %14s %12s %12s %12s %12s%n", "connections", "threads",
+                "heap KB/conn", "cmds/s", "p50 us", "p99 us", "max us");
+
+        List<Socket> idle = new ArrayList<>();
+        for (int step : steps) {
+            try {
+                while (idle.size() + activeCount < step) {
+                    idle.add(openIdle(port));
+                }
+            } catch (IOException e) {
+                out.println("Stopped at " + (idle.size() + activeCount) + " connections: " + e.getMessage());
+                break;
+            }
+            while (server.getActiveConnections() < idle.size() + activeCount) {
+                Thread.sleep(10);
+            }
+
+            int connections = server.getActiveConnections();
+            double heapPerConnection = (usedHeap() - baseHeap) / 1024.0 / connections;
+            int threads = ManagementFactory.getThreadMXBean().getThreadCount() - baseThreads;
+            long[] latencies = measure(active, seconds);
+            Arrays.sort(latencies);
+
+            out.printf("%-12d %10d %14.1f %12.0f %12.1f %12.1f %12.1f%n", connections, threads,
+                    heapPerConnection, latencies.length / (double) seconds,
+                    percentile(latencies, 0.50) / 1000.0, percentile(latencies, 0.99) / 1000.0,
+                    percentile(latencies, 1.0) / 1000.0);
+        }
+
+        for (ActiveClient client : active) {
+            client.socket.close();
+        }
+        for (Socket socket : idle) {
+            socket.close();
+        }
+        System.setOut(out);
+        System.exit(0);
+    }
+
+    /**
+     * Connect and complete the handshake; the socket then stays silent
+     */
+    private static Socket openIdle(int port) throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress("localhost", port));
+        socket.getOutputStream().write(HANDSHAKE.getBytes(StandardCharsets.US_ASCII));
+        readHandshakeResponse(socket.getInputStream());
+        return socket;
+    }
+
+    private static void readHandshakeResponse(InputStream in) throws IOException {
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b == -1) {
+                throw new IOException("Connection closed during handshake");
+            }
+            matched = (b == (matched % 2 == 0 ? '\r' : '\n')) ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+    }
+
+    private static long[] measure(List<ActiveClient> active, int seconds) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(active.size());
+        long[][] samples = new long[active.size()][];
+        int[] counts = new int[active.size()];
+
+        for (int c = 0; c < active.size(); c++) {
+            final int index = c;
+            ActiveClient client = active.get(c);
+            samples[c] = new long[MAX_SAMPLES / active.size()];
+            new Thread(() -> {
+                int count = 0;
+                try {
+                    while (running.get() && count < samples[index].length) {
+                        samples[index][count++] = client.roundTrip("/time");
+                    }
+                } catch (IOException e) {
+                    System.err.println("[ChatLoadTest] Active client failed: " + e.getMessage());
+                }
+                counts[index] = count;
+                done.countDown();
+            }, "load-active-" + c).start();
+        }
+
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        done.await();
+
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (int c = 0; c < active.size(); c++) {
+            System.arraycopy(samples[c], 0, all, offset, counts[c]);
+            offset += counts[c];
+        }
+        return all;
+    }
+
+    /**
+     * Registered chat user that sends commands and waits for the reply
+     */
+    private static final class ActiveClient {
+        final Socket socket;
+        final DataInputStream in;
+        final OutputStream out;
+
+        ActiveClient(int port, String username) throws IOException {
+            socket = openIdle(port);
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(socket.getInputStream());
+            out = socket.getOutputStream();
+            out.write(maskedTextFrame(username));
+            // Skip the prompt and welcome messages
+            String frame;
+            do {
+                frame = readTextFrame();
+            } while (!frame.startsWith("Welcome"));
+        }
+
+        long roundTrip(String command) throws IOException {
+            long start = System.nanoTime();
+            out.write(maskedTextFrame(command));
+            // Join notices from other clients may arrive in between
+            while (!readTextFrame().contains(TIME_RESPONSE)) {
+                // keep reading
+            }
+            return System.nanoTime() - start;
+        }
+
+        String readTextFrame() throws IOException {
+            in.readUnsignedByte();
+            int length = in.readUnsignedByte() & 0x7F;
+            if (length == 126) {
+                length = in.readUnsignedShort();
+            } else if (length == 127) {
+                length = (int) in.readLong();
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Client frames must be masked (RFC 6455 section 5.3)
+     */
+    private static byte[] maskedTextFrame(String text) {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[6 + payload.length];
+        frame[0] = (byte) 0x81;
+        frame[1] = (byte) (0x80 | payload.length);
+        byte[] mask = new byte[4];
+        ThreadLocalRandom.current().nextBytes(mask);
+        System.arraycopy(mask, 0, frame, 2, 4);
+        for (int i = 0; i < payload.length; i++) {
+            frame[6 + i] = (byte) (payload[i] ^ mask[i % 4]);
+        }
+        return frame;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+}
@@ -0,0 +1,190 @@
+package main.test;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import main.model.Auction;
+import main.model.Bid;
+import main.model.Notification;
+import main.util.ConfigManager;
+import main.util.DatabaseManager;
+
+/**
+ * Throughput benchmark for DatabaseManager
+ * Measures read throughput while a writer keeps committing bids, the
+ * single-thread cost of the hottest statements, and bid commit throughput
+ * with many concurrent bidders.
+ * Runs against a temporary database file, never data/auction_system.db.
+ *
+ * Usage: java -cp "build:lib/*" main.test.DatabaseBenchmark [seconds per run]
+ *        [statement cache size] [group commit true|false]
+ */
+public class DatabaseBenchmark {
+
+    private static final int[] READER_COUNTS = {1, 4, 16};
+    private static final int AUCTIONS = 50;
+    private static final int USERS = 50;
+    private static final int SINGLE_THREAD_OPS = 20000;
+    private static final int[] BIDDER_COUNTS = {1, 16, 64};
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+        File dbFile = File.createTempFile("auction-bench-", ".db");
+        dbFile.deleteOnExit();
+        ConfigManager config = ConfigManager.getInstance();
+        config.setProperty("db.path", dbFile.getAbsolutePath());
+        config.setProperty("db.pool.readers", String.valueOf(READER_COUNTS[READER_COUNTS.length - 1]));
+        if (args.length > 1) {
+            config.setProperty("db.statement.cache.size", args[1]);
+        }
+        if (args.length > 2) {
+            config.setProperty("db.group.commit.enabled", args[2]);
+        }
+
+        DatabaseManager db = DatabaseManager.getInstance();
+        Auction[] auctions = seed(db);
+
+        System.out.println("\n=== Single-thread Statement Cost (statement cache size "
+                + config.getString("db.statement.cache.size") + ") ===");
+        runSingleThread(db, auctions);
+
+        System.out.println("\n=== DatabaseManager Read Throughput (writer busy) ===");
+        System.out.printf("%-10s %15s %15s%n", "readers", "reads/s", "writes/s");
+        for (int readers : READER_COUNTS) {
+            runReadersWithWriter(db, auctions, readers, seconds);
+        }
+
+        System.out.println("\n=== Concurrent Bid Commits (group commit "
+                + (db.isGroupCommitEnabled() ? "on" : "off") + ") ===");
+        System.out.printf("%-10s %15s%n", "bidders", "bids/s");
+        for (int bidders : BIDDER_COUNTS) {
+            runConcurrentBidders(db, bidders, seconds);
+        }
+        if (db.isGroupCommitEnabled()) {
+            System.out.printf("Average batch size: %.1f%n",
+                    db.getGroupCommitBidCount() / (double) Math.max(1, db.getGroupCommitBatchCount()));
+        }
+
+        System.out.println("\nStatement cache: hits=" + db.getStatementCacheHits()
+                + " misses=" + db.getStatementCacheMisses()
+                + " evictions=" + db.getStatementCacheEvictions());
+
+        db.close();
+    }
+
+    private static Auction[] seed(DatabaseManager db) {
+        Auction[] auctions = new Auction[AUCTIONS];
+        for (int i = 0; i < AUCTIONS; i++) {
+            auctions[i] = db.createAuction("Item " + i, "Benchmark item", "seller" + (i % 5),
+                    100.0, 600, "bench");
+            for (int b = 1; b <= 20; b++) {
+                db.saveBid(new Bid(auctions[i].getAuctionId(), "user" + (b % USERS), 100.0 + b));
+            }
+        }
+        for (int u = 0; u < USERS; u++) {
+            for (int n = 0; n < 10; n++) {
+                db.saveNotification(new Notification("user" + u, "BENCH", "Title", "Message " + n,
+                        auctions[n].getAuctionId()));
+            }
+        }
+        return auctions;
+    }
+
+    private static void runSingleThread(DatabaseManager db, Auction[] auctions) {
+        long start = System.nanoTime();
+        for (int i = 0; i < SINGLE_THREAD_OPS; i++) {
+            db.loadAuction(auctions[i % auctions.length].getAuctionId());
+        }
+        report("loadAuction", start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < SINGLE_THREAD_OPS; i++) {
+            db.saveBid(new Bid(auctions[i % auctions.length].getAuctionId(), "single", 1.0));
+        }
+        report("saveBid", start);
+    }
+
+    private static void report(String name, long startNanos) {
+        double micros = (System.nanoTime() - startNanos) / 1000.0 / SINGLE_THREAD_OPS;
+        System.out.printf("%-15s %10.1f us/op %12.0f ops/s%n", name, micros, 1_000_000 / micros);
+    }
+
+    private static void runConcurrentBidders(DatabaseManager db, int bidders, int seconds)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong committed = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(bidders);
+
+        for (int b = 0; b < bidders; b++) {
+            // One auction per bidder, as in a closing-second storm across many lots
+            Auction auction = db.createAuction("Storm " + b, "Benchmark item", "seller", 1.0, 600, "bench");
+            String bidder = "bidder" + b;
+            new Thread(() -> {
+                while (running.get()) {
+                    Bid bid = new Bid(auction.getAuctionId(), bidder, auction.getCurrentHighestBid() + 1);
+                    if (db.submitBid(bid, auction).join() == Bid.Result.ACCEPTED) {
+                        committed.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            }, "bench-bidder-" + b).start();
+        }
+
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        done.await();
+
+        System.out.printf("%-10d %15.0f%n", bidders, committed.get() / (double) seconds);
+    }
+
+    private static void runReadersWithWriter(DatabaseManager db, Auction[] auctions,
+                                             int readers, int seconds) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        AtomicLong writes = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(readers + 1);
+
+        Thread writer = new Thread(() -> {
+            int i = 0;
+            while (running.get()) {
+                Auction auction = auctions[i++ % auctions.length];
+                Bid bid = new Bid(auction.getAuctionId(), "writer", auction.getCurrentHighestBid() + 1);
+                if (db.saveBidWithTransaction(bid, auction)) {
+                    writes.incrementAndGet();
+                }
+            }
+            done.countDown();
+        }, "bench-writer");
+
+        Thread[] readerThreads = new Thread[readers];
+        for (int r = 0; r < readers; r++) {
+            final int seed = r;
+            readerThreads[r] = new Thread(() -> {
+                int i = seed;
+                while (running.get()) {
+                    if ((i & 1) == 0) {
+                        db.getNotifications("user" + (i % USERS));
+                    } else {
+                        db.loadBidsByAuction(auctions[i % auctions.length].getAuctionId());
+                    }
+                    reads.incrementAndGet();
+                    i++;
+                }
+                done.countDown();
+            }, "bench-reader-" + r);
+        }
+
+        writer.start();
+        for (Thread t : readerThreads) {
+            t.start();
+        }
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        done.await();
+
+        System.out.printf("%-10d %15.0f %15.0f%n", readers,
+                reads.get() / (double) seconds, writes.get() / (double) seconds);
+    }
+}
@@ -0,0 +1,134 @@
+package main.test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import main.util.WebSocketFrameDecoder;
+import main.util.WebSocketUtil;
+
+/**
+ * WebSocket frame decoding benchmark
+ * Measures unmasking alone (byte-at-a-time loop against the word-wide XOR in
+ * WebSocketUtil.unmask) and full decoding of a stream of masked text frames
+ * read in 8 KB chunks, for small chat-sized frames and large frames.
+ *
+ * Usage: java -cp "build:lib/*" main.test.FrameDecoderBenchmark [megabytes per run]
+ */
+public class FrameDecoderBenchmark {
+
+    private static final int READ_SIZE = 8192;
+    private static final int[] FRAME_SIZES = {32, 512, 65536};
+    private static final byte[] KEY = {(byte) 0x37, (byte) 0xFA, (byte) 0x21, (byte) 0x3D};
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        long totalBytes = megabytes * 1048576L;
+
+        System.out.println("\n=== Unmasking (" + megabytes + " MB per run) ===");
+        System.out.printf("%-12s %16s %16s%n", "payload", "byte loop MB/s", "word XOR MB/s");
+        for (int size : FRAME_SIZES) {
+            byte[] payload = new byte[size];
+            long iterations = totalBytes / size;
+            // Warm up both paths before timing
+            unmaskByteLoop(payload, iterations / 4);
+            unmaskWords(payload, iterations / 4);
+            double byteLoop = mbPerSecond(totalBytes, unmaskByteLoop(payload, iterations));
+            double words = mbPerSecond(totalBytes, unmaskWords(payload, iterations));
+            System.out.printf("%-12d %16.0f %16.0f%n", size, byteLoop, words);
+        }
+
+        System.out.println("\n=== Streaming Decode (" + READ_SIZE + " byte reads) ===");
+        System.out.printf("%-12s %16s %16s%n", "payload", "frames/s", "MB/s");
+        for (int size : FRAME_SIZES) {
+            byte[] stream = buildStream(size, Math.max(1, (4 << 20) / size));
+            int framesPerStream = Math.max(1, (4 << 20) / size);
+            int passes = (int) Math.max(1, totalBytes / stream.length);
+            decodeStream(stream, passes / 4 + 1);
+            long nanos = decodeStream(stream, passes);
+            long frames = (long) framesPerStream * passes;
+            System.out.printf("%-12d %16.0f %16.0f%n", size, frames / (nanos / 1e9),
+                    mbPerSecond((long) stream.length * passes, nanos));
+        }
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static long unmaskByteLoop(byte[] payload, long iterations) {
+        long start = System.nanoTime();
+        for (long n = 0; n < iterations; n++) {
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= KEY[i % 4];
+            }
+        }
+        sink += payload[payload.length - 1];
+        return System.nanoTime() - start;
+    }
+
+    private static long unmaskWords(byte[] payload, long iterations) {
+        long start = System.nanoTime();
+        for (long n = 0; n < iterations; n++) {
+            WebSocketUtil.unmask(payload, 0, payload.length, KEY);
+        }
+        sink += payload[payload.length - 1];
+        return System.nanoTime() - start;
+    }
+
+    private static long decodeStream(byte[] stream, int passes) throws Exception {
+        long[] received = new long[1];
+        WebSocketFrameDecoder decoder = new WebSocketFrameDecoder(1 << 20,
+            new WebSocketFrameDecoder.FrameListener() {
+                @Override
+                public void onText(String message) {
+                    received[0] += message.length();
+                }
+
+                @Override
+                public void onPing(byte[] payload) {
+                }
+
+                @Override
+                public void onClose() {
+                }
+            });
+
+        long start = System.nanoTime();
+        for (int pass = 0; pass < passes; pass++) {
+            for (int offset = 0; offset < stream.length; offset += READ_SIZE) {
+                decoder.decode(ByteBuffer.wrap(stream, offset, Math.min(READ_SIZE, stream.length - offset)));
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        sink += received[0];
+        return nanos;
+    }
+
+    /**
+     * Masked text frames laid end to end, as a client would send them
+     */
+    private static byte[] buildStream(int payloadSize, int frames) {
+        byte[] text = "a".repeat(payloadSize).getBytes(StandardCharsets.UTF_8);
+        int headerSize = 2 + (payloadSize < 126 ? 0 : payloadSize < 65536 ? 2 : 8) + 4;
+        ByteBuffer stream = ByteBuffer.allocate(frames * (headerSize + payloadSize));
+        for (int f = 0; f < frames; f++) {
+            stream.put((byte) 0x81);
+            if (payloadSize < 126) {
+                stream.put((byte) (0x80 | payloadSize));
+            } else if (payloadSize < 65536) {
+                stream.put((byte) (0x80 | 126));
+                stream.putShort((short) payloadSize);
+            } else {
+                stream.put((byte) (0x80 | 127));
+                stream.putLong(payloadSize);
+            }
+            stream.put(KEY);
+            for (int i = 0; i < payloadSize; i++) {
+                stream.put((byte) (text[i] ^ KEY[i % 4]));
+            }
+        }
+        return stream.array();
+    }
+
+    private static double mbPerSecond(long bytes, long nanos) {
+        return bytes / 1048576.0 / (nanos / 1e9);
+    }
+}
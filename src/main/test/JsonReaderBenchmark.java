@@ -0,0 +1,120 @@
+package main.test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import main.util.JsonReader;
+
+/**
+ * Request body parsing benchmark
+ * Parses typical bid and create-auction bodies, as received from the
+ * socket, with the previous controller parsers (replaceAll plus lookahead
+ * split, and a Pattern compiled per extracted key) and with
+ * JsonReader.parseObject. Reports time and heap allocated per body on
+ * this thread.
+ *
+ * Usage: java -cp "build:lib/*" main.test.JsonReaderBenchmark [thousand bodies per run]
+ */
+public class JsonReaderBenchmark {
+
+    private static final String[] KEYS = {"auctionId", "userId", "amount"};
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        int thousands = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int count = thousands * 1000;
+
+        byte[][] bodies = {
+            ("{\"auctionId\":\"auction-1700000000000-42\",\"userId\":\"bidder42\",\"amount\":125.50}")
+                .getBytes(StandardCharsets.UTF_8),
+            ("{\n  \"itemName\": \"Vintage Camera, boxed\",\n  \"itemDescription\": \"Works, \\\"mint\\\" lens\",\n"
+                + "  \"sellerId\": \"seller7\",\n  \"basePrice\": 89.99,\n  \"duration\": 120,\n"
+                + "  \"category\": \"electronics\"\n}").getBytes(StandardCharsets.UTF_8)
+        };
+
+        System.out.println("\n=== Request Body Parsing (" + count + " bodies per run) ===");
+        System.out.printf("%-24s %12s %16s%n", "path", "ns/body", "bytes alloc/body");
+
+        // Warm up every path before timing
+        runSimpleJson(bodies, count / 4);
+        runRegex(bodies, count / 4);
+        runReader(bodies, count / 4);
+
+        long before = allocatedBytes();
+        long nanos = runSimpleJson(bodies, count);
+        report("replaceAll + split", nanos, allocatedBytes() - before, count);
+
+        before = allocatedBytes();
+        nanos = runRegex(bodies, count);
+        report("Pattern per key", nanos, allocatedBytes() - before, count);
+
+        before = allocatedBytes();
+        nanos = runReader(bodies, count);
+        report("JsonReader", nanos, allocatedBytes() - before, count);
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static long runSimpleJson(byte[][] bodies, int count) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sink += parseSimpleJson(new String(bodies[i & 1], StandardCharsets.UTF_8)).size();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static Map<String, String> parseSimpleJson(String json) {
+        Map<String, String> result = new HashMap<>();
+        json = json.trim().replaceAll("^\\{|\\}$", "");
+
+        String[] pairs = json.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
+        for (String pair : pairs) {
+            String[] kv = pair.split(":", 2);
+            if (kv.length == 2) {
+                String key = kv[0].trim().replaceAll("^\"|\"$", "");
+                String value = kv[1].trim().replaceAll("^\"|\"$", "");
+                result.put(key, value);
+            }
+        }
+
+        return result;
+    }
+
+    private static long runRegex(byte[][] bodies, int count) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            String json = new String(bodies[i & 1], StandardCharsets.UTF_8);
+            for (String key : KEYS) {
+                String value = extractJsonValue(json, key);
+                sink += value != null ? value.length() : 0;
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static String extractJsonValue(String json, String key) {
+        Pattern p = Pattern.compile("\"" + key + "\"\\s*:\\s*\"?([^,\"\\}]+)\"?");
+        Matcher m = p.matcher(json);
+        return m.find() ? m.group(1) : null;
+    }
+
+    private static long runReader(byte[][] bodies, int count) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sink += JsonReader.parseObject(bodies[i & 1]).size();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void report(String path, long nanos, long allocated, long bodies) {
+        System.out.printf("%-24s %12.1f %16.1f%n", path, nanos / (double) bodies, allocated / (double) bodies);
+    }
+}
@@ -0,0 +1,141 @@
+package main.test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import main.model.Auction;
+import main.model.Bid;
+import main.util.JsonWriter;
+
+/**
+ * API response serialization benchmark
+ * Builds the GET /api/auctions body for a list of auctions, ready to be
+ * written to the socket, with the previous path (String.format per auction,
+ * escapeJson via String.replace, StringBuilder join, getBytes) and with
+ * JsonWriter. Reports time and heap allocated per auction on this thread.
+ *
+ * Usage: java -cp "build:lib/*" main.test.JsonWriterBenchmark [auctions per list] [lists]
+ */
+public class JsonWriterBenchmark {
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        int auctionCount = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int lists = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        List<Auction> auctions = new ArrayList<>();
+        for (int i = 0; i < auctionCount; i++) {
+            Auction auction = new Auction("auction-1700000000000-" + i, "Vintage \"Item\" #" + i,
+                "Good condition\nShips in 2 days", "seller" + (i % 10), 10 + i * 1.25, 60, "general");
+            if (i % 2 == 0) {
+                auction.placeBid(new Bid(auction.getAuctionId(), "bidder" + i, 20 + i * 1.5));
+            }
+            auctions.add(auction);
+        }
+
+        System.out.println("\n=== Auction List Serialization (" + auctionCount + " auctions x "
+                + lists + " lists) ===");
+        System.out.printf("%-24s %14s %18s%n", "path", "ns/auction", "bytes alloc/auction");
+
+        // Warm up both paths before timing
+        runFormat(auctions, lists / 4 + 1);
+        runWriter(auctions, lists / 4 + 1);
+
+        long before = allocatedBytes();
+        long nanos = runFormat(auctions, lists);
+        long allocated = allocatedBytes() - before;
+        report("String.format", nanos, allocated, lists * (long) auctionCount);
+
+        before = allocatedBytes();
+        nanos = runWriter(auctions, lists);
+        allocated = allocatedBytes() - before;
+        report("JsonWriter", nanos, allocated, lists * (long) auctionCount);
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static long runFormat(List<Auction> auctions, int lists) {
+        long start = System.nanoTime();
+        for (int n = 0; n < lists; n++) {
+            StringBuilder data = new StringBuilder("[");
+            for (int i = 0; i < auctions.size(); i++) {
+                if (i > 0) data.append(",");
+                data.append(formatAuction(auctions.get(i)));
+            }
+            data.append("]");
+            String body = "{\"success\":true,\"data\":" + data + "}";
+            sink += body.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static String formatAuction(Auction auction) {
+        Auction.Leader leader = auction.getLeader();
+        return String.format(
+            "{\"auctionId\":\"%s\",\"itemName\":\"%s\",\"itemDescription\":\"%s\"," +
+            "\"sellerId\":\"%s\",\"basePrice\":%.2f,\"currentHighestBid\":%.2f," +
+            "\"currentHighestBidder\":%s,\"status\":\"%s\",\"category\":\"%s\"," +
+            "\"createdTime\":%d,\"endTime\":%d,\"duration\":%d}",
+            auction.getAuctionId(),
+            escapeJson(auction.getItemName()),
+            escapeJson(auction.getItemDescription()),
+            auction.getSellerId(),
+            auction.getBasePrice(),
+            leader.getAmount(),
+            leader.getBidder() != null ? "\"" + leader.getBidder() + "\"" : "null",
+            auction.getStatus(),
+            auction.getCategory(),
+            auction.getCreatedTime(),
+            auction.getEndTime(),
+            auction.getDuration()
+        );
+    }
+
+    private static String escapeJson(String str) {
+        if (str == null) return "";
+        return str.replace("\\", "\\\\")
+                  .replace("\"", "\\\"")
+                  .replace("\n", "\\n")
+                  .replace("\r", "\\r")
+                  .replace("\t", "\\t");
+    }
+
+    private static long runWriter(List<Auction> auctions, int lists) {
+        long start = System.nanoTime();
+        for (int n = 0; n < lists; n++) {
+            try (JsonWriter json = JsonWriter.acquire()) {
+                json.beginObject().name("success").value(true).name("data").beginArray();
+                for (Auction auction : auctions) {
+                    Auction.Leader leader = auction.getLeader();
+                    json.beginObject()
+                        .name("auctionId").value(auction.getAuctionId())
+                        .name("itemName").valueOrEmpty(auction.getItemName())
+                        .name("itemDescription").valueOrEmpty(auction.getItemDescription())
+                        .name("sellerId").value(auction.getSellerId())
+                        .name("basePrice").money(auction.getBasePrice())
+                        .name("currentHighestBid").money(leader.getAmount())
+                        .name("currentHighestBidder").value(leader.getBidder())
+                        .name("status").value(auction.getStatus().toString())
+                        .name("category").value(auction.getCategory())
+                        .name("createdTime").value(auction.getCreatedTime())
+                        .name("endTime").value(auction.getEndTime())
+                        .name("duration").value(auction.getDuration())
+                        .endObject();
+                }
+                json.endArray().endObject();
+                sink += json.size();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void report(String path, long nanos, long allocated, long auctions) {
+        System.out.printf("%-24s %14.1f %18.1f%n", path, nanos / (double) auctions, allocated / (double) auctions);
+    }
+}
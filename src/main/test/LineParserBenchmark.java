@@ -0,0 +1,126 @@
+package main.test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import main.server.AuctionLineParser;
+
+/**
+ * Auction line protocol parsing benchmark
+ * Feeds a stream of BID lines (64 auctions, mixed amounts) through the
+ * handler's 1 KB read buffer and compares the previous path (char-per-byte
+ * StringBuilder, startsWith dispatch, split and Double.parseDouble) with
+ * AuctionLineParser. Reports time and heap allocated per line on this thread.
+ *
+ * Usage: java -cp "build:lib/*" main.test.LineParserBenchmark [million lines per run]
+ */
+public class LineParserBenchmark {
+
+    private static final int READ_SIZE = 1024;
+    private static final int AUCTIONS = 64;
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        int millions = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        long lines = millions * 1_000_000L;
+
+        StringBuilder text = new StringBuilder();
+        int streamLines = 10_000;
+        for (int i = 0; i < streamLines; i++) {
+            text.append("BID:auction-1700000000000-").append(100 + i % AUCTIONS)
+                .append(':').append(100 + i).append('.').append(i % 100).append("\r\n");
+        }
+        byte[] stream = text.toString().getBytes(StandardCharsets.UTF_8);
+        int passes = (int) Math.max(1, lines / streamLines);
+
+        System.out.println("\n=== Line Parsing (" + passes * (long) streamLines + " BID lines per run, "
+                + stream.length / streamLines + " bytes each) ===");
+        System.out.printf("%-24s %12s %16s%n", "path", "ns/line", "bytes alloc/line");
+
+        // Warm up both paths before timing
+        runStringPath(stream, passes / 4 + 1);
+        runByteParser(stream, passes / 4 + 1);
+
+        long before = allocatedBytes();
+        long nanos = runStringPath(stream, passes);
+        long allocated = allocatedBytes() - before;
+        report("StringBuilder + split", nanos, allocated, passes * (long) streamLines);
+
+        before = allocatedBytes();
+        nanos = runByteParser(stream, passes);
+        allocated = allocatedBytes() - before;
+        report("AuctionLineParser", nanos, allocated, passes * (long) streamLines);
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static long runStringPath(byte[] stream, int passes) {
+        ByteBuffer readBuffer = ByteBuffer.allocate(READ_SIZE);
+        StringBuilder messageBuffer = new StringBuilder();
+        long start = System.nanoTime();
+        for (int pass = 0; pass < passes; pass++) {
+            for (int offset = 0; offset < stream.length; offset += READ_SIZE) {
+                readBuffer.put(stream, offset, Math.min(READ_SIZE, stream.length - offset));
+                readBuffer.flip();
+                while (readBuffer.hasRemaining()) {
+                    char c = (char) readBuffer.get();
+                    if (c == '\n') {
+                        dispatch(messageBuffer.toString());
+                        messageBuffer.setLength(0);
+                    } else if (c != '\r') {
+                        messageBuffer.append(c);
+                    }
+                }
+                readBuffer.compact();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void dispatch(String message) {
+        if (message.startsWith("BID:")) {
+            String[] parts = message.split(":");
+            sink += parts[1].length() + (long) Double.parseDouble(parts[2]);
+        } else if (message.startsWith("WATCH:")) {
+            sink++;
+        }
+    }
+
+    private static long runByteParser(byte[] stream, int passes) {
+        ByteBuffer readBuffer = ByteBuffer.allocate(READ_SIZE);
+        AuctionLineParser parser = new AuctionLineParser();
+        AuctionLineParser.LineListener listener = new AuctionLineParser.LineListener() {
+            @Override
+            public void onBid(String auctionId, double amount) {
+                sink += auctionId.length() + (long) amount;
+            }
+
+            @Override
+            public void onLine(AuctionLineParser.Command command, String line) {
+                sink++;
+            }
+        };
+        long start = System.nanoTime();
+        for (int pass = 0; pass < passes; pass++) {
+            int offset = 0;
+            while (offset < stream.length) {
+                int count = Math.min(readBuffer.remaining(), stream.length - offset);
+                readBuffer.put(stream, offset, count);
+                offset += count;
+                readBuffer.flip();
+                parser.parse(readBuffer, listener);
+                readBuffer.compact();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void report(String path, long nanos, long allocated, long lines) {
+        System.out.printf("%-24s %12.1f %16.1f%n", path, nanos / (double) lines, allocated / (double) lines);
+    }
+}
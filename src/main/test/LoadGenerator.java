@@ -0,0 +1,788 @@
+package main.test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import main.util.JsonReader;
+import main.util.LatencyHistogram;
+
+/**
+ * Closed-loop load generator for running servers
+ * Simulates many users, each on its own connection with at most one request
+ * outstanding, against the REST API (create auctions, then bid), the chat
+ * server (WebSocket sessions posting chat messages and waiting for their
+ * own broadcast) and the auction server (BID: over TCP, plus WATCH:
+ * watchers that receive the bid broadcasts).
+ *
+ * Every user sends at a fixed rate. Latency is taken from the time each
+ * request was scheduled to go out, not from when it was sent, so a server
+ * stall also counts against the requests that queued up behind it instead
+ * of just the one that hit it (coordinated-omission correction, as in
+ * wrk2). The service column is the uncorrected send-to-reply time. Only
+ * requests scheduled inside the measured window are counted; the warmup
+ * before it is discarded.
+ *
+ * The servers are started separately, e.g. ./start-api-server.sh and
+ * ./start-chat-server.sh. Each user needs a thread and a socket (chat
+ * users a second thread to read broadcasts); raise "ulimit -n" for a few
+ * thousand users.
+ *
+ * Usage: java -cp "build:lib/*" main.test.LoadGenerator [rest|ws|tcp|all] [--users=200] [--watchers=0]
+ *        [--rate=1 (requests/s per user)] [--auctions=20] [--seconds=30] [--warmup=5]
+ *        [--host=localhost] [--api-port=8081] [--chat-port=8080] [--auction-port=8081]
+ */
+public class LoadGenerator {
+
+    private static final String HANDSHAKE =
+        "GET /chat HTTP/1.1\r\n" +
+        "Upgrade: websocket\r\n" +
+        "Connection: Upgrade\r\n" +
+        "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+        "Sec-WebSocket-Version: 13\r\n";
+    // Thousands of user threads only need small stacks
+    private static final long STACK_SIZE = 256 * 1024;
+    private static final int TIMEOUT_MILLIS = 10_000;
+
+    private enum Outcome { OK, REJECTED, ERROR }
+
+    private static String host;
+    private static long measureFrom;
+    private static long measureUntil;
+
+    public static void main(String[] args) throws Exception {
+        String scenario = args.length > 0 && !args[0].startsWith("--") ? args[0] : "all";
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        host = options.getOrDefault("host", "localhost");
+        int users = Integer.parseInt(options.getOrDefault("users", "200"));
+        int watchers = Integer.parseInt(options.getOrDefault("watchers", "0"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "1"));
+        int auctions = Integer.parseInt(options.getOrDefault("auctions", "20"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int apiPort = Integer.parseInt(options.getOrDefault("api-port", "8081"));
+        int chatPort = Integer.parseInt(options.getOrDefault("chat-port", "8080"));
+        int auctionPort = Integer.parseInt(options.getOrDefault("auction-port", "8081"));
+        boolean rest = scenario.equals("rest") || scenario.equals("all");
+        boolean ws = scenario.equals("ws") || scenario.equals("all");
+        boolean tcp = scenario.equals("tcp") || scenario.equals("all");
+        if (!rest && !ws && !tcp) {
+            System.err.println("Unknown scenario '" + scenario + "', expected rest, ws, tcp or all");
+            System.exit(1);
+        }
+
+        // Auctions must stay open for the whole run
+        long durationMinutes = Math.max(60, (warmup + seconds) / 60 + 10);
+        String runId = Integer.toHexString(ThreadLocalRandom.current().nextInt(0x1000, 0x10000));
+        List<Operation> operations = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        long intervalNanos = (long) (1_000_000_000L / rate);
+
+        // Setup requests are measured as they complete, back to back
+        measureFrom = Long.MIN_VALUE;
+        measureUntil = Long.MAX_VALUE;
+        Lot[] restLots = null;
+        Lot[] tcpLots = null;
+        Operation restCreate = new Operation("rest create");
+        Operation tcpCreate = new Operation("tcp create");
+        if (rest) {
+            restLots = createRestAuctions(apiPort, auctions, durationMinutes, runId, restCreate);
+            operations.add(restCreate);
+        }
+        if (tcp) {
+            tcpLots = createTcpAuctions(auctionPort, auctions, durationMinutes, runId, tcpCreate);
+            operations.add(tcpCreate);
+        }
+
+        long begin = System.nanoTime() + 1_000_000_000L;
+        measureFrom = begin + warmup * 1_000_000_000L;
+        measureUntil = measureFrom + seconds * 1_000_000_000L;
+
+        if (rest) {
+            Operation bid = new Operation("rest bid");
+            operations.add(bid);
+            for (int i = 0; i < users; i++) {
+                threads.add(paced(new RestBidder(apiPort, restLots, "lg" + runId + "-" + i, bid),
+                        begin, intervalNanos, "rest-" + i));
+            }
+        }
+        if (ws) {
+            Operation chat = new Operation("ws chat");
+            operations.add(chat);
+            for (int i = 0; i < users; i++) {
+                threads.add(paced(new ChatUser(chatPort, "lg" + runId + "-" + i, chat),
+                        begin, intervalNanos, "ws-" + i));
+            }
+        }
+        if (tcp) {
+            Operation bid = new Operation("tcp bid");
+            Operation notify = new Operation("tcp notify");
+            operations.add(bid);
+            operations.add(notify);
+            for (int i = 0; i < watchers; i++) {
+                Watcher watcher = new Watcher(auctionPort, tcpLots[i % tcpLots.length], tcpLots, notify);
+                Thread thread = new Thread(null, watcher, "watch-" + i, STACK_SIZE);
+                thread.setDaemon(true);
+                threads.add(thread);
+            }
+            for (int i = 0; i < users; i++) {
+                threads.add(paced(new TcpBidder(auctionPort, tcpLots, "lg" + runId + "-" + i, bid),
+                        begin, intervalNanos, "tcp-" + i));
+            }
+        }
+
+        System.out.println("\n=== Load (" + scenario + ": " + users + " users at " + rate + " req/s each"
+                + (tcp && watchers > 0 ? ", " + watchers + " watchers" : "") + ", " + seconds
+                + " s measured after " + warmup + " s warmup) ===");
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        System.out.printf("%-12s %9s %9s %7s %10s %9s %9s %9s %9s %11s%n", "operation", "ok", "rejected",
+                "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "svc p99 ms");
+        for (Operation operation : operations) {
+            operation.report(operation == restCreate || operation == tcpCreate ? 0 : seconds);
+        }
+        System.out.println("Latency is from each request's scheduled send time; svc is from the actual send.");
+        System.exit(0);
+    }
+
+    /**
+     * Counts and latencies of one kind of request
+     */
+    private static final class Operation {
+        final String name;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LatencyHistogram service = new LatencyHistogram();
+        final LongAdder ok = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Count a request scheduled for intended, sent at sent, answered at end
+         */
+        void record(long intended, long sent, long end, Outcome outcome) {
+            if (intended < measureFrom || intended >= measureUntil) {
+                return;
+            }
+            if (outcome == Outcome.ERROR) {
+                errors.increment();
+                return;
+            }
+            (outcome == Outcome.OK ? ok : rejected).increment();
+            latency.recordNanos(end - intended);
+            service.recordNanos(end - sent);
+        }
+
+        void report(int seconds) {
+            LatencyHistogram.Snapshot total = latency.snapshot();
+            LatencyHistogram.Snapshot serviceOnly = service.snapshot();
+            long answered = ok.sum() + rejected.sum();
+            System.out.printf("%-12s %9d %9d %7d %10s %9.2f %9.2f %9.2f %9.2f %11.2f%n", name, ok.sum(),
+                    rejected.sum(), errors.sum(), seconds > 0 ? String.format("%.1f", answered / (double) seconds) : "-",
+                    millis(total.valueAtQuantile(0.5)), millis(total.valueAtQuantile(0.99)),
+                    millis(total.valueAtQuantile(0.999)), millis(total.getMaxNanos()),
+                    millis(serviceOnly.valueAtQuantile(0.99)));
+        }
+    }
+
+    /**
+     * An auction under load, with the bidders' shared idea of its price
+     */
+    private static final class Lot {
+        final String auctionId;
+        // Highest bid seen accepted or rejected, so bidders converge on the price
+        final AtomicLong highestCents;
+        // Last bid sent over TCP, for the watchers' delivery latency
+        volatile SentBid lastSent;
+
+        Lot(String auctionId, long baseCents) {
+            this.auctionId = auctionId;
+            this.highestCents = new AtomicLong(baseCents);
+        }
+
+        /**
+         * A bid one to five units above the highest seen, as bidders outbid each other
+         */
+        long nextBidCents() {
+            return highestCents.get() + 100 * ThreadLocalRandom.current().nextLong(1, 6);
+        }
+
+        void seen(long cents) {
+            highestCents.accumulateAndGet(cents, Math::max);
+        }
+    }
+
+    private static final class SentBid {
+        final long cents;
+        final long sentNanos;
+
+        SentBid(long cents, long sentNanos) {
+            this.cents = cents;
+            this.sentNanos = sentNanos;
+        }
+    }
+
+    /**
+     * One simulated user: connects lazily and sends one request per call
+     */
+    private interface User {
+        Outcome call(long sentNanos) throws IOException;
+
+        Operation operation();
+
+        void close();
+    }
+
+    /**
+     * A thread that sends the user's requests every interval from begin,
+     * offset randomly so users do not fire in lockstep, until the measured
+     * window ends. A reply that comes back late makes the next request go
+     * out at once, still timed from its own scheduled slot.
+     */
+    private static Thread paced(User user, long begin, long intervalNanos, String name) {
+        Thread thread = new Thread(null, () -> {
+            long intended = begin + ThreadLocalRandom.current().nextLong(intervalNanos);
+            try {
+                while (intended < measureUntil) {
+                    long wait;
+                    while ((wait = intended - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    long sent = System.nanoTime();
+                    Outcome outcome;
+                    try {
+                        outcome = user.call(sent);
+                    } catch (IOException | RuntimeException e) {
+                        // Reconnect on the next request
+                        user.close();
+                        outcome = Outcome.ERROR;
+                    }
+                    user.operation().record(intended, sent, System.nanoTime(), outcome);
+                    intended += intervalNanos;
+                }
+            } finally {
+                user.close();
+            }
+        }, name, STACK_SIZE);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    // --- REST ---
+
+    private static Lot[] createRestAuctions(int port, int count, long durationMinutes, String runId,
+                                            Operation create) throws IOException {
+        Lot[] lots = new Lot[count];
+        HttpConnection http = new HttpConnection(port);
+        try {
+            for (int i = 0; i < count; i++) {
+                String body = "{\"itemName\":\"Load item " + runId + "-" + i + "\",\"itemDescription\":\"Load test\","
+                        + "\"sellerId\":\"loadgen\",\"basePrice\":1.00,\"duration\":" + durationMinutes
+                        + ",\"category\":\"loadtest\"}";
+                long start = System.nanoTime();
+                int status = http.request("POST", "/api/auctions/create", body);
+                if (status / 100 != 2) {
+                    create.record(start, start, System.nanoTime(), Outcome.ERROR);
+                    throw new IOException("Create auction failed with HTTP " + status + ": " + http.responseText());
+                }
+                create.record(start, start, System.nanoTime(), Outcome.OK);
+                String data = JsonReader.parseObject(http.response).get("data");
+                lots[i] = new Lot(JsonReader.parseObject(data.getBytes(StandardCharsets.UTF_8)).get("auctionId"), 100);
+            }
+        } finally {
+            http.close();
+        }
+        return lots;
+    }
+
+    private static final class RestBidder implements User {
+        final int port;
+        final Lot[] lots;
+        final String userId;
+        final Operation bid;
+        HttpConnection http;
+
+        RestBidder(int port, Lot[] lots, String userId, Operation bid) {
+            this.port = port;
+            this.lots = lots;
+            this.userId = userId;
+            this.bid = bid;
+        }
+
+        @Override
+        public Outcome call(long sentNanos) throws IOException {
+            if (http == null || http.closeRequested) {
+                close();
+                http = new HttpConnection(port);
+            }
+            Lot lot = lots[ThreadLocalRandom.current().nextInt(lots.length)];
+            long cents = lot.nextBidCents();
+            int status = http.request("POST", "/api/bids/place", "{\"auctionId\":\"" + lot.auctionId
+                    + "\",\"userId\":\"" + userId + "\",\"amount\":" + formatCents(cents) + "}");
+            lot.seen(cents);
+            // 201 for an accepted bid, 400 when it was outbid first
+            return status / 100 == 2 ? Outcome.OK : status == 400 ? Outcome.REJECTED : Outcome.ERROR;
+        }
+
+        @Override
+        public Operation operation() {
+            return bid;
+        }
+
+        @Override
+        public void close() {
+            if (http != null) {
+                http.close();
+                http = null;
+            }
+        }
+    }
+
+    /**
+     * Minimal HTTP/1.1 client on one keep-alive connection, like a browser tab
+     */
+    private static final class HttpConnection {
+        final int port;
+        final Socket socket;
+        final BufferedInputStream in;
+        final OutputStream out;
+        byte[] response = new byte[0];
+        boolean closeRequested;
+
+        HttpConnection(int port) throws IOException {
+            this.port = port;
+            socket = connect(port);
+            in = new BufferedInputStream(socket.getInputStream());
+            out = socket.getOutputStream();
+        }
+
+        /**
+         * Send a JSON request and read the whole response; returns the status
+         */
+        int request(String method, String path, String json) throws IOException {
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            String head = method + " " + path + " HTTP/1.1\r\nHost: " + host + ":" + port
+                    + "\r\nContent-Type: application/json\r\nContent-Length: " + body.length + "\r\n\r\n";
+            out.write(head.getBytes(StandardCharsets.US_ASCII));
+            out.write(body);
+            out.flush();
+
+            String statusLine = readLine(in);
+            if (statusLine == null || statusLine.length() < 12) {
+                throw new EOFException("No HTTP response");
+            }
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            int length = 0;
+            boolean chunked = false;
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                String lower = line.toLowerCase();
+                if (lower.startsWith("content-length:")) {
+                    length = Integer.parseInt(line.substring(15).trim());
+                } else if (lower.startsWith("transfer-encoding:") && lower.contains("chunked")) {
+                    chunked = true;
+                } else if (lower.startsWith("connection:") && lower.contains("close")) {
+                    closeRequested = true;
+                }
+            }
+            response = chunked ? readChunked() : readFully(length);
+            return status;
+        }
+
+        private byte[] readChunked() throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            int size;
+            while ((size = Integer.parseInt(readLine(in).trim(), 16)) > 0) {
+                body.write(readFully(size));
+                readLine(in);
+            }
+            readLine(in);
+            return body.toByteArray();
+        }
+
+        private byte[] readFully(int length) throws IOException {
+            byte[] data = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int n = in.read(data, read, length - read);
+                if (n < 0) {
+                    throw new EOFException("Response body cut short");
+                }
+                read += n;
+            }
+            return data;
+        }
+
+        String responseText() {
+            return new String(response, StandardCharsets.UTF_8);
+        }
+
+        void close() {
+            closeQuietly(socket);
+        }
+    }
+
+    // --- WebSocket chat ---
+
+    /**
+     * A chat session. A reader thread drains every frame as a browser would,
+     * so broadcasts from the other users never back up on the server, and
+     * completes the pending request when the user's own message comes back.
+     */
+    private static final class ChatUser implements User {
+        final int port;
+        final String username;
+        final Operation chat;
+        Socket socket;
+        DataInputStream in;
+        OutputStream out;
+        long sequence;
+        volatile String expected;
+        volatile CompletableFuture<Void> echoed;
+
+        ChatUser(int port, String username, Operation chat) {
+            this.port = port;
+            this.username = username;
+            this.chat = chat;
+        }
+
+        @Override
+        public Outcome call(long sentNanos) throws IOException {
+            if (socket == null) {
+                open();
+            }
+            // Chat messages are broadcast to everyone, the sender included
+            CompletableFuture<Void> reply = new CompletableFuture<>();
+            echoed = reply;
+            expected = username + " #" + (++sequence) + ";";
+            out.write(maskedTextFrame("load " + expected));
+            try {
+                reply.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new SocketTimeoutException("No echo of " + expected);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            return Outcome.OK;
+        }
+
+        private void open() throws IOException {
+            socket = connect(port);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = socket.getOutputStream();
+            out.write((HANDSHAKE + "Host: " + host + ":" + port + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                // Handshake response headers
+            }
+            if (line == null) {
+                throw new EOFException("Connection closed during handshake");
+            }
+            out.write(maskedTextFrame(username));
+            String frame;
+            do {
+                frame = readTextFrame(in);
+            } while (!frame.startsWith("Welcome"));
+
+            // Idle sessions see no traffic for a while, which is fine
+            socket.setSoTimeout(0);
+            DataInputStream input = in;
+            Thread reader = new Thread(null, () -> {
+                try {
+                    while (true) {
+                        String text = readTextFrame(input);
+                        String token = expected;
+                        if (token != null && text.contains(token)) {
+                            echoed.complete(null);
+                        }
+                    }
+                } catch (IOException e) {
+                    CompletableFuture<Void> reply = echoed;
+                    if (reply != null) {
+                        reply.completeExceptionally(e);
+                    }
+                }
+            }, Thread.currentThread().getName() + "-reader", STACK_SIZE);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        @Override
+        public Operation operation() {
+            return chat;
+        }
+
+        @Override
+        public void close() {
+            closeQuietly(socket);
+            socket = null;
+        }
+    }
+
+    private static String readTextFrame(DataInputStream in) throws IOException {
+        int opcode = in.readUnsignedByte() & 0x0F;
+        long length = in.readUnsignedByte() & 0x7F;
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        } else if (length == 127) {
+            length = in.readLong();
+        }
+        if (opcode == 0x8) {
+            throw new EOFException("Server closed the WebSocket");
+        }
+        byte[] payload = new byte[(int) length];
+        in.readFully(payload);
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Client frames must be masked (RFC 6455 section 5.3)
+     */
+    private static byte[] maskedTextFrame(String text) {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        int header = payload.length < 126 ? 2 : 4;
+        byte[] frame = new byte[header + 4 + payload.length];
+        frame[0] = (byte) 0x81;
+        if (header == 2) {
+            frame[1] = (byte) (0x80 | payload.length);
+        } else {
+            frame[1] = (byte) (0x80 | 126);
+            frame[2] = (byte) (payload.length >>> 8);
+            frame[3] = (byte) payload.length;
+        }
+        byte[] mask = new byte[4];
+        ThreadLocalRandom.current().nextBytes(mask);
+        System.arraycopy(mask, 0, frame, header, 4);
+        for (int i = 0; i < payload.length; i++) {
+            frame[header + 4 + i] = (byte) (payload[i] ^ mask[i % 4]);
+        }
+        return frame;
+    }
+
+    // --- Auction TCP protocol ---
+
+    private static Lot[] createTcpAuctions(int port, int count, long durationMinutes, String runId,
+                                           Operation create) throws IOException {
+        Lot[] lots = new Lot[count];
+        try (Socket socket = connect(port)) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            readLine(in); // Welcome line
+            for (int i = 0; i < count; i++) {
+                long start = System.nanoTime();
+                out.write(("CREATE_AUCTION:Load item " + runId + "-" + i + ":Load test:loadgen:1.00:"
+                        + durationMinutes + ":loadtest\n").getBytes(StandardCharsets.UTF_8));
+                String line;
+                while ((line = readLine(in)) != null && !line.startsWith("AUCTION_CREATED:")
+                        && !line.startsWith("ERROR")) {
+                    // Skip anything else
+                }
+                if (line == null || line.startsWith("ERROR")) {
+                    create.record(start, start, System.nanoTime(), Outcome.ERROR);
+                    throw new IOException("Create auction failed: " + line);
+                }
+                create.record(start, start, System.nanoTime(), Outcome.OK);
+                String[] parts = line.split(":", 3);
+                lots[i] = new Lot(parts[1], 100);
+            }
+        }
+        return lots;
+    }
+
+    private static final class TcpBidder implements User {
+        final int port;
+        final Lot[] lots;
+        final String userId;
+        final Operation bid;
+        Socket socket;
+        InputStream in;
+        OutputStream out;
+
+        TcpBidder(int port, Lot[] lots, String userId, Operation bid) {
+            this.port = port;
+            this.lots = lots;
+            this.userId = userId;
+            this.bid = bid;
+        }
+
+        @Override
+        public Outcome call(long sentNanos) throws IOException {
+            if (socket == null) {
+                socket = connect(port);
+                in = new BufferedInputStream(socket.getInputStream());
+                out = socket.getOutputStream();
+                readLine(in); // Welcome line
+            }
+            Lot lot = lots[ThreadLocalRandom.current().nextInt(lots.length)];
+            long cents = lot.nextBidCents();
+            lot.lastSent = new SentBid(cents, sentNanos);
+            out.write(("BID:" + lot.auctionId + ":" + formatCents(cents) + "\n").getBytes(StandardCharsets.UTF_8));
+            String line;
+            while ((line = readLine(in)) != null && !line.startsWith("CONFIRM") && !line.startsWith("ERROR")) {
+                // Skip broadcasts
+            }
+            lot.seen(cents);
+            if (line == null) {
+                throw new EOFException("Connection closed");
+            }
+            return line.startsWith("CONFIRM") ? Outcome.OK
+                    : line.startsWith("ERROR: Bid not high enough") ? Outcome.REJECTED : Outcome.ERROR;
+        }
+
+        @Override
+        public Operation operation() {
+            return bid;
+        }
+
+        @Override
+        public void close() {
+            closeQuietly(socket);
+            socket = null;
+        }
+    }
+
+    /**
+     * Watches one auction and times each NEW_BID broadcast that matches the
+     * last bid a bidder sent on it. Broadcasts a slow watcher has coalesced
+     * away are simply not timed.
+     */
+    private static final class Watcher implements Runnable {
+        final int port;
+        final Lot lot;
+        final Map<String, Lot> lotsById = new HashMap<>();
+        final Operation notify;
+
+        Watcher(int port, Lot lot, Lot[] lots, Operation notify) {
+            this.port = port;
+            this.lot = lot;
+            this.notify = notify;
+            for (Lot each : lots) {
+                lotsById.put(each.auctionId, each);
+            }
+        }
+
+        @Override
+        public void run() {
+            try (Socket socket = connect(port)) {
+                socket.setSoTimeout(1000);
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                socket.getOutputStream().write(("WATCH:" + lot.auctionId + "\n").getBytes(StandardCharsets.UTF_8));
+                while (System.nanoTime() < measureUntil) {
+                    String line;
+                    try {
+                        line = readLine(in);
+                    } catch (SocketTimeoutException e) {
+                        continue;
+                    }
+                    if (line == null) {
+                        notify.record(measureFrom, measureFrom, measureFrom, Outcome.ERROR);
+                        return;
+                    }
+                    if (line.startsWith("NEW_BID:")) {
+                        timeBroadcast(line, System.nanoTime());
+                    }
+                }
+            } catch (IOException e) {
+                notify.record(measureFrom, measureFrom, measureFrom, Outcome.ERROR);
+            }
+        }
+
+        // NEW_BID:auctionId:userId:amount
+        private void timeBroadcast(String line, long received) {
+            int amountStart = line.lastIndexOf(':') + 1;
+            int idEnd = line.lastIndexOf(':', amountStart - 2);
+            Lot target = lotsById.get(line.substring(8, idEnd));
+            SentBid sent = target == null ? null : target.lastSent;
+            try {
+                if (sent != null && parseCents(line.substring(amountStart)) == sent.cents) {
+                    notify.record(sent.sentNanos, sent.sentNanos, received, Outcome.OK);
+                }
+            } catch (NumberFormatException e) {
+                // Not a bid we sent
+            }
+        }
+    }
+
+    // --- Helpers ---
+
+    private static Socket connect(int port) throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), TIMEOUT_MILLIS);
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(TIMEOUT_MILLIS);
+        return socket;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    /**
+     * Read a line ending in \n, without the \r\n; null at end of stream
+     */
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                return line.length() == 0 ? null : line.toString();
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private static String formatCents(long cents) {
+        long fraction = cents % 100;
+        return (cents / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    private static long parseCents(String amount) {
+        return Math.round(Double.parseDouble(amount.trim()) * 100);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
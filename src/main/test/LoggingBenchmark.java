@@ -0,0 +1,114 @@
+package main.test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import main.util.ConfigManager;
+import main.util.Logger;
+
+/**
+ * Logging overhead benchmark
+ * Several threads each log one bid-sized line per iteration, the way the
+ * bid and broadcast paths did, three ways: System.out.println with string
+ * concatenation (the previous code), Logger with the level enabled, and a
+ * Logger DEBUG call with the component at INFO. stdout is pointed at
+ * /dev/null with autoflush, as a console stream is, so only the cost on the
+ * logging threads is measured; when the appender falls behind, the enabled
+ * run drops and counts events as it would in the server. Reports wall time
+ * and heap allocated per call on the calling threads.
+ *
+ * Usage: java -cp "build:lib/*" main.test.LoggingBenchmark [threads] [calls per thread]
+ */
+public class LoggingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int calls = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        ConfigManager config = ConfigManager.getInstance();
+        config.setProperty("logging.level.BenchEnabled", "INFO");
+        config.setProperty("logging.level.BenchDisabled", "INFO");
+        config.setProperty("logging.buffer.size", "65536");
+        Logger enabled = Logger.get("BenchEnabled");
+        Logger disabled = Logger.get("BenchDisabled");
+
+        PrintStream console = System.out;
+        OutputStream devNull;
+        try {
+            devNull = new FileOutputStream("/dev/null");
+        } catch (IOException e) {
+            devNull = OutputStream.nullOutputStream();
+        }
+        System.setOut(new PrintStream(devNull, true));
+
+        String[] results = new String[3];
+        try {
+            // Warm up every path before timing
+            run(threads, calls / 4, (id, i) -> println(id, i));
+            run(threads, calls / 4, (id, i) -> enabled.info("Bid saved: {} bid {} on {}", "bidder", id, "auction-42"));
+            run(threads, calls / 4, (id, i) -> disabled.debug("Bid saved: {} bid {} on {}", "bidder", id, "auction-42"));
+            Logger.flush(10_000);
+
+            results[0] = run(threads, calls, (id, i) -> println(id, i));
+            results[1] = run(threads, calls, (id, i) -> enabled.info("Bid saved: {} bid {} on {}", "bidder", id, "auction-42"));
+            Logger.flush(10_000);
+            results[2] = run(threads, calls, (id, i) -> disabled.debug("Bid saved: {} bid {} on {}", "bidder", id, "auction-42"));
+        } finally {
+            System.setOut(console);
+        }
+
+        System.out.println("\n=== Logging (" + threads + " threads x " + calls + " calls) ===");
+        System.out.printf("%-28s %12s %16s%n", "path", "ns/call", "bytes alloc/call");
+        System.out.println(String.format("%-28s ", "System.out.println") + results[0]);
+        System.out.println(String.format("%-28s ", "Logger, enabled") + results[1]);
+        System.out.println(String.format("%-28s ", "Logger, below level") + results[2]);
+    }
+
+    private interface Call {
+        void log(Integer id, int i);
+    }
+
+    private static void println(Integer id, int i) {
+        System.out.println("[DatabaseManager] Bid saved: " + "bidder" + " bid " + id + " on " + "auction-42");
+    }
+
+    /**
+     * Run the calls on every thread at once; returns "ns/call bytes/call"
+     */
+    private static String run(int threads, int calls, Call call) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        long[] allocated = new long[threads];
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            Integer id = worker;
+            workers[t] = new Thread(() -> {
+                long before = allocatedBytes();
+                for (int i = 0; i < calls; i++) {
+                    call.log(id, i);
+                }
+                allocated[worker] = allocatedBytes() - before;
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long nanos = System.nanoTime() - start;
+        long totalAllocated = 0;
+        for (long bytes : allocated) {
+            totalAllocated += bytes;
+        }
+        long total = threads * (long) calls;
+        return String.format("%12.1f %16.1f", nanos / (double) total, totalAllocated / (double) total);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
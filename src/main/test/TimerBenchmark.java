@@ -0,0 +1,143 @@
+package main.test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import main.util.TimingWheel;
+
+/**
+ * Auction timer benchmark
+ * Compares the previous one-ScheduledFuture-per-auction approach with the
+ * TimingWheel: cost to schedule and cancel many far-off timers, heap held by
+ * them, and how quickly a burst of timers sharing one end time is delivered.
+ *
+ * Usage: java -cp "build:lib/*" main.test.TimerBenchmark [timer count]
+ */
+public class TimerBenchmark {
+
+    private static final int BURST = 20000;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = "auction-" + i;
+        }
+
+        System.out.println("\n=== Auction Timers (" + count + " scheduled, half cancelled) ===");
+        System.out.printf("%-18s %14s %14s %12s%n", "engine", "schedule ns/op", "cancel ns/op", "heap MB");
+        runExecutor(keys);
+        runWheel(keys);
+
+        System.out.println("\n=== Burst Expiry (" + BURST + " auctions ending together) ===");
+        System.out.printf("%-18s %18s %18s%n", "engine", "first fired ms", "all fired ms");
+        burstExecutor();
+        burstWheel();
+    }
+
+    private static void runExecutor(String[] keys) {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(5);
+        ConcurrentHashMap<String, ScheduledFuture<?>> timers = new ConcurrentHashMap<>();
+        long heapBefore = usedHeap();
+        Runnable noop = () -> { };
+
+        long start = System.nanoTime();
+        for (int i = 0; i < keys.length; i++) {
+            // Spread end times over the next day, as for long-running auctions
+            long delay = 3_600_000L + (i * 7919L) % 86_400_000L;
+            timers.put(keys[i], scheduler.schedule(noop, delay, TimeUnit.MILLISECONDS));
+        }
+        long scheduleNanos = System.nanoTime() - start;
+        long heap = usedHeap() - heapBefore;
+
+        start = System.nanoTime();
+        for (int i = 0; i < keys.length; i += 2) {
+            ScheduledFuture<?> future = timers.remove(keys[i]);
+            future.cancel(false);
+        }
+        long cancelNanos = System.nanoTime() - start;
+
+        report("ScheduledExecutor", keys.length, scheduleNanos, cancelNanos, heap);
+        scheduler.shutdownNow();
+    }
+
+    private static void runWheel(String[] keys) {
+        TimingWheel wheel = new TimingWheel(100, expired -> { });
+        long heapBefore = usedHeap();
+        long now = System.currentTimeMillis();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < keys.length; i++) {
+            long delay = 3_600_000L + (i * 7919L) % 86_400_000L;
+            wheel.schedule(keys[i], now + delay);
+        }
+        long scheduleNanos = System.nanoTime() - start;
+        long heap = usedHeap() - heapBefore;
+
+        start = System.nanoTime();
+        for (int i = 0; i < keys.length; i += 2) {
+            wheel.cancel(keys[i]);
+        }
+        long cancelNanos = System.nanoTime() - start;
+
+        report("TimingWheel", keys.length, scheduleNanos, cancelNanos, heap);
+        wheel.shutdown();
+    }
+
+    private static void report(String engine, int count, long scheduleNanos, long cancelNanos, long heap) {
+        System.out.printf("%-18s %14.0f %14.0f %12.1f%n", engine,
+                scheduleNanos / (double) count, cancelNanos / (count / 2.0), heap / 1048576.0);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void burstExecutor() throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(5);
+        CountDownLatch done = new CountDownLatch(BURST);
+        AtomicLong firstFired = new AtomicLong();
+        long deadline = System.currentTimeMillis() + 1000;
+        for (int i = 0; i < BURST; i++) {
+            scheduler.schedule(() -> {
+                firstFired.compareAndSet(0, System.currentTimeMillis());
+                done.countDown();
+            }, deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+        done.await();
+        long allFired = System.currentTimeMillis();
+        System.out.printf("%-18s %18d %18d%n", "ScheduledExecutor",
+                firstFired.get() - deadline, allFired - deadline);
+        scheduler.shutdownNow();
+    }
+
+    private static void burstWheel() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicLong firstFired = new AtomicLong();
+        AtomicInteger fired = new AtomicInteger();
+        TimingWheel wheel = new TimingWheel(100, expired -> {
+            firstFired.compareAndSet(0, System.currentTimeMillis());
+            if (fired.addAndGet(expired.size()) == BURST) {
+                done.countDown();
+            }
+        });
+        long deadline = System.currentTimeMillis() + 1000;
+        for (int i = 0; i < BURST; i++) {
+            wheel.schedule("burst-" + i, deadline);
+        }
+        done.await();
+        long allFired = System.currentTimeMillis();
+        System.out.printf("%-18s %18d %18d%n", "TimingWheel",
+                firstFired.get() - deadline, allFired - deadline);
+        wheel.shutdown();
+    }
+}
@@ -0,0 +1,310 @@
+package main.util;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous appender behind every Logger.
+ * Logging threads claim a slot in a fixed ring with one CAS, copy the event
+ * references into it and publish it by writing the slot's sequence; they
+ * never take a lock or touch an output stream. A single daemon thread
+ * drains published slots in order, formats them and writes each drained
+ * batch with one call, so the stdout lock is taken once per batch instead
+ * of once per line.
+ *
+ * When the ring is full, DEBUG and INFO events are dropped and counted (the
+ * count is reported once room frees up); WARN and ERROR are written
+ * directly by the logging thread so failures are never lost.
+ *
+ * Output goes to logging.file when set, otherwise WARN and ERROR to stderr
+ * and the rest to stdout. logging.format=json writes one JSON object per line.
+ */
+final class AsyncLogAppender {
+
+    private static final DateTimeFormatter TIME_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static final class Slot {
+        // Slot is free for the producer claiming position p when sequence == p,
+        // and holds the event for the consumer when sequence == p + 1
+        volatile long sequence;
+        Logger.Level level;
+        String component;
+        String template;
+        int argCount;
+        Object a;
+        Object b;
+        Object c;
+        Throwable thrown;
+        long timestamp;
+        String thread;
+    }
+
+    // Created on first use, once the configuration is loaded. The holder
+    // class keeps that lazy without a lock on every log call.
+    private static final class Holder {
+        static final AsyncLogAppender INSTANCE = new AsyncLogAppender();
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final boolean json;
+    private final Writer file;
+    private final Thread consumer;
+
+    // Written by the consumer only
+    private long next;
+    private long droppedReported;
+    private volatile long written;
+    private volatile boolean sleeping;
+
+    private final StringBuilder line = new StringBuilder(256);
+    private final StringBuilder outBatch = new StringBuilder(4096);
+    private final StringBuilder errBatch = new StringBuilder(1024);
+
+    private AsyncLogAppender() {
+        ConfigManager config = ConfigManager.getInstance();
+        int size = Integer.highestOneBit(Math.max(64, config.getInt("logging.buffer.size")) - 1) << 1;
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            slots[i].sequence = i;
+        }
+        mask = size - 1;
+        json = "json".equalsIgnoreCase(config.getString("logging.format"));
+        file = openFile(config.getString("logging.file"));
+
+        consumer = new Thread(this::drainLoop, "log-appender");
+        consumer.setDaemon(true);
+        consumer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(2000), "log-appender-shutdown"));
+    }
+
+    static AsyncLogAppender getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private static Writer openFile(String path) {
+        if (path == null || path.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return new OutputStreamWriter(new FileOutputStream(path.trim(), true), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("[Logger] Cannot open log file " + path + ", logging to console: " + e.getMessage());
+            return null;
+        }
+    }
+
+    void append(Logger.Level level, String component, String template, int argCount,
+                Object a, Object b, Object c, Throwable thrown) {
+        long position = claimed.get();
+        Slot slot;
+        while (true) {
+            slot = slots[(int) position & mask];
+            long gap = slot.sequence - position;
+            if (gap == 0) {
+                if (claimed.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = claimed.get();
+            } else if (gap < 0) {
+                // The consumer has not freed this slot yet: the ring is full
+                if (level.ordinal() >= Logger.Level.WARN.ordinal()) {
+                    writeDirect(level, component, template, argCount, a, b, c, thrown);
+                } else {
+                    dropped.increment();
+                }
+                return;
+            } else {
+                position = claimed.get();
+            }
+        }
+
+        slot.level = level;
+        slot.component = component;
+        slot.template = template;
+        slot.argCount = argCount;
+        slot.a = a;
+        slot.b = b;
+        slot.c = c;
+        slot.thrown = thrown;
+        slot.timestamp = System.currentTimeMillis();
+        slot.thread = Thread.currentThread().getName();
+        slot.sequence = position + 1;
+
+        if (sleeping) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Wait until every event appended before this call has been written
+     */
+    void flush(long timeoutMillis) {
+        long target = claimed.get();
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        while (written < target && System.nanoTime() < deadline) {
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(200_000L);
+        }
+    }
+
+    private void drainLoop() {
+        while (true) {
+            try {
+                if (drain() == 0) {
+                    sleeping = true;
+                    if (slots[(int) next & mask].sequence != next + 1) {
+                        LockSupport.parkNanos(100_000_000L);
+                    }
+                    sleeping = false;
+                }
+            } catch (RuntimeException e) {
+                // A failing toString() in an argument must not stop logging
+                System.err.println("[Logger] Failed to write log event: " + e);
+            }
+        }
+    }
+
+    private int drain() {
+        int count = 0;
+        while (true) {
+            Slot slot = slots[(int) next & mask];
+            if (slot.sequence != next + 1) {
+                break;
+            }
+            Logger.Level level = slot.level;
+            try {
+                format(line, level, slot.component, slot.template, slot.argCount,
+                       slot.a, slot.b, slot.c, slot.thrown, slot.timestamp, slot.thread);
+            } finally {
+                slot.a = slot.b = slot.c = null;
+                slot.thrown = null;
+                slot.template = null;
+                slot.sequence = next + slots.length;
+                next++;
+            }
+            (file == null && level.ordinal() >= Logger.Level.WARN.ordinal() ? errBatch : outBatch).append(line);
+            count++;
+            if (outBatch.length() + errBatch.length() > 65536) {
+                writeBatches();
+            }
+        }
+
+        long droppedNow = dropped.sum();
+        if (droppedNow != droppedReported) {
+            format(line, Logger.Level.WARN, "Logger", "Dropped {} log events, the buffer was full", 1,
+                   droppedNow - droppedReported, null, null, null, System.currentTimeMillis(), consumer.getName());
+            (file == null ? errBatch : outBatch).append(line);
+            droppedReported = droppedNow;
+        }
+        if (outBatch.length() + errBatch.length() > 0) {
+            writeBatches();
+        }
+        written = next;
+        return count;
+    }
+
+    private void writeBatches() {
+        if (file != null) {
+            synchronized (file) {
+                try {
+                    file.write(outBatch.toString());
+                    file.flush();
+                } catch (IOException e) {
+                    System.err.println("[Logger] Failed to write log file: " + e.getMessage());
+                }
+            }
+        } else {
+            if (outBatch.length() > 0) {
+                PrintStream out = System.out;
+                out.print(outBatch);
+                out.flush();
+            }
+            if (errBatch.length() > 0) {
+                PrintStream err = System.err;
+                err.print(errBatch);
+                err.flush();
+            }
+        }
+        outBatch.setLength(0);
+        errBatch.setLength(0);
+    }
+
+    private void writeDirect(Logger.Level level, String component, String template, int argCount,
+                             Object a, Object b, Object c, Throwable thrown) {
+        StringBuilder direct = new StringBuilder(256);
+        format(direct, level, component, template, argCount, a, b, c, thrown,
+               System.currentTimeMillis(), Thread.currentThread().getName());
+        if (file != null) {
+            synchronized (file) {
+                try {
+                    file.write(direct.toString());
+                    file.flush();
+                    return;
+                } catch (IOException e) {
+                    // Fall through to stderr
+                }
+            }
+        }
+        System.err.print(direct);
+    }
+
+    /**
+     * Format one event into the given builder, terminated by a newline
+     */
+    private void format(StringBuilder line, Logger.Level level, String component, String template, int argCount,
+                        Object a, Object b, Object c, Throwable thrown, long timestamp, String thread) {
+        line.setLength(0);
+        if (json) {
+            StringBuilder message = new StringBuilder(template.length() + 32);
+            Logger.format(message, template, argCount, a, b, c);
+            try (JsonWriter writer = JsonWriter.acquire()) {
+                writer.beginObject()
+                    .name("time").value(TIME_FORMAT.format(Instant.ofEpochMilli(timestamp)))
+                    .name("level").value(level.name())
+                    .name("component").value(component)
+                    .name("thread").value(thread)
+                    .name("message").value(message.toString());
+                if (thrown != null) {
+                    writer.name("error").value(stackTrace(thrown));
+                }
+                writer.endObject();
+                line.append(writer.toString());
+            }
+        } else {
+            TIME_FORMAT.formatTo(Instant.ofEpochMilli(timestamp), line);
+            line.append(' ').append(level.name());
+            for (int pad = level.name().length(); pad < 5; pad++) {
+                line.append(' ');
+            }
+            line.append(" [").append(component).append("] ");
+            Logger.format(line, template, argCount, a, b, c);
+            if (thrown != null) {
+                line.append(System.lineSeparator()).append(stackTrace(thrown).trim());
+            }
+        }
+        line.append(System.lineSeparator());
+    }
+
+    private static String stackTrace(Throwable thrown) {
+        StringWriter trace = new StringWriter();
+        thrown.printStackTrace(new PrintWriter(trace));
+        return trace.toString();
+    }
+}
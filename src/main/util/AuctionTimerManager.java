@@ -1,24 +1,43 @@
 package main.util;
 
-import java.util.concurrent.*;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import main.model.Auction;
+import main.model.Notification;
+import main.server.AuctionManager;
 import main.api.controllers.WebSocketBidController;
 
 /**
  * Manages auction timers and handles auction expiration
- * Sends real-time notifications to winners and sellers
+ * Sends real-time notifications to winners and sellers.
+ * Timers live in a TimingWheel; auctions ending in the same tick are
+ * expired together on a single expiry thread.
  */
 public class AuctionTimerManager {
+    private static final Logger LOG = Logger.get("AuctionTimerManager");
+    private static final LatencyHistogram TIMER_LAG = Metrics.histogram("auction_timer_lag_seconds",
+            "Time from an auction's end until its expiry is handled");
+
     private static AuctionTimerManager instance;
-    private final ScheduledExecutorService scheduler;
-    private final Map<String, ScheduledFuture<?>> auctionTimers;
+    private final TimingWheel timerWheel;
+    private final ExecutorService expiryExecutor;
     private final DatabaseManager dbManager;
+    private final AuctionManager auctionManager;
     
     private AuctionTimerManager() {
-        this.scheduler = Executors.newScheduledThreadPool(5);
-        this.auctionTimers = new ConcurrentHashMap<>();
         this.dbManager = DatabaseManager.getInstance();
+        this.auctionManager = AuctionManager.getInstance();
+        this.expiryExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "AuctionExpiry");
+            t.setDaemon(true);
+            return t;
+        });
+        // Expiry work runs off the wheel thread so ticks stay on time
+        this.timerWheel = new TimingWheel(ConfigManager.getInstance().getInt("timer.tick.ms"),
+            auctionIds -> expiryExecutor.execute(() -> handleExpiredBatch(auctionIds)));
     }
     
     public static synchronized AuctionTimerManager getInstance() {
@@ -37,125 +56,144 @@ public class AuctionTimerManager {
         }
         
         String auctionId = auction.getAuctionId();
+        long delay = auction.getEndTime() - System.currentTimeMillis();
         
-        // Cancel existing timer if any
-        cancelTimer(auctionId);
+        // Replaces the existing timer if any
+        timerWheel.schedule(auctionId, auction.getEndTime());
         
-        // Calculate delay until auction ends
-        long currentTime = System.currentTimeMillis();
-        long endTime = auction.getEndTime();
-        long delay = endTime - currentTime;
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Timer scheduled for auction {} (expires in {} seconds)", auctionId, delay / 1000);
+        }
+    }
+    
+    /**
+     * Move the timer of an auction whose end time was extended
+     */
+    public void rescheduleAuctionExpiration(Auction auction) {
+        scheduleAuctionExpiration(auction);
+    }
+    
+    /**
+     * Handle every auction that expired in one tick.
+     * Reads the in-memory auctions and writes all status changes and
+     * notifications in a single transaction.
+     */
+    private void handleExpiredBatch(List<String> auctionIds) {
+        if (auctionIds.size() > 1) {
+            LOG.debug("{} auctions expired in one tick", auctionIds.size());
+        }
         
-        if (delay <= 0) {
-            // Already expired, process immediately
-            handleAuctionExpiration(auction);
+        long now = System.currentTimeMillis();
+        List<Auction> expired = new ArrayList<>();
+        List<Notification> notifications = new ArrayList<>();
+        for (String auctionId : auctionIds) {
+            Auction auction = prepareExpiration(auctionId, notifications);
+            if (auction != null) {
+                expired.add(auction);
+                TIMER_LAG.recordNanos((now - auction.getEndTime()) * 1_000_000L);
+            }
+        }
+        if (expired.isEmpty()) {
             return;
         }
         
-        // Schedule expiration task
-        ScheduledFuture<?> future = scheduler.schedule(
-            () -> handleAuctionExpiration(auction),
-            delay,
-            TimeUnit.MILLISECONDS
-        );
-        
-        auctionTimers.put(auctionId, future);
+        if (auctionManager.closeExpiredAuctions(expired, notifications)) {
+            LOG.info("Closed {} auctions and saved {} notifications", expired.size(), notifications.size());
+        } else {
+            LOG.error("Failed to persist {} expired auctions", expired.size());
+        }
         
-        System.out.println("[AuctionTimerManager] Timer scheduled for auction " + auctionId + 
-                         " (expires in " + (delay / 1000) + " seconds)");
+        // Broadcast expiration notification to all subscribers
+        for (Auction auction : expired) {
+            try {
+                broadcastExpiration(auction);
+            } catch (RuntimeException e) {
+                LOG.error("Failed to broadcast expiry of {}: {}", auction.getAuctionId(), e.getMessage());
+            }
+        }
     }
     
     /**
-     * Handle auction expiration
+     * Check that an auction really has ended and queue the winner and
+     * seller notifications. Returns null if there is nothing to expire.
      */
-    private void handleAuctionExpiration(Auction auction) {
-        String auctionId = auction.getAuctionId();
-        
-        System.out.println("[AuctionTimerManager] Auction expired: " + auctionId);
-        
-        // Fetch latest auction data from database to get current bids
-        Auction latestAuction = dbManager.getAuction(auctionId);
+    private Auction prepareExpiration(String auctionId, List<Notification> notifications) {
+        // The shared auction store already holds the latest bids
+        Auction latestAuction = auctionManager.findAuction(auctionId);
         if (latestAuction == null) {
-            System.err.println("[AuctionTimerManager] Error: Could not fetch auction from database: " + auctionId);
-            auctionTimers.remove(auctionId);
-            return;
+            LOG.warn("Expired auction no longer exists: {}", auctionId);
+            return null;
+        }
+        if (latestAuction.getStatus() == Auction.AuctionStatus.CANCELLED) {
+            return null;
+        }
+        if (!latestAuction.hasExpired()) {
+            // End time was extended after this timer fired
+            scheduleAuctionExpiration(latestAuction);
+            return null;
         }
-        
-        // Update auction status to CLOSED
-        latestAuction.setStatus(Auction.AuctionStatus.CLOSED);
-        dbManager.updateAuctionStatus(auctionId, Auction.AuctionStatus.CLOSED);
         
         // Get winner and seller info from latest auction data
-        String winner = latestAuction.getCurrentHighestBidder();
+        Auction.Leader leader = latestAuction.getLeader();
+        String winner = leader.getBidder();
         String seller = latestAuction.getSellerId();
-        double finalPrice = latestAuction.getCurrentHighestBid();
+        double finalPrice = leader.getAmount();
         String itemName = latestAuction.getItemName();
         
-        System.out.println("[AuctionTimerManager] Auction " + auctionId + " final state:");
-        System.out.println("[AuctionTimerManager]   Item: " + itemName);
-        System.out.println("[AuctionTimerManager]   Seller: " + seller);
-        System.out.println("[AuctionTimerManager]   Winner: " + (winner != null ? winner : "No bids"));
-        System.out.println("[AuctionTimerManager]   Final Price: $" + finalPrice);
-        
-        // Broadcast expiration notification to all subscribers
-        broadcastExpiration(auctionId, latestAuction, winner, seller, finalPrice, itemName);
+        LOG.info("Auction expired: {} - winner: {}, final price: ${}",
+                 auctionId, winner != null ? winner : "No bids", finalPrice);
         
-        // Remove timer
-        auctionTimers.remove(auctionId);
-    }
-    
-    /**
-     * Broadcast auction expiration notification via WebSocket
-     */
-    private void broadcastExpiration(String auctionId, Auction auction, String winner, 
-                                     String seller, double finalPrice, String itemName) {
-        // Create expiration notification JSON
-        String notification = String.format(
-            "{\"type\":\"AUCTION_EXPIRED\",\"auctionId\":\"%s\",\"itemName\":\"%s\"," +
-            "\"winner\":%s,\"seller\":\"%s\",\"finalPrice\":%.2f,\"status\":\"CLOSED\"}",
-            auctionId,
-            escapeJson(itemName),
-            winner != null ? "\"" + escapeJson(winner) + "\"" : "null",
-            escapeJson(seller),
-            finalPrice
-        );
-        
-        // Broadcast to all auction subscribers
-        WebSocketBidController.broadcastAuctionExpiration(auctionId, notification);
-        
-        // Save notifications to database
         if (winner != null) {
-            main.model.Notification winnerNotif = new main.model.Notification(
+            notifications.add(new Notification(
                 winner,
                 "BID_WON",
                 "Congratulations! You won an auction",
                 "You won the auction for \"" + itemName + "\" with a bid of $" + finalPrice,
                 auctionId
-            );
-            dbManager.saveNotification(winnerNotif);
-            System.out.println("[AuctionTimerManager] Winner notification sent to: " + winner);
+            ));
         }
         
-        main.model.Notification sellerNotif = new main.model.Notification(
+        notifications.add(new Notification(
             seller,
             "AUCTION_EXPIRED",
             "Auction Expired",
             "Your auction for \"" + itemName + "\" has ended" + 
             (winner != null ? " with a winning bid of $" + finalPrice : " with no bids"),
             auctionId
-        );
-        dbManager.saveNotification(sellerNotif);
-        System.out.println("[AuctionTimerManager] Seller notification sent to: " + seller);
+        ));
+        
+        return latestAuction;
+    }
+    
+    /**
+     * Broadcast auction expiration notification via WebSocket
+     */
+    private void broadcastExpiration(Auction auction) {
+        Auction.Leader leader = auction.getLeader();
+        String winner = leader.getBidder();
+        
+        // Create expiration notification JSON
+        try (JsonWriter notification = JsonWriter.acquire()) {
+            notification.beginObject()
+                .name("type").value("AUCTION_EXPIRED")
+                .name("auctionId").value(auction.getAuctionId())
+                .name("itemName").valueOrEmpty(auction.getItemName())
+                .name("winner").value(winner)
+                .name("seller").valueOrEmpty(auction.getSellerId())
+                .name("finalPrice").money(leader.getAmount())
+                .name("status").value("CLOSED")
+                .endObject();
+            
+            WebSocketBidController.broadcastAuctionExpiration(auction.getAuctionId(), notification);
+        }
     }
     
     /**
      * Cancel auction timer
      */
     public void cancelTimer(String auctionId) {
-        ScheduledFuture<?> future = auctionTimers.remove(auctionId);
-        if (future != null && !future.isDone()) {
-            future.cancel(false);
-            System.out.println("[AuctionTimerManager] Timer cancelled for auction: " + auctionId);
+        if (timerWheel.cancel(auctionId)) {
+            LOG.debug("Timer cancelled for auction: {}", auctionId);
         }
     }
     
@@ -163,28 +201,30 @@ public class AuctionTimerManager {
      * Initialize timers for all active auctions on startup
      */
     public void initializeActiveAuctionTimers() {
-        System.out.println("[AuctionTimerManager] Initializing timers for active auctions...");
-        
-        for (Auction auction : dbManager.getAllAuctions()) {
-            if (auction.getStatus() == Auction.AuctionStatus.ACTIVE) {
-                if (auction.hasExpired()) {
-                    // Already expired, update status immediately
-                    handleAuctionExpiration(auction);
-                } else {
-                    // Schedule timer
-                    scheduleAuctionExpiration(auction);
-                }
+        LOG.info("Initializing timers for active auctions...");
+        
+        List<String> alreadyExpired = new ArrayList<>();
+        for (Auction auction : auctionManager.getAuctionsByStatus(Auction.AuctionStatus.ACTIVE)) {
+            if (auction.hasExpired()) {
+                // Ended while the server was down; closed below in one batch
+                alreadyExpired.add(auction.getAuctionId());
+            } else {
+                // Schedule timer
+                scheduleAuctionExpiration(auction);
             }
         }
+        if (!alreadyExpired.isEmpty()) {
+            handleExpiredBatch(alreadyExpired);
+        }
         
-        System.out.println("[AuctionTimerManager] Active timers: " + auctionTimers.size());
+        LOG.info("Active timers: {}", timerWheel.size());
     }
     
     /**
      * Get remaining time for auction in milliseconds
      */
     public long getRemainingTime(String auctionId) {
-        Auction auction = dbManager.getAuction(auctionId);
+        Auction auction = auctionManager.getAuction(auctionId);
         if (auction == null) {
             return 0;
         }
@@ -196,30 +236,19 @@ public class AuctionTimerManager {
         return Math.max(0, remaining);
     }
     
-    /**
-     * Escape JSON special characters
-     */
-    private String escapeJson(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                  .replace("\"", "\\\"")
-                  .replace("\n", "\\n")
-                  .replace("\r", "\\r")
-                  .replace("\t", "\\t");
-    }
-    
     /**
      * Shutdown scheduler
      */
     public void shutdown() {
-        System.out.println("[AuctionTimerManager] Shutting down timer manager...");
-        scheduler.shutdown();
+        LOG.info("Shutting down timer manager...");
+        timerWheel.shutdown();
+        expiryExecutor.shutdown();
         try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
+            if (!expiryExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                expiryExecutor.shutdownNow();
             }
         } catch (InterruptedException e) {
-            scheduler.shutdownNow();
+            expiryExecutor.shutdownNow();
             Thread.currentThread().interrupt();
         }
     }
@@ -29,13 +29,37 @@ public class ConfigManager {
         properties.setProperty("server.port", "8080");
         properties.setProperty("server.max.connections", "100");
         properties.setProperty("server.thread.pool.size", "10");
+        properties.setProperty("server.event.loops", "0");
         properties.setProperty("websocket.max.frame.size", "8192");
+        properties.setProperty("outbound.queue.max.bytes", "262144");
+        properties.setProperty("chat.outbound.overflow.policy", "DROP_OLDEST");
+        properties.setProperty("auction.outbound.overflow.policy", "COALESCE");
         properties.setProperty("chat.bot.response.probability", "0.1");
         properties.setProperty("chat.bot.response.delay.min", "1000");
         properties.setProperty("chat.bot.response.delay.max", "3000");
         properties.setProperty("user.username.max.length", "20");
         properties.setProperty("message.max.length", "500");
         properties.setProperty("server.name", "Java WebSocket Chat Server");
+        properties.setProperty("db.path", "data/auction_system.db");
+        properties.setProperty("db.pool.readers", "4");
+        properties.setProperty("db.statement.cache.size", "32");
+        properties.setProperty("db.group.commit.enabled", "false");
+        properties.setProperty("db.group.commit.max.batch", "256");
+        properties.setProperty("db.group.commit.linger.ms", "0");
+        properties.setProperty("bid.lock.stripes", "256");
+        properties.setProperty("auction.reactors", "0");
+        properties.setProperty("auction.worker.threads", "8");
+        properties.setProperty("timer.tick.ms", "100");
+        properties.setProperty("api.executor", "fixed");
+        properties.setProperty("api.thread.pool.size", "10");
+        properties.setProperty("api.db.permits", "0");
+        properties.setProperty("api.db.permit.timeout.ms", "5000");
+        properties.setProperty("api.auctions.page.size", "50");
+        properties.setProperty("api.auctions.max.page.size", "500");
+        properties.setProperty("logging.level", "INFO");
+        properties.setProperty("logging.file", "");
+        properties.setProperty("logging.format", "text");
+        properties.setProperty("logging.buffer.size", "8192");
     }
     
     private void loadConfigFile() {
@@ -0,0 +1,166 @@
+package main.util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SQLite connection pool running in WAL journal mode.
+ * Holds a single writer connection plus a fixed set of read-only reader
+ * connections, so reads proceed concurrently with an open write transaction.
+ */
+public class ConnectionPool {
+    private static final Logger LOG = Logger.get("ConnectionPool");
+
+    private static final long ACQUIRE_TIMEOUT_MS = 5000;
+    private static final String BUSY_TIMEOUT_MS = "5000";
+    private static final int SQLITE_OPEN_READONLY = 0x01;
+
+    private final String url;
+    private final int statementCacheSize;
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong cacheEvictions = new AtomicLong();
+    private final PooledConnection writer;
+    private final ReentrantLock writerLock = new ReentrantLock();
+    private final BlockingQueue<PooledConnection> readers;
+    private final List<PooledConnection> allReaders = new ArrayList<>();
+
+    /**
+     * Open the writer connection, switch the database to WAL mode and
+     * open the reader connections. Each connection caches up to
+     * statementCacheSize prepared statements (0 disables caching).
+     */
+    public ConnectionPool(String url, int readerCount, int statementCacheSize) throws SQLException {
+        this.url = url;
+        this.statementCacheSize = statementCacheSize;
+
+        Properties writerProps = new Properties();
+        writerProps.setProperty("busy_timeout", BUSY_TIMEOUT_MS);
+        Connection writerConnection = DriverManager.getConnection(url, writerProps);
+        enableWal(writerConnection);
+        this.writer = new PooledConnection(writerConnection, this, true, newStatementCache(writerConnection));
+
+        int count = Math.max(1, readerCount);
+        this.readers = new ArrayBlockingQueue<>(count);
+        for (int i = 0; i < count; i++) {
+            Connection readerConnection = openReader();
+            PooledConnection reader = new PooledConnection(readerConnection, this, false,
+                    newStatementCache(readerConnection));
+            allReaders.add(reader);
+            readers.add(reader);
+        }
+
+        Metrics.gauge("db_statement_cache_hits", "Prepared statements served from the cache since startup",
+                cacheHits::get);
+        Metrics.gauge("db_statement_cache_misses", "Prepared statements compiled on a cache miss since startup",
+                cacheMisses::get);
+        Metrics.gauge("db_statement_cache_evictions", "Prepared statements evicted from the cache since startup",
+                cacheEvictions::get);
+        LOG.info("Opened 1 writer and {} reader connections (WAL)", count);
+    }
+
+    private void enableWal(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA journal_mode=WAL")) {
+            if (rs.next() && !"wal".equalsIgnoreCase(rs.getString(1))) {
+                LOG.warn("WAL mode not available, journal mode is {}", rs.getString(1));
+            }
+        }
+    }
+
+    private StatementCache newStatementCache(Connection connection) {
+        return new StatementCache(connection, statementCacheSize, cacheHits, cacheMisses, cacheEvictions);
+    }
+
+    private Connection openReader() throws SQLException {
+        Properties readerProps = new Properties();
+        readerProps.setProperty("open_mode", String.valueOf(SQLITE_OPEN_READONLY));
+        readerProps.setProperty("busy_timeout", BUSY_TIMEOUT_MS);
+        return DriverManager.getConnection(url, readerProps);
+    }
+
+    /**
+     * Acquire exclusive use of the writer connection.
+     * Reentrant, so a write method may call another write method.
+     */
+    public PooledConnection acquireWriter() throws SQLException {
+        try {
+            if (!writerLock.tryLock(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for writer connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for writer connection", e);
+        }
+        return writer;
+    }
+
+    /**
+     * Borrow a read-only connection. Must be returned with close().
+     */
+    public PooledConnection acquireReader() throws SQLException {
+        try {
+            PooledConnection reader = readers.poll(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (reader == null) {
+                throw new SQLException("Timed out waiting for reader connection");
+            }
+            return reader;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for reader connection", e);
+        }
+    }
+
+    /**
+     * Return a connection handed out by acquireWriter() or acquireReader()
+     */
+    void release(PooledConnection connection) {
+        if (connection.isWriter()) {
+            writerLock.unlock();
+        } else {
+            readers.offer(connection);
+        }
+    }
+
+    public int getReaderCount() {
+        return allReaders.size();
+    }
+
+    public int getIdleReaderCount() {
+        return readers.size();
+    }
+
+    public long getStatementCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getStatementCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    public long getStatementCacheEvictions() {
+        return cacheEvictions.get();
+    }
+
+    /**
+     * Close every connection in the pool
+     */
+    public void close() {
+        for (PooledConnection reader : allReaders) {
+            reader.closeQuietly();
+        }
+        writer.closeQuietly();
+        LOG.info("All connections closed");
+    }
+}
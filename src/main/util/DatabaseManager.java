@@ -3,8 +3,10 @@ package main.util;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import main.model.Auction;
 import main.model.Auction.AuctionStatus;
@@ -13,12 +15,37 @@ import main.model.User;
 
 /**
  * SQLite Database Manager for Auctions and Bids
- * Provides persistent storage using SQLite database
+ * Provides persistent storage using SQLite database.
+ * Writes go through a single writer connection; reads borrow one of the
+ * pooled read-only connections and run concurrently with writes (WAL mode).
  */
 public class DatabaseManager {
-    private static final String DB_URL = "jdbc:sqlite:data/auction_system.db";
+    private static final Logger LOG = Logger.get("DatabaseManager");
+    private static final LatencyHistogram SAVE_AUCTION = statementTimer("save_auction");
+    private static final LatencyHistogram LOAD_AUCTIONS = statementTimer("load_auctions");
+    private static final LatencyHistogram SAVE_BID = statementTimer("save_bid");
+    private static final LatencyHistogram BID_TRANSACTION = statementTimer("bid_transaction");
+    private static final LatencyHistogram BID_BATCH = statementTimer("bid_batch");
+    private static final LatencyHistogram LOAD_BIDS = statementTimer("load_bids");
+    private static final LatencyHistogram DELETE_AUCTION = statementTimer("delete_auction");
+    private static final LatencyHistogram UPDATE_STATUS = statementTimer("update_status");
+    private static final LatencyHistogram SAVE_EXPIRED = statementTimer("save_expired");
+    private static final LatencyHistogram USER_LOOKUP = statementTimer("user_lookup");
+    private static final LatencyHistogram SAVE_CHAT_MESSAGE = statementTimer("save_chat_message");
+    private static final LatencyHistogram SAVE_NOTIFICATION = statementTimer("save_notification");
+
     private static DatabaseManager instance;
-    private Connection connection;
+    private ConnectionPool pool;
+
+    // Group-commit mode: bids are committed in batches by a writer thread.
+    // Bids are validated against the in-memory auction held by AuctionManager,
+    // so queued bids never need to be read back from here.
+    private GroupCommitWriter groupCommitWriter;
+
+    private static LatencyHistogram statementTimer(String operation) {
+        return Metrics.histogram("db_statement_seconds",
+                "Time spent running database statements, by operation", "op", operation);
+    }
 
     private DatabaseManager() {
         initializeDatabase();
@@ -39,24 +66,35 @@ public class DatabaseManager {
             // Load SQLite JDBC driver
             Class.forName("org.sqlite.JDBC");
             
+            ConfigManager config = ConfigManager.getInstance();
+            String dbPath = config.getString("db.path");
+
             // Create data directory if it doesn't exist
-            java.io.File dataDir = new java.io.File("data");
-            if (!dataDir.exists()) {
+            java.io.File dataDir = new java.io.File(dbPath).getAbsoluteFile().getParentFile();
+            if (dataDir != null && !dataDir.exists()) {
                 dataDir.mkdirs();
             }
 
-            // Establish connection
-            connection = DriverManager.getConnection(DB_URL);
-            System.out.println("[DatabaseManager] Connected to SQLite database");
+            // Open writer and reader connections
+            pool = new ConnectionPool("jdbc:sqlite:" + dbPath, config.getInt("db.pool.readers"),
+                    config.getInt("db.statement.cache.size"));
+            LOG.info("Connected to SQLite database");
 
             // Create tables
             createTables();
+
+            if (config.getBoolean("db.group.commit.enabled")) {
+                groupCommitWriter = new GroupCommitWriter(this::commitBidBatch,
+                        config.getInt("db.group.commit.max.batch"),
+                        config.getInt("db.group.commit.linger.ms"));
+                LOG.info("Group commit enabled for bids");
+            }
             
         } catch (ClassNotFoundException e) {
-            System.err.println("[DatabaseManager] SQLite JDBC driver not found: " + e.getMessage());
-            System.err.println("[DatabaseManager] Please add sqlite-jdbc jar to your classpath");
+            LOG.error("SQLite JDBC driver not found: {}", e.getMessage());
+            LOG.error("Please add sqlite-jdbc jar to your classpath");
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Database initialization failed: " + e.getMessage());
+            LOG.error("Database initialization failed: {}", e.getMessage());
         }
     }
 
@@ -137,6 +175,17 @@ public class DatabaseManager {
             )
         """;
 
+        // Match the WHERE ... ORDER BY created_time DESC auction queries
+        String createAuctionsStatusIndex = """
+            CREATE INDEX IF NOT EXISTS idx_auctions_status_created
+            ON auctions(status, created_time DESC)
+        """;
+
+        String createAuctionsSellerIndex = """
+            CREATE INDEX IF NOT EXISTS idx_auctions_seller_created
+            ON auctions(seller_id, created_time DESC)
+        """;
+
         String createBidsIndex = """
             CREATE INDEX IF NOT EXISTS idx_bids_auction_id 
             ON bids(auction_id)
@@ -177,12 +226,15 @@ public class DatabaseManager {
             ON notifications(timestamp DESC)
         """;
 
-        try (Statement stmt = connection.createStatement()) {
+        try (PooledConnection conn = pool.acquireWriter();
+             Statement stmt = conn.createStatement()) {
             stmt.execute(createAuctionsTable);
             stmt.execute(createBidsTable);
             stmt.execute(createUsersTable);
             stmt.execute(createChatMessagesTable);
             stmt.execute(createNotificationsTable);
+            stmt.execute(createAuctionsStatusIndex);
+            stmt.execute(createAuctionsSellerIndex);
             stmt.execute(createBidsIndex);
             stmt.execute(createBidsTimestampIndex);
             stmt.execute(createUsersUsernameIndex);
@@ -191,14 +243,14 @@ public class DatabaseManager {
             stmt.execute(createChatMessagesUsersIndex);
             stmt.execute(createNotificationsUsernameIndex);
             stmt.execute(createNotificationsTimestampIndex);
-            System.out.println("[DatabaseManager] Database tables created successfully");
+            LOG.info("Database tables created successfully");
         }
     }
 
     /**
      * Save an auction to the database
      */
-    public synchronized boolean saveAuction(Auction auction) {
+    public boolean saveAuction(Auction auction) {
         if (auction == null) {
             return false;
         }
@@ -211,14 +263,17 @@ public class DatabaseManager {
             VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)
         """;
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.acquireWriter()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, auction.getAuctionId());
             pstmt.setString(2, auction.getItemName());
             pstmt.setString(3, auction.getItemDescription());
             pstmt.setString(4, auction.getSellerId());
+            Auction.Leader leader = auction.getLeader();
             pstmt.setDouble(5, auction.getBasePrice());
-            pstmt.setDouble(6, auction.getCurrentHighestBid());
-            pstmt.setString(7, auction.getCurrentHighestBidder());
+            pstmt.setDouble(6, leader.getAmount());
+            pstmt.setString(7, leader.getBidder());
             pstmt.setLong(8, auction.getCreatedTime());
             pstmt.setLong(9, auction.getEndTime());
             pstmt.setLong(10, auction.getDuration());
@@ -226,12 +281,14 @@ public class DatabaseManager {
             pstmt.setString(12, auction.getCategory());
 
             pstmt.executeUpdate();
-            System.out.println("[DatabaseManager] Auction saved: " + auction.getAuctionId());
+            LOG.debug("Auction saved: {}", auction.getAuctionId());
             return true;
 
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to save auction: " + e.getMessage());
+            LOG.error("Failed to save auction: {}", e.getMessage());
             return false;
+        } finally {
+            SAVE_AUCTION.recordSince(start);
         }
     }
 
@@ -241,15 +298,19 @@ public class DatabaseManager {
     public Auction loadAuction(String auctionId) {
         String sql = "SELECT * FROM auctions WHERE auction_id = ?";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, auctionId);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                return createAuctionFromResultSet(rs);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return createAuctionFromResultSet(rs);
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to load auction: " + e.getMessage());
+            LOG.error("Failed to load auction: {}", e.getMessage());
+        } finally {
+            LOAD_AUCTIONS.recordSince(start);
         }
         return null;
     }
@@ -261,17 +322,21 @@ public class DatabaseManager {
         Map<String, Auction> auctions = new ConcurrentHashMap<>();
         String sql = "SELECT * FROM auctions ORDER BY created_time DESC";
 
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                Auction auction = createAuctionFromResultSet(rs);
-                auctions.put(auction.getAuctionId(), auction);
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Auction auction = createAuctionFromResultSet(rs);
+                    auctions.put(auction.getAuctionId(), auction);
+                }
             }
-            System.out.println("[DatabaseManager] Loaded " + auctions.size() + " auctions");
+            LOG.info("Loaded {} auctions", auctions.size());
 
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to load auctions: " + e.getMessage());
+            LOG.error("Failed to load auctions: {}", e.getMessage());
+        } finally {
+            LOAD_AUCTIONS.recordSince(start);
         }
         return auctions;
     }
@@ -283,15 +348,19 @@ public class DatabaseManager {
         List<Auction> auctions = new ArrayList<>();
         String sql = "SELECT * FROM auctions WHERE status = ? ORDER BY created_time DESC";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, status.name());
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                auctions.add(createAuctionFromResultSet(rs));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    auctions.add(createAuctionFromResultSet(rs));
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to load auctions by status: " + e.getMessage());
+            LOG.error("Failed to load auctions by status: {}", e.getMessage());
+        } finally {
+            LOAD_AUCTIONS.recordSince(start);
         }
         return auctions;
     }
@@ -303,15 +372,19 @@ public class DatabaseManager {
         List<Auction> auctions = new ArrayList<>();
         String sql = "SELECT * FROM auctions WHERE seller_id = ? ORDER BY created_time DESC";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, sellerId);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                auctions.add(createAuctionFromResultSet(rs));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    auctions.add(createAuctionFromResultSet(rs));
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to load auctions by seller: " + e.getMessage());
+            LOG.error("Failed to load auctions by seller: {}", e.getMessage());
+        } finally {
+            LOAD_AUCTIONS.recordSince(start);
         }
         return auctions;
     }
@@ -319,7 +392,7 @@ public class DatabaseManager {
     /**
      * Save a bid to the database
      */
-    public synchronized boolean saveBid(Bid bid) {
+    public boolean saveBid(Bid bid) {
         if (bid == null) {
             return false;
         }
@@ -329,20 +402,25 @@ public class DatabaseManager {
             VALUES (?, ?, ?, ?)
         """;
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.acquireWriter()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, bid.getAuctionId());
             pstmt.setString(2, bid.getUserId());
             pstmt.setDouble(3, bid.getAmount());
             pstmt.setLong(4, bid.getTimestamp());
 
             pstmt.executeUpdate();
-            System.out.println("[DatabaseManager] Bid saved: " + bid.getUserId() + 
-                             " bid " + bid.getAmount() + " on " + bid.getAuctionId());
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Bid saved: {} bid {} on {}", bid.getUserId(), bid.getAmount(), bid.getAuctionId());
+            }
             return true;
 
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to save bid: " + e.getMessage());
+            LOG.error("Failed to save bid: {}", e.getMessage());
             return false;
+        } finally {
+            SAVE_BID.recordSince(start);
         }
     }
     
@@ -350,19 +428,39 @@ public class DatabaseManager {
      * Save bid and update auction in a single transaction
      * Ensures atomicity - either both operations succeed or both fail
      */
-    public synchronized boolean saveBidWithTransaction(Bid bid, Auction auction) {
+    public boolean saveBidWithTransaction(Bid bid, Auction auction) {
+        return writeBid(bid, auction) == Bid.Result.ACCEPTED;
+    }
+
+    /**
+     * saveBidWithTransaction, reporting why a bid was not saved
+     */
+    private Bid.Result writeBid(Bid bid, Auction auction) {
         if (bid == null || auction == null) {
-            return false;
+            return Bid.Result.FAILED;
         }
         
+        // Hold the writer for the whole transaction so the in-memory bid and
+        // the persisted row are applied in the same order
+        PooledConnection connection;
+        try {
+            connection = pool.acquireWriter();
+        } catch (SQLException e) {
+            LOG.error("Transaction failed: {}", e.getMessage());
+            return Bid.Result.FAILED;
+        }
+        
+        // Update auction object with new bid BEFORE saving to database
+        Auction.Placement placement = auction.tryPlaceBid(bid);
+        if (placement == null) {
+            LOG.debug("Bid was not accepted by auction logic");
+            connection.close();
+            return rejection(auction);
+        }
+        
+        long start = System.nanoTime();
+        boolean committed = false;
         try {
-            // Update auction object with new bid BEFORE saving to database
-            boolean bidAccepted = auction.placeBid(bid);
-            if (!bidAccepted) {
-                System.err.println("[DatabaseManager] Bid was not accepted by auction logic");
-                return false;
-            }
-            
             // Disable auto-commit to start transaction
             connection.setAutoCommit(false);
             
@@ -372,13 +470,12 @@ public class DatabaseManager {
                 VALUES (?, ?, ?, ?)
             """;
             
-            try (PreparedStatement bidStmt = connection.prepareStatement(bidSql)) {
-                bidStmt.setString(1, bid.getAuctionId());
-                bidStmt.setString(2, bid.getUserId());
-                bidStmt.setDouble(3, bid.getAmount());
-                bidStmt.setLong(4, bid.getTimestamp());
-                bidStmt.executeUpdate();
-            }
+            PreparedStatement bidStmt = connection.prepareCached(bidSql);
+            bidStmt.setString(1, bid.getAuctionId());
+            bidStmt.setString(2, bid.getUserId());
+            bidStmt.setDouble(3, bid.getAmount());
+            bidStmt.setLong(4, bid.getTimestamp());
+            bidStmt.executeUpdate();
             
             // Update auction with new highest bid and bidder
             String auctionSql = """
@@ -389,55 +486,183 @@ public class DatabaseManager {
                 VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
             """;
             
-            try (PreparedStatement auctionStmt = connection.prepareStatement(auctionSql)) {
-                auctionStmt.setString(1, auction.getAuctionId());
-                auctionStmt.setString(2, auction.getItemName());
-                auctionStmt.setString(3, auction.getItemDescription());
-                auctionStmt.setString(4, auction.getSellerId());
-                auctionStmt.setDouble(5, auction.getBasePrice());
-                auctionStmt.setDouble(6, auction.getCurrentHighestBid());
-                auctionStmt.setString(7, auction.getCurrentHighestBidder());
-                auctionStmt.setString(8, auction.getStatus().name());
-                auctionStmt.setString(9, auction.getCategory());
-                auctionStmt.setLong(10, auction.getCreatedTime());
-                auctionStmt.setLong(11, auction.getEndTime());
-                auctionStmt.setLong(12, auction.getDuration());
-                
-                System.out.println("[DatabaseManager] Saving auction to DB:");
-                System.out.println("[DatabaseManager]   Auction ID: " + auction.getAuctionId());
-                System.out.println("[DatabaseManager]   Current Highest Bid: $" + auction.getCurrentHighestBid());
-                System.out.println("[DatabaseManager]   Current Highest Bidder: " + auction.getCurrentHighestBidder());
-                
-                auctionStmt.executeUpdate();
-            }
+            PreparedStatement auctionStmt = connection.prepareCached(auctionSql);
+            auctionStmt.setString(1, auction.getAuctionId());
+            auctionStmt.setString(2, auction.getItemName());
+            auctionStmt.setString(3, auction.getItemDescription());
+            auctionStmt.setString(4, auction.getSellerId());
+            // Bidders hold the writer while placing, so this is still our bid
+            Auction.Leader leader = auction.getLeader();
+            auctionStmt.setDouble(5, auction.getBasePrice());
+            auctionStmt.setDouble(6, leader.getAmount());
+            auctionStmt.setString(7, leader.getBidder());
+            auctionStmt.setString(8, auction.getStatus().name());
+            auctionStmt.setString(9, auction.getCategory());
+            auctionStmt.setLong(10, auction.getCreatedTime());
+            auctionStmt.setLong(11, auction.getEndTime());
+            auctionStmt.setLong(12, auction.getDuration());
+            
+            auctionStmt.executeUpdate();
             
             // Commit transaction
             connection.commit();
+            committed = true;
             
-            System.out.println("[DatabaseManager] Transaction committed: Bid saved and auction updated for " + 
-                             auction.getAuctionId() + " - New highest bidder: " + auction.getCurrentHighestBidder() +
-                             " with bid: $" + auction.getCurrentHighestBid());
-            return true;
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Transaction committed: Bid saved and auction updated for {} - New highest bidder: {} with bid: ${}",
+                          auction.getAuctionId(), leader.getBidder(), leader.getAmount());
+            }
+            return Bid.Result.ACCEPTED;
             
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Transaction failed, rolling back: " + e.getMessage());
+            LOG.error("Transaction failed, rolling back: {}", e.getMessage());
             try {
                 connection.rollback();
             } catch (SQLException rollbackEx) {
-                System.err.println("[DatabaseManager] Rollback failed: " + rollbackEx.getMessage());
+                LOG.error("Rollback failed: {}", rollbackEx.getMessage());
             }
-            return false;
+            return Bid.Result.FAILED;
             
         } finally {
+            BID_TRANSACTION.recordSince(start);
+            if (!committed) {
+                // The auction is shared, so the unsaved bid must not stay its leader
+                auction.revertBid(placement);
+            }
             try {
                 // Re-enable auto-commit
                 connection.setAutoCommit(true);
             } catch (SQLException e) {
-                System.err.println("[DatabaseManager] Failed to reset auto-commit: " + e.getMessage());
+                LOG.error("Failed to reset auto-commit: {}", e.getMessage());
+            }
+            connection.close();
+        }
+    }
+
+    /**
+     * Place a bid and persist it, completing once it is durable or with
+     * the reason it was turned down. With group commit the bid is applied
+     * in memory now and written by the writer thread in the next batch;
+     * otherwise this is saveBidWithTransaction. Either way a bid that fails
+     * to commit is taken back off the auction.
+     */
+    public CompletableFuture<Bid.Result> submitBid(Bid bid, Auction auction) {
+        if (groupCommitWriter == null) {
+            return CompletableFuture.completedFuture(writeBid(bid, auction));
+        }
+        if (bid == null || auction == null) {
+            return CompletableFuture.completedFuture(Bid.Result.FAILED);
+        }
+
+        Auction.Placement placement = auction.tryPlaceBid(bid);
+        if (placement == null) {
+            LOG.debug("Bid was not accepted by auction logic");
+            return CompletableFuture.completedFuture(rejection(auction));
+        }
+        return groupCommitWriter.submit(bid, () -> auction.revertBid(placement))
+            .thenApply(committed -> committed ? Bid.Result.ACCEPTED : Bid.Result.FAILED);
+    }
+
+    /**
+     * Why Auction.placeBid turned a bid down: the auction was no longer
+     * open, or the bid did not beat the leader
+     */
+    private static Bid.Result rejection(Auction auction) {
+        if (auction.getStatus() != Auction.AuctionStatus.ACTIVE || auction.hasExpired()) {
+            return Bid.Result.NOT_ACTIVE;
+        }
+        return Bid.Result.TOO_LOW;
+    }
+
+    /**
+     * Write one group-commit batch: every bid row plus the highest bid of
+     * each auction touched, in a single transaction.
+     * Bids can reach the queue out of order, so the auction row is only
+     * moved forward, never back to a lower bid from a later batch.
+     */
+    private boolean commitBidBatch(List<GroupCommitWriter.PendingBid> batch) {
+        PooledConnection connection;
+        try {
+            connection = pool.acquireWriter();
+        } catch (SQLException e) {
+            LOG.error("Group commit failed: {}", e.getMessage());
+            return false;
+        }
+
+        long start = System.nanoTime();
+        try {
+            connection.setAutoCommit(false);
+
+            String bidSql = """
+                INSERT INTO bids (auction_id, user_id, amount, timestamp) 
+                VALUES (?, ?, ?, ?)
+            """;
+            String auctionSql = """
+                UPDATE auctions 
+                SET current_highest_bid = ?, current_highest_bidder = ?, updated_at = CURRENT_TIMESTAMP 
+                WHERE auction_id = ? AND current_highest_bid < ?
+            """;
+
+            // Only the highest bid in the batch matters for each auction
+            Map<String, GroupCommitWriter.PendingBid> highestByAuction = new LinkedHashMap<>();
+            PreparedStatement bidStmt = connection.prepareCached(bidSql);
+            for (GroupCommitWriter.PendingBid pending : batch) {
+                Bid bid = pending.getBid();
+                bidStmt.setString(1, bid.getAuctionId());
+                bidStmt.setString(2, bid.getUserId());
+                bidStmt.setDouble(3, bid.getAmount());
+                bidStmt.setLong(4, bid.getTimestamp());
+                bidStmt.addBatch();
+                highestByAuction.merge(pending.getAuctionId(), pending, (a, b) ->
+                    b.getCurrentHighestBid() > a.getCurrentHighestBid() ? b : a);
+            }
+            bidStmt.executeBatch();
+
+            PreparedStatement auctionStmt = connection.prepareCached(auctionSql);
+            for (GroupCommitWriter.PendingBid pending : highestByAuction.values()) {
+                auctionStmt.setDouble(1, pending.getCurrentHighestBid());
+                auctionStmt.setString(2, pending.getCurrentHighestBidder());
+                auctionStmt.setString(3, pending.getAuctionId());
+                auctionStmt.setDouble(4, pending.getCurrentHighestBid());
+                auctionStmt.addBatch();
+            }
+            auctionStmt.executeBatch();
+
+            connection.commit();
+            return true;
+
+        } catch (SQLException e) {
+            LOG.error("Group commit failed, rolling back {} bids: {}", batch.size(), e.getMessage());
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                LOG.error("Rollback failed: {}", rollbackEx.getMessage());
+            }
+            return false;
+
+        } finally {
+            BID_BATCH.recordSince(start);
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                LOG.error("Failed to reset auto-commit: {}", e.getMessage());
             }
+            connection.close();
         }
     }
 
+    public boolean isGroupCommitEnabled() {
+        return groupCommitWriter != null;
+    }
+
+    public long getGroupCommitBatchCount() {
+        return groupCommitWriter != null ? groupCommitWriter.getBatchCount() : 0;
+    }
+
+    public long getGroupCommitBidCount() {
+        return groupCommitWriter != null ? groupCommitWriter.getCommittedBidCount() : 0;
+    }
+
     /**
      * Load all bids for a specific auction
      */
@@ -445,15 +670,19 @@ public class DatabaseManager {
         List<Bid> bids = new ArrayList<>();
         String sql = "SELECT * FROM bids WHERE auction_id = ? ORDER BY timestamp DESC";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, auctionId);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                bids.add(createBidFromResultSet(rs));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    bids.add(createBidFromResultSet(rs));
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to load bids: " + e.getMessage());
+            LOG.error("Failed to load bids: {}", e.getMessage());
+        } finally {
+            LOAD_BIDS.recordSince(start);
         }
         return bids;
     }
@@ -472,15 +701,19 @@ public class DatabaseManager {
         List<Bid> bids = new ArrayList<>();
         String sql = "SELECT * FROM bids WHERE user_id = ? ORDER BY timestamp DESC";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                bids.add(createBidFromResultSet(rs));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    bids.add(createBidFromResultSet(rs));
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to load user bids: " + e.getMessage());
+            LOG.error("Failed to load user bids: {}", e.getMessage());
+        } finally {
+            LOAD_BIDS.recordSince(start);
         }
         return bids;
     }
@@ -492,16 +725,20 @@ public class DatabaseManager {
         List<Bid> bids = new ArrayList<>();
         String sql = "SELECT * FROM bids WHERE auction_id = ? ORDER BY timestamp DESC LIMIT ?";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, auctionId);
             pstmt.setInt(2, limit);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                bids.add(createBidFromResultSet(rs));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    bids.add(createBidFromResultSet(rs));
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to get bid history: " + e.getMessage());
+            LOG.error("Failed to get bid history: {}", e.getMessage());
+        } finally {
+            LOAD_BIDS.recordSince(start);
         }
         return bids;
     }
@@ -509,70 +746,149 @@ public class DatabaseManager {
     /**
      * Delete an auction (and cascade delete its bids)
      */
-    public synchronized boolean deleteAuction(String auctionId) {
+    public boolean deleteAuction(String auctionId) {
+        PooledConnection connection;
+        try {
+            connection = pool.acquireWriter();
+        } catch (SQLException e) {
+            LOG.error("Failed to delete auction: {}", e.getMessage());
+            return false;
+        }
+        
+        long start = System.nanoTime();
         try {
             connection.setAutoCommit(false);
 
             // Delete bids first
             String deleteBids = "DELETE FROM bids WHERE auction_id = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(deleteBids)) {
-                pstmt.setString(1, auctionId);
-                pstmt.executeUpdate();
-            }
+            PreparedStatement deleteBidsStmt = connection.prepareCached(deleteBids);
+            deleteBidsStmt.setString(1, auctionId);
+            deleteBidsStmt.executeUpdate();
 
             // Delete auction
             String deleteAuction = "DELETE FROM auctions WHERE auction_id = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(deleteAuction)) {
-                pstmt.setString(1, auctionId);
-                pstmt.executeUpdate();
-            }
+            PreparedStatement deleteAuctionStmt = connection.prepareCached(deleteAuction);
+            deleteAuctionStmt.setString(1, auctionId);
+            deleteAuctionStmt.executeUpdate();
 
             connection.commit();
-            System.out.println("[DatabaseManager] Auction deleted: " + auctionId);
+            LOG.info("Auction deleted: {}", auctionId);
             return true;
 
         } catch (SQLException e) {
             try {
                 connection.rollback();
             } catch (SQLException ex) {
-                System.err.println("[DatabaseManager] Rollback failed: " + ex.getMessage());
+                LOG.error("Rollback failed: {}", ex.getMessage());
             }
-            System.err.println("[DatabaseManager] Failed to delete auction: " + e.getMessage());
+            LOG.error("Failed to delete auction: {}", e.getMessage());
             return false;
         } finally {
+            DELETE_AUCTION.recordSince(start);
             try {
                 connection.setAutoCommit(true);
             } catch (SQLException e) {
-                System.err.println("[DatabaseManager] Failed to reset auto-commit: " + e.getMessage());
+                LOG.error("Failed to reset auto-commit: {}", e.getMessage());
             }
+            connection.close();
         }
     }
 
     /**
      * Update auction status
      */
-    public synchronized boolean updateAuctionStatus(String auctionId, AuctionStatus status) {
+    public boolean updateAuctionStatus(String auctionId, AuctionStatus status) {
         String sql = "UPDATE auctions SET status = ?, updated_at = CURRENT_TIMESTAMP WHERE auction_id = ?";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.acquireWriter()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, status.name());
             pstmt.setString(2, auctionId);
             
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected > 0) {
-                System.out.println("[DatabaseManager] Auction status updated: " + auctionId + " -> " + status);
+                LOG.debug("Auction status updated: {} -> {}", auctionId, status);
                 return true;
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to update auction status: " + e.getMessage());
+            LOG.error("Failed to update auction status: {}", e.getMessage());
+        } finally {
+            UPDATE_STATUS.recordSince(start);
         }
         return false;
     }
 
+    /**
+     * Close a batch of expired auctions and save their notifications in a
+     * single transaction, so a burst of expirations costs one commit
+     */
+    public boolean saveExpiredAuctions(List<String> auctionIds, List<main.model.Notification> notifications) {
+        PooledConnection connection;
+        try {
+            connection = pool.acquireWriter();
+        } catch (SQLException e) {
+            LOG.error("Failed to save expired auctions: {}", e.getMessage());
+            return false;
+        }
+        
+        long start = System.nanoTime();
+        try {
+            connection.setAutoCommit(false);
+
+            String statusSql = "UPDATE auctions SET status = ?, updated_at = CURRENT_TIMESTAMP WHERE auction_id = ?";
+            PreparedStatement statusStmt = connection.prepareCached(statusSql);
+            for (String auctionId : auctionIds) {
+                statusStmt.setString(1, AuctionStatus.CLOSED.name());
+                statusStmt.setString(2, auctionId);
+                statusStmt.addBatch();
+            }
+            statusStmt.executeBatch();
+
+            String notificationSql = """
+                INSERT INTO notifications 
+                (username, type, title, message, auction_id, timestamp, is_read) 
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+            PreparedStatement notificationStmt = connection.prepareCached(notificationSql);
+            for (main.model.Notification notification : notifications) {
+                notificationStmt.setString(1, notification.getUsername());
+                notificationStmt.setString(2, notification.getType());
+                notificationStmt.setString(3, notification.getTitle());
+                notificationStmt.setString(4, notification.getMessage());
+                notificationStmt.setString(5, notification.getAuctionId());
+                notificationStmt.setLong(6, notification.getTimestamp());
+                notificationStmt.setInt(7, notification.isRead() ? 1 : 0);
+                notificationStmt.addBatch();
+            }
+            notificationStmt.executeBatch();
+
+            connection.commit();
+            return true;
+
+        } catch (SQLException e) {
+            LOG.error("Failed to save expired auctions, rolling back: {}", e.getMessage());
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                LOG.error("Rollback failed: {}", rollbackEx.getMessage());
+            }
+            return false;
+        } finally {
+            SAVE_EXPIRED.recordSince(start);
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                LOG.error("Failed to reset auto-commit: {}", e.getMessage());
+            }
+            connection.close();
+        }
+    }
+
     /**
      * Update entire auction object
      */
-    public synchronized boolean updateAuction(Auction auction) {
+    public boolean updateAuction(Auction auction) {
         return saveAuction(auction); // Uses INSERT OR REPLACE
     }
 
@@ -593,7 +909,7 @@ public class DatabaseManager {
     /**
      * Create a new auction with auto-generated ID
      */
-    public synchronized Auction createAuction(String itemName, String itemDescription,
+    public Auction createAuction(String itemName, String itemDescription,
             String sellerId, double basePrice, long durationMinutes, String category) {
         
         // Generate unique auction ID
@@ -612,7 +928,7 @@ public class DatabaseManager {
         
         // Save to database
         if (saveAuction(auction)) {
-            System.out.println("[DatabaseManager] New auction created: " + auctionId);
+            LOG.debug("New auction created: {}", auctionId);
             return auction;
         }
         
@@ -634,15 +950,16 @@ public class DatabaseManager {
     public int getAuctionCount(AuctionStatus status) {
         String sql = "SELECT COUNT(*) FROM auctions WHERE status = ?";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, status.name());
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to get auction count: " + e.getMessage());
+            LOG.error("Failed to get auction count: {}", e.getMessage());
         }
         return 0;
     }
@@ -653,15 +970,16 @@ public class DatabaseManager {
     public int getBidCount(String auctionId) {
         String sql = "SELECT COUNT(*) FROM bids WHERE auction_id = ?";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, auctionId);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to get bid count: " + e.getMessage());
+            LOG.error("Failed to get bid count: {}", e.getMessage());
         }
         return 0;
     }
@@ -689,21 +1007,15 @@ public class DatabaseManager {
         String highestBidder = rs.getString("current_highest_bidder");
         double highestBid = rs.getDouble("current_highest_bid");
         
-        System.out.println("[DatabaseManager] Loading auction from DB:");
-        System.out.println("[DatabaseManager]   Auction ID: " + auction.getAuctionId());
-        System.out.println("[DatabaseManager]   Item: " + auction.getItemName());
-        System.out.println("[DatabaseManager]   Highest Bidder from DB: " + highestBidder);
-        System.out.println("[DatabaseManager]   Highest Bid from DB: $" + highestBid);
-        
         // Restore bid data directly using setters instead of placeBid()
         // This avoids issues with status checks in placeBid()
         if (highestBidder != null && !highestBidder.isEmpty()) {
-            auction.setCurrentHighestBidder(highestBidder);
-            auction.setCurrentHighestBid(highestBid);
-            System.out.println("[DatabaseManager]   ✅ Bid restored to auction object");
-            System.out.println("[DatabaseManager]   ✅ Bidder set to: " + auction.getCurrentHighestBidder());
+            auction.setCurrentLeader(highestBid, highestBidder);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Loaded auction {}: highest bid ${} by {}", auction.getAuctionId(), highestBid, highestBidder);
+            }
         } else {
-            System.out.println("[DatabaseManager]   ⚠️ No bidder found in database");
+            LOG.debug("Loaded auction {}: no bids", auction.getAuctionId());
         }
 
         // Set status
@@ -725,16 +1037,30 @@ public class DatabaseManager {
     }
 
     /**
-     * Close database connection
+     * Prepared statement cache counters, summed over all pooled connections
+     */
+    public long getStatementCacheHits() {
+        return pool.getStatementCacheHits();
+    }
+
+    public long getStatementCacheMisses() {
+        return pool.getStatementCacheMisses();
+    }
+
+    public long getStatementCacheEvictions() {
+        return pool.getStatementCacheEvictions();
+    }
+
+    /**
+     * Close all database connections
      */
     public void close() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("[DatabaseManager] Database connection closed");
-            }
-        } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to close connection: " + e.getMessage());
+        if (groupCommitWriter != null) {
+            groupCommitWriter.shutdown();
+        }
+        if (pool != null) {
+            pool.close();
+            LOG.info("Database connection closed");
         }
     }
 
@@ -744,13 +1070,14 @@ public class DatabaseManager {
     public boolean backupDatabase(String backupPath) {
         String sql = "VACUUM INTO ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireWriter();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, backupPath);
             pstmt.execute();
-            System.out.println("[DatabaseManager] Database backed up to: " + backupPath);
+            LOG.info("Database backed up to: {}", backupPath);
             return true;
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Backup failed: " + e.getMessage());
+            LOG.error("Backup failed: {}", e.getMessage());
             return false;
         }
     }
@@ -760,13 +1087,14 @@ public class DatabaseManager {
     /**
      * Register a new user
      */
-    public synchronized boolean registerUser(String username, String password, String email, String role, String token) {
+    public boolean registerUser(String username, String password, String email, String role, String token) {
         String sql = """
             INSERT INTO users (username, password, email, role, token, updated_at)
             VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)
         """;
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireWriter()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, username);
             pstmt.setString(2, hashPassword(password));
             pstmt.setString(3, email);
@@ -774,11 +1102,11 @@ public class DatabaseManager {
             pstmt.setString(5, token);
             
             pstmt.executeUpdate();
-            System.out.println("[DatabaseManager] User registered: " + username);
+            LOG.info("User registered: {}", username);
             return true;
             
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to register user: " + e.getMessage());
+            LOG.error("Failed to register user: {}", e.getMessage());
             return false;
         }
     }
@@ -789,18 +1117,22 @@ public class DatabaseManager {
     public User authenticateUser(String username, String password) {
         String sql = "SELECT * FROM users WHERE username = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                String storedHash = rs.getString("password");
-                if (verifyPassword(password, storedHash)) {
-                    return createUserFromResultSet(rs);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    String storedHash = rs.getString("password");
+                    if (verifyPassword(password, storedHash)) {
+                        return createUserFromResultSet(rs);
+                    }
                 }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Authentication error: " + e.getMessage());
+            LOG.error("Authentication error: {}", e.getMessage());
+        } finally {
+            USER_LOOKUP.recordSince(start);
         }
         return null;
     }
@@ -811,15 +1143,19 @@ public class DatabaseManager {
     public User getUserByToken(String token) {
         String sql = "SELECT * FROM users WHERE token = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, token);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return createUserFromResultSet(rs);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return createUserFromResultSet(rs);
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to get user by token: " + e.getMessage());
+            LOG.error("Failed to get user by token: {}", e.getMessage());
+        } finally {
+            USER_LOOKUP.recordSince(start);
         }
         return null;
     }
@@ -830,15 +1166,16 @@ public class DatabaseManager {
     public boolean userExists(String username) {
         String sql = "SELECT COUNT(*) FROM users WHERE username = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1) > 0;
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to check user existence: " + e.getMessage());
+            LOG.error("Failed to check user existence: {}", e.getMessage());
         }
         return false;
     }
@@ -846,10 +1183,11 @@ public class DatabaseManager {
     /**
      * Update user token
      */
-    public synchronized boolean updateUserToken(String username, String token) {
+    public boolean updateUserToken(String username, String token) {
         String sql = "UPDATE users SET token = ?, updated_at = CURRENT_TIMESTAMP WHERE username = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireWriter()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, token);
             pstmt.setString(2, username);
             
@@ -857,7 +1195,7 @@ public class DatabaseManager {
             return true;
             
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to update token: " + e.getMessage());
+            LOG.error("Failed to update token: {}", e.getMessage());
             return false;
         }
     }
@@ -865,19 +1203,20 @@ public class DatabaseManager {
     /**
      * Update user email
      */
-    public synchronized boolean updateUserEmail(String username, String email) {
+    public boolean updateUserEmail(String username, String email) {
         String sql = "UPDATE users SET email = ?, updated_at = CURRENT_TIMESTAMP WHERE username = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireWriter()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, email);
             pstmt.setString(2, username);
             
             int rowsAffected = pstmt.executeUpdate();
-            System.out.println("[DatabaseManager] Email updated for user: " + username);
+            LOG.info("Email updated for user: {}", username);
             return rowsAffected > 0;
             
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to update email: " + e.getMessage());
+            LOG.error("Failed to update email: {}", e.getMessage());
             return false;
         }
     }
@@ -885,19 +1224,20 @@ public class DatabaseManager {
     /**
      * Update user password
      */
-    public synchronized boolean updateUserPassword(String username, String newPassword) {
+    public boolean updateUserPassword(String username, String newPassword) {
         String sql = "UPDATE users SET password = ?, updated_at = CURRENT_TIMESTAMP WHERE username = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireWriter()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, hashPassword(newPassword));
             pstmt.setString(2, username);
             
             int rowsAffected = pstmt.executeUpdate();
-            System.out.println("[DatabaseManager] Password updated for user: " + username);
+            LOG.info("Password updated for user: {}", username);
             return rowsAffected > 0;
             
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Failed to update password: " + e.getMessage());
+            LOG.error("Failed to update password: {}", e.getMessage());
             return false;
         }
     }
@@ -922,14 +1262,16 @@ public class DatabaseManager {
     /**
      * Save a chat message to the database
      */
-    public synchronized boolean saveChatMessage(main.model.ChatMessage message) {
+    public boolean saveChatMessage(main.model.ChatMessage message) {
         String sql = """
             INSERT INTO chat_messages (auction_id, sender_username, recipient_username, 
                                       content, timestamp, is_read)
             VALUES (?, ?, ?, ?, ?, ?)
         """;
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.acquireWriter()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, message.getAuctionId());
             pstmt.setString(2, message.getSenderUsername());
             pstmt.setString(3, message.getRecipientUsername());
@@ -939,11 +1281,13 @@ public class DatabaseManager {
             
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected > 0) {
-                System.out.println("[DatabaseManager] Chat message saved for auction: " + message.getAuctionId());
+                LOG.debug("Chat message saved for auction: {}", message.getAuctionId());
                 return true;
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Error saving chat message: " + e.getMessage());
+            LOG.error("Error saving chat message: {}", e.getMessage());
+        } finally {
+            SAVE_CHAT_MESSAGE.recordSince(start);
         }
         return false;
     }
@@ -951,7 +1295,7 @@ public class DatabaseManager {
     /**
      * Get all chat messages for a specific auction
      */
-    public synchronized List<main.model.ChatMessage> getChatMessagesByAuction(String auctionId) {
+    public List<main.model.ChatMessage> getChatMessagesByAuction(String auctionId) {
         List<main.model.ChatMessage> messages = new ArrayList<>();
         String sql = """
             SELECT * FROM chat_messages 
@@ -959,15 +1303,16 @@ public class DatabaseManager {
             ORDER BY timestamp ASC
         """;
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, auctionId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                messages.add(createChatMessageFromResultSet(rs));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    messages.add(createChatMessageFromResultSet(rs));
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Error fetching chat messages: " + e.getMessage());
+            LOG.error("Error fetching chat messages: {}", e.getMessage());
         }
         
         return messages;
@@ -976,7 +1321,7 @@ public class DatabaseManager {
     /**
      * Get unique buyers who have sent messages for a seller's auctions
      */
-    public synchronized Map<String, List<String>> getBuyersBySeller(String sellerUsername) {
+    public Map<String, List<String>> getBuyersBySeller(String sellerUsername) {
         Map<String, List<String>> auctionBuyers = new ConcurrentHashMap<>();
         String sql = """
             SELECT DISTINCT cm.auction_id, cm.sender_username 
@@ -986,19 +1331,20 @@ public class DatabaseManager {
             ORDER BY cm.auction_id, cm.timestamp DESC
         """;
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, sellerUsername);
             pstmt.setString(2, sellerUsername);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                String auctionId = rs.getString("auction_id");
-                String buyer = rs.getString("sender_username");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String auctionId = rs.getString("auction_id");
+                    String buyer = rs.getString("sender_username");
                 
-                auctionBuyers.computeIfAbsent(auctionId, k -> new ArrayList<>()).add(buyer);
+                    auctionBuyers.computeIfAbsent(auctionId, k -> new ArrayList<>()).add(buyer);
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Error fetching buyers: " + e.getMessage());
+            LOG.error("Error fetching buyers: {}", e.getMessage());
         }
         
         return auctionBuyers;
@@ -1007,22 +1353,23 @@ public class DatabaseManager {
     /**
      * Get unread message count for a specific auction and user
      */
-    public synchronized int getUnreadMessageCount(String auctionId, String username) {
+    public int getUnreadMessageCount(String auctionId, String username) {
         String sql = """
             SELECT COUNT(*) as count FROM chat_messages 
             WHERE auction_id = ? AND recipient_username = ? AND is_read = 0
         """;
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, auctionId);
             pstmt.setString(2, username);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt("count");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("count");
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Error getting unread count: " + e.getMessage());
+            LOG.error("Error getting unread count: {}", e.getMessage());
         }
         
         return 0;
@@ -1031,20 +1378,21 @@ public class DatabaseManager {
     /**
      * Mark messages as read
      */
-    public synchronized boolean markMessagesAsRead(String auctionId, String username) {
+    public boolean markMessagesAsRead(String auctionId, String username) {
         String sql = """
             UPDATE chat_messages 
             SET is_read = 1 
             WHERE auction_id = ? AND recipient_username = ? AND is_read = 0
         """;
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireWriter()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, auctionId);
             pstmt.setString(2, username);
             pstmt.executeUpdate();
             return true;
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Error marking messages as read: " + e.getMessage());
+            LOG.error("Error marking messages as read: {}", e.getMessage());
         }
         
         return false;
@@ -1068,14 +1416,16 @@ public class DatabaseManager {
     /**
      * Save a notification to the database
      */
-    public synchronized boolean saveNotification(main.model.Notification notification) {
+    public boolean saveNotification(main.model.Notification notification) {
         String sql = """
             INSERT INTO notifications 
             (username, type, title, message, auction_id, timestamp, is_read) 
             VALUES (?, ?, ?, ?, ?, ?, ?)
         """;
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.acquireWriter()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, notification.getUsername());
             pstmt.setString(2, notification.getType());
             pstmt.setString(3, notification.getTitle());
@@ -1086,7 +1436,9 @@ public class DatabaseManager {
             pstmt.executeUpdate();
             return true;
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Error saving notification: " + e.getMessage());
+            LOG.error("Error saving notification: {}", e.getMessage());
+        } finally {
+            SAVE_NOTIFICATION.recordSince(start);
         }
         
         return false;
@@ -1095,7 +1447,7 @@ public class DatabaseManager {
     /**
      * Get notifications for a user
      */
-    public synchronized List<main.model.Notification> getNotifications(String username) {
+    public List<main.model.Notification> getNotifications(String username) {
         List<main.model.Notification> notifications = new ArrayList<>();
         String sql = """
             SELECT * FROM notifications 
@@ -1103,15 +1455,16 @@ public class DatabaseManager {
             ORDER BY timestamp DESC
         """;
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                notifications.add(createNotificationFromResultSet(rs));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    notifications.add(createNotificationFromResultSet(rs));
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Error getting notifications: " + e.getMessage());
+            LOG.error("Error getting notifications: {}", e.getMessage());
         }
         
         return notifications;
@@ -1120,21 +1473,22 @@ public class DatabaseManager {
     /**
      * Get unread notification count for a user
      */
-    public synchronized int getUnreadNotificationCount(String username) {
+    public int getUnreadNotificationCount(String username) {
         String sql = """
             SELECT COUNT(*) as count FROM notifications 
             WHERE username = ? AND is_read = 0
         """;
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireReader()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt("count");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("count");
+                }
             }
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Error getting unread notification count: " + e.getMessage());
+            LOG.error("Error getting unread notification count: {}", e.getMessage());
         }
         
         return 0;
@@ -1143,19 +1497,20 @@ public class DatabaseManager {
     /**
      * Mark a notification as read
      */
-    public synchronized boolean markNotificationAsRead(long notificationId) {
+    public boolean markNotificationAsRead(long notificationId) {
         String sql = """
             UPDATE notifications 
             SET is_read = 1 
             WHERE notification_id = ?
         """;
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireWriter()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setLong(1, notificationId);
             pstmt.executeUpdate();
             return true;
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Error marking notification as read: " + e.getMessage());
+            LOG.error("Error marking notification as read: {}", e.getMessage());
         }
         
         return false;
@@ -1164,19 +1519,20 @@ public class DatabaseManager {
     /**
      * Mark all notifications as read for a user
      */
-    public synchronized boolean markAllNotificationsAsRead(String username) {
+    public boolean markAllNotificationsAsRead(String username) {
         String sql = """
             UPDATE notifications 
             SET is_read = 1 
             WHERE username = ? AND is_read = 0
         """;
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PooledConnection conn = pool.acquireWriter()) {
+            PreparedStatement pstmt = conn.prepareCached(sql);
             pstmt.setString(1, username);
             pstmt.executeUpdate();
             return true;
         } catch (SQLException e) {
-            System.err.println("[DatabaseManager] Error marking all notifications as read: " + e.getMessage());
+            LOG.error("Error marking all notifications as read: {}", e.getMessage());
         }
         
         return false;
@@ -1215,7 +1571,7 @@ public class DatabaseManager {
             }
             return hexString.toString();
         } catch (Exception e) {
-            System.err.println("[DatabaseManager] Hashing error: " + e.getMessage());
+            LOG.error("Hashing error: {}", e.getMessage());
             return password; // Fallback (not secure)
         }
     }
@@ -0,0 +1,227 @@
+package main.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import main.model.Bid;
+
+/**
+ * Write-behind queue that commits bids in groups.
+ * Callers enqueue a bid the auction has already accepted and get a future
+ * that completes once the transaction containing it has committed.
+ * A single writer thread drains the queue, so one fsync covers a whole batch.
+ */
+public class GroupCommitWriter {
+    private static final Logger LOG = Logger.get("GroupCommitWriter");
+
+    /**
+     * Persists one batch in a single transaction. Returns true on commit.
+     */
+    public interface BatchCommitter {
+        boolean commitBatch(List<PendingBid> batch);
+    }
+
+    /**
+     * A bid waiting to be committed, with the auction state it produced.
+     * An accepted bid was the auction's leader when it was placed.
+     */
+    public static class PendingBid {
+        private final Bid bid;
+        private final String auctionId;
+        private final double currentHighestBid;
+        private final String currentHighestBidder;
+        private final Runnable undo;
+        private final CompletableFuture<Boolean> committed = new CompletableFuture<>();
+
+        PendingBid(Bid bid, Runnable undo) {
+            this.bid = bid;
+            this.auctionId = bid.getAuctionId();
+            this.currentHighestBid = bid.getAmount();
+            this.currentHighestBidder = bid.getUserId();
+            this.undo = undo;
+        }
+
+        public Bid getBid() {
+            return bid;
+        }
+
+        public String getAuctionId() {
+            return auctionId;
+        }
+
+        public double getCurrentHighestBid() {
+            return currentHighestBid;
+        }
+
+        public String getCurrentHighestBidder() {
+            return currentHighestBidder;
+        }
+    }
+
+    private final BatchCommitter committer;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<PendingBid> queue = new LinkedBlockingQueue<>();
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final Thread writerThread;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong bidsCommitted = new AtomicLong();
+
+    public GroupCommitWriter(BatchCommitter committer, int maxBatchSize, long lingerMillis) {
+        this.committer = committer;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMillis));
+        this.writerThread = new Thread(this::runWriter, "GroupCommitWriter");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        Metrics.gauge("db_group_commit_batches", "Bid batches committed since startup", batches::get);
+        Metrics.gauge("db_group_commit_bids", "Bids committed in batches since startup", bidsCommitted::get);
+        Metrics.gauge("db_group_commit_queue_depth", "Bids waiting for the next batch", queue::size);
+    }
+
+    /**
+     * Queue a bid that has already been applied to the auction in memory
+     */
+    public CompletableFuture<Boolean> submit(Bid bid) {
+        return submit(bid, null);
+    }
+
+    /**
+     * Like submit(bid), running undo before the future completes if the
+     * bid is not committed. A failed batch is undone newest bid first, so
+     * bids stacked on one auction unwind to the leader before them all.
+     */
+    public CompletableFuture<Boolean> submit(Bid bid, Runnable undo) {
+        PendingBid pending = new PendingBid(bid, undo);
+        if (!running.get()) {
+            fail(pending);
+            return pending.committed;
+        }
+        queue.add(pending);
+        return pending.committed;
+    }
+
+    private void runWriter() {
+        List<PendingBid> batch = new ArrayList<>(maxBatchSize);
+        while (running.get() || !queue.isEmpty()) {
+            PendingBid first;
+            try {
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Shutdown requested; loop condition drains what is left
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+
+            batch.add(first);
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                queue.drainTo(batch, maxBatchSize - batch.size());
+            }
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Take everything already queued, then wait up to the linger time for
+     * more, stopping once the batch is full
+     */
+    private void fillBatch(List<PendingBid> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            PendingBid next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void commit(List<PendingBid> batch) {
+        boolean success;
+        try {
+            success = committer.commitBatch(batch);
+        } catch (RuntimeException e) {
+            LOG.error("Batch failed: {}", e.getMessage());
+            success = false;
+        }
+
+        if (success) {
+            batches.incrementAndGet();
+            bidsCommitted.addAndGet(batch.size());
+            for (PendingBid pending : batch) {
+                pending.committed.complete(true);
+            }
+            return;
+        }
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            fail(batch.get(i));
+        }
+    }
+
+    private static void fail(PendingBid pending) {
+        if (pending.undo != null) {
+            try {
+                pending.undo.run();
+            } catch (RuntimeException e) {
+                LOG.error("Undo failed for bid on {}: {}", pending.auctionId, e.getMessage());
+            }
+        }
+        pending.committed.complete(false);
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getCommittedBidCount() {
+        return bidsCommitted.get();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Stop accepting bids, commit everything already queued and stop the thread
+     */
+    public void shutdown() {
+        shutdown(5000);
+    }
+
+    /**
+     * Like shutdown(), waiting at most timeoutMillis for the queue to drain;
+     * bids still queued after that complete as not committed
+     */
+    public void shutdown(long timeoutMillis) {
+        running.set(false);
+        // No interrupt: the writer notices within one poll timeout, and an
+        // interrupt could abort the batch it is committing
+        try {
+            writerThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingBid> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        for (int i = leftover.size() - 1; i >= 0; i--) {
+            fail(leftover.get(i));
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package main.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Single-pass pull tokenizer for UTF-8 JSON, the reading side of JsonWriter.
+ * It walks the bytes once, checks the grammar as it goes and keeps only
+ * the bounds of the current token; a String is created only when text()
+ * is called, and unescaping happens only for strings that contain escapes.
+ * Nesting is tracked in a bitset instead of recursion, so hostile input
+ * cannot overflow the stack. Malformed input of any kind throws
+ * MalformedJsonException.
+ *
+ *   JsonReader reader = new JsonReader(body);
+ *   for (Token token = reader.next(); token != Token.END_DOCUMENT; token = reader.next()) {
+ *       ...
+ *   }
+ *
+ * Invalid UTF-8 inside strings is decoded with replacement characters,
+ * as new String(bytes, UTF_8) does. A reader is not thread-safe.
+ */
+public final class JsonReader {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY,
+        NAME, STRING, NUMBER, TRUE, FALSE, NULL, END_DOCUMENT
+    }
+
+    /**
+     * Thrown for any input that is not a single well-formed JSON value
+     */
+    public static class MalformedJsonException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        public MalformedJsonException(String message) {
+            super(message);
+        }
+    }
+
+    // Same limit as JsonWriter: one bit per nesting level
+    private static final int MAX_DEPTH = 63;
+
+    // What the next token may be
+    private static final int EXPECT_VALUE = 0;
+    private static final int EXPECT_FIRST_VALUE_OR_END = 1;
+    private static final int EXPECT_NAME = 2;
+    private static final int EXPECT_FIRST_NAME_OR_END = 3;
+    private static final int EXPECT_SEPARATOR_OR_END = 4;
+    private static final int EXPECT_END_OF_INPUT = 5;
+
+    private final byte[] data;
+    private final int end;
+    private int pos;
+    private int state = EXPECT_VALUE;
+    private int depth = 0;
+    // Bit n set when the container at depth n is an array
+    private long arrays = 0;
+
+    private Token token;
+    private int tokenStart;
+    private int tokenEnd;
+    private boolean escaped;
+
+    public JsonReader(byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    public JsonReader(byte[] data, int offset, int length) {
+        this.data = data;
+        this.pos = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Parse a request body holding one flat JSON object into its members.
+     * Strings are unescaped, numbers and booleans keep their literal text,
+     * nested objects and arrays are kept as raw JSON, and null members are
+     * left out. A blank body gives an empty map; on duplicate names the
+     * last one wins.
+     */
+    public static Map<String, String> parseObject(byte[] body) {
+        Map<String, String> members = new HashMap<>();
+        JsonReader reader = new JsonReader(body);
+        if (reader.isBlank()) {
+            return members;
+        }
+        if (reader.next() != Token.BEGIN_OBJECT) {
+            throw new MalformedJsonException("Expected a JSON object");
+        }
+        while (reader.next() == Token.NAME) {
+            String name = reader.text();
+            switch (reader.next()) {
+                case BEGIN_OBJECT:
+                case BEGIN_ARRAY: {
+                    int start = reader.tokenStart;
+                    reader.skipChildren();
+                    members.put(name, new String(body, start, reader.tokenEnd - start, StandardCharsets.UTF_8));
+                    break;
+                }
+                case NULL:
+                    members.remove(name);
+                    break;
+                default:
+                    members.put(name, reader.text());
+            }
+        }
+        reader.next(); // END_DOCUMENT, or throws on trailing data
+        return members;
+    }
+
+    /**
+     * Advance to the next token
+     */
+    public Token next() {
+        while (true) {
+            skipWhitespace();
+            switch (state) {
+                case EXPECT_END_OF_INPUT:
+                    if (pos < end) {
+                        throw error("Unexpected data after the JSON value");
+                    }
+                    tokenStart = tokenEnd = pos;
+                    return token = Token.END_DOCUMENT;
+                case EXPECT_SEPARATOR_OR_END: {
+                    if (depth == 0) {
+                        state = EXPECT_END_OF_INPUT;
+                        continue;
+                    }
+                    boolean inArray = inArray();
+                    byte b = peek();
+                    if (b == ',') {
+                        pos++;
+                        state = inArray ? EXPECT_VALUE : EXPECT_NAME;
+                        continue;
+                    }
+                    if (b == (inArray ? ']' : '}')) {
+                        return close();
+                    }
+                    throw error(inArray ? "Expected ',' or ']'" : "Expected ',' or '}'");
+                }
+                case EXPECT_FIRST_NAME_OR_END:
+                    return peek() == '}' ? close() : readName();
+                case EXPECT_NAME:
+                    return readName();
+                case EXPECT_FIRST_VALUE_OR_END:
+                    return peek() == ']' ? close() : readValue();
+                default:
+                    return readValue();
+            }
+        }
+    }
+
+    /**
+     * After BEGIN_OBJECT or BEGIN_ARRAY, skip to the matching end token
+     */
+    public void skipChildren() {
+        if (token != Token.BEGIN_OBJECT && token != Token.BEGIN_ARRAY) {
+            throw new IllegalStateException("Not at the start of an object or array");
+        }
+        int target = depth - 1;
+        while (depth > target) {
+            next();
+        }
+    }
+
+    /**
+     * The current token as text: the unescaped value of a NAME or STRING,
+     * or the literal text of a NUMBER, TRUE, FALSE or NULL
+     */
+    public String text() {
+        if (!escaped) {
+            return new String(data, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8);
+        }
+        return unescape();
+    }
+
+    public Token token() {
+        return token;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    private boolean isBlank() {
+        skipWhitespace();
+        return pos == end;
+    }
+
+    private Token readName() {
+        if (peek() != '"') {
+            throw error("Expected a member name");
+        }
+        readString();
+        skipWhitespace();
+        if (peek() != ':') {
+            throw error("Expected ':'");
+        }
+        pos++;
+        state = EXPECT_VALUE;
+        return token = Token.NAME;
+    }
+
+    private Token readValue() {
+        byte b = peek();
+        switch (b) {
+            case '{':
+                open(false);
+                state = EXPECT_FIRST_NAME_OR_END;
+                return token = Token.BEGIN_OBJECT;
+            case '[':
+                open(true);
+                state = EXPECT_FIRST_VALUE_OR_END;
+                return token = Token.BEGIN_ARRAY;
+            case '"':
+                readString();
+                state = EXPECT_SEPARATOR_OR_END;
+                return token = Token.STRING;
+            case 't':
+                readLiteral("true");
+                return token = Token.TRUE;
+            case 'f':
+                readLiteral("false");
+                return token = Token.FALSE;
+            case 'n':
+                readLiteral("null");
+                return token = Token.NULL;
+            default:
+                if (b == '-' || (b >= '0' && b <= '9')) {
+                    readNumber();
+                    return token = Token.NUMBER;
+                }
+                throw error("Unexpected character '" + (char) (b & 0xFF) + "'");
+        }
+    }
+
+    private void open(boolean array) {
+        if (depth == MAX_DEPTH) {
+            throw error("JSON nested deeper than " + MAX_DEPTH + " levels");
+        }
+        tokenStart = pos;
+        tokenEnd = ++pos;
+        escaped = false;
+        depth++;
+        if (array) {
+            arrays |= 1L << depth;
+        } else {
+            arrays &= ~(1L << depth);
+        }
+    }
+
+    private Token close() {
+        Token closed = inArray() ? Token.END_ARRAY : Token.END_OBJECT;
+        tokenStart = pos;
+        tokenEnd = ++pos;
+        escaped = false;
+        depth--;
+        state = EXPECT_SEPARATOR_OR_END;
+        return token = closed;
+    }
+
+    private boolean inArray() {
+        return (arrays & (1L << depth)) != 0;
+    }
+
+    /**
+     * Scan a string, leaving tokenStart/tokenEnd around its raw contents
+     */
+    private void readString() {
+        int i = ++pos;
+        boolean sawEscape = false;
+        while (true) {
+            if (i >= end) {
+                throw error("Unterminated string");
+            }
+            byte b = data[i];
+            if (b == '"') {
+                break;
+            }
+            if (b == '\\') {
+                sawEscape = true;
+                if (++i >= end) {
+                    throw error("Unterminated string");
+                }
+                switch (data[i]) {
+                    case '"': case '\\': case '/': case 'b': case 'f': case 'n': case 'r': case 't':
+                        break;
+                    case 'u':
+                        if (i + 4 >= end) {
+                            throw error("Unterminated string");
+                        }
+                        for (int k = 1; k <= 4; k++) {
+                            if (hexValue(data[i + k]) < 0) {
+                                pos = i + k;
+                                throw error("Invalid \\u escape");
+                            }
+                        }
+                        i += 4;
+                        break;
+                    default:
+                        pos = i;
+                        throw error("Invalid escape character");
+                }
+            } else if (b >= 0 && b < 0x20) {
+                pos = i;
+                throw error("Unescaped control character in string");
+            }
+            i++;
+        }
+        tokenStart = pos;
+        tokenEnd = i;
+        escaped = sawEscape;
+        pos = i + 1;
+    }
+
+    private void readNumber() {
+        int start = pos;
+        if (data[pos] == '-') {
+            pos++;
+        }
+        if (pos < end && data[pos] == '0') {
+            pos++;
+        } else if (digits() == 0) {
+            throw error("Invalid number");
+        }
+        if (pos < end && data[pos] == '.') {
+            pos++;
+            if (digits() == 0) {
+                throw error("Invalid number");
+            }
+        }
+        if (pos < end && (data[pos] == 'e' || data[pos] == 'E')) {
+            pos++;
+            if (pos < end && (data[pos] == '+' || data[pos] == '-')) {
+                pos++;
+            }
+            if (digits() == 0) {
+                throw error("Invalid number");
+            }
+        }
+        tokenStart = start;
+        tokenEnd = pos;
+        escaped = false;
+        state = EXPECT_SEPARATOR_OR_END;
+    }
+
+    private int digits() {
+        int start = pos;
+        while (pos < end && data[pos] >= '0' && data[pos] <= '9') {
+            pos++;
+        }
+        return pos - start;
+    }
+
+    private void readLiteral(String literal) {
+        int length = literal.length();
+        if (end - pos < length) {
+            throw error("Invalid literal");
+        }
+        for (int i = 0; i < length; i++) {
+            if (data[pos + i] != literal.charAt(i)) {
+                throw error("Invalid literal");
+            }
+        }
+        tokenStart = pos;
+        tokenEnd = pos += length;
+        escaped = false;
+        state = EXPECT_SEPARATOR_OR_END;
+    }
+
+    /**
+     * Decode a string that contains escapes. Runs of plain bytes are copied
+     * through as UTF-8; escapes become their UTF-8 encoding.
+     */
+    private String unescape() {
+        byte[] out = new byte[tokenEnd - tokenStart];
+        int size = 0;
+        for (int i = tokenStart; i < tokenEnd; i++) {
+            byte b = data[i];
+            if (b != '\\') {
+                out[size++] = b;
+                continue;
+            }
+            byte c = data[++i];
+            switch (c) {
+                case 'b': out[size++] = '\b'; break;
+                case 'f': out[size++] = '\f'; break;
+                case 'n': out[size++] = '\n'; break;
+                case 'r': out[size++] = '\r'; break;
+                case 't': out[size++] = '\t'; break;
+                case 'u': {
+                    int codePoint = hex4(i + 1);
+                    i += 4;
+                    if (Character.isHighSurrogate((char) codePoint) && i + 6 < tokenEnd
+                            && data[i + 1] == '\\' && data[i + 2] == 'u') {
+                        int low = hex4(i + 3);
+                        if (Character.isLowSurrogate((char) low)) {
+                            codePoint = Character.toCodePoint((char) codePoint, (char) low);
+                            i += 6;
+                        }
+                    }
+                    if (Character.isSurrogate((char) codePoint) && codePoint <= 0xFFFF) {
+                        codePoint = 0xFFFD; // Unpaired surrogate
+                    }
+                    size = appendUtf8(out, size, codePoint);
+                    break;
+                }
+                default: // '"', '\\' and '/'
+                    out[size++] = c;
+            }
+        }
+        return new String(out, 0, size, StandardCharsets.UTF_8);
+    }
+
+    // A \\uXXXX escape is six bytes and encodes to at most three, and a
+    // surrogate pair is twelve bytes for four, so out never needs to grow
+    private static int appendUtf8(byte[] out, int size, int codePoint) {
+        if (codePoint < 0x80) {
+            out[size++] = (byte) codePoint;
+        } else if (codePoint < 0x800) {
+            out[size++] = (byte) (0xC0 | (codePoint >> 6));
+            out[size++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            out[size++] = (byte) (0xE0 | (codePoint >> 12));
+            out[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            out[size++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+            out[size++] = (byte) (0xF0 | (codePoint >> 18));
+            out[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            out[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            out[size++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
+        return size;
+    }
+
+    private int hex4(int at) {
+        return hexValue(data[at]) << 12 | hexValue(data[at + 1]) << 8
+            | hexValue(data[at + 2]) << 4 | hexValue(data[at + 3]);
+    }
+
+    private static int hexValue(byte b) {
+        if (b >= '0' && b <= '9') return b - '0';
+        if (b >= 'a' && b <= 'f') return b - 'a' + 10;
+        if (b >= 'A' && b <= 'F') return b - 'A' + 10;
+        return -1;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            byte b = data[pos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private byte peek() {
+        if (pos >= end) {
+            throw error("Unexpected end of input");
+        }
+        return data[pos];
+    }
+
+    private MalformedJsonException error(String message) {
+        return new MalformedJsonException(message + " at byte " + pos);
+    }
+}
@@ -0,0 +1,351 @@
+package main.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming JSON writer that encodes straight into a UTF-8 byte buffer.
+ * Commas between members and elements are inserted automatically, strings
+ * are escaped while they are copied, and numbers are written digit by digit,
+ * so building a response creates no intermediate Strings. Each thread keeps
+ * one writer whose buffer is reused across requests:
+ *
+ *   try (JsonWriter json = JsonWriter.acquire()) {
+ *       json.beginObject().name("id").value(42).endObject();
+ *       ApiResponse.sendJson(exchange, 200, json);
+ *   }
+ *
+ * A writer is not thread-safe and must not be used after close().
+ */
+public final class JsonWriter implements AutoCloseable {
+
+    private static final ThreadLocal<JsonWriter> CACHED = ThreadLocal.withInitial(JsonWriter::new);
+    // Buffers that grew past this are not kept for the next request
+    private static final int MAX_RETAINED_BYTES = 1 << 20;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    // Largest amount whose cents fit in a long without overflow
+    private static final double MAX_CENTS_AMOUNT = 9.0e16;
+
+    private byte[] buffer = new byte[4096];
+    private int size = 0;
+    // One bit per nesting level: set once the container has a first element
+    private long hasElements = 0;
+    private int depth = 0;
+    private boolean afterName = false;
+    private boolean inUse = false;
+
+    /**
+     * This thread's writer, emptied, or a fresh one if it is already in use
+     * (e.g. a broadcast built while a response is being written)
+     */
+    public static JsonWriter acquire() {
+        JsonWriter writer = CACHED.get();
+        if (writer.inUse) {
+            writer = new JsonWriter();
+        }
+        writer.reset();
+        writer.inUse = true;
+        return writer;
+    }
+
+    /**
+     * Give the writer back for reuse by this thread
+     */
+    @Override
+    public void close() {
+        inUse = false;
+        if (buffer.length > MAX_RETAINED_BYTES) {
+            buffer = new byte[4096];
+        }
+    }
+
+    public JsonWriter reset() {
+        size = 0;
+        hasElements = 0;
+        depth = 0;
+        afterName = false;
+        return this;
+    }
+
+    public JsonWriter beginObject() {
+        beforeValue();
+        writeByte('{');
+        push();
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        depth--;
+        writeByte('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        beforeValue();
+        writeByte('[');
+        push();
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        depth--;
+        writeByte(']');
+        return this;
+    }
+
+    /**
+     * Start an object member; the next call writes its value
+     */
+    public JsonWriter name(String name) {
+        separate();
+        writeString(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        beforeValue();
+        if (value == null) {
+            writeBytes(NULL);
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    /**
+     * A string that is written as "" when null, as the responses have
+     * always done for optional text fields
+     */
+    public JsonWriter valueOrEmpty(String value) {
+        return value(value == null ? "" : value);
+    }
+
+    public JsonWriter value(long value) {
+        beforeValue();
+        writeLong(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        beforeValue();
+        writeBytes(value ? TRUE : FALSE);
+        return this;
+    }
+
+    public JsonWriter nullValue() {
+        beforeValue();
+        writeBytes(NULL);
+        return this;
+    }
+
+    /**
+     * A price with exactly two decimals, like "%.2f". Non-finite values,
+     * which JSON cannot represent, are written as null.
+     */
+    public JsonWriter money(double amount) {
+        beforeValue();
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            writeBytes(NULL);
+        } else if (Math.abs(amount) >= MAX_CENTS_AMOUNT) {
+            writeAscii(new BigDecimal(amount).setScale(2, RoundingMode.HALF_UP).toPlainString());
+        } else {
+            long cents = toCents(Math.abs(amount));
+            if (amount < 0 && cents != 0) {
+                writeByte('-');
+            }
+            writeLong(cents / 100);
+            writeByte('.');
+            long fraction = cents % 100;
+            writeByte('0' + (int) (fraction / 10));
+            writeByte('0' + (int) (fraction % 10));
+        }
+        return this;
+    }
+
+    /**
+     * Round to cents the way "%.2f" does: half up, applied to the shortest
+     * decimal form of the double. Only values within a few ulps of a half
+     * cent need that decimal form; everything else is decided in binary.
+     */
+    private static long toCents(double amount) {
+        double scaled = amount * 100;
+        long cents = (long) scaled;
+        double fraction = scaled - cents;
+        if (Math.abs(fraction - 0.5) <= 8 * Math.ulp(scaled)) {
+            return new BigDecimal(Double.toString(amount)).setScale(2, RoundingMode.HALF_UP)
+                .unscaledValue().longValue();
+        }
+        return fraction > 0.5 ? cents + 1 : cents;
+    }
+
+    /**
+     * Insert JSON that is already serialized, as one value
+     */
+    public JsonWriter rawValue(String json) {
+        beforeValue();
+        writeAscii(json);
+        return this;
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, size, StandardCharsets.UTF_8);
+    }
+
+    private void push() {
+        if (++depth >= 64) {
+            throw new IllegalStateException("JSON nested deeper than 63 levels");
+        }
+        hasElements &= ~(1L << depth);
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+        } else {
+            separate();
+        }
+    }
+
+    private void separate() {
+        if (depth == 0) {
+            return;
+        }
+        long bit = 1L << depth;
+        if ((hasElements & bit) != 0) {
+            writeByte(',');
+        } else {
+            hasElements |= bit;
+        }
+    }
+
+    private void writeString(String value) {
+        int length = value.length();
+        // Worst case is 6 bytes per char, for escaped control characters
+        ensureCapacity(2 + length * 6);
+        byte[] out = buffer;
+        int pos = size;
+        out[pos++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    out[pos++] = '\\';
+                }
+                out[pos++] = (byte) c;
+            } else if (c < 0x20) {
+                out[pos++] = '\\';
+                switch (c) {
+                    case '\n': out[pos++] = 'n'; break;
+                    case '\r': out[pos++] = 'r'; break;
+                    case '\t': out[pos++] = 't'; break;
+                    case '\b': out[pos++] = 'b'; break;
+                    case '\f': out[pos++] = 'f'; break;
+                    default:
+                        out[pos++] = 'u';
+                        out[pos++] = '0';
+                        out[pos++] = '0';
+                        out[pos++] = HEX[c >> 4];
+                        out[pos++] = HEX[c & 0xF];
+                }
+            } else if (c < 0x800) {
+                out[pos++] = (byte) (0xC0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                out[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                out[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, replaced like String.getBytes does
+                out[pos++] = '?';
+            } else {
+                out[pos++] = (byte) (0xE0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        out[pos++] = '"';
+        size = pos;
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii("-9223372036854775808");
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int pos = size + digits;
+        size = pos;
+        do {
+            buffer[--pos] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+    }
+
+    private void writeAscii(String text) {
+        int length = text.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                // Not ASCII after all; fall back to a full encode
+                writeBytes(text.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            buffer[size++] = (byte) c;
+        }
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) b;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package main.util;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Leveled logger for one server component.
+ * Obtained once per class with Logger.get("Component") and kept in a static
+ * field. The level comes from logging.level.&lt;Component&gt;, falling back to
+ * logging.level, and is fixed when the logger is created, so a disabled
+ * call is a single int compare. Messages are templates with {} placeholders
+ * filled in from the arguments; the text is only built on the appender's
+ * thread, so calls below the level allocate nothing. Enabled events are
+ * handed to the shared AsyncLogAppender and never wait on output.
+ *
+ * Arguments that are expensive to compute should still be guarded with
+ * isDebugEnabled() and friends.
+ */
+public final class Logger {
+
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR, OFF;
+
+        static Level parse(String value, Level defaultLevel) {
+            if (value == null || value.trim().isEmpty()) {
+                return defaultLevel;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                System.err.println("[Logger] Unknown log level '" + value + "', using " + defaultLevel);
+                return defaultLevel;
+            }
+        }
+    }
+
+    private static final Map<String, Logger> LOGGERS = new ConcurrentHashMap<>();
+
+    private final String component;
+    private final int threshold;
+
+    private Logger(String component, Level level) {
+        this.component = component;
+        this.threshold = level.ordinal();
+    }
+
+    /**
+     * The logger for a component; its name is printed as the [Component] prefix
+     */
+    public static Logger get(String component) {
+        return LOGGERS.computeIfAbsent(component, name -> {
+            ConfigManager config = ConfigManager.getInstance();
+            Level defaultLevel = Level.parse(config.getString("logging.level"), Level.INFO);
+            return new Logger(name, Level.parse(config.getString("logging.level." + name), defaultLevel));
+        });
+    }
+
+    /**
+     * Block until everything logged so far has been written, or the timeout passes
+     */
+    public static void flush(long timeoutMillis) {
+        AsyncLogAppender.getInstance().flush(timeoutMillis);
+    }
+
+    public String getComponent() {
+        return component;
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+    public boolean isTraceEnabled() {
+        return Level.TRACE.ordinal() >= threshold;
+    }
+
+    public boolean isDebugEnabled() {
+        return Level.DEBUG.ordinal() >= threshold;
+    }
+
+    public boolean isInfoEnabled() {
+        return Level.INFO.ordinal() >= threshold;
+    }
+
+    public void trace(String message) {
+        if (Level.TRACE.ordinal() >= threshold) log(Level.TRACE, message, 0, null, null, null, null);
+    }
+
+    public void trace(String template, Object a) {
+        if (Level.TRACE.ordinal() >= threshold) log(Level.TRACE, template, 1, a, null, null, null);
+    }
+
+    public void trace(String template, Object a, Object b) {
+        if (Level.TRACE.ordinal() >= threshold) log(Level.TRACE, template, 2, a, b, null, null);
+    }
+
+    public void trace(String template, Object a, Object b, Object c) {
+        if (Level.TRACE.ordinal() >= threshold) log(Level.TRACE, template, 3, a, b, c, null);
+    }
+
+    public void debug(String message) {
+        if (Level.DEBUG.ordinal() >= threshold) log(Level.DEBUG, message, 0, null, null, null, null);
+    }
+
+    public void debug(String template, Object a) {
+        if (Level.DEBUG.ordinal() >= threshold) log(Level.DEBUG, template, 1, a, null, null, null);
+    }
+
+    public void debug(String template, Object a, Object b) {
+        if (Level.DEBUG.ordinal() >= threshold) log(Level.DEBUG, template, 2, a, b, null, null);
+    }
+
+    public void debug(String template, Object a, Object b, Object c) {
+        if (Level.DEBUG.ordinal() >= threshold) log(Level.DEBUG, template, 3, a, b, c, null);
+    }
+
+    public void info(String message) {
+        if (Level.INFO.ordinal() >= threshold) log(Level.INFO, message, 0, null, null, null, null);
+    }
+
+    public void info(String template, Object a) {
+        if (Level.INFO.ordinal() >= threshold) log(Level.INFO, template, 1, a, null, null, null);
+    }
+
+    public void info(String template, Object a, Object b) {
+        if (Level.INFO.ordinal() >= threshold) log(Level.INFO, template, 2, a, b, null, null);
+    }
+
+    public void info(String template, Object a, Object b, Object c) {
+        if (Level.INFO.ordinal() >= threshold) log(Level.INFO, template, 3, a, b, c, null);
+    }
+
+    public void warn(String message) {
+        if (Level.WARN.ordinal() >= threshold) log(Level.WARN, message, 0, null, null, null, null);
+    }
+
+    public void warn(String template, Object a) {
+        if (Level.WARN.ordinal() >= threshold) log(Level.WARN, template, 1, a, null, null, null);
+    }
+
+    public void warn(String template, Object a, Object b) {
+        if (Level.WARN.ordinal() >= threshold) log(Level.WARN, template, 2, a, b, null, null);
+    }
+
+    public void warn(String message, Throwable thrown) {
+        if (Level.WARN.ordinal() >= threshold) log(Level.WARN, message, 1, thrown, null, null, thrown);
+    }
+
+    public void error(String message) {
+        if (Level.ERROR.ordinal() >= threshold) log(Level.ERROR, message, 0, null, null, null, null);
+    }
+
+    public void error(String template, Object a) {
+        if (Level.ERROR.ordinal() >= threshold) log(Level.ERROR, template, 1, a, null, null, null);
+    }
+
+    public void error(String template, Object a, Object b) {
+        if (Level.ERROR.ordinal() >= threshold) log(Level.ERROR, template, 2, a, b, null, null);
+    }
+
+    public void error(String message, Throwable thrown) {
+        if (Level.ERROR.ordinal() >= threshold) log(Level.ERROR, message, 1, thrown, null, null, thrown);
+    }
+
+    private void log(Level level, String template, int argCount, Object a, Object b, Object c, Throwable thrown) {
+        AsyncLogAppender.getInstance().append(level, component, template, argCount, a, b, c, thrown);
+    }
+
+    /**
+     * Fill the {} placeholders of a template in order; placeholders beyond
+     * the arguments given are left as they are
+     */
+    static void format(StringBuilder out, String template, int argCount, Object a, Object b, Object c) {
+        int arg = 0;
+        int from = 0;
+        int at;
+        while (arg < argCount && (at = template.indexOf("{}", from)) >= 0) {
+            out.append(template, from, at);
+            out.append(arg == 0 ? a : arg == 1 ? b : c);
+            arg++;
+            from = at + 2;
+        }
+        out.append(template, from, template.length());
+    }
+}
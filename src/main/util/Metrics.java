@@ -0,0 +1,197 @@
+package main.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * In-process metrics registry.
+ * Components register counters, gauges and latency histograms once, keep
+ * them in static fields and record into them directly: recording never
+ * touches the registry, takes no lock and allocates nothing. Registering a
+ * name and label that already exist returns the existing metric, so
+ * several instances of a component share it.
+ *
+ * writePrometheus renders every metric in the Prometheus text exposition
+ * format for GET /api/metrics. Histograms are exposed as summaries in
+ * seconds, with the 0.5, 0.9, 0.99 and 0.999 quantiles and the maximum as
+ * quantile 1, counted since startup.
+ */
+public final class Metrics {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 1.0};
+
+    /**
+     * Monotonic count of events
+     */
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * Current value that goes up and down: set directly, or read from a
+     * supplier at scrape time
+     */
+    public static final class Gauge {
+        private final AtomicLong value = new AtomicLong();
+        private volatile LongSupplier supplier;
+
+        public void set(long newValue) {
+            value.set(newValue);
+        }
+
+        public void increment() {
+            value.incrementAndGet();
+        }
+
+        public void decrement() {
+            value.decrementAndGet();
+        }
+
+        public long get() {
+            LongSupplier source = supplier;
+            return source != null ? source.getAsLong() : value.get();
+        }
+    }
+
+    private static final class Family {
+        final String name;
+        final String help;
+        final String type;
+        // Label text ("" or name="value") to metric, in registration order
+        final Map<String, Object> metrics = new LinkedHashMap<>();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private static final Map<String, Family> FAMILIES = new LinkedHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static Counter counter(String name, String help) {
+        return counter(name, help, null, null);
+    }
+
+    public static Counter counter(String name, String help, String labelName, String labelValue) {
+        return (Counter) register(name, help, "counter", labelName, labelValue, Counter::new);
+    }
+
+    public static Gauge gauge(String name, String help) {
+        return (Gauge) register(name, help, "gauge", null, null, Gauge::new);
+    }
+
+    /**
+     * A gauge read from the supplier at scrape time. Registering the name
+     * again points it at the new supplier.
+     */
+    public static Gauge gauge(String name, String help, LongSupplier supplier) {
+        Gauge gauge = gauge(name, help);
+        gauge.supplier = supplier;
+        return gauge;
+    }
+
+    public static LatencyHistogram histogram(String name, String help) {
+        return histogram(name, help, null, null);
+    }
+
+    public static LatencyHistogram histogram(String name, String help, String labelName, String labelValue) {
+        return (LatencyHistogram) register(name, help, "summary", labelName, labelValue, LatencyHistogram::new);
+    }
+
+    private static synchronized Object register(String name, String help, String type,
+                                                String labelName, String labelValue,
+                                                Supplier<Object> create) {
+        Family family = FAMILIES.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        String labels = labelName == null ? "" : labelName + "=\"" + escapeLabel(labelValue) + "\"";
+        return family.metrics.computeIfAbsent(labels, l -> create.get());
+    }
+
+    /**
+     * Render every registered metric in the Prometheus text format
+     */
+    public static void writePrometheus(StringBuilder out) {
+        List<Family> families;
+        List<List<Map.Entry<String, Object>>> members = new ArrayList<>();
+        synchronized (Metrics.class) {
+            families = new ArrayList<>(FAMILIES.values());
+            for (Family family : families) {
+                members.add(new ArrayList<>(family.metrics.entrySet()));
+            }
+        }
+
+        for (int f = 0; f < families.size(); f++) {
+            Family family = families.get(f);
+            out.append("# HELP ").append(family.name).append(' ').append(escapeHelp(family.help)).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> entry : members.get(f)) {
+                String labels = entry.getKey();
+                Object metric = entry.getValue();
+                if (metric instanceof Counter) {
+                    sample(out, family.name, labels, null, ((Counter) metric).get());
+                } else if (metric instanceof Gauge) {
+                    sample(out, family.name, labels, null, ((Gauge) metric).get());
+                } else {
+                    LatencyHistogram.Snapshot snapshot = ((LatencyHistogram) metric).snapshot();
+                    for (double quantile : QUANTILES) {
+                        sample(out, family.name, labels, "quantile=\"" + quantile + "\"",
+                               seconds(snapshot.valueAtQuantile(quantile)));
+                    }
+                    sample(out, family.name + "_sum", labels, null, seconds(snapshot.getSumNanos()));
+                    sample(out, family.name + "_count", labels, null, snapshot.getCount());
+                }
+            }
+        }
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, String extraLabel, Object value) {
+        out.append(name);
+        if (!labels.isEmpty() || extraLabel != null) {
+            out.append('{').append(labels);
+            if (extraLabel != null) {
+                if (!labels.isEmpty()) {
+                    out.append(',');
+                }
+                out.append(extraLabel);
+            }
+            out.append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,187 @@
+package main.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bounded queue of messages waiting to be written to one connection.
+ * Producers on any thread offer encoded messages; the connection's I/O
+ * thread polls them when the socket can take more. When a slow reader lets
+ * the queue reach its byte limit, the overflow policy decides what gives.
+ * Also keeps the backlog counters reported for the connection.
+ */
+public class OutboundQueue {
+    private static final Logger LOG = Logger.get("OutboundQueue");
+
+    /**
+     * What to do with a message that does not fit
+     */
+    public enum OverflowPolicy {
+        /** Discard the oldest queued messages to make room */
+        DROP_OLDEST,
+        /** Replace a queued message with the same key (e.g. a bid update for
+         *  the same auction), otherwise discard the oldest */
+        COALESCE,
+        /** Refuse the message; the caller closes the connection */
+        DISCONNECT;
+
+        public static OverflowPolicy fromConfig(String value, OverflowPolicy defaultPolicy) {
+            if (value == null) {
+                return defaultPolicy;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Unknown overflow policy '{}', using {}", value, defaultPolicy);
+                return defaultPolicy;
+            }
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        ByteBuffer data;
+
+        Entry(ByteBuffer data, String key) {
+            this.data = data;
+            this.key = key;
+        }
+    }
+
+    private final int maxBytes;
+    private final OverflowPolicy policy;
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private final Map<String, Entry> entriesByKey = new HashMap<>();
+
+    private int queuedBytes = 0;
+    private int peakBytes = 0;
+    private long offeredMessages = 0;
+    private long droppedMessages = 0;
+    private long coalescedMessages = 0;
+
+    public OutboundQueue(int maxBytes, OverflowPolicy policy) {
+        this.maxBytes = maxBytes;
+        this.policy = policy;
+    }
+
+    /**
+     * Queue a message. coalesceKey may be null for messages that must not be
+     * replaced. Returns false only under DISCONNECT when the queue is full.
+     */
+    public synchronized boolean offer(ByteBuffer data, String coalesceKey) {
+        int size = data.remaining();
+        offeredMessages++;
+
+        if (policy == OverflowPolicy.COALESCE && coalesceKey != null) {
+            Entry queued = entriesByKey.get(coalesceKey);
+            if (queued != null) {
+                // The newer update supersedes the one still waiting
+                queuedBytes += size - queued.data.remaining();
+                queued.data = data;
+                coalescedMessages++;
+                peakBytes = Math.max(peakBytes, queuedBytes);
+                return true;
+            }
+        }
+
+        if (queuedBytes + size > maxBytes && !entries.isEmpty()) {
+            if (policy == OverflowPolicy.DISCONNECT) {
+                droppedMessages++;
+                return false;
+            }
+            while (!entries.isEmpty() && queuedBytes + size > maxBytes) {
+                removeEntry(entries.pollFirst());
+                droppedMessages++;
+            }
+        }
+
+        append(data, coalesceKey);
+        return true;
+    }
+
+    /**
+     * Queue a message regardless of the limit, e.g. a close frame
+     */
+    public synchronized void add(ByteBuffer data) {
+        offeredMessages++;
+        append(data, null);
+    }
+
+    /**
+     * Take the next message to write, or null if none is waiting
+     */
+    public synchronized ByteBuffer poll() {
+        Entry entry = entries.pollFirst();
+        if (entry == null) {
+            return null;
+        }
+        removeEntry(entry);
+        return entry.data;
+    }
+
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        entriesByKey.clear();
+        queuedBytes = 0;
+    }
+
+    private void append(ByteBuffer data, String key) {
+        Entry entry = new Entry(data, key);
+        entries.addLast(entry);
+        if (key != null) {
+            entriesByKey.put(key, entry);
+        }
+        queuedBytes += data.remaining();
+        peakBytes = Math.max(peakBytes, queuedBytes);
+    }
+
+    private void removeEntry(Entry entry) {
+        queuedBytes -= entry.data.remaining();
+        if (entry.key != null && entriesByKey.get(entry.key) == entry) {
+            entriesByKey.remove(entry.key);
+        }
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    public synchronized int getQueuedMessages() {
+        return entries.size();
+    }
+
+    public synchronized int getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    public synchronized int getPeakBytes() {
+        return peakBytes;
+    }
+
+    public synchronized long getOfferedMessages() {
+        return offeredMessages;
+    }
+
+    public synchronized long getDroppedMessages() {
+        return droppedMessages;
+    }
+
+    public synchronized long getCoalescedMessages() {
+        return coalescedMessages;
+    }
+
+    /**
+     * One-line summary of the backlog for logs and stats
+     */
+    public synchronized String describe() {
+        return String.format("queued=%d msgs/%d bytes, peak=%d bytes, offered=%d, dropped=%d, coalesced=%d (%s)",
+            entries.size(), queuedBytes, peakBytes, offeredMessages, droppedMessages,
+            coalescedMessages, policy);
+    }
+}
@@ -0,0 +1,81 @@
+package main.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A connection handed out by ConnectionPool.
+ * Closing it returns it to the pool instead of closing the JDBC connection.
+ */
+public class PooledConnection implements AutoCloseable {
+    private static final Logger LOG = Logger.get("PooledConnection");
+
+    private final Connection connection;
+    private final ConnectionPool pool;
+    private final boolean writer;
+    private final StatementCache statementCache;
+
+    PooledConnection(Connection connection, ConnectionPool pool, boolean writer, StatementCache statementCache) {
+        this.connection = connection;
+        this.pool = pool;
+        this.writer = writer;
+        this.statementCache = statementCache;
+    }
+
+    /**
+     * Prepare a one-off statement. The caller closes it.
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return connection.prepareStatement(sql);
+    }
+
+    /**
+     * Get a prepared statement from this connection's cache.
+     * The statement is reused by later callers, so do not close it;
+     * close its ResultSet instead.
+     */
+    public PreparedStatement prepareCached(String sql) throws SQLException {
+        return statementCache.get(sql);
+    }
+
+    public Statement createStatement() throws SQLException {
+        return connection.createStatement();
+    }
+
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        connection.setAutoCommit(autoCommit);
+    }
+
+    public void commit() throws SQLException {
+        connection.commit();
+    }
+
+    public void rollback() throws SQLException {
+        connection.rollback();
+    }
+
+    public boolean isWriter() {
+        return writer;
+    }
+
+    /**
+     * Return this connection to the pool
+     */
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    void closeQuietly() {
+        statementCache.clear();
+        try {
+            if (!connection.isClosed()) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            LOG.error("Failed to close connection: {}", e.getMessage());
+        }
+    }
+}
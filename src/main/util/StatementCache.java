@@ -0,0 +1,102 @@
+package main.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements for a single connection.
+ * Not thread-safe: a connection is only used by one thread at a time,
+ * which ConnectionPool guarantees.
+ */
+public class StatementCache {
+    private static final Logger LOG = Logger.get("StatementCache");
+
+    private final Connection connection;
+    private final int capacity;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    private PreparedStatement uncached;
+
+    /**
+     * Counters are shared between the caches of one pool so they can be
+     * reported as a single total
+     */
+    public StatementCache(Connection connection, int capacity,
+                          AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.capacity) {
+                    closeQuietly(eldest.getValue());
+                    StatementCache.this.evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get the prepared statement for this SQL, preparing it on first use.
+     * The caller must not close the returned statement.
+     */
+    public PreparedStatement get(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement != null) {
+            hits.incrementAndGet();
+            statement.clearParameters();
+            return statement;
+        }
+
+        misses.incrementAndGet();
+        statement = connection.prepareStatement(sql);
+        if (capacity > 0) {
+            statements.put(sql, statement);
+        } else {
+            // Caching disabled: keep only the latest statement so it can be
+            // closed on the next call instead of leaking
+            if (uncached != null) {
+                closeQuietly(uncached);
+            }
+            uncached = statement;
+        }
+        return statement;
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    /**
+     * Close and forget every cached statement
+     */
+    public void clear() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+        if (uncached != null) {
+            closeQuietly(uncached);
+            uncached = null;
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            LOG.error("Failed to close statement: {}", e.getMessage());
+        }
+    }
+}
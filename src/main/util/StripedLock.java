@@ -0,0 +1,41 @@
+package main.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks selected by key hash.
+ * Work on the same key is always serialized, while different keys usually
+ * land on different stripes and proceed in parallel.
+ */
+public class StripedLock {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * The stripe count is rounded up to a power of two
+     */
+    public StripedLock(int stripeCount, boolean fair) {
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock(fair);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Get the lock guarding this key
+     */
+    public ReentrantLock get(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & mask];
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+}
@@ -8,18 +8,14 @@ import java.util.concurrent.TimeUnit;
  * Manages thread pools for the chat server
  */
 public class ThreadPoolManager {
+    private static final Logger LOG = Logger.get("ThreadPoolManager");
+
     private static ThreadPoolManager instance;
-    private ExecutorService clientHandlerPool;
     private ExecutorService messageProcessorPool;
     
     private ThreadPoolManager() {
-        // Create thread pools
-        clientHandlerPool = Executors.newCachedThreadPool(r -> {
-            Thread t = new Thread(r, "ClientHandler-" + System.currentTimeMillis());
-            t.setDaemon(true);
-            return t;
-        });
-        
+        // Client connections run on the chat server's event loops;
+        // this pool handles the work that should not block them
         messageProcessorPool = Executors.newFixedThreadPool(10, r -> {
             Thread t = new Thread(r, "MessageProcessor-" + System.currentTimeMillis());
             t.setDaemon(true);
@@ -34,13 +30,6 @@ public class ThreadPoolManager {
         return instance;
     }
     
-    /**
-     * Submit a client handler task
-     */
-    public void submitClientHandler(Runnable task) {
-        clientHandlerPool.submit(task);
-    }
-    
     /**
      * Submit a message processing task
      */
@@ -52,33 +41,21 @@ public class ThreadPoolManager {
      * Shutdown all thread pools gracefully
      */
     public void shutdown() {
-        System.out.println("Shutting down thread pools...");
+        LOG.info("Shutting down thread pools...");
         
-        clientHandlerPool.shutdown();
         messageProcessorPool.shutdown();
         
         try {
-            if (!clientHandlerPool.awaitTermination(10, TimeUnit.SECONDS)) {
-                clientHandlerPool.shutdownNow();
-            }
             if (!messageProcessorPool.awaitTermination(10, TimeUnit.SECONDS)) {
                 messageProcessorPool.shutdownNow();
             }
-            System.out.println("Thread pools shutdown complete.");
+            LOG.info("Thread pools shutdown complete.");
         } catch (InterruptedException e) {
-            clientHandlerPool.shutdownNow();
             messageProcessorPool.shutdownNow();
             Thread.currentThread().interrupt();
         }
     }
     
-    /**
-     * Get active thread count for client handlers
-     */
-    public int getActiveClientHandlers() {
-        return ((java.util.concurrent.ThreadPoolExecutor) clientHandlerPool).getActiveCount();
-    }
-    
     /**
      * Get active thread count for message processors
      */
@@ -90,6 +67,6 @@ public class ThreadPoolManager {
      * Check if thread pools are shutdown
      */
     public boolean isShutdown() {
-        return clientHandlerPool.isShutdown() && messageProcessorPool.isShutdown();
+        return messageProcessorPool.isShutdown();
     }
 }
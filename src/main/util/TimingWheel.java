@@ -0,0 +1,319 @@
+package main.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel for large numbers of one-shot timers keyed by id.
+ * Four levels of 256 slots: a level 0 slot is one tick wide and each level up
+ * is 256 times coarser. Scheduling and cancelling link or unlink one node, so
+ * both are O(1). Timers in a coarse slot move down a level when the finer
+ * wheel wraps around. Everything that falls due in the same tick is passed to
+ * the handler as one batch, on the wheel's own thread. When the wheel falls
+ * behind it skips straight over ticks in which nothing happens, and a wheel
+ * made with manual() has no thread and moves only when told to.
+ */
+public class TimingWheel {
+    private static final Logger LOG = Logger.get("TimingWheel");
+
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    /**
+     * Receives the keys of all timers that expired in one tick
+     */
+    public interface ExpiryHandler {
+        void onExpired(List<String> keys);
+    }
+
+    /**
+     * Node of a slot's circular list. Each slot's head is a sentinel.
+     */
+    private static final class Entry {
+        final String key;
+        final long deadlineTick;
+        Entry prev;
+        Entry next;
+
+        Entry(String key, long deadlineTick) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+            this.prev = this;
+            this.next = this;
+        }
+    }
+
+    private final long tickMillis;
+    private final ExpiryHandler handler;
+    private final Entry[][] slots = new Entry[LEVELS][WHEEL_SIZE];
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Object lock = new Object();
+    private final Thread tickerThread;
+    private volatile boolean running = true;
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, ExpiryHandler handler) {
+        this(tickMillis, handler, System.currentTimeMillis(), true);
+    }
+
+    private TimingWheel(long tickMillis, ExpiryHandler handler, long startMillis, boolean ticking) {
+        this.tickMillis = Math.max(1, tickMillis);
+        this.handler = handler;
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                slots[level][i] = new Entry(null, 0);
+            }
+        }
+        this.currentTick = startMillis / this.tickMillis;
+
+        if (ticking) {
+            this.tickerThread = new Thread(this::runTicker, "TimingWheel");
+            this.tickerThread.setDaemon(true);
+            this.tickerThread.start();
+        } else {
+            this.tickerThread = null;
+        }
+    }
+
+    /**
+     * A wheel on a clock of the caller's own, starting at startMillis and
+     * moved on only by advanceTo, for tests and simulations
+     */
+    public static TimingWheel manual(long tickMillis, long startMillis, ExpiryHandler handler) {
+        return new TimingWheel(tickMillis, handler, startMillis, false);
+    }
+
+    /**
+     * Run a manual() wheel up to nowMillis, handing everything that fell due
+     * to the handler as one batch on the calling thread
+     */
+    public void advanceTo(long nowMillis) {
+        List<String> expired = new ArrayList<>();
+        synchronized (lock) {
+            advanceToTick(nowMillis / tickMillis, expired);
+        }
+        if (!expired.isEmpty()) {
+            handler.onExpired(expired);
+        }
+    }
+
+    /**
+     * Set the timer for this key, replacing any timer it already has.
+     * Also used to move a timer when its deadline changes.
+     */
+    public void schedule(String key, long deadlineMillis) {
+        // Round up so a timer never fires before its deadline
+        long deadlineTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        synchronized (lock) {
+            Entry old = entries.remove(key);
+            if (old != null) {
+                unlink(old);
+            }
+            Entry entry = new Entry(key, deadlineTick);
+            entries.put(key, entry);
+            insert(entry, currentTick + 1);
+        }
+    }
+
+    /**
+     * Cancel the timer for this key. Returns false if none was set.
+     */
+    public boolean cancel(String key) {
+        synchronized (lock) {
+            Entry entry = entries.remove(key);
+            if (entry == null) {
+                return false;
+            }
+            unlink(entry);
+            return true;
+        }
+    }
+
+    public boolean isScheduled(String key) {
+        synchronized (lock) {
+            return entries.containsKey(key);
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Put an entry in the slot covering its deadline.
+     * Entries already due go into the slot of earliestTick.
+     */
+    private void insert(Entry entry, long earliestTick) {
+        long target = Math.max(entry.deadlineTick, earliestTick);
+        long delta = target - currentTick;
+        if (delta > MAX_DELTA) {
+            // Beyond the outermost wheel; cascading brings it closer later
+            delta = MAX_DELTA;
+            target = currentTick + delta;
+        }
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) ((target >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        link(slots[level][index], entry);
+    }
+
+    private static void link(Entry head, Entry entry) {
+        entry.prev = head.prev;
+        entry.next = head;
+        head.prev.next = entry;
+        head.prev = entry;
+    }
+
+    private static boolean isEmpty(Entry head) {
+        return head.next == head;
+    }
+
+    private static void unlink(Entry entry) {
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+        entry.prev = entry;
+        entry.next = entry;
+    }
+
+    /**
+     * Move to the next tick: redistribute coarse slots whose turn has come,
+     * then expire everything in the current level 0 slot
+     */
+    private void advance(List<String> expired) {
+        currentTick++;
+
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                break;
+            }
+            int index = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            cascade(slots[level][index]);
+        }
+
+        Entry head = slots[0][(int) (currentTick & WHEEL_MASK)];
+        Entry entry = head.next;
+        while (entry != head) {
+            Entry next = entry.next;
+            unlink(entry);
+            if (entry.deadlineTick <= currentTick) {
+                entries.remove(entry.key);
+                expired.add(entry.key);
+            } else {
+                insert(entry, currentTick + 1);
+            }
+            entry = next;
+        }
+    }
+
+    /**
+     * Advance to nowTick, jumping over ticks in which advance() would find
+     * nothing to expire or cascade
+     */
+    private void advanceToTick(long nowTick, List<String> expired) {
+        while (currentTick < nowTick) {
+            long busyTick = nowTick - currentTick > 1 ? nextBusyTick() : currentTick + 1;
+            if (busyTick > nowTick) {
+                currentTick = nowTick;
+                return;
+            }
+            currentTick = busyTick - 1;
+            advance(expired);
+        }
+    }
+
+    /**
+     * The first tick after the current one that has timers in its level 0
+     * slot or cascades a coarse slot holding timers; Long.MAX_VALUE if no
+     * timers are set. Level 0 only holds the next 255 ticks, and each
+     * coarser level turns over its 256 slots at multiples of its width.
+     */
+    private long nextBusyTick() {
+        if (entries.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        long busyTick = Long.MAX_VALUE;
+        for (long tick = currentTick + 1; tick < currentTick + WHEEL_SIZE; tick++) {
+            if (!isEmpty(slots[0][(int) (tick & WHEEL_MASK)])) {
+                busyTick = tick;
+                break;
+            }
+        }
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * level;
+            long boundary = ((currentTick >>> shift) + 1) << shift;
+            for (int i = 0; i < WHEEL_SIZE && boundary < busyTick; i++, boundary += 1L << shift) {
+                if (!isEmpty(slots[level][(int) ((boundary >>> shift) & WHEEL_MASK)])) {
+                    busyTick = boundary;
+                    break;
+                }
+            }
+        }
+        return busyTick;
+    }
+
+    private void cascade(Entry head) {
+        Entry entry = head.next;
+        while (entry != head) {
+            Entry next = entry.next;
+            unlink(entry);
+            insert(entry, currentTick);
+            entry = next;
+        }
+    }
+
+    private void runTicker() {
+        List<String> expired = new ArrayList<>();
+        while (running) {
+            long nowTick = System.currentTimeMillis() / tickMillis;
+            long nextTick;
+            synchronized (lock) {
+                advanceToTick(nowTick, expired);
+                nextTick = currentTick + 1;
+            }
+
+            if (!expired.isEmpty()) {
+                try {
+                    handler.onExpired(expired);
+                } catch (RuntimeException e) {
+                    LOG.error("Expiry handler failed: {}", e.getMessage());
+                }
+                expired = new ArrayList<>();
+            }
+
+            long sleepMillis = nextTick * tickMillis - System.currentTimeMillis();
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    // Woken by shutdown; the loop condition decides
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop the ticker thread. Timers that have not fired are dropped.
+     */
+    public void shutdown() {
+        running = false;
+        if (tickerThread == null) {
+            return;
+        }
+        tickerThread.interrupt();
+        try {
+            tickerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package main.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A WebSocket frame encoded once and shared by every recipient.
+ * The bytes are never modified after construction; each writer gets its own
+ * read-only view with an independent position, so one broadcast costs a
+ * single encode however many connections it goes to.
+ */
+public final class WebSocketFrame {
+    private final byte[] encoded;
+    private final ByteBuffer view;
+
+    private WebSocketFrame(byte[] encoded) {
+        this.encoded = encoded;
+        this.view = ByteBuffer.wrap(encoded).asReadOnlyBuffer();
+    }
+
+    /**
+     * Encode a text message as an unmasked server frame
+     */
+    public static WebSocketFrame text(String message) {
+        return new WebSocketFrame(WebSocketUtil.encodeTextFrame(message));
+    }
+
+    /**
+     * Wrap a message that is already UTF-8, e.g. from a JsonWriter
+     */
+    public static WebSocketFrame text(byte[] utf8, int offset, int length) {
+        return new WebSocketFrame(WebSocketUtil.encodeTextFrame(utf8, offset, length));
+    }
+
+    /**
+     * A fresh read-only view of the frame, positioned at its first byte
+     */
+    public ByteBuffer buffer() {
+        return view.duplicate();
+    }
+
+    /**
+     * Write the frame to a blocking stream without copying it
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(encoded);
+    }
+
+    public int length() {
+        return encoded.length;
+    }
+}
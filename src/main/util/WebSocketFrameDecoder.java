@@ -0,0 +1,238 @@
+package main.util;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Incremental WebSocket frame decoder (RFC 6455).
+ * Bytes are fed in as they arrive from the socket; the decoder keeps its
+ * position across calls, so a frame may be split over any number of reads
+ * and one read may carry several frames. Fragmented messages are reassembled
+ * from their continuation frames, and control frames may arrive between the
+ * fragments. One decoder belongs to one connection and is not thread-safe.
+ */
+public class WebSocketFrameDecoder {
+    public static final int OPCODE_CONTINUATION = 0x0;
+    public static final int OPCODE_TEXT = 0x1;
+    public static final int OPCODE_BINARY = 0x2;
+    public static final int OPCODE_CLOSE = 0x8;
+    public static final int OPCODE_PING = 0x9;
+    public static final int OPCODE_PONG = 0xA;
+
+    private static final int MAX_CONTROL_PAYLOAD = 125;
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * Receives complete messages and control frames
+     */
+    public interface FrameListener {
+        void onText(String message);
+
+        void onPing(byte[] payload);
+
+        void onClose();
+
+        default void onBinary(byte[] data) {
+        }
+
+        default void onPong(byte[] payload) {
+        }
+    }
+
+    private enum State { HEADER, PAYLOAD }
+
+    private final int maxMessageSize;
+    private final FrameListener listener;
+
+    private State state = State.HEADER;
+    // Header bytes collected so far: 2 fixed, up to 8 length, up to 4 mask
+    private final byte[] header = new byte[14];
+    private int headerRead = 0;
+
+    private boolean fin;
+    private int opcode;
+    private boolean masked;
+    private final byte[] maskingKey = new byte[4];
+    private byte[] payload;
+    private int payloadRead;
+
+    // Data of a fragmented message received so far
+    private int messageOpcode = -1;
+    private byte[] message;
+    private int messageLength;
+
+    public WebSocketFrameDecoder(int maxMessageSize, FrameListener listener) {
+        this.maxMessageSize = maxMessageSize;
+        this.listener = listener;
+    }
+
+    /**
+     * Consume all bytes remaining in the buffer, reporting every frame
+     * that completes. Throws on a malformed or oversized frame, after
+     * which the connection should be closed.
+     */
+    public void decode(ByteBuffer buffer) throws ProtocolException {
+        while (buffer.hasRemaining()) {
+            if (state == State.HEADER) {
+                if (!readHeader(buffer)) {
+                    return;
+                }
+            } else {
+                int count = Math.min(buffer.remaining(), payload.length - payloadRead);
+                buffer.get(payload, payloadRead, count);
+                payloadRead += count;
+            }
+            if (state == State.PAYLOAD && payloadRead == payload.length) {
+                completeFrame();
+            }
+        }
+    }
+
+    /**
+     * Collect header bytes. Returns true once the whole header is in.
+     */
+    private boolean readHeader(ByteBuffer buffer) throws ProtocolException {
+        while (headerRead < 2) {
+            if (!buffer.hasRemaining()) {
+                return false;
+            }
+            header[headerRead++] = buffer.get();
+        }
+
+        int lengthCode = header[1] & 0x7F;
+        int lengthBytes = lengthCode == 126 ? 2 : lengthCode == 127 ? 8 : 0;
+        boolean hasMask = (header[1] & 0x80) != 0;
+        int headerLength = 2 + lengthBytes + (hasMask ? 4 : 0);
+
+        while (headerRead < headerLength) {
+            if (!buffer.hasRemaining()) {
+                return false;
+            }
+            header[headerRead++] = buffer.get();
+        }
+
+        fin = (header[0] & 0x80) != 0;
+        opcode = header[0] & 0x0F;
+        masked = hasMask;
+        if ((header[0] & 0x70) != 0) {
+            throw new ProtocolException("Reserved bits set without a negotiated extension");
+        }
+
+        long length;
+        if (lengthBytes == 0) {
+            length = lengthCode;
+        } else if (lengthBytes == 2) {
+            length = ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+        } else {
+            length = 0;
+            for (int i = 2; i < 10; i++) {
+                length = (length << 8) | (header[i] & 0xFF);
+            }
+            if (length < 0) {
+                throw new ProtocolException("Frame length has the most significant bit set");
+            }
+        }
+        if (masked) {
+            System.arraycopy(header, 2 + lengthBytes, maskingKey, 0, 4);
+        }
+
+        checkFrame(length);
+
+        payload = length == 0 ? EMPTY : new byte[(int) length];
+        payloadRead = 0;
+        headerRead = 0;
+        state = State.PAYLOAD;
+        return true;
+    }
+
+    private void checkFrame(long length) throws ProtocolException {
+        boolean control = (opcode & 0x08) != 0;
+        if (control) {
+            if (!fin || length > MAX_CONTROL_PAYLOAD) {
+                throw new ProtocolException("Control frames must be unfragmented and at most 125 bytes");
+            }
+            if (opcode != OPCODE_CLOSE && opcode != OPCODE_PING && opcode != OPCODE_PONG) {
+                throw new ProtocolException("Unknown opcode " + opcode);
+            }
+            return;
+        }
+
+        if (opcode == OPCODE_CONTINUATION) {
+            if (messageOpcode < 0) {
+                throw new ProtocolException("Continuation frame without a message to continue");
+            }
+        } else if (opcode == OPCODE_TEXT || opcode == OPCODE_BINARY) {
+            if (messageOpcode >= 0) {
+                throw new ProtocolException("New message started before the previous one finished");
+            }
+        } else {
+            throw new ProtocolException("Unknown opcode " + opcode);
+        }
+
+        long total = (opcode == OPCODE_CONTINUATION ? messageLength : 0) + length;
+        if (total > maxMessageSize) {
+            throw new ProtocolException("Message of " + total + " bytes exceeds limit of " + maxMessageSize);
+        }
+    }
+
+    private void completeFrame() {
+        state = State.HEADER;
+        byte[] data = payload;
+        payload = null;
+        if (masked) {
+            WebSocketUtil.unmask(data, 0, data.length, maskingKey);
+        }
+
+        switch (opcode) {
+            case OPCODE_CLOSE:
+                listener.onClose();
+                return;
+            case OPCODE_PING:
+                listener.onPing(data);
+                return;
+            case OPCODE_PONG:
+                listener.onPong(data);
+                return;
+            default:
+                break;
+        }
+
+        if (opcode != OPCODE_CONTINUATION && fin) {
+            // Unfragmented message, the common case
+            deliver(opcode, data, data.length);
+            return;
+        }
+
+        if (opcode != OPCODE_CONTINUATION) {
+            messageOpcode = opcode;
+            message = data;
+            messageLength = data.length;
+        } else {
+            if (messageLength + data.length > message.length) {
+                message = Arrays.copyOf(message, Math.max(messageLength + data.length, message.length * 2));
+            }
+            System.arraycopy(data, 0, message, messageLength, data.length);
+            messageLength += data.length;
+        }
+
+        if (fin) {
+            int completeOpcode = messageOpcode;
+            byte[] completeMessage = message;
+            int completeLength = messageLength;
+            messageOpcode = -1;
+            message = null;
+            messageLength = 0;
+            deliver(completeOpcode, completeMessage, completeLength);
+        }
+    }
+
+    private void deliver(int dataOpcode, byte[] data, int length) {
+        if (dataOpcode == OPCODE_TEXT) {
+            listener.onText(new String(data, 0, length, StandardCharsets.UTF_8));
+        } else {
+            listener.onBinary(length == data.length ? data : Arrays.copyOf(data, length));
+        }
+    }
+}
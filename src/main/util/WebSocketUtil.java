@@ -1,6 +1,9 @@
 package main.util;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -15,6 +18,9 @@ public class WebSocketUtil {
     
     public static final String WEBSOCKET_MAGIC_STRING = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
     private static final Pattern WEBSOCKET_KEY_PATTERN = Pattern.compile("Sec-WebSocket-Key: (.+)");
+    // Reads and writes 8 bytes of a byte[] at any offset as one long
+    private static final VarHandle LONG_VIEW =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
     
     /**
      * Generate WebSocket accept key from client key
@@ -57,7 +63,13 @@ public class WebSocketUtil {
      */
     public static byte[] encodeTextFrame(String message) {
         byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
-        int messageLength = messageBytes.length;
+        return encodeTextFrame(messageBytes, 0, messageBytes.length);
+    }
+    
+    /**
+     * Encode a message that is already UTF-8 as a WebSocket text frame
+     */
+    public static byte[] encodeTextFrame(byte[] messageBytes, int offset, int messageLength) {
         
         ByteBuffer buffer;
         
@@ -77,7 +89,7 @@ public class WebSocketUtil {
             buffer.putLong(messageLength);
         }
         
-        buffer.put(messageBytes);
+        buffer.put(messageBytes, offset, messageLength);
         return buffer.array();
     }
     
@@ -100,11 +112,13 @@ public class WebSocketUtil {
             offset = 4;
         } else if (payloadLength == 127) {
             if (frame.length < 10) return null;
-            // For simplicity, we'll assume payload length fits in an int
-            payloadLength = (int) (((long)(frame[6] & 0xFF) << 24) |
-                                  ((long)(frame[7] & 0xFF) << 16) |
-                                  ((long)(frame[8] & 0xFF) << 8) |
-                                  ((long)(frame[9] & 0xFF)));
+            long length = 0;
+            for (int i = 2; i < 10; i++) {
+                length = (length << 8) | (frame[i] & 0xFF);
+            }
+            // A single byte[] frame cannot hold more than this anyway
+            if (length < 0 || length > frame.length) return null;
+            payloadLength = (int) length;
             offset = 10;
         }
         
@@ -124,14 +138,32 @@ public class WebSocketUtil {
         System.arraycopy(frame, offset, payload, 0, payloadLength);
         
         if (masked && maskingKey != null) {
-            for (int i = 0; i < payloadLength; i++) {
-                payload[i] ^= maskingKey[i % 4];
-            }
+            unmask(payload, 0, payloadLength, maskingKey);
         }
         
         return new String(payload, StandardCharsets.UTF_8);
     }
     
+    /**
+     * XOR a payload with its 4-byte masking key in place, 8 bytes at a time.
+     * Masking and unmasking are the same operation.
+     */
+    public static void unmask(byte[] data, int offset, int length, byte[] maskingKey) {
+        int mask32 = (maskingKey[0] & 0xFF) | (maskingKey[1] & 0xFF) << 8 |
+                     (maskingKey[2] & 0xFF) << 16 | (maskingKey[3] & 0xFF) << 24;
+        long mask64 = (mask32 & 0xFFFFFFFFL) | ((long) mask32 << 32);
+        
+        int i = 0;
+        int wordEnd = length & ~7;
+        for (; i < wordEnd; i += 8) {
+            long word = (long) LONG_VIEW.get(data, offset + i);
+            LONG_VIEW.set(data, offset + i, word ^ mask64);
+        }
+        for (; i < length; i++) {
+            data[offset + i] ^= maskingKey[i & 3];
+        }
+    }
+    
     /**
      * Create a close frame
      */
@@ -1,10 +1,54 @@
 package test;
 
+import main.api.ApiResponse;
+import main.api.DatabaseThrottle;
 import main.server.ChatServer;
 import main.client.ChatClient;
+import main.server.AuctionIdTable;
+import main.server.AuctionIndex;
+import main.server.AuctionLineParser;
+import main.server.BinaryBidProtocol;
+import main.model.Auction;
+import main.model.Bid;
 import main.model.Message;
 import main.model.Command;
+import main.util.ConfigManager;
+import main.util.DatabaseManager;
+import main.util.GroupCommitWriter;
+import main.util.JsonReader;
+import main.util.JsonWriter;
+import main.util.LatencyHistogram;
+import main.util.Logger;
+import main.util.Metrics;
+import main.util.OutboundQueue;
+import main.util.TimingWheel;
+import main.util.WebSocketFrameDecoder;
 import main.util.WebSocketUtil;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Basic tests for the chat system
@@ -19,6 +63,19 @@ public class ChatServerTest {
         testMessageSerialization();
         testCommandParsing();
         testWebSocketUtils();
+        testFrameDecoder();
+        testOutboundQueue();
+        testAuctionLineParser();
+        testBinaryBidProtocol();
+        testJsonWriter();
+        testJsonReader();
+        testAuctionIndex();
+        testConcurrentBids();
+        testTimingWheel();
+        testGroupCommit();
+        testDatabaseThrottle();
+        testLogger();
+        testMetrics();
         
         System.out.println("\nAll tests completed!");
         System.out.println("To test the full system:");
@@ -89,4 +146,1128 @@ public class ChatServerTest {
         
         System.out.println("WebSocket utilities test: COMPLETED");
     }
+    
+    private static void testFrameDecoder() {
+        System.out.println("\n--- Testing Streaming Frame Decoder ---");
+        
+        // Two frames coalesced into one read
+        byte[] two = concat(maskedFrame(0x81, "first"), maskedFrame(0x81, "second"));
+        List<String> received = decodeInChunks(two, two.length);
+        report("Coalesced frames", received.equals(List.of("first", "second")));
+        
+        // The same frames delivered one byte per read
+        received = decodeInChunks(two, 1);
+        report("Frames split across reads", received.equals(List.of("first", "second")));
+        
+        // Fragmented message with a ping between the fragments
+        byte[] fragmented = concat(maskedFrame(0x01, "Hel"), maskedFrame(0x89, ""),
+                                   maskedFrame(0x00, "lo "), maskedFrame(0x80, "World"));
+        received = decodeInChunks(fragmented, 3);
+        report("Fragmented message with ping", received.equals(List.of("PING", "Hello World")));
+        
+        // 64-bit length field, unaligned payload length
+        String large = "x".repeat(70001);
+        received = decodeInChunks(maskedFrame(0x81, large), 8192);
+        report("64-bit length frame", received.size() == 1 && received.get(0).equals(large));
+        
+        // Word-wide unmasking matches the byte-at-a-time definition
+        byte[] key = {(byte) 0x37, (byte) 0xFA, (byte) 0x21, (byte) 0x3D};
+        byte[] data = new byte[1027];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        byte[] expected = data.clone();
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] ^= key[i % 4];
+        }
+        WebSocketUtil.unmask(data, 0, data.length, key);
+        report("Word-wide unmask", java.util.Arrays.equals(data, expected));
+        
+        // Continuation without a started message is rejected
+        boolean rejected = false;
+        try {
+            new WebSocketFrameDecoder(8192, collector(new ArrayList<>()))
+                .decode(ByteBuffer.wrap(maskedFrame(0x80, "orphan")));
+        } catch (ProtocolException e) {
+            rejected = true;
+        }
+        report("Orphan continuation rejected", rejected);
+        
+        // Messages over the size limit are rejected
+        rejected = false;
+        try {
+            new WebSocketFrameDecoder(8192, collector(new ArrayList<>()))
+                .decode(ByteBuffer.wrap(maskedFrame(0x81, "y".repeat(8193))));
+        } catch (ProtocolException e) {
+            rejected = true;
+        }
+        report("Oversized message rejected", rejected);
+    }
+    
+    private static void testOutboundQueue() {
+        System.out.println("\n--- Testing Outbound Queue Policies ---");
+        
+        // 10-byte messages into a 30-byte queue
+        OutboundQueue dropOldest = new OutboundQueue(30, OutboundQueue.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            dropOldest.offer(message("msg-" + i + "-abcd"), null);
+        }
+        report("Drop oldest keeps newest", dropOldest.getQueuedMessages() == 3 &&
+            dropOldest.getDroppedMessages() == 2 && text(dropOldest.poll()).equals("msg-2-abcd"));
+        
+        OutboundQueue coalesce = new OutboundQueue(30, OutboundQueue.OverflowPolicy.COALESCE);
+        coalesce.offer(message("bid-A-0001"), "A");
+        coalesce.offer(message("chat-00001"), null);
+        coalesce.offer(message("bid-A-0002"), "A");
+        coalesce.offer(message("bid-B-0001"), "B");
+        report("Coalesce keeps latest bid in place", coalesce.getQueuedMessages() == 3 &&
+            coalesce.getCoalescedMessages() == 1 && text(coalesce.poll()).equals("bid-A-0002"));
+        
+        OutboundQueue disconnect = new OutboundQueue(30, OutboundQueue.OverflowPolicy.DISCONNECT);
+        boolean accepted = true;
+        for (int i = 0; i < 4; i++) {
+            accepted = disconnect.offer(message("msg-" + i + "-abcd"), null);
+        }
+        report("Disconnect refuses overflow", !accepted && disconnect.getQueuedMessages() == 3);
+    }
+    
+    private static void testAuctionLineParser() {
+        System.out.println("\n--- Testing Auction Line Parser ---");
+        
+        List<String> parsed = new ArrayList<>();
+        AuctionLineParser parser = new AuctionLineParser();
+        AuctionLineParser.LineListener listener = new AuctionLineParser.LineListener() {
+            @Override
+            public void onBid(String auctionId, double amount) {
+                parsed.add("bid " + auctionId + " " + amount);
+            }
+            
+            @Override
+            public void onLine(AuctionLineParser.Command command, String line) {
+                parsed.add(command + " " + line);
+            }
+        };
+        
+        // A line split across two reads stays in the buffer until complete
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        buffer.put("BID:auction-1:12.5\r\nWATCH:auc".getBytes(StandardCharsets.UTF_8)).flip();
+        parser.parse(buffer, listener);
+        buffer.compact();
+        buffer.put("tion-1\n".getBytes(StandardCharsets.UTF_8)).flip();
+        parser.parse(buffer, listener);
+        report("Lines split across reads", parsed.size() == 2 &&
+            parsed.get(0).equals("bid auction-1 12.5") && parsed.get(1).equals("WATCH WATCH:auction-1"));
+        
+        parsed.clear();
+        String amounts = "BID:a:0.1\nBID:a:1234567.89\nBID:a:7\nBID:a:.25\n";
+        parser.parse(ByteBuffer.wrap(amounts.getBytes(StandardCharsets.UTF_8)), listener);
+        report("Bid amounts match Double.parseDouble", parsed.size() == 4 &&
+            parsed.get(0).equals("bid a " + Double.parseDouble("0.1")) &&
+            parsed.get(1).equals("bid a " + Double.parseDouble("1234567.89")) &&
+            parsed.get(2).equals("bid a 7.0") && parsed.get(3).equals("bid a 0.25"));
+        
+        parsed.clear();
+        String other = "BID:a:1e3\nBID:a\nCREATE_AUCTION:Caf\u00e9:x\nHELLO\n";
+        parser.parse(ByteBuffer.wrap(other.getBytes(StandardCharsets.UTF_8)), listener);
+        report("Other lines decoded as UTF-8", parsed.size() == 4 &&
+            parsed.get(0).equals("BID BID:a:1e3") && parsed.get(1).equals("BID BID:a") &&
+            parsed.get(2).equals("CREATE_AUCTION CREATE_AUCTION:Caf\u00e9:x") &&
+            parsed.get(3).equals("null HELLO"));
+        
+        String[] ids = new String[2];
+        AuctionLineParser.LineListener idListener = new AuctionLineParser.LineListener() {
+            @Override
+            public void onBid(String auctionId, double amount) {
+                ids[amount < 2 ? 0 : 1] = auctionId;
+            }
+            
+            @Override
+            public void onLine(AuctionLineParser.Command command, String line) {
+            }
+        };
+        parser.parse(ByteBuffer.wrap("BID:auction-9:1\nBID:auction-9:2\n".getBytes(StandardCharsets.UTF_8)), idListener);
+        report("Repeated auction id reused", ids[0] != null && ids[0] == ids[1]);
+        
+        boolean allFound = true;
+        for (int position = 0; position < 40; position++) {
+            byte[] line = new byte[41];
+            Arrays.fill(line, (byte) 'x');
+            line[position] = '\n';
+            line[40] = '\n';
+            ByteBuffer single = ByteBuffer.wrap(line);
+            List<String> seen = new ArrayList<>();
+            new AuctionLineParser().parse(single, new AuctionLineParser.LineListener() {
+                @Override
+                public void onBid(String auctionId, double amount) {
+                }
+                
+                @Override
+                public void onLine(AuctionLineParser.Command command, String text) {
+                    seen.add(text);
+                }
+            });
+            allFound &= seen.size() == 2 && seen.get(0).length() == position;
+        }
+        report("Newline found at every offset", allFound);
+    }
+    
+    private static void testBinaryBidProtocol() {
+        System.out.println("\n--- Testing Binary Bid Protocol ---");
+        
+        List<String> decoded = new ArrayList<>();
+        BinaryBidProtocol.FrameListener listener = new BinaryBidProtocol.FrameListener() {
+            @Override
+            public void onResolve(String auctionId) {
+                decoded.add("resolve " + auctionId);
+            }
+            
+            @Override
+            public void onBid(int auctionRef, long cents) {
+                decoded.add("bid " + auctionRef + " " + cents);
+            }
+            
+            @Override
+            public void onWatch(int auctionRef) {
+                decoded.add("watch " + auctionRef);
+            }
+        };
+        
+        byte[] id = "auction-1".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frames = ByteBuffer.allocate(64);
+        frames.putInt(3 + id.length).put(BinaryBidProtocol.RESOLVE).putShort((short) id.length).put(id);
+        frames.putInt(13).put(BinaryBidProtocol.BID).putInt(7).putLong(123456L);
+        frames.putInt(5).put(BinaryBidProtocol.WATCH).putInt(7);
+        byte[] stream = Arrays.copyOf(frames.array(), frames.position());
+        
+        // Feed one byte at a time, as a worst-case split across reads
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        boolean failed = false;
+        for (byte b : stream) {
+            buffer.put(b).flip();
+            try {
+                BinaryBidProtocol.decode(buffer, listener);
+            } catch (ProtocolException e) {
+                failed = true;
+            }
+            buffer.compact();
+        }
+        report("Frames split across reads", !failed && decoded.size() == 3 &&
+            decoded.get(0).equals("resolve auction-1") && decoded.get(1).equals("bid 7 123456") &&
+            decoded.get(2).equals("watch 7") && buffer.position() == 0);
+        
+        boolean rejected = false;
+        try {
+            BinaryBidProtocol.decode(ByteBuffer.allocate(8).putInt(13).put((byte) 0x7F).flip(), listener);
+            BinaryBidProtocol.decode(ByteBuffer.allocate(8).putInt(1 << 20).put(BinaryBidProtocol.BID).flip(), listener);
+        } catch (ProtocolException e) {
+            rejected = true;
+        }
+        report("Bad frames rejected", rejected);
+        
+        ByteBuffer accepted = BinaryBidProtocol.bidAccepted(7, 2550, 1700000000000L);
+        report("Server frame layout", accepted.remaining() == 25 && accepted.getInt() == 21 &&
+            accepted.get() == BinaryBidProtocol.BID_ACCEPTED && accepted.getInt() == 7 &&
+            accepted.getLong() == 2550 && accepted.getLong() == 1700000000000L &&
+            BinaryBidProtocol.toCents(25.5) == 2550);
+        
+        ByteBuffer closed = BinaryBidProtocol.bidRejected(7,
+            BinaryBidProtocol.rejectReason(Bid.Result.NOT_ACTIVE), 2550);
+        report("Reject reasons",
+            BinaryBidProtocol.rejectReason(Bid.Result.TOO_LOW) == BinaryBidProtocol.REJECT_TOO_LOW &&
+            BinaryBidProtocol.rejectReason(Bid.Result.NOT_ACTIVE) == BinaryBidProtocol.REJECT_CLOSED &&
+            BinaryBidProtocol.rejectReason(Bid.Result.FAILED) == BinaryBidProtocol.REJECT_FAILED &&
+            closed.remaining() == 18 && closed.getInt() == 14 && closed.get() == BinaryBidProtocol.BID_REJECTED &&
+            closed.getInt() == 7 && closed.get() == BinaryBidProtocol.REJECT_CLOSED && closed.getLong() == 2550);
+        
+        // A released reference stays unknown; the id gets a fresh one if asked again
+        AuctionIdTable table = new AuctionIdTable();
+        int first = table.refFor("auction-1");
+        int second = table.refFor("auction-2");
+        table.release("auction-1");
+        int again = table.refFor("auction-1");
+        report("Released auction references", table.refFor("auction-2") == second && table.idFor(first) == null &&
+            again != first && again != second && "auction-1".equals(table.idFor(again)) && table.size() == 2);
+    }
+    
+    private static void testJsonWriter() {
+        System.out.println("\n--- Testing JSON Writer ---");
+        
+        try (JsonWriter json = JsonWriter.acquire()) {
+            json.beginObject()
+                .name("id").value(42)
+                .name("name").value("a \"quoted\"\\ line\n\u0001")
+                .name("tags").beginArray().value("x").nullValue().value(true).endArray()
+                .name("empty").beginObject().endObject()
+                .endObject();
+            report("Structure and escaping", json.toString().equals(
+                "{\"id\":42,\"name\":\"a \\\"quoted\\\"\\\\ line\\n\\u0001\",\"tags\":[\"x\",null,true],\"empty\":{}}"));
+        }
+        
+        try (JsonWriter json = JsonWriter.acquire()) {
+            json.beginArray().value("caf\u00e9 \u20ac \ud83d\ude00").endArray();
+            report("UTF-8 encoding", Arrays.equals(json.toByteArray(),
+                "[\"caf\u00e9 \u20ac \ud83d\ude00\"]".getBytes(StandardCharsets.UTF_8)));
+        }
+        
+        double[] amounts = {0, 1.005, 2.675, 19.999, -0.001, -3.5, 1234567.125, 0.015};
+        boolean matches = true;
+        for (double amount : amounts) {
+            try (JsonWriter json = JsonWriter.acquire()) {
+                json.money(amount);
+                matches &= json.toString().equals(String.format("%.2f", amount).replace("-0.00", "0.00"));
+            }
+        }
+        report("Money matches %.2f", matches);
+    }
+    
+    private static ByteBuffer message(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String text(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+    
+    private static void testJsonReader() {
+        System.out.println("\n--- Testing JSON Reader ---");
+        
+        Map<String, String> body = JsonReader.parseObject((
+            "{ \"itemName\": \"Caf\\u00e9 \\\"x\\\", a\\/b\\n\\ud83d\\ude00\", \"basePrice\": 12.50,"
+            + " \"tags\": [1, {\"a\": \"]\"}], \"category\": null, \"active\": true }")
+            .getBytes(StandardCharsets.UTF_8));
+        report("Flat object members", body.size() == 4
+            && "Caf\u00e9 \"x\", a/b\n\ud83d\ude00".equals(body.get("itemName"))
+            && "12.50".equals(body.get("basePrice")) && "true".equals(body.get("active"))
+            && "[1, {\"a\": \"]\"}]".equals(body.get("tags")) && !body.containsKey("category")
+            && JsonReader.parseObject(" \r\n".getBytes(StandardCharsets.UTF_8)).isEmpty());
+        
+        String[] malformed = {
+            "{\"a\":01}", "{\"a\":1,}", "[1 2]", "{\"a\" 1}", "{\"a\":\"\\x\"}", "{} x", "{\"a\":\"\u0001\"}",
+            "{\"a\":-}", "{\"a\":1.}", "{\"a\":tru}", "{\"a\":\"abc", "[", "{\"a\":[}", "\"\\u12g4\"",
+            "[".repeat(64) + "]".repeat(64)
+        };
+        boolean allRejected = true;
+        for (String json : malformed) {
+            allRejected &= rejects(json.getBytes(StandardCharsets.UTF_8));
+        }
+        report("Malformed input rejected", allRejected);
+        
+        // Random documents written by JsonWriter must read back token for token
+        Random random = new Random(42);
+        boolean roundTrips = true;
+        List<byte[]> documents = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            try (JsonWriter json = JsonWriter.acquire()) {
+                randomValue(json, random, 0);
+                byte[] document = json.toByteArray();
+                documents.add(document);
+                roundTrips &= Arrays.equals(document, rewrite(document));
+            }
+        }
+        report("Random documents round-trip", roundTrips);
+        
+        // Mutated documents must parse or fail with MalformedJsonException, nothing else
+        byte[] noise = "{}[]\":,\\u0-1eE.tfn \t\u00e9".getBytes(StandardCharsets.UTF_8);
+        boolean contained = true;
+        for (int i = 0; i < 50000 && contained; i++) {
+            byte[] document = documents.get(random.nextInt(documents.size()));
+            byte[] mutated = Arrays.copyOf(document, document.length + 1);
+            int edits = 1 + random.nextInt(3);
+            int length = document.length;
+            for (int e = 0; e < edits && length > 0; e++) {
+                int at = random.nextInt(length);
+                switch (random.nextInt(3)) {
+                    case 0:
+                        mutated[at] = noise[random.nextInt(noise.length)];
+                        break;
+                    case 1:
+                        System.arraycopy(mutated, at + 1, mutated, at, length - at - 1);
+                        length--;
+                        break;
+                    default:
+                        System.arraycopy(mutated, at, mutated, at + 1, length - at);
+                        mutated[at] = noise[random.nextInt(noise.length)];
+                        length++;
+                        mutated = Arrays.copyOf(mutated, length + 1);
+                }
+            }
+            try {
+                rewrite(Arrays.copyOf(mutated, length));
+            } catch (JsonReader.MalformedJsonException expected) {
+                // Fine: rejected cleanly
+            } catch (RuntimeException unexpected) {
+                System.out.println("  " + unexpected + " on " + new String(mutated, 0, length, StandardCharsets.UTF_8));
+                contained = false;
+            }
+        }
+        report("Mutation fuzz contained", contained);
+    }
+    
+    private static void testAuctionIndex() {
+        System.out.println("\n--- Testing Auction Index ---");
+        
+        AuctionIndex index = new AuctionIndex();
+        List<Auction> auctions = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            // Pairs share a creation time, so ties are ordered by id
+            Auction auction = new Auction("auction-" + (char) ('a' + i), "Item " + i, "",
+                "seller" + (i % 3), 10, 1000L + i / 2, 1000L + 60000, 60000, i % 2 == 0 ? "Art" : "books");
+            auctions.add(auction);
+            index.add(auction);
+        }
+        
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            AuctionIndex.Page page = index.page(new AuctionIndex.Query().limit(10).after(cursor));
+            page.getAuctions().forEach(a -> paged.add(a.getAuctionId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        List<String> expected = new ArrayList<>();
+        for (int i = 24; i >= 0; i--) {
+            expected.add("auction-" + (char) ('a' + i));
+        }
+        report("Cursor pages cover all, newest first", pages == 3 && paged.equals(expected));
+        
+        auctions.get(4).setStatus(Auction.AuctionStatus.CLOSED);
+        index.statusChanged(auctions.get(4));
+        // Closed without telling the index, as Auction.placeBid does on expiry
+        auctions.get(10).setStatus(Auction.AuctionStatus.CLOSED);
+        AuctionIndex.Page art = index.page(new AuctionIndex.Query().category("art").sellerId("seller1")
+            .status(Auction.AuctionStatus.ACTIVE).limit(100));
+        List<String> artIds = new ArrayList<>();
+        art.getAuctions().forEach(a -> artIds.add(a.getAuctionId()));
+        report("Filters combine", art.getNextCursor() == null
+            && artIds.equals(Arrays.asList("auction-w", "auction-q")));
+        
+        index.remove(auctions.get(24));
+        AuctionIndex.Page closed = index.page(new AuctionIndex.Query().status(Auction.AuctionStatus.CLOSED));
+        boolean badCursor = false;
+        try {
+            new AuctionIndex.Query().after("not a cursor");
+        } catch (IllegalArgumentException e) {
+            badCursor = true;
+        }
+        report("Status moves, removal and bad cursors", closed.getAuctions().size() == 1
+            && closed.getAuctions().get(0) == auctions.get(4) && badCursor
+            && !index.page(new AuctionIndex.Query()).getAuctions().contains(auctions.get(24)));
+        
+        long now = System.currentTimeMillis();
+        AuctionIndex live = new AuctionIndex();
+        Auction soon = new Auction("soon", "a", "", "ann", 1, now, now + 1000, 1000, "Art");
+        Auction later = new Auction("later", "b", "", "bob", 1, now + 1, now + 5000, 4999, "art");
+        Auction ended = new Auction("ended", "c", "", "ann", 1, now + 2, now - 1, 0, "books");
+        live.add(soon);
+        live.add(later);
+        live.add(ended);
+        boolean ordered = live.activeEndingAfter(now).equals(Arrays.asList(soon, later));
+        live.extendEndTime(soon, 10000);
+        boolean resorted = live.activeEndingAfter(now).equals(Arrays.asList(later, soon));
+        live.setStatus(later, Auction.AuctionStatus.CANCELLED);
+        report("Secondary indexes", ordered && resorted
+            && live.activeEndingAfter(now).equals(Arrays.asList(soon))
+            && live.byCategory("ART").equals(Arrays.asList(later, soon))
+            && live.bySeller("ann").equals(Arrays.asList(ended, soon))
+            && live.byStatus(Auction.AuctionStatus.ACTIVE).equals(Arrays.asList(ended, soon))
+            && live.byStatus(Auction.AuctionStatus.CANCELLED).equals(Arrays.asList(later)));
+    }
+    
+    private static void testConcurrentBids() {
+        System.out.println("\n--- Testing Concurrent Bids ---");
+        
+        // Each thread's bids end in its own cents (.00 to .07), so the amount
+        // tells which bidder placed it
+        int threads = 8;
+        int bidsPerThread = 20000;
+        Auction auction = new Auction("auction-race", "Race item", 1.0);
+        long firstSequence = auction.getLeader().getSequence();
+        double[] highestAccepted = new double[threads];
+        int[] accepted = new int[threads];
+        boolean[] torn = new boolean[threads];
+        CountDownLatch ready = new CountDownLatch(threads);
+        List<Thread> bidders = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread bidder = new Thread(() -> {
+                ready.countDown();
+                await(ready);
+                for (int i = 0; i < bidsPerThread; i++) {
+                    Auction.Leader seen = auction.getLeader();
+                    if (seen.getBidder() != null && !seen.getBidder().equals(bidderFor(seen.getAmount()))) {
+                        torn[id] = true;
+                    }
+                    double amount = Math.floor(seen.getAmount()) + 1 + id / 100.0;
+                    if (auction.placeBid(new Bid(auction.getAuctionId(), "bidder" + id, amount))) {
+                        accepted[id]++;
+                        highestAccepted[id] = Math.max(highestAccepted[id], amount);
+                    }
+                }
+            });
+            bidders.add(bidder);
+            bidder.start();
+        }
+        for (Thread bidder : bidders) {
+            try {
+                bidder.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        Auction.Leader leader = auction.getLeader();
+        double highest = Arrays.stream(highestAccepted).max().orElse(0);
+        int total = Arrays.stream(accepted).sum();
+        boolean consistent = true;
+        for (boolean t : torn) {
+            consistent &= !t;
+        }
+        report("Leader is the highest accepted bid", leader.getAmount() == highest &&
+            auction.getCurrentHighestBid() == highest);
+        report("Leader amount and bidder match", leader.getBidder().equals(bidderFor(leader.getAmount())) &&
+            consistent);
+        report("Sequence counts accepted bids", leader.getSequence() - firstSequence == total && total > 0);
+        
+        // A bid taken back under a later leader waits for that one to fail too
+        Auction reverting = new Auction("auction-revert", "Revert item", 1.0);
+        Auction.Placement first = reverting.tryPlaceBid(new Bid(reverting.getAuctionId(), "alice", 5.0));
+        Auction.Placement second = reverting.tryPlaceBid(new Bid(reverting.getAuctionId(), "bob", 6.0));
+        boolean keptLater = !reverting.revertBid(first) && "bob".equals(reverting.getCurrentHighestBidder());
+        boolean restored = reverting.revertBid(second) && reverting.getLeader() == first.getReplaced();
+        report("Revert unwinds past withdrawn bids", keptLater && restored);
+    }
+    
+    private static String bidderFor(double amount) {
+        return "bidder" + (Math.round(amount * 100) % 100);
+    }
+    
+    private static void testTimingWheel() {
+        System.out.println("\n--- Testing Timing Wheel ---");
+        
+        long tick = 10;
+        long start = 1_700_000_000_000L;
+        long maxDelta = (1L << 32) - 1;
+        Map<String, Long> deadlines = new HashMap<>();
+        List<String> fired = new ArrayList<>();
+        long[] now = {start};
+        boolean[] early = {false};
+        TimingWheel wheel = TimingWheel.manual(tick, start, keys -> {
+            for (String key : keys) {
+                early[0] |= deadlines.get(key) > now[0];
+                fired.add(key);
+            }
+        });
+        
+        // Deadlines spread over all four levels, from one tick to 2^26 ticks out
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            long delta = 1 + (long) (Math.pow(2, random.nextDouble() * 26) * tick) + random.nextInt((int) tick);
+            deadlines.put("t" + i, start + delta);
+            wheel.schedule("t" + i, start + delta);
+        }
+        // Tick by tick at first, then in jumps of up to 2^24 ticks
+        boolean late = false;
+        while (wheel.size() > 0 && now[0] < start + (1L << 27) * tick) {
+            now[0] += now[0] < start + 4096 * tick ? tick
+                : 1 + (long) (Math.pow(2, random.nextDouble() * 24) * tick);
+            wheel.advanceTo(now[0]);
+            for (Map.Entry<String, Long> entry : deadlines.entrySet()) {
+                // Due by the last whole tick, so it must have fired
+                late |= (entry.getValue() + tick - 1) / tick <= now[0] / tick && wheel.isScheduled(entry.getKey());
+            }
+        }
+        report("Never fires before its deadline", !early[0] && fired.size() == 2000);
+        report("Fires within the tick it falls due", !late && wheel.size() == 0);
+        
+        // One timer per coarse level, each cascading down to level 0; from
+        // here on deadlines fall on tick boundaries
+        now[0] = (now[0] / tick + 1) * tick;
+        wheel.advanceTo(now[0]);
+        boolean cascaded = true;
+        for (int level = 1; level <= 3; level++) {
+            fired.clear();
+            long deadline = now[0] + ((1L << (8 * level)) + 7) * tick;
+            deadlines.put("level" + level, deadline);
+            wheel.schedule("level" + level, deadline);
+            now[0] = deadline - tick;
+            wheel.advanceTo(now[0]);
+            cascaded &= fired.isEmpty() && wheel.isScheduled("level" + level);
+            now[0] = deadline;
+            wheel.advanceTo(now[0]);
+            cascaded &= fired.equals(List.of("level" + level));
+        }
+        report("Cascade from levels 1-3", cascaded && !early[0]);
+        
+        fired.clear();
+        deadlines.put("cancelled", now[0] + 300 * tick);
+        wheel.schedule("cancelled", now[0] + 300 * tick);
+        boolean cancelled = wheel.cancel("cancelled") && !wheel.cancel("cancelled") && wheel.size() == 0;
+        now[0] += 1000 * tick;
+        wheel.advanceTo(now[0]);
+        report("Cancel", cancelled && fired.isEmpty());
+        
+        // Rescheduling moves the timer later, then earlier, and it fires once
+        deadlines.put("moved", now[0] + 500 * tick);
+        wheel.schedule("moved", now[0] + 100 * tick);
+        wheel.schedule("moved", now[0] + 70000 * tick);
+        wheel.schedule("moved", now[0] + 500 * tick);
+        boolean single = wheel.size() == 1;
+        now[0] += 499 * tick;
+        wheel.advanceTo(now[0]);
+        boolean notYet = fired.isEmpty();
+        now[0] += 100000 * tick;
+        wheel.advanceTo(now[0]);
+        report("Schedule replaces the existing timer", single && notYet && fired.equals(List.of("moved")));
+        
+        // Already due: fires on the next tick, not the current one
+        fired.clear();
+        deadlines.put("past", now[0] - 5000);
+        wheel.schedule("past", now[0] - 5000);
+        wheel.advanceTo(now[0]);
+        boolean waited = fired.isEmpty();
+        now[0] += tick;
+        wheel.advanceTo(now[0]);
+        report("Deadline in the past", waited && fired.equals(List.of("past")));
+        
+        // Beyond the outermost wheel: parked at MAX_DELTA and re-placed until due
+        fired.clear();
+        long farDeadline = now[0] + (3 * maxDelta + 1000) * tick;
+        deadlines.put("far", farDeadline);
+        wheel.schedule("far", farDeadline);
+        now[0] += (maxDelta + 5) * tick;
+        wheel.advanceTo(now[0]);
+        boolean parked = fired.isEmpty() && wheel.isScheduled("far");
+        now[0] = farDeadline - 1;
+        wheel.advanceTo(now[0]);
+        parked &= fired.isEmpty();
+        now[0] = farDeadline;
+        wheel.advanceTo(now[0]);
+        report("Clamped at MAX_DELTA", parked && fired.equals(List.of("far")) && !early[0]);
+        wheel.shutdown();
+    }
+    
+    private static void testGroupCommit() {
+        System.out.println("\n--- Testing Group Commit ---");
+        
+        // The first batch blocks until released, so later bids queue up behind it
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        GroupCommitWriter.BatchCommitter blocking = batch -> {
+            batchSizes.add(batch.size());
+            committing.countDown();
+            await(release);
+            return true;
+        };
+        
+        GroupCommitWriter sized = new GroupCommitWriter(blocking, 4, 0);
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        futures.add(sized.submit(testBid(0)));
+        await(committing);
+        for (int i = 1; i <= 10; i++) {
+            futures.add(sized.submit(testBid(i)));
+        }
+        release.countDown();
+        boolean allCommitted = futures.stream().allMatch(CompletableFuture::join);
+        sized.shutdown();
+        report("Batches limited by size", allCommitted && batchSizes.equals(List.of(1, 4, 4, 2)) &&
+            sized.getBatchCount() == 4 && sized.getCommittedBidCount() == 11);
+        
+        // A lone bid waits out the linger time for company
+        List<Integer> lingerSizes = Collections.synchronizedList(new ArrayList<>());
+        GroupCommitWriter lingering = new GroupCommitWriter(batch -> {
+            lingerSizes.add(batch.size());
+            return true;
+        }, 100, 300);
+        long start = System.nanoTime();
+        CompletableFuture<Boolean> first = lingering.submit(testBid(0));
+        sleep(20);
+        CompletableFuture<Boolean> second = lingering.submit(testBid(1));
+        boolean lingered = first.join() && second.join()
+            && System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250);
+        lingering.shutdown();
+        report("Batches limited by linger time", lingered && lingerSizes.equals(List.of(2)));
+        
+        GroupCommitWriter throwing = new GroupCommitWriter(batch -> {
+            throw new IllegalStateException("disk full");
+        }, 8, 0);
+        List<CompletableFuture<Boolean>> failing = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            failing.add(throwing.submit(testBid(i)));
+        }
+        boolean allFailed = failing.stream().noneMatch(CompletableFuture::join);
+        throwing.shutdown();
+        report("Committer failure fails every bid", allFailed && throwing.getBatchCount() == 0);
+        
+        // Failed batches take their bids back, across batches, leaving the
+        // auction as it was before any of them
+        Auction shared = new Auction("auction-batch", "Batch item", 1.0);
+        Auction.Leader before = shared.getLeader();
+        CountDownLatch placed = new CountDownLatch(1);
+        GroupCommitWriter rejecting = new GroupCommitWriter(batch -> {
+            await(placed);
+            return false;
+        }, 2, 0);
+        List<CompletableFuture<Boolean>> undone = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Bid bid = new Bid(shared.getAuctionId(), "bidder" + i, 1.0 + i);
+            Auction.Placement placement = shared.tryPlaceBid(bid);
+            undone.add(rejecting.submit(bid, () -> shared.revertBid(placement)));
+        }
+        placed.countDown();
+        boolean noneCommitted = undone.stream().noneMatch(CompletableFuture::join);
+        rejecting.shutdown();
+        report("Failed batches restore the leader", noneCommitted && shared.getLeader() == before);
+        
+        // Shutdown drains the queue; bids after it are refused
+        CountDownLatch slowStart = new CountDownLatch(1);
+        GroupCommitWriter draining = new GroupCommitWriter(batch -> {
+            slowStart.countDown();
+            sleep(50);
+            return true;
+        }, 2, 0);
+        List<CompletableFuture<Boolean>> queued = new ArrayList<>();
+        queued.add(draining.submit(testBid(0)));
+        await(slowStart);
+        for (int i = 1; i < 6; i++) {
+            queued.add(draining.submit(testBid(i)));
+        }
+        draining.shutdown();
+        boolean drained = queued.stream().allMatch(f -> f.isDone() && f.join());
+        boolean refused = !draining.submit(testBid(9)).join();
+        report("Shutdown commits what is queued", drained && refused && draining.getCommittedBidCount() == 6);
+        
+        // A committer stuck past the shutdown timeout: what is still queued fails
+        CountDownLatch stuckStart = new CountDownLatch(1);
+        CountDownLatch unstick = new CountDownLatch(1);
+        GroupCommitWriter stuck = new GroupCommitWriter(batch -> {
+            stuckStart.countDown();
+            await(unstick);
+            return true;
+        }, 8, 0);
+        CompletableFuture<Boolean> inFlight = stuck.submit(testBid(0));
+        await(stuckStart);
+        List<CompletableFuture<Boolean>> leftover = new ArrayList<>();
+        for (int i = 1; i < 4; i++) {
+            leftover.add(stuck.submit(testBid(i)));
+        }
+        stuck.shutdown(100);
+        boolean leftoverFailed = leftover.stream().allMatch(f -> f.isDone() && !f.join());
+        unstick.countDown();
+        report("Shutdown fails what is left over", leftoverFailed && inFlight.join());
+        
+        testGroupCommitOrdering();
+    }
+    
+    /**
+     * Against a temporary database: a bid placed on a stale copy of an
+     * auction reaches a later batch with a lower amount than the one
+     * already committed, and must not move the stored highest bid back
+     */
+    private static void testGroupCommitOrdering() {
+        File dbFile;
+        try {
+            dbFile = File.createTempFile("group-commit-test-", ".db");
+        } catch (IOException e) {
+            report("Later batch never lowers the highest bid", false);
+            return;
+        }
+        ConfigManager config = ConfigManager.getInstance();
+        config.setProperty("db.path", dbFile.getAbsolutePath());
+        config.setProperty("db.group.commit.enabled", "true");
+        DatabaseManager db = DatabaseManager.getInstance();
+        try {
+            Auction live = db.createAuction("Test item", "Group commit test", "seller", 10.0, 60, "test");
+            Auction stale = db.loadAuction(live.getAuctionId());
+            Bid.Result high = db.submitBid(new Bid(live.getAuctionId(), "alice", 200.0), live).join();
+            Bid.Result low = db.submitBid(new Bid(live.getAuctionId(), "bob", 150.0), stale).join();
+            Auction stored = db.loadAuction(live.getAuctionId());
+            report("Later batch never lowers the highest bid", db.isGroupCommitEnabled() &&
+                high == Bid.Result.ACCEPTED && low == Bid.Result.ACCEPTED &&
+                db.getBidCount(live.getAuctionId()) == 2 && stored.getCurrentHighestBid() == 200.0 &&
+                "alice".equals(stored.getCurrentHighestBidder()));
+            
+            // No user id violates NOT NULL, so the batch holding it rolls back
+            Bid.Result failed = db.submitBid(new Bid(live.getAuctionId(), null, 300.0), live).join();
+            Auction.Leader leader = live.getLeader();
+            report("Failed bid is taken back off the auction", failed == Bid.Result.FAILED &&
+                leader.getAmount() == 200.0 && "alice".equals(leader.getBidder()) &&
+                db.getBidCount(live.getAuctionId()) == 2);
+            
+            StringBuilder scrape = new StringBuilder();
+            Metrics.writePrometheus(scrape);
+            String text = scrape.toString();
+            report("Statement cache and group commit exported", db.getGroupCommitBatchCount() > 0 &&
+                text.contains("\ndb_group_commit_batches " + db.getGroupCommitBatchCount() + "\n") &&
+                text.contains("\ndb_group_commit_queue_depth 0\n") &&
+                text.contains("\ndb_statement_cache_hits " + db.getStatementCacheHits() + "\n"));
+        } finally {
+            db.close();
+            for (String suffix : new String[] {"", "-wal", "-shm"}) {
+                new File(dbFile.getPath() + suffix).delete();
+            }
+        }
+    }
+    
+    private static void testDatabaseThrottle() {
+        System.out.println("\n--- Testing Database Throttle ---");
+        
+        // Requests to /hold keep their permit until finish is released
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        HttpServer server;
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        } catch (IOException e) {
+            report("503 when no permit comes free", false);
+            return;
+        }
+        server.createContext("/", exchange -> {
+            DatabaseThrottle.Permit permit = DatabaseThrottle.acquire(exchange);
+            if (permit == null) {
+                return;
+            }
+            try {
+                if (exchange.getRequestURI().getPath().equals("/hold")) {
+                    holding.countDown();
+                    await(finish);
+                }
+                ApiResponse.sendJson(exchange, 200, "{}");
+            } finally {
+                permit.release();
+            }
+        });
+        ExecutorService executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String base = "http://localhost:" + server.getAddress().getPort();
+        try {
+            DatabaseThrottle.configure(1, 100);
+            CompletableFuture<HttpResponse<Void>> held = client.sendAsync(
+                HttpRequest.newBuilder(URI.create(base + "/hold")).build(), HttpResponse.BodyHandlers.discarding());
+            await(holding);
+            long start = System.nanoTime();
+            HttpResponse<Void> busy = client.send(HttpRequest.newBuilder(URI.create(base + "/")).build(),
+                HttpResponse.BodyHandlers.discarding());
+            report("503 when no permit comes free", busy.statusCode() == 503 &&
+                "1".equals(busy.headers().firstValue("Retry-After").orElse(null)) &&
+                System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+            
+            // Reconfigured while the permit is held: it goes back to the old limit
+            DatabaseThrottle.configure(2, 100);
+            finish.countDown();
+            boolean heldServed = held.join().statusCode() == 200;
+            sleep(50);
+            StringBuilder scrape = new StringBuilder();
+            Metrics.writePrometheus(scrape);
+            report("Permit released to the limit it came from", heldServed &&
+                scrape.toString().contains("\napi_db_permits_available 2\n"));
+        } catch (IOException e) {
+            report("503 when no permit comes free", false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            DatabaseThrottle.configure(0, 0);
+            finish.countDown();
+            server.stop(0);
+            executor.shutdown();
+        }
+    }
+    
+    private static Bid testBid(int i) {
+        return new Bid("auction-" + (i % 3), "bidder" + i, 10.0 + i);
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void testLogger() {
+        System.out.println("\n--- Testing Logger ---");
+        
+        ConfigManager config = ConfigManager.getInstance();
+        config.setProperty("logging.level.LoggerTest", "DEBUG");
+        config.setProperty("logging.level.QuietLoggerTest", "WARN");
+        Logger log = Logger.get("LoggerTest");
+        Logger quiet = Logger.get("QuietLoggerTest");
+        
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        PrintStream capture = new PrintStream(captured, true);
+        List<Thread> threads = new ArrayList<>();
+        try {
+            System.setOut(capture);
+            System.setErr(capture);
+            log.debug("bid {} on {}", 5, "a1");
+            log.info("only {} of {}", "one");
+            quiet.info("hidden {}", "info");
+            quiet.warn("shown {}", "warning");
+            log.error("failed: {}", new IllegalStateException("boom"));
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        log.debug("event {} {}", thread, i);
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            Logger.flush(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+        }
+        
+        String written = new String(captured.toByteArray(), StandardCharsets.UTF_8);
+        report("Levels and templates", written.contains("DEBUG [LoggerTest] bid 5 on a1")
+            && written.contains("[LoggerTest] only one of {}")
+            && !written.contains("hidden")
+            && written.contains("WARN  [QuietLoggerTest] shown warning")
+            && written.contains("[LoggerTest] failed: java.lang.IllegalStateException: boom")
+            && written.contains("at test.ChatServerTest.testLogger")
+            && quiet.isEnabled(Logger.Level.ERROR) && !quiet.isInfoEnabled());
+        
+        int[] next = new int[4];
+        boolean ordered = true;
+        for (String line : written.split("\\R")) {
+            int at = line.indexOf("] event ");
+            if (at >= 0) {
+                String[] fields = line.substring(at + 8).split(" ");
+                int thread = Integer.parseInt(fields[0]);
+                ordered &= Integer.parseInt(fields[1]) == next[thread]++;
+            }
+        }
+        report("Concurrent events all written, in order", ordered
+            && next[0] == 1000 && next[1] == 1000 && next[2] == 1000 && next[3] == 1000);
+    }
+
+    private static void testMetrics() {
+        System.out.println("\n--- Testing Metrics ---");
+        
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.recordNanos(value * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        boolean accurate = snapshot.getCount() == 100_000 && snapshot.getMaxNanos() == 100_000_000L
+            && snapshot.valueAtQuantile(1.0) == 100_000_000L;
+        for (double quantile : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            double expected = quantile * 100_000_000L;
+            accurate &= Math.abs(snapshot.valueAtQuantile(quantile) - expected) / expected < 0.016;
+        }
+        LatencyHistogram small = new LatencyHistogram();
+        small.recordNanos(3);
+        small.recordNanos(-5);
+        accurate &= small.snapshot().valueAtQuantile(0.5) == 0 && small.snapshot().valueAtQuantile(1.0) == 3
+            && new LatencyHistogram().snapshot().valueAtQuantile(0.99) == 0;
+        report("Histogram quantiles within 1.6%", accurate);
+        
+        LatencyHistogram shared = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 1; i <= 10_000; i++) {
+                    shared.recordNanos(i);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LatencyHistogram.Snapshot total = shared.snapshot();
+        report("Concurrent recording loses nothing", total.getCount() == 40_000
+            && total.getSumNanos() == 4 * 50_005_000L && total.getMaxNanos() == 10_000);
+        
+        Metrics.Counter accepted = Metrics.counter("test_events_total", "Test \"events\"", "result", "ok");
+        Metrics.counter("test_events_total", "Test \"events\"", "result", "ok").add(2);
+        Metrics.gauge("test_depth", "Test depth", () -> 7);
+        Metrics.histogram("test_seconds", "Test latency").recordNanos(1_500_000);
+        boolean rejected = false;
+        try {
+            Metrics.gauge("test_events_total", "Wrong type");
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        StringBuilder text = new StringBuilder();
+        Metrics.writePrometheus(text);
+        String exposition = text.toString();
+        report("Prometheus text format", accepted.get() == 2 && rejected
+            && exposition.contains("# HELP test_events_total Test \"events\"\n# TYPE test_events_total counter\n"
+                + "test_events_total{result=\"ok\"} 2\n")
+            && exposition.contains("# TYPE test_depth gauge\ntest_depth 7\n")
+            && exposition.contains("# TYPE test_seconds summary\n")
+            && exposition.contains("test_seconds{quantile=\"0.5\"} 0.0015")
+            && exposition.contains("test_seconds{quantile=\"1.0\"} 0.0015\n")
+            && exposition.contains("test_seconds_sum 0.0015\ntest_seconds_count 1\n"));
+    }
+    
+    private static boolean rejects(byte[] json) {
+        try {
+            rewrite(json);
+            return false;
+        } catch (JsonReader.MalformedJsonException e) {
+            return true;
+        }
+    }
+    
+    /**
+     * Read every token and write it straight back out
+     */
+    private static byte[] rewrite(byte[] document) {
+        JsonReader reader = new JsonReader(document);
+        try (JsonWriter json = JsonWriter.acquire()) {
+            for (JsonReader.Token token = reader.next(); token != JsonReader.Token.END_DOCUMENT; token = reader.next()) {
+                switch (token) {
+                    case BEGIN_OBJECT: json.beginObject(); break;
+                    case END_OBJECT: json.endObject(); break;
+                    case BEGIN_ARRAY: json.beginArray(); break;
+                    case END_ARRAY: json.endArray(); break;
+                    case NAME: json.name(reader.text()); break;
+                    case STRING: json.value(reader.text()); break;
+                    default: json.rawValue(reader.text());
+                }
+            }
+            return json.toByteArray();
+        }
+    }
+    
+    private static void randomValue(JsonWriter json, Random random, int depth) {
+        switch (random.nextInt(depth < 6 ? 7 : 5)) {
+            case 0: json.value(randomString(random)); break;
+            case 1: json.value(random.nextLong() >> random.nextInt(64)); break;
+            case 2: json.money((random.nextDouble() - 0.3) * 10000); break;
+            case 3: json.value(random.nextBoolean()); break;
+            case 4: json.nullValue(); break;
+            case 5:
+                json.beginArray();
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    randomValue(json, random, depth + 1);
+                }
+                json.endArray();
+                break;
+            default:
+                json.beginObject();
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    json.name(randomString(random));
+                    randomValue(json, random, depth + 1);
+                }
+                json.endObject();
+        }
+    }
+    
+    private static String randomString(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(8); i > 0; i--) {
+            switch (random.nextInt(5)) {
+                case 0: text.append((char) random.nextInt(0x20)); break;
+                case 1: text.append("\"\\/".charAt(random.nextInt(3))); break;
+                case 2: text.append((char) (0xA0 + random.nextInt(0xD700))); break;
+                case 3: text.appendCodePoint(0x10000 + random.nextInt(0x1000)); break;
+                default: text.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        return text.toString();
+    }
+    
+    private static void report(String name, boolean passed) {
+        System.out.println(name + ": " + (passed ? "PASSED" : "FAILED"));
+    }
+    
+    private static List<String> decodeInChunks(byte[] stream, int chunkSize) {
+        List<String> received = new ArrayList<>();
+        WebSocketFrameDecoder decoder = new WebSocketFrameDecoder(1 << 20, collector(received));
+        try {
+            for (int offset = 0; offset < stream.length; offset += chunkSize) {
+                decoder.decode(ByteBuffer.wrap(stream, offset, Math.min(chunkSize, stream.length - offset)));
+            }
+        } catch (ProtocolException e) {
+            received.add("ERROR: " + e.getMessage());
+        }
+        return received;
+    }
+    
+    private static WebSocketFrameDecoder.FrameListener collector(List<String> received) {
+        return new WebSocketFrameDecoder.FrameListener() {
+            @Override
+            public void onText(String message) {
+                received.add(message);
+            }
+            
+            @Override
+            public void onPing(byte[] payload) {
+                received.add("PING");
+            }
+            
+            @Override
+            public void onClose() {
+                received.add("CLOSE");
+            }
+        };
+    }
+    
+    /**
+     * Build a client frame; firstByte holds the FIN bit and opcode
+     */
+    private static byte[] maskedFrame(int firstByte, String text) {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(14 + payload.length);
+        frame.put((byte) firstByte);
+        if (payload.length < 126) {
+            frame.put((byte) (0x80 | payload.length));
+        } else if (payload.length < 65536) {
+            frame.put((byte) (0x80 | 126));
+            frame.putShort((short) payload.length);
+        } else {
+            frame.put((byte) (0x80 | 127));
+            frame.putLong(payload.length);
+        }
+        byte[] key = {(byte) 0x12, (byte) 0x34, (byte) 0x56, (byte) 0x78};
+        frame.put(key);
+        for (int i = 0; i < payload.length; i++) {
+            frame.put((byte) (payload[i] ^ key[i % 4]));
+        }
+        byte[] result = new byte[frame.position()];
+        frame.flip();
+        frame.get(result);
+        return result;
+    }
+    
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
 }